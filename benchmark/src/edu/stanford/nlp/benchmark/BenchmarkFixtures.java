@@ -0,0 +1,327 @@
+package edu.stanford.nlp.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import edu.stanford.nlp.ie.crf.CRFClassifier;
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.io.RuntimeIOException;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import edu.stanford.nlp.parser.lexparser.Options;
+import edu.stanford.nlp.parser.nndep.DependencyParser;
+import edu.stanford.nlp.parser.shiftreduce.ShiftReduceParser;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.ParserAnnotatorUtils;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+import edu.stanford.nlp.trees.GrammaticalStructure;
+import edu.stanford.nlp.trees.GrammaticalStructureFactory;
+import edu.stanford.nlp.trees.LabeledScoredTreeFactory;
+import edu.stanford.nlp.trees.MemoryTreebank;
+import edu.stanford.nlp.trees.PennTreeReader;
+import edu.stanford.nlp.trees.PennTreebankLanguagePack;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeReader;
+import edu.stanford.nlp.trees.Treebank;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.Filters;
+import edu.stanford.nlp.util.StringUtils;
+
+/**
+ * The data and models used by the benchmarks.
+ * <br>
+ * Everything is built from the small fixtures in this package: a few
+ * dozen hand written Penn Treebank trees, the same sentences labeled
+ * with named entities, and a paragraph of raw text.  The models are
+ * trained from the fixtures, with fixed seeds where training is
+ * random, the first time a benchmark asks for them, so the benchmarks
+ * need none of the model jars.  The models are far too small to be
+ * accurate, but their features and search are the same as those of the
+ * real models, which is what the benchmarks measure.
+ * <br>
+ * Each model is trained at most once per JVM.  JMH forks a new JVM for
+ * each benchmark, and the training is done in the benchmark setup, so
+ * it is never part of a measurement.
+ */
+public class BenchmarkFixtures {
+
+  private static final String FIXTURE_PATH = "edu/stanford/nlp/benchmark/";
+
+  private BenchmarkFixtures() {} // static methods only
+
+  private static File tempDir;
+
+  private static List<Tree> trees;
+  private static MaxentTagger tagger;
+  private static CRFClassifier<CoreLabel> crf;
+  private static DependencyParser dependencyParser;
+  private static ShiftReduceParser shiftReduceParser;
+  private static LexicalizedParser lexicalizedParser;
+
+  private static String readFixture(String name) {
+    try {
+      return IOUtils.slurpReader(IOUtils.readerFromString(FIXTURE_PATH + name));
+    } catch (IOException e) {
+      throw new RuntimeIOException("Could not read the benchmark fixture " + name, e);
+    }
+  }
+
+  /**
+   * A file in the temporary directory of the fixtures.  The directory,
+   * with whatever else training writes next to its files, is deleted by
+   * {@link #deleteTempFiles}.
+   */
+  private static synchronized File tempFile(String name) {
+    try {
+      if (tempDir == null) {
+        tempDir = File.createTempFile("corenlp-benchmark", "");
+        if (!tempDir.delete() || !tempDir.mkdir()) {
+          throw new IOException("Could not create " + tempDir);
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeIOException(e);
+    }
+    return new File(tempDir, name);
+  }
+
+  /**
+   * Deletes the temporary directory holding the training files and
+   * models of the fixtures.  Models already loaded are kept, so this is
+   * called in the trial tear down of the benchmarks which train them.
+   */
+  public static synchronized void deleteTempFiles() {
+    if (tempDir != null) {
+      if (!IOUtils.deleteDirRecursively(tempDir)) {
+        System.err.println("Could not delete " + tempDir);
+      }
+      tempDir = null;
+    }
+  }
+
+  /** Writes the text to a temporary file and returns its path */
+  private static String writeTempFile(String name, String text) {
+    File file = tempFile(name);
+    try (PrintWriter writer = IOUtils.getPrintWriter(file)) {
+      writer.print(text);
+    } catch (IOException e) {
+      throw new RuntimeIOException(e);
+    }
+    return file.getPath();
+  }
+
+  /** The raw text of the tokenizer fixture */
+  public static String text() {
+    return readFixture("text.txt");
+  }
+
+  /** Fresh copies of the trees of the treebank fixture */
+  public static synchronized List<Tree> trees() {
+    if (trees == null) {
+      List<Tree> read = new ArrayList<>();
+      try {
+        TreeReader reader = new PennTreeReader(new StringReader(readFixture("trees.mrg")), new LabeledScoredTreeFactory());
+        for (Tree tree; (tree = reader.readTree()) != null; ) {
+          read.add(tree);
+        }
+      } catch (IOException e) {
+        throw new RuntimeIOException(e);
+      }
+      trees = Collections.unmodifiableList(read);
+    }
+    List<Tree> copies = new ArrayList<>();
+    for (Tree tree : trees) {
+      copies.add(tree.deepCopy());
+    }
+    return copies;
+  }
+
+  /** The sentences of the treebank fixture, with their gold tags */
+  public static List<List<TaggedWord>> taggedSentences() {
+    List<List<TaggedWord>> sentences = new ArrayList<>();
+    for (Tree tree : trees()) {
+      sentences.add(tree.taggedYield());
+    }
+    return sentences;
+  }
+
+  /** The sentences of the named entity fixture, with their gold answers */
+  public static List<List<CoreLabel>> nerDocuments() {
+    List<List<CoreLabel>> documents = new ArrayList<>();
+    List<CoreLabel> document = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new StringReader(readFixture("ner.tsv")))) {
+      for (String line; (line = reader.readLine()) != null; ) {
+        if (line.trim().isEmpty()) {
+          if (!document.isEmpty()) {
+            documents.add(document);
+            document = new ArrayList<>();
+          }
+          continue;
+        }
+        String[] fields = line.split("\t");
+        CoreLabel token = new CoreLabel();
+        token.setWord(fields[0]);
+        token.setValue(fields[0]);
+        token.set(CoreAnnotations.AnswerAnnotation.class, fields[1]);
+        document.add(token);
+      }
+    } catch (IOException e) {
+      throw new RuntimeIOException(e);
+    }
+    if (!document.isEmpty()) {
+      documents.add(document);
+    }
+    return documents;
+  }
+
+  private static String treebankFile() {
+    StringBuilder sb = new StringBuilder();
+    for (Tree tree : trees()) {
+      sb.append(tree.toString()).append('\n');
+    }
+    return writeTempFile("trees.mrg", sb.toString());
+  }
+
+  /** A left3words tagger trained on the treebank fixture */
+  public static synchronized MaxentTagger tagger() {
+    if (tagger == null) {
+      String model = tempFile("english.tagger").getPath();
+      try {
+        MaxentTagger.main(new String[] { "-model", model,
+                                         "-trainFile", "format=TREES," + treebankFile(),
+                                         "-arch", "left3words,naacl2003unknowns",
+                                         "-tagSeparator", "_" });
+      } catch (Exception e) {
+        throw new RuntimeException("Could not train the benchmark tagger", e);
+      }
+      tagger = new MaxentTagger(model);
+    }
+    return tagger;
+  }
+
+  /** A CRF named entity recognizer trained on the named entity fixture */
+  public static synchronized CRFClassifier<CoreLabel> crfClassifier() {
+    if (crf == null) {
+      Properties props = StringUtils.argsToProperties("-useClassFeature", "-useWord", "-useNGrams", "-noMidNGrams",
+                                                      "-maxNGramLeng", "6", "-usePrev", "-useNext",
+                                                      "-useSequences", "-usePrevSequences", "-maxLeft", "1",
+                                                      "-useTypeSeqs", "-useTypeSeqs2", "-useTypeySequences",
+                                                      "-wordShape", "chris2useLC", "-useDisjunctive");
+      crf = new CRFClassifier<>(props);
+      crf.train(nerDocuments());
+    }
+    return crf;
+  }
+
+  /** The Stanford basic dependencies of the treebank fixture, with punctuation, in CoNLL-X format */
+  private static String conllFile() {
+    GrammaticalStructureFactory gsf = new PennTreebankLanguagePack().grammaticalStructureFactory(Filters.acceptFilter());
+    StringBuilder sb = new StringBuilder();
+    for (Tree tree : trees()) {
+      GrammaticalStructure gs = gsf.newGrammaticalStructure(tree);
+      sb.append(GrammaticalStructure.dependenciesToString(gs, gs.typedDependencies(), tree, true, false));
+      sb.append('\n');
+    }
+    return writeTempFile("deps.conllx", sb.toString());
+  }
+
+  /** A neural network dependency parser trained on the treebank fixture, with random embeddings */
+  public static synchronized DependencyParser dependencyParser() {
+    if (dependencyParser == null) {
+      String model = tempFile("english.nndep.txt.gz").getPath();
+      Properties props = StringUtils.argsToProperties("-maxIter", "100", "-trainingThreads", "1");
+      new DependencyParser(props).train(conllFile(), model);
+      dependencyParser = DependencyParser.loadFromModelFile(model);
+    }
+    return dependencyParser;
+  }
+
+  /** A shift-reduce parser trained on the treebank fixture with gold tags */
+  public static synchronized ShiftReduceParser shiftReduceParser() {
+    if (shiftReduceParser == null) {
+      String model = tempFile("english.srparser.ser.gz").getPath();
+      ShiftReduceParser.main(new String[] { "-trainTreebank", treebankFile(),
+                                            "-serializedPath", model,
+                                            "-trainingIterations", "10",
+                                            "-averagedModels", "0",
+                                            "-randomSeed", "1234",
+                                            "-trainingThreads", "1" });
+      shiftReduceParser = ShiftReduceParser.loadModel(model);
+    }
+    return shiftReduceParser;
+  }
+
+  /** A PCFG parser trained on the treebank fixture */
+  public static synchronized LexicalizedParser lexicalizedParser() {
+    if (lexicalizedParser == null) {
+      Options op = new Options();
+      op.doDep = false;
+      op.doPCFG = true;
+      op.setOptions("-goodPCFG", "-evals", "tsv");
+      Treebank treebank = new MemoryTreebank();
+      treebank.addAll(trees());
+      lexicalizedParser = LexicalizedParser.trainFromTreebank(treebank, op);
+    }
+    return lexicalizedParser;
+  }
+
+  /**
+   * A document with tokens, sentences, named entities, parse trees and
+   * dependency graphs, as the full pipeline would produce, built from
+   * the fixtures without running any of the statistical annotators.
+   */
+  public static Annotation annotation() {
+    List<Tree> trees = trees();
+    List<List<CoreLabel>> nerDocuments = nerDocuments();
+    StringBuilder text = new StringBuilder();
+    for (Tree tree : trees) {
+      text.append(StringUtils.joinWords(tree.yieldWords(), " ")).append(' ');
+    }
+
+    Properties props = StringUtils.argsToProperties("-annotators", "tokenize,ssplit",
+                                                    "-tokenize.whitespace", "true");
+    Annotation annotation = new Annotation(text.toString());
+    new StanfordCoreNLP(props).annotate(annotation);
+
+    GrammaticalStructureFactory gsf = new PennTreebankLanguagePack().grammaticalStructureFactory();
+    List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+    for (int i = 0; i < sentences.size(); i++) {
+      CoreMap sentence = sentences.get(i);
+      List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+      List<CoreLabel> answers = nerDocuments.get(i);
+      for (int j = 0; j < tokens.size(); j++) {
+        tokens.get(j).setNER(answers.get(j).get(CoreAnnotations.AnswerAnnotation.class));
+      }
+      // the leaves of a parse are copies of the tokens, as in the parser annotator
+      Tree tree = trees.get(i);
+      List<Tree> leaves = tree.getLeaves();
+      for (int j = 0; j < leaves.size(); j++) {
+        leaves.get(j).setLabel(new CoreLabel(tokens.get(j)));
+      }
+      ParserAnnotatorUtils.fillInParseAnnotations(false, true, gsf, sentence, tree, GrammaticalStructure.Extras.NONE);
+    }
+    return annotation;
+  }
+
+  /** The collapsed, cc-processed dependency graphs of the sentences of {@link #annotation} */
+  public static List<SemanticGraph> dependencyGraphs() {
+    List<SemanticGraph> graphs = new ArrayList<>();
+    for (CoreMap sentence : annotation().get(CoreAnnotations.SentencesAnnotation.class)) {
+      graphs.add(sentence.get(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class));
+    }
+    return graphs;
+  }
+
+}
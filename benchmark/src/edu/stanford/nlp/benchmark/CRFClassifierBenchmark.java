@@ -0,0 +1,60 @@
+package edu.stanford.nlp.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.stanford.nlp.ie.crf.CRFClassifier;
+import edu.stanford.nlp.ling.CoreLabel;
+
+/**
+ * Labels the sentences of the named entity fixture with
+ * {@link CRFClassifier#classify}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CRFClassifierBenchmark {
+
+  private CRFClassifier<CoreLabel> crf;
+  private List<List<CoreLabel>> documents;
+
+  @Setup
+  public void setUp() {
+    crf = BenchmarkFixtures.crfClassifier();
+    documents = new ArrayList<>();
+    for (List<CoreLabel> document : BenchmarkFixtures.nerDocuments()) {
+      List<CoreLabel> words = new ArrayList<>();
+      for (CoreLabel token : document) {
+        CoreLabel word = new CoreLabel();
+        word.setWord(token.word());
+        word.setValue(token.word());
+        words.add(word);
+      }
+      documents.add(words);
+    }
+  }
+
+  @Benchmark
+  public void classify(Blackhole blackhole) {
+    for (List<CoreLabel> document : documents) {
+      blackhole.consume(crf.classify(document));
+    }
+  }
+
+}
@@ -0,0 +1,101 @@
+package edu.stanford.nlp.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.stanford.nlp.trees.EnglishGrammaticalRelations;
+import edu.stanford.nlp.trees.EnglishGrammaticalStructure;
+import edu.stanford.nlp.trees.GrammaticalRelation;
+import edu.stanford.nlp.trees.GrammaticalRelationMatcher;
+import edu.stanford.nlp.trees.HeadFinder;
+import edu.stanford.nlp.trees.SemanticHeadFinder;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeGraphNode;
+
+/**
+ * Converts the trees of the treebank fixture to Stanford dependencies.
+ * {@code convert} measures the whole of building an
+ * {@link EnglishGrammaticalStructure}.  The other two measure only
+ * finding the nodes the relations relate, in trees already prepared for
+ * it, first with each relation's own
+ * {@link GrammaticalRelation#getRelatedNodes}, as conversion used to,
+ * and then with a {@link GrammaticalRelationMatcher} for all of them, as
+ * it does now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GrammaticalStructureBenchmark {
+
+  private List<Tree> trees;
+  private List<TreeGraphNode> roots;
+  private HeadFinder headFinder;
+  private Collection<GrammaticalRelation> relations;
+
+  @Setup
+  public void setUp() {
+    trees = BenchmarkFixtures.trees();
+    headFinder = new SemanticHeadFinder(true);
+    relations = EnglishGrammaticalRelations.values();
+    roots = new ArrayList<>();
+    for (Tree tree : trees) {
+      roots.add(new EnglishGrammaticalStructure(tree.deepCopy()).root());
+    }
+  }
+
+  @Benchmark
+  public void convert(Blackhole blackhole) {
+    for (Tree tree : trees) {
+      blackhole.consume(new EnglishGrammaticalStructure(tree).typedDependencies());
+    }
+  }
+
+  @Benchmark
+  public void relatedNodesByRelation(Blackhole blackhole) {
+    for (TreeGraphNode root : roots) {
+      for (Tree node : root) {
+        TreeGraphNode t = (TreeGraphNode) node;
+        if ( ! t.isPhrasal()) {
+          continue;
+        }
+        for (GrammaticalRelation relation : relations) {
+          if (relation.isApplicable(t)) {
+            blackhole.consume(relation.getRelatedNodes(t, root, headFinder));
+          }
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void relatedNodesByMatcher(Blackhole blackhole) {
+    GrammaticalRelationMatcher matcher = GrammaticalRelationMatcher.forRelations(relations);
+    for (TreeGraphNode root : roots) {
+      GrammaticalRelationMatcher.TreeMatcher treeMatcher = matcher.matcher(root, headFinder);
+      for (Tree node : root) {
+        TreeGraphNode t = (TreeGraphNode) node;
+        if (t.isPhrasal()) {
+          blackhole.consume(treeMatcher.relatedNodes(t));
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,113 @@
+package edu.stanford.nlp.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.stanford.nlp.util.Interner;
+import edu.stanford.nlp.util.concurrent.ConcurrentInterner;
+import edu.stanford.nlp.util.concurrent.SynchronizedInterner;
+
+/**
+ * Interns copies of words drawn from a Zipfian vocabulary, which is
+ * roughly what the tokenizer and parser do, so most calls find a word
+ * which is already interned.  Every thread shares one interner of the
+ * kind given by the {@code interner} parameter: a plain {@link Interner},
+ * a {@link SynchronizedInterner} around one, or a
+ * {@link ConcurrentInterner}.  Each operation is 1000 calls.
+ * <br>
+ * The interesting number is how the throughput scales with the number of
+ * threads, which is given to JMH with {@code -t}, for example:
+ * <code>gradle jmh -PjmhArgs="-t 8 InternerBenchmark"</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class InternerBenchmark {
+
+  private static final int VOCABULARY_SIZE = 50000;
+  private static final int CALLS_PER_INVOCATION = 1000;
+
+  @Param({"Interner", "Synchronized", "Concurrent"})
+  public String interner;
+
+  private String[] vocabulary;
+  private double[] cumulative;
+  private double total;
+  private Interner<String> plain;
+  private SynchronizedInterner<String> synchronizedInterner;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(1234);
+    vocabulary = new String[VOCABULARY_SIZE];
+    cumulative = new double[VOCABULARY_SIZE];
+    for (int i = 0; i < VOCABULARY_SIZE; i++) {
+      vocabulary[i] = "w" + Integer.toString(random.nextInt(), 36) + i;
+      total += 1.0 / (i + 1);
+      cumulative[i] = total;
+    }
+    switch (interner) {
+      case "Interner":
+        plain = new Interner<>();
+        break;
+      case "Synchronized":
+        synchronizedInterner = new SynchronizedInterner<>(new Interner<>());
+        break;
+      case "Concurrent":
+        plain = new ConcurrentInterner<>();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown interner: " + interner);
+    }
+  }
+
+  /** The words each thread interns, as fresh copies of the vocabulary words */
+  @State(Scope.Thread)
+  public static class Calls {
+    String[] words;
+
+    @Setup
+    public void setUp(InternerBenchmark benchmark) {
+      Random random = new Random(Thread.currentThread().getId());
+      words = new String[CALLS_PER_INVOCATION];
+      for (int i = 0; i < words.length; i++) {
+        int index = Arrays.binarySearch(benchmark.cumulative, random.nextDouble() * benchmark.total);
+        if (index < 0) {
+          index = -index - 1;
+        }
+        words[i] = new String(benchmark.vocabulary[Math.min(index, benchmark.vocabulary.length - 1)]);
+      }
+    }
+  }
+
+  @Benchmark
+  public void intern(Calls calls, Blackhole blackhole) {
+    if (synchronizedInterner != null) {
+      for (String word : calls.words) {
+        blackhole.consume(synchronizedInterner.intern(word));
+      }
+    } else {
+      for (String word : calls.words) {
+        blackhole.consume(plain.intern(word));
+      }
+    }
+  }
+
+}
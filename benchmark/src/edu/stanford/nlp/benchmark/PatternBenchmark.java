@@ -0,0 +1,97 @@
+package edu.stanford.nlp.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.semgrex.SemgrexMatcher;
+import edu.stanford.nlp.semgraph.semgrex.SemgrexPattern;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.tregex.TregexMatcher;
+import edu.stanford.nlp.trees.tregex.TregexPattern;
+
+/**
+ * Finds every match of a few typical {@link TregexPattern}s in the trees
+ * of the treebank fixture, and of a few {@link SemgrexPattern}s in their
+ * dependency graphs.  The patterns are compiled in the setup, so only
+ * the matching is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PatternBenchmark {
+
+  private static final String[] TREGEX = {
+    "NP < NNP",
+    "VP < (NP $+ PP)",
+    "S < (NP=subj $++ VP=pred)",
+    "/^NN/ >> (PP > VP)",
+    "SBAR < (S < (VP <<, /^VB/))",
+  };
+
+  private static final String[] SEMGREX = {
+    "{tag:/VB.*/}=verb >nsubj {}=subj",
+    "{}=gov >/prep_.*/ {tag:NNP}=dep",
+    "{tag:/VB.*/} >dobj ({} >det {})",
+    "{word:/[A-Z].*/} <nn {}",
+  };
+
+  private List<Tree> trees;
+  private List<SemanticGraph> graphs;
+  private TregexPattern[] tregexPatterns;
+  private SemgrexPattern[] semgrexPatterns;
+
+  @Setup
+  public void setUp() {
+    trees = BenchmarkFixtures.trees();
+    graphs = BenchmarkFixtures.dependencyGraphs();
+    tregexPatterns = new TregexPattern[TREGEX.length];
+    for (int i = 0; i < TREGEX.length; i++) {
+      tregexPatterns[i] = TregexPattern.compile(TREGEX[i]);
+    }
+    semgrexPatterns = new SemgrexPattern[SEMGREX.length];
+    for (int i = 0; i < SEMGREX.length; i++) {
+      semgrexPatterns[i] = SemgrexPattern.compile(SEMGREX[i]);
+    }
+  }
+
+  @Benchmark
+  public void tregex(Blackhole blackhole) {
+    for (TregexPattern pattern : tregexPatterns) {
+      for (Tree tree : trees) {
+        TregexMatcher matcher = pattern.matcher(tree);
+        while (matcher.find()) {
+          blackhole.consume(matcher.getMatch());
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void semgrex(Blackhole blackhole) {
+    for (SemgrexPattern pattern : semgrexPatterns) {
+      for (SemanticGraph graph : graphs) {
+        SemgrexMatcher matcher = pattern.matcher(graph);
+        while (matcher.find()) {
+          blackhole.consume(matcher.getMatch());
+        }
+      }
+    }
+  }
+
+}
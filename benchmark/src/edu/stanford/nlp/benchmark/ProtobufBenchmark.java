@@ -0,0 +1,71 @@
+package edu.stanford.nlp.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.CoreNLPProtos;
+import edu.stanford.nlp.pipeline.ProtobufAnnotationSerializer;
+
+/**
+ * Serializes a fully annotated document with the
+ * {@link ProtobufAnnotationSerializer}, and reads it back.
+ * The document has the tokens, named entities, trees and dependency
+ * graphs of the treebank fixture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProtobufBenchmark {
+
+  private ProtobufAnnotationSerializer serializer;
+  private Annotation annotation;
+  private CoreNLPProtos.Document proto;
+  private byte[] bytes;
+
+  @Setup
+  public void setUp() throws IOException {
+    serializer = new ProtobufAnnotationSerializer();
+    annotation = BenchmarkFixtures.annotation();
+    proto = serializer.toProto(annotation);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    serializer.write(annotation, out).close();
+    bytes = out.toByteArray();
+  }
+
+  @Benchmark
+  public CoreNLPProtos.Document toProto() {
+    return serializer.toProto(annotation);
+  }
+
+  @Benchmark
+  public Annotation fromProto() {
+    return serializer.fromProto(proto);
+  }
+
+  /** The whole round trip through bytes, as when annotations are stored or sent to a server */
+  @Benchmark
+  public void roundTrip(Blackhole blackhole) throws IOException, ClassNotFoundException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+    serializer.write(annotation, out).close();
+    blackhole.consume(serializer.read(new ByteArrayInputStream(out.toByteArray())).first);
+  }
+
+}
@@ -0,0 +1,56 @@
+package edu.stanford.nlp.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.parser.shiftreduce.ShiftReduceParser;
+
+/**
+ * Parses the gold tagged sentences of the treebank fixture with a
+ * {@link ShiftReduceParser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ShiftReduceParserBenchmark {
+
+  private ShiftReduceParser parser;
+  private List<List<TaggedWord>> sentences;
+
+  @Setup
+  public void setUp() {
+    parser = BenchmarkFixtures.shiftReduceParser();
+    sentences = BenchmarkFixtures.taggedSentences();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkFixtures.deleteTempFiles();
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) {
+    for (List<TaggedWord> sentence : sentences) {
+      blackhole.consume(parser.parse(sentence));
+    }
+  }
+
+}
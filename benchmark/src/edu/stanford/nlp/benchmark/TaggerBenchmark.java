@@ -0,0 +1,66 @@
+package edu.stanford.nlp.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.ling.Word;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+
+/**
+ * Tags the sentences of the treebank fixture with
+ * {@link MaxentTagger#tagSentence}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TaggerBenchmark {
+
+  private MaxentTagger tagger;
+  private List<List<HasWord>> sentences;
+
+  @Setup
+  public void setUp() {
+    tagger = BenchmarkFixtures.tagger();
+    sentences = new ArrayList<>();
+    for (List<TaggedWord> tagged : BenchmarkFixtures.taggedSentences()) {
+      List<HasWord> sentence = new ArrayList<>();
+      for (TaggedWord word : tagged) {
+        sentence.add(new Word(word.word()));
+      }
+      sentences.add(sentence);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkFixtures.deleteTempFiles();
+  }
+
+  @Benchmark
+  public void tagSentence(Blackhole blackhole) {
+    for (List<HasWord> sentence : sentences) {
+      blackhole.consume(tagger.tagSentence(sentence));
+    }
+  }
+
+}
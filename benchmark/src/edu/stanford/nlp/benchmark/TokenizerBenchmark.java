@@ -0,0 +1,52 @@
+package edu.stanford.nlp.benchmark;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.process.CoreLabelTokenFactory;
+import edu.stanford.nlp.process.PTBTokenizer;
+
+/**
+ * Tokenizes the text fixture with the PTBLexer, through a
+ * {@link PTBTokenizer} making CoreLabels as the CoreNLP tokenize
+ * annotator does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TokenizerBenchmark {
+
+  private String text;
+  private CoreLabelTokenFactory tokenFactory;
+
+  @Setup
+  public void setUp() {
+    text = BenchmarkFixtures.text();
+    tokenFactory = new CoreLabelTokenFactory();
+  }
+
+  @Benchmark
+  public void tokenize(Blackhole blackhole) {
+    PTBTokenizer<CoreLabel> tokenizer = new PTBTokenizer<>(new StringReader(text), tokenFactory, "invertible,ptb3Escaping=true");
+    while (tokenizer.hasNext()) {
+      blackhole.consume(tokenizer.next());
+    }
+  }
+
+}
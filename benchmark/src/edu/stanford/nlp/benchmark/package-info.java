@@ -0,0 +1,23 @@
+/**
+ * <p>
+ * JMH microbenchmarks of the hot paths of the CoreNLP annotators: the
+ * PTBLexer, the MaxentTagger, the CRFClassifier, the neural network
+ * DependencyParser, the ShiftReduceParser and LexicalizedParser,
+ * Tregex and Semgrex matching, the ProtobufAnnotationSerializer, and the
+ * interners.
+ * </p>
+ * <p>
+ * The benchmarks need none of the model jars.  The models they use are
+ * trained from the small fixtures in this package by
+ * {@link edu.stanford.nlp.benchmark.BenchmarkFixtures}, so the numbers
+ * can be compared from one commit to the next on any machine.
+ * </p>
+ * <p>
+ * The benchmarks are the <code>jmh</code> source set of the Gradle build.
+ * To run all of them: <code>gradle jmh</code>.  Options are passed to
+ * JMH with <code>-PjmhArgs</code>, for example to run only the parser
+ * benchmarks with three forks:
+ * <code>gradle jmh -PjmhArgs="-f 3 Parser"</code>.
+ * </p>
+ */
+package edu.stanford.nlp.benchmark;
@@ -293,7 +293,7 @@ public class ColumnDataClassifier {
 
   private RVFDatum<String,String> makeRVFDatumFromStrings(String[] strings) {
     if (globalFlags.featureFormat) {
-      ClassicCounter<String> theFeatures = new ClassicCounter<String>();
+      Counter<String> theFeatures = Counters.newCounter();
       for (int i = 0; i < strings.length; i++) {
         if (i != globalFlags.goldAnswerColumn) {
           if (flags[i] != null && (flags[i].isRealValued || flags[i].logTransform || flags[i].logitTransform || flags[i].sqrtTransform)) {
@@ -847,15 +847,15 @@ public class ColumnDataClassifier {
    */
   private RVFDatum<String,String> makeRVFDatum(String[] strs) {
     String goldAnswer = globalFlags.goldAnswerColumn < strs.length ? strs[globalFlags.goldAnswerColumn]: "";
-    ClassicCounter<String> theFeatures = new ClassicCounter<String>();
-    ClassicCounter<String> globalFeatures = new ClassicCounter<String>();
+    Counter<String> theFeatures = Counters.newCounter();
+    Counter<String> globalFeatures = Counters.newCounter();
     if (globalFlags.useClassFeature) {
       globalFeatures.setCount("CLASS", 1.0);
     }
     addAllInterningAndPrefixingRVF(theFeatures, globalFeatures, "");
 
     for (int i = 0; i < flags.length; i++) {
-      ClassicCounter<String> featuresC = new ClassicCounter<String>();
+      Counter<String> featuresC = Counters.newCounter();
       makeDatum(strs[i], flags[i], featuresC, goldAnswer);
       addAllInterningAndPrefixingRVF(theFeatures, featuresC, i + "-");
     }
@@ -867,7 +867,7 @@ public class ColumnDataClassifier {
     return new RVFDatum<String,String>(theFeatures, goldAnswer);
   }
 
-  private void addAllInterningAndPrefixingRVF(ClassicCounter<String> accumulator, ClassicCounter<String> addend, String prefix) {
+  private void addAllInterningAndPrefixingRVF(Counter<String> accumulator, Counter<String> addend, String prefix) {
     assert prefix != null;
     for (String protoFeat : addend.keySet()) {
       double count = addend.getCount(protoFeat);
@@ -1283,7 +1283,7 @@ public class ColumnDataClassifier {
     cliqueWriter = null;
   }
 
-  private static void printFeatures(String[] wi, ClassicCounter<String> features) {
+  private static void printFeatures(String[] wi, Counter<String> features) {
     if (cliqueWriter != null) {
       for (int i = 0; i < wi.length; i++) {
         if (i > 0) {
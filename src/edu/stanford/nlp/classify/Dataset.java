@@ -357,8 +357,8 @@ public class Dataset<L, F> extends GeneralDataset<L, F> {
 
   @Override
   protected final void initialize(int numDatums) {
-    labelIndex = new HashIndex<L>();
-    featureIndex = new HashIndex<F>();
+    labelIndex = Generics.newIndex();
+    featureIndex = Generics.newIndex();
     labels = new int[numDatums];
     data = new int[numDatums][];
     size = 0;
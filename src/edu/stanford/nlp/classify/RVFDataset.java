@@ -473,8 +473,8 @@ public class RVFDataset<L, F> extends GeneralDataset<L, F> { // implements Itera
 
   @Override
   protected void initialize(int numDatums) {
-    labelIndex = new HashIndex<L>();
-    featureIndex = new HashIndex<F>();
+    labelIndex = Generics.newIndex();
+    featureIndex = Generics.newIndex();
     labels = new int[numDatums];
     data = new int[numDatums][];
     values = new double[numDatums][];
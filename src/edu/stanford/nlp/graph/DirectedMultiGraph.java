@@ -34,10 +34,19 @@ public class DirectedMultiGraph<V, E> implements Graph<V, E> /* Serializable */{
   }
 
   public DirectedMultiGraph(MapFactory<V, Map<V, List<E>>> outerMapFactory, MapFactory<V, List<E>> innerMapFactory) {
+    this(outerMapFactory, innerMapFactory, outerMapFactory.newMap(), outerMapFactory.newMap());
+  }
+
+  /**
+   * For a graph which keeps its edges some other way, and so passes null
+   * maps and overrides every method which uses them.
+   */
+  DirectedMultiGraph(MapFactory<V, Map<V, List<E>>> outerMapFactory, MapFactory<V, List<E>> innerMapFactory,
+                     Map<V, Map<V, List<E>>> outgoingEdges, Map<V, Map<V, List<E>>> incomingEdges) {
     this.outerMapFactory = outerMapFactory;
     this.innerMapFactory = innerMapFactory;
-    this.outgoingEdges = outerMapFactory.newMap();
-    this.incomingEdges = outerMapFactory.newMap();
+    this.outgoingEdges = outgoingEdges;
+    this.incomingEdges = incomingEdges;
   }
 
   /**
@@ -48,6 +57,19 @@ public class DirectedMultiGraph<V, E> implements Graph<V, E> /* Serializable */{
    */
   public DirectedMultiGraph(DirectedMultiGraph<V,E> graph) {
     this(graph.outerMapFactory, graph.innerMapFactory);
+    if (graph instanceof FrozenDirectedMultiGraph) {
+      for (V vertex : graph.getAllVertices()) {
+        addVertex(vertex);
+      }
+      for (V source : graph.getAllVertices()) {
+        for (V dest : graph.getChildren(source)) {
+          for (E edge : graph.getEdges(source, dest)) {
+            add(source, dest, edge);
+          }
+        }
+      }
+      return;
+    }
     for (Map.Entry<V, Map<V, List<E>>> map : graph.outgoingEdges.entrySet()) {
       Map<V, List<E>> edgesCopy = innerMapFactory.newMap();
       for (Map.Entry<V, List<E>> entry : map.getValue().entrySet()) {
@@ -69,7 +91,7 @@ public class DirectedMultiGraph<V, E> implements Graph<V, E> /* Serializable */{
    * will throw off the hash code, messing up your hash table
    */
   public int hashCode() {
-    return outgoingEdges.hashCode();
+    return outgoingEdges().hashCode();
   }
 
   public boolean equals(Object that) {
@@ -77,7 +99,15 @@ public class DirectedMultiGraph<V, E> implements Graph<V, E> /* Serializable */{
       return true;
     if (!(that instanceof DirectedMultiGraph))
       return false;
-    return outgoingEdges.equals(((DirectedMultiGraph<?, ?>) that).outgoingEdges);
+    return outgoingEdges().equals(((DirectedMultiGraph<?, ?>) that).outgoingEdges());
+  }
+
+  /**
+   * The edges out of each vertex, by destination.  A graph which keeps
+   * its edges some other way builds this map.
+   */
+  Map<V, Map<V, List<E>>> outgoingEdges() {
+    return outgoingEdges;
   }
 
   /**
@@ -385,7 +415,7 @@ public class DirectedMultiGraph<V, E> implements Graph<V, E> /* Serializable */{
    * direction insensitive (the paths can go "up" or through the parents)
    */
   public List<V> getShortestPath(V node1, V node2) {
-    if (!outgoingEdges.containsKey(node1) || !outgoingEdges.containsKey(node2)) {
+    if (!containsVertex(node1) || !containsVertex(node2)) {
       return null;
     }
     return getShortestPath(node1, node2, false);
@@ -405,7 +435,7 @@ public class DirectedMultiGraph<V, E> implements Graph<V, E> /* Serializable */{
    * @return the list of nodes you get through to get there
    */
   public List<V> getShortestPath(V node1, V node2, boolean directionSensitive) {
-    if (!outgoingEdges.containsKey(node1) || !outgoingEdges.containsKey(node2)) {
+    if (!containsVertex(node1) || !containsVertex(node2)) {
       return null;
     }
     return DijkstraShortestPath.getShortestPath(this, node1, node2, directionSensitive);
@@ -588,13 +618,13 @@ public class DirectedMultiGraph<V, E> implements Graph<V, E> /* Serializable */{
     StringBuilder s = new StringBuilder();
     s.append("{\n");
     s.append("Vertices:\n");
-    for (V vertex : outgoingEdges.keySet()) {
+    for (V vertex : getAllVertices()) {
       s.append("  ").append(vertex).append('\n');
     }
     s.append("Edges:\n");
-    for (V source : outgoingEdges.keySet()) {
-      for (V dest : outgoingEdges.get(source).keySet()) {
-        for (E edge : outgoingEdges.get(source).get(dest)) {
+    for (V source : getAllVertices()) {
+      for (V dest : getChildren(source)) {
+        for (E edge : getEdges(source, dest)) {
           s.append("  ").append(source).append(" -> ").append(dest).append(" : ").append(edge).append('\n');
         }
       }
@@ -0,0 +1,510 @@
+package edu.stanford.nlp.graph;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * An immutable, compact copy of a {@link DirectedMultiGraph}.
+ * <br>
+ * Rather than a map of maps of lists for each direction, the vertices are
+ * numbered and kept in an array, found by an open-addressing table of
+ * their hash codes (for a {@link edu.stanford.nlp.ling.IndexedWord},
+ * effectively its token index).  The edges are kept in compressed sparse
+ * row form: for each vertex, the range of its neighbors in an int array,
+ * and for each neighbor, the range of the edges to it in an edge array.
+ * This takes a fraction of the memory of the maps, and walking the edges
+ * of a vertex is a scan of an array.
+ * <br>
+ * The iteration order of the vertices, the neighbors and the edges is
+ * that of the graph which was copied, and a frozen graph is equal to
+ * (and hashes the same as) the graph it was copied from.  Anything which
+ * would change the graph throws an {@link UnsupportedOperationException};
+ * copy it with {@link DirectedMultiGraph#DirectedMultiGraph(DirectedMultiGraph)}
+ * to change it.
+ *
+ * @param <V> Type of vertices
+ * @param <E> Type of edges
+ */
+public class FrozenDirectedMultiGraph<V, E> extends DirectedMultiGraph<V, E> {
+
+  private final Object[] vertices;
+  private final int[] hashes;
+  /** Open-addressing table of vertex number + 1, with 0 for an empty slot */
+  private final int[] table;
+
+  private final Adjacency outgoing;
+  private final Adjacency incoming;
+
+  private transient int hashCode; // = 0
+
+  public FrozenDirectedMultiGraph(DirectedMultiGraph<V, E> graph) {
+    super(graph.outerMapFactory, graph.innerMapFactory, null, null);
+    if (graph instanceof FrozenDirectedMultiGraph) {
+      FrozenDirectedMultiGraph<V, E> frozen = (FrozenDirectedMultiGraph<V, E>) graph;
+      vertices = frozen.vertices;
+      hashes = frozen.hashes;
+      table = frozen.table;
+      outgoing = frozen.outgoing;
+      incoming = frozen.incoming;
+      return;
+    }
+
+    int numVertices = graph.outgoingEdges.size();
+    vertices = new Object[numVertices];
+    hashes = new int[numVertices];
+    int tableSize = Integer.highestOneBit(Math.max(2, numVertices) * 2 - 1) << 1;
+    table = new int[tableSize];
+    int id = 0;
+    for (V vertex : graph.outgoingEdges.keySet()) {
+      vertices[id] = vertex;
+      hashes[id] = hash(vertex);
+      int slot = hashes[id] & (tableSize - 1);
+      while (table[slot] != 0) {
+        slot = (slot + 1) & (tableSize - 1);
+      }
+      table[slot] = id + 1;
+      id++;
+    }
+    outgoing = new Adjacency(graph.outgoingEdges);
+    incoming = new Adjacency(graph.incomingEdges);
+  }
+
+  private static int hash(Object vertex) {
+    int h = (vertex == null) ? 0 : vertex.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /** The number of the vertex, or -1 if it is not in the graph */
+  private int id(Object vertex) {
+    int h = hash(vertex);
+    int mask = table.length - 1;
+    for (int slot = h & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+      int id = table[slot] - 1;
+      if (hashes[id] == h && Objects.equals(vertices[id], vertex)) {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private V vertex(int id) {
+    return (V) vertices[id];
+  }
+
+  /**
+   * The neighbors of each vertex in one direction, and the edges to them.
+   * The neighbors of vertex v are {@code neighbors[groupStart[v]]} up to
+   * {@code neighbors[groupStart[v + 1]]}, and the edges to neighbor group
+   * g are {@code edges[edgeStart[g]]} up to {@code edges[edgeStart[g + 1]]}.
+   */
+  private class Adjacency implements Serializable {
+    final int[] groupStart;
+    final int[] neighbors;
+    final int[] edgeStart;
+    final Object[] edges;
+
+    Adjacency(Map<V, Map<V, List<E>>> edgeMap) {
+      int numGroups = 0;
+      int numEdges = 0;
+      for (Map<V, List<E>> neighborMap : edgeMap.values()) {
+        numGroups += neighborMap.size();
+        for (List<E> list : neighborMap.values()) {
+          numEdges += list.size();
+        }
+      }
+      groupStart = new int[vertices.length + 1];
+      neighbors = new int[numGroups];
+      edgeStart = new int[numGroups + 1];
+      edges = new Object[numEdges];
+      int group = 0;
+      int edge = 0;
+      for (int id = 0; id < vertices.length; id++) {
+        groupStart[id] = group;
+        for (Map.Entry<V, List<E>> entry : edgeMap.get(vertex(id)).entrySet()) {
+          neighbors[group] = id(entry.getKey());
+          edgeStart[group] = edge;
+          for (E e : entry.getValue()) {
+            edges[edge++] = e;
+          }
+          group++;
+        }
+      }
+      groupStart[vertices.length] = group;
+      edgeStart[numGroups] = edge;
+    }
+
+    int firstEdge(int id) {
+      return edgeStart[groupStart[id]];
+    }
+
+    int endEdge(int id) {
+      return edgeStart[groupStart[id + 1]];
+    }
+
+    /** The group of edges from the vertex to the neighbor, or -1 if there are none */
+    int group(int id, int neighbor) {
+      for (int group = groupStart[id], end = groupStart[id + 1]; group < end; group++) {
+        if (neighbors[group] == neighbor) {
+          return group;
+        }
+      }
+      return -1;
+    }
+
+    List<E> edgeList(Object vertex) {
+      int id = id(vertex);
+      if (id < 0) {
+        return Collections.emptyList();
+      }
+      return new EdgeList<>(edges, firstEdge(id), endEdge(id));
+    }
+
+    Iterator<E> edgeIterator(Object vertex) {
+      int id = id(vertex);
+      if (id < 0) {
+        return Collections.emptyIterator();
+      }
+      return new EdgeArrayIterator<>(edges, firstEdge(id), endEdge(id));
+    }
+
+    int degree(Object vertex) {
+      int id = id(vertex);
+      return (id < 0) ? 0 : endEdge(id) - firstEdge(id);
+    }
+
+    Set<V> neighborSet(Object vertex) {
+      int id = id(vertex);
+      if (id < 0) {
+        return null;
+      }
+      return new VertexSet(neighbors, groupStart[id], groupStart[id + 1]);
+    }
+
+    private static final long serialVersionUID = 1L;
+  }
+
+  /** A read-only list of a range of an edge array */
+  private static class EdgeList<E> extends AbstractList<E> implements RandomAccess {
+    private final Object[] edges;
+    private final int start;
+    private final int end;
+
+    EdgeList(Object[] edges, int start, int end) {
+      this.edges = edges;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+      if (index < 0 || index >= end - start) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (end - start));
+      }
+      return (E) edges[start + index];
+    }
+
+    @Override
+    public int size() {
+      return end - start;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+      return new EdgeArrayIterator<>(edges, start, end);
+    }
+  }
+
+  private static class EdgeArrayIterator<E> implements Iterator<E> {
+    private final Object[] edges;
+    private final int end;
+    private int next;
+
+    EdgeArrayIterator(Object[] edges, int start, int end) {
+      this.edges = edges;
+      this.next = start;
+      this.end = end;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < end;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E next() {
+      if (next >= end) {
+        throw new NoSuchElementException("Graph edge iterator exhausted.");
+      }
+      return (E) edges[next++];
+    }
+  }
+
+  /**
+   * A read-only set of a range of vertex numbers.  The sets of neighbors
+   * are small, so membership is a scan.
+   */
+  private class VertexSet extends AbstractSet<V> {
+    private final int[] ids;
+    private final int start;
+    private final int end;
+
+    VertexSet(int[] ids, int start, int end) {
+      this.ids = ids;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      int id = id(o);
+      if (id < 0) {
+        return false;
+      }
+      for (int i = start; i < end; i++) {
+        if (ids[i] == id) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public int size() {
+      return end - start;
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+      return new Iterator<V>() {
+        private int next = start;
+
+        @Override
+        public boolean hasNext() {
+          return next < end;
+        }
+
+        @Override
+        public V next() {
+          if (next >= end) {
+            throw new NoSuchElementException();
+          }
+          return vertex(ids[next++]);
+        }
+      };
+    }
+  }
+
+  /** The set of all the vertices, in the order they were copied */
+  private class AllVertices extends AbstractSet<V> {
+    @Override
+    public boolean contains(Object o) {
+      return id(o) >= 0;
+    }
+
+    @Override
+    public int size() {
+      return vertices.length;
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+      return new Iterator<V>() {
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+          return next < vertices.length;
+        }
+
+        @Override
+        public V next() {
+          if (next >= vertices.length) {
+            throw new NoSuchElementException();
+          }
+          return vertex(next++);
+        }
+      };
+    }
+  }
+
+  private static UnsupportedOperationException frozen() {
+    return new UnsupportedOperationException("This graph is frozen; copy it to a DirectedMultiGraph to change it");
+  }
+
+  @Override
+  Map<V, Map<V, List<E>>> outgoingEdges() {
+    Map<V, Map<V, List<E>>> map = outerMapFactory.newMap();
+    for (int id = 0; id < vertices.length; id++) {
+      Map<V, List<E>> neighborMap = innerMapFactory.newMap();
+      for (int group = outgoing.groupStart[id]; group < outgoing.groupStart[id + 1]; group++) {
+        neighborMap.put(vertex(outgoing.neighbors[group]),
+                new ArrayList<>(new EdgeList<E>(outgoing.edges, outgoing.edgeStart[group], outgoing.edgeStart[group + 1])));
+      }
+      map.put(vertex(id), neighborMap);
+    }
+    return map;
+  }
+
+  @Override
+  public int hashCode() {
+    if (hashCode == 0) {
+      hashCode = super.hashCode();
+    }
+    return hashCode;
+  }
+
+  @Override
+  public boolean addVertex(V v) {
+    throw frozen();
+  }
+
+  @Override
+  public void add(V source, V dest, E data) {
+    throw frozen();
+  }
+
+  @Override
+  public boolean removeEdges(V source, V dest) {
+    throw frozen();
+  }
+
+  @Override
+  public boolean removeEdge(V source, V dest, E data) {
+    throw frozen();
+  }
+
+  @Override
+  public boolean removeVertex(V vertex) {
+    throw frozen();
+  }
+
+  @Override
+  public boolean removeVertices(Collection<V> vertices) {
+    throw frozen();
+  }
+
+  @Override
+  public void clear() {
+    throw frozen();
+  }
+
+  @Override
+  public void removeZeroDegreeNodes() {
+    throw frozen();
+  }
+
+  @Override
+  public int getNumVertices() {
+    return vertices.length;
+  }
+
+  @Override
+  public List<E> getOutgoingEdges(V v) {
+    return outgoing.edgeList(v);
+  }
+
+  @Override
+  public List<E> getIncomingEdges(V v) {
+    return incoming.edgeList(v);
+  }
+
+  @Override
+  public int getNumEdges() {
+    return outgoing.edges.length;
+  }
+
+  @Override
+  public Set<V> getParents(V vertex) {
+    return incoming.neighborSet(vertex);
+  }
+
+  @Override
+  public Set<V> getChildren(V vertex) {
+    return outgoing.neighborSet(vertex);
+  }
+
+  @Override
+  public boolean containsVertex(V v) {
+    return id(v) >= 0;
+  }
+
+  @Override
+  public boolean isEdge(V source, V dest) {
+    int sourceId = id(source);
+    int destId = id(dest);
+    return sourceId >= 0 && destId >= 0 && outgoing.group(sourceId, destId) >= 0;
+  }
+
+  @Override
+  public Set<V> getAllVertices() {
+    return new AllVertices();
+  }
+
+  @Override
+  public List<E> getAllEdges() {
+    return new ArrayList<>(new EdgeList<E>(outgoing.edges, 0, outgoing.edges.length));
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return vertices.length == 0;
+  }
+
+  @Override
+  public List<E> getEdges(V source, V dest) {
+    int sourceId = id(source);
+    int destId = id(dest);
+    int group = (sourceId < 0 || destId < 0) ? -1 : outgoing.group(sourceId, destId);
+    if (group < 0) {
+      return Collections.emptyList();
+    }
+    return new EdgeList<>(outgoing.edges, outgoing.edgeStart[group], outgoing.edgeStart[group + 1]);
+  }
+
+  @Override
+  public int getInDegree(V vertex) {
+    return incoming.degree(vertex);
+  }
+
+  @Override
+  public int getOutDegree(V vertex) {
+    return outgoing.degree(vertex);
+  }
+
+  @Override
+  public Iterator<E> incomingEdgeIterator(V vertex) {
+    return incoming.edgeIterator(vertex);
+  }
+
+  @Override
+  public Iterable<E> incomingEdgeIterable(V vertex) {
+    return () -> incoming.edgeIterator(vertex);
+  }
+
+  @Override
+  public Iterator<E> outgoingEdgeIterator(V vertex) {
+    return outgoing.edgeIterator(vertex);
+  }
+
+  @Override
+  public Iterable<E> outgoingEdgeIterable(V vertex) {
+    return () -> outgoing.edgeIterator(vertex);
+  }
+
+  /** Iterates over all the edges.  The iterator does not support {@code remove()}. */
+  @Override
+  public Iterator<E> edgeIterator() {
+    return new EdgeArrayIterator<>(outgoing.edges, 0, outgoing.edges.length);
+  }
+
+  @Override
+  public Iterable<E> edgeIterable() {
+    return this::edgeIterator;
+  }
+
+  private static final long serialVersionUID = 1L;
+
+}
@@ -25,6 +25,8 @@ public class CorefProperties {
   public static final String SCORE_PROP = "hcoref.doScore";
   public static final String PARSER_PROP = "hcoref.useConstituencyTree";
   public static final String THREADS_PROP = "hcoref.threadCount";
+  public static final String CANDIDATE_THREADS_PROP = "hcoref.candidateThreadCount";   // threads per document for scoring antecedents
+  public static final String FEATURE_CACHE_SIZE_PROP = "hcoref.featureCacheSize";      // mention pairs per document; 0 (default) for no cache
   public static final String INPUT_TYPE_PROP = "hcoref.input.type";
   public static final String POSTPROCESSING_PROP = "hcoref.postprocessing";
   public static final String MD_TYPE_PROP = "hcoref.md.type";
@@ -156,6 +158,13 @@ public class CorefProperties {
   public static int getThreadCounts(Properties props) {
     return PropertiesUtils.getInt(props, THREADS_PROP, Runtime.getRuntime().availableProcessors());
   }
+  public static int getCandidateThreadCounts(Properties props) {
+    return PropertiesUtils.getInt(props, CANDIDATE_THREADS_PROP, 1);
+  }
+  // Only RF sieves with the same mention types and feature options share features, which the standard sieves never do
+  public static int getFeatureCacheSize(Properties props) {
+    return PropertiesUtils.getInt(props, FEATURE_CACHE_SIZE_PROP, 0);
+  }
   public static String getPathScorer(Properties props) {
     return PropertiesUtils.getString(props, PATH_SCORER_PROP, "/scr/nlp/data/conll-2012/scorer/v8.01/scorer.pl");
   }
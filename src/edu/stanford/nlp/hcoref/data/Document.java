@@ -115,6 +115,9 @@ public class Document implements Serializable {
   
   public Map<Pair<Integer, Integer>, Boolean> acronymCache;
 
+  /** Features of mention pairs, shared by the sieves; null if features are not cached */
+  public transient MentionPairFeatureCache featureCache;
+
   /** Map of speaker name/id to speaker info 
    *  the key is the value of the variable 'speakers' */
   public Map<String, SpeakerInfo> speakerInfoMap = Generics.newHashMap();
@@ -138,7 +141,7 @@ public class Document implements Serializable {
     speakerPairs = Generics.newHashSet();
     incompatibles = Generics.newHashSet();
     incompatibleClusters = Generics.newHashSet();
-    acronymCache = Generics.newHashMap();    
+    acronymCache = Generics.newConcurrentHashMap();    // filled in while scoring antecedents, possibly in parallel
   }
 
   public Document(Annotation anno, List<List<Mention>> predictedMentions, List<List<Mention>> goldMentions) {
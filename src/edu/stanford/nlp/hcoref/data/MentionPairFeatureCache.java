@@ -0,0 +1,138 @@
+package edu.stanford.nlp.hcoref.data;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.stanford.nlp.ling.RVFDatum;
+import edu.stanford.nlp.util.CacheMap;
+import edu.stanford.nlp.util.Generics;
+
+/**
+ * Features of mention pairs computed for one document, kept so that sieves
+ * extracting the same features do not compute them again.
+ * <br>
+ * The features of a pair also depend on the clusters of both mentions, so
+ * an entry is only used while both mentions are still in the clusters they
+ * were in when it was computed, and neither cluster has changed since.
+ * Whatever merges clusters must call {@link #clusterChanged(int)} for the
+ * cluster which grew.  The cache keeps the most recently used pairs, up to
+ * its size, and may be used by several threads at once, as long as no
+ * clusters are merged meanwhile.
+ * <br>
+ * Each sieve looks at a pair once, so entries are only used by a later
+ * sieve with the same features, which includes the same mention types.
+ * The standard RF sieves all have different mention types, so the cache
+ * is off unless hcoref.featureCacheSize is set, and {@link #hits()} tells
+ * whether it pays for a given sieve configuration.
+ */
+public class MentionPairFeatureCache {
+
+  private final Map<Key, Entry> cache;
+  /** Number of times each cluster has changed; clusters not in here have not */
+  private final Map<Integer, Integer> clusterVersions;
+  private final AtomicLong lookups = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+
+  public MentionPairFeatureCache(int size) {
+    cache = Collections.synchronizedMap(new CacheMap<Key, Entry>(size, 0.75f, true));
+    clusterVersions = Generics.newConcurrentHashMap();
+  }
+
+  /**
+   * The features cached for the pair, or null if there are none or the
+   * clusters of the mentions have changed since.
+   *
+   * @param featureSet Identifies the features extracted (e.g., by the feature options of a sieve)
+   */
+  public RVFDatum<Boolean, String> get(String featureSet, Mention m, Mention antecedent, int mentionDist) {
+    lookups.incrementAndGet();
+    Entry entry = cache.get(new Key(featureSet, m.mentionID, antecedent.mentionID, mentionDist));
+    if (entry == null
+        || entry.mClusterID != m.corefClusterID || entry.mClusterVersion != version(m.corefClusterID)
+        || entry.aClusterID != antecedent.corefClusterID || entry.aClusterVersion != version(antecedent.corefClusterID)) {
+      return null;
+    }
+    hits.incrementAndGet();
+    return entry.datum;
+  }
+
+  public void put(String featureSet, Mention m, Mention antecedent, int mentionDist, RVFDatum<Boolean, String> datum) {
+    Entry entry = new Entry(m.corefClusterID, version(m.corefClusterID),
+        antecedent.corefClusterID, version(antecedent.corefClusterID), datum);
+    cache.put(new Key(featureSet, m.mentionID, antecedent.mentionID, mentionDist), entry);
+  }
+
+  /** Invalidates the features of all pairs with a mention in the given cluster. */
+  public void clusterChanged(int clusterID) {
+    clusterVersions.put(clusterID, version(clusterID) + 1);
+  }
+
+  /** Invalidates all the features, e.g. after a change to the document affecting every pair. */
+  public void clear() {
+    cache.clear();
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  /** The number of calls to {@link #get} */
+  public long lookups() {
+    return lookups.get();
+  }
+
+  /** The number of calls to {@link #get} which found features */
+  public long hits() {
+    return hits.get();
+  }
+
+  private int version(int clusterID) {
+    Integer version = clusterVersions.get(clusterID);
+    return (version == null) ? 0 : version;
+  }
+
+  private static class Key {
+    final String featureSet;
+    final int mID;
+    final int antID;
+    final int mentionDist;
+
+    Key(String featureSet, int mID, int antID, int mentionDist) {
+      this.featureSet = featureSet;
+      this.mID = mID;
+      this.antID = antID;
+      this.mentionDist = mentionDist;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if ( ! (o instanceof Key)) return false;
+      Key key = (Key) o;
+      return mID == key.mID && antID == key.antID && mentionDist == key.mentionDist && featureSet.equals(key.featureSet);
+    }
+
+    @Override
+    public int hashCode() {
+      return ((featureSet.hashCode() * 31 + mID) * 31 + antID) * 31 + mentionDist;
+    }
+  }
+
+  private static class Entry {
+    final int mClusterID;
+    final int mClusterVersion;
+    final int aClusterID;
+    final int aClusterVersion;
+    final RVFDatum<Boolean, String> datum;
+
+    Entry(int mClusterID, int mClusterVersion, int aClusterID, int aClusterVersion, RVFDatum<Boolean, String> datum) {
+      this.mClusterID = mClusterID;
+      this.mClusterVersion = mClusterVersion;
+      this.aClusterID = aClusterID;
+      this.aClusterVersion = aClusterVersion;
+      this.datum = datum;
+    }
+  }
+
+}
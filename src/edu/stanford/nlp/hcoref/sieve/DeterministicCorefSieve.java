@@ -121,11 +121,14 @@ public abstract class DeterministicCorefSieve extends Sieve {
         assert(c2 != null);
 
         if (this.useRoleSkip()) {
+          boolean added = false;
           if (m.isRoleAppositive(ant, dict)) {
-            roleSet.add(m);
+            added = roleSet.add(m);
           } else if (ant.isRoleAppositive(m, dict)) {
-            roleSet.add(ant);
+            added = roleSet.add(ant);
           }
+          // the string match features depend on the role set
+          if (added && document.featureCache != null) document.featureCache.clear();
           continue;
         }
         if (this.coreferent(document, c1, c2, m, ant, dict, roleSet)) {
@@ -145,6 +148,7 @@ public abstract class DeterministicCorefSieve extends Sieve {
           document.mergeAcronymCache(c2, c1);
 //            logger.warning("Removing cluster " + removeID + ", merged with " + c2.getClusterID());
           document.corefClusters.remove(removeID);
+          if(document.featureCache != null) document.featureCache.clusterChanged(c2.clusterID);
           return;
         }
       }
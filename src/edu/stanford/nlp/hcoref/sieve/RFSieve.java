@@ -7,6 +7,13 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import edu.stanford.nlp.hcoref.CorefPrinter;
 import edu.stanford.nlp.hcoref.CorefProperties;
@@ -22,6 +29,7 @@ import edu.stanford.nlp.hcoref.data.Dictionaries.Person;
 import edu.stanford.nlp.hcoref.data.Document;
 import edu.stanford.nlp.hcoref.data.Document.DocType;
 import edu.stanford.nlp.hcoref.data.Mention;
+import edu.stanford.nlp.hcoref.data.MentionPairFeatureCache;
 import edu.stanford.nlp.hcoref.md.RuleBasedCorefMentionFinder;
 import edu.stanford.nlp.hcoref.rf.RandomForest;
 import edu.stanford.nlp.ling.CoreAnnotations;
@@ -44,6 +52,13 @@ public class RFSieve extends Sieve {
   
   /** the probability threshold for merging two mentions */
   public double thresMerge;
+
+  /** candidates are only scored in parallel if each thread gets at least this many */
+  private static final int MIN_CANDIDATES_PER_THREAD = 16;
+
+  private static ExecutorService candidateExecutor;
+
+  private transient String featureSet;
   
   // constructor for RF sieve
   public RFSieve(RandomForest rf, Properties props, String sievename) {
@@ -56,14 +71,12 @@ public class RFSieve extends Sieve {
   public void findCoreferentAntecedent(Mention m, int mIdx, Document document, Dictionaries dict, Properties props, StringBuilder sbLog) throws Exception {
     int sentIdx = m.sentNum;
 
-    Counter<Integer> probs = new ClassicCounter<Integer>();  
-    
-    int mentionDist = 0;
+    // candidates in order: the mention distance of a candidate is its position in the list + 1
+    List<Mention> candidates = new ArrayList<Mention>();
     for(int sentDist=0 ; sentDist <= Math.min(this.maxSentDist, sentIdx) ; sentDist++) {
-      List<Mention> candidates = getOrderedAntecedents(m, sentIdx-sentDist, mIdx, document.predictedMentions, dict);
-      
+      List<Mention> sentCandidates = getOrderedAntecedents(m, sentIdx-sentDist, mIdx, document.predictedMentions, dict);
 
-      for(Mention candidate : candidates) {
+      for(Mention candidate : sentCandidates) {
         if(skipForAnalysis(candidate, m, props)) continue;
         if(candidate == m) continue;
         if(!aType.contains(candidate.mentionType)) continue;
@@ -73,18 +86,19 @@ public class RFSieve extends Sieve {
         }
         
         if(sentDist==0 && m.appearEarlierThan(candidate)) continue;   // ignore cataphora
-        mentionDist++;
-
-        RVFDatum<Boolean, String> datum = extractDatum(m, candidate, document, mentionDist, dict, props, sievename);
-        
-        double probTrue = 0;
-        if(this.classifierType == ClassifierType.RF) {
-          probTrue = this.rf.probabilityOfTrue(datum);
-        }
-        
-        probs.setCount(candidate.mentionID, probTrue);
+        candidates.add(candidate);
       }
     }
+
+    if(document.featureCache == null && CorefProperties.getFeatureCacheSize(props) > 0) {
+      document.featureCache = new MentionPairFeatureCache(CorefProperties.getFeatureCacheSize(props));
+    }
+    double[] probTrue = probabilitiesOfTrue(m, candidates, document, dict, props);
+
+    Counter<Integer> probs = new ClassicCounter<Integer>();  
+    for(int i = 0 ; i < candidates.size() ; i++) {
+      probs.setCount(candidates.get(i).mentionID, probTrue[i]);
+    }
     
     if(CorefProperties.debug(props)) {
       sbLog.append(CorefPrinter.printErrorLog(m, document, probs, mIdx, dict, this));
@@ -97,6 +111,93 @@ public class RFSieve extends Sieve {
       Sieve.merge(document, m.mentionID, antID);
     }
   }
+
+  /**
+   * Scores the candidate antecedents of a mention, using up to
+   * {@link CorefProperties#getCandidateThreadCounts(Properties)} threads.
+   * No clusters change while the candidates are scored, so the scores are
+   * the same however many threads there are.
+   */
+  private double[] probabilitiesOfTrue(final Mention m, final List<Mention> candidates,
+      final Document document, final Dictionaries dict, final Properties props) throws Exception {
+    final double[] probTrue = new double[candidates.size()];
+    final int nThreads = Math.min(CorefProperties.getCandidateThreadCounts(props), candidates.size() / MIN_CANDIDATES_PER_THREAD);
+    if(nThreads <= 1) {
+      for(int i = 0 ; i < candidates.size() ; i++) {
+        probTrue[i] = probabilityOfTrue(m, candidates.get(i), document, i+1, dict, props);
+      }
+      return probTrue;
+    }
+
+    List<Future<Void>> results = new ArrayList<Future<Void>>(nThreads);
+    for(int thread = 0 ; thread < nThreads ; thread++) {
+      final int first = thread;
+      results.add(candidateExecutor().submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          for(int i = first ; i < candidates.size() ; i += nThreads) {
+            probTrue[i] = probabilityOfTrue(m, candidates.get(i), document, i+1, dict, props);
+          }
+          return null;
+        }
+      }));
+    }
+    for(Future<Void> result : results) {
+      try {
+        result.get();
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+    return probTrue;
+  }
+
+  private double probabilityOfTrue(Mention m, Mention candidate, Document document, int mentionDist, Dictionaries dict, Properties props) {
+    if(this.classifierType != ClassifierType.RF) return 0;
+
+    RVFDatum<Boolean, String> datum = null;
+    if(document.featureCache != null) {
+      datum = document.featureCache.get(featureSet(props), m, candidate, mentionDist);
+    }
+    if(datum == null) {
+      datum = extractDatum(m, candidate, document, mentionDist, dict, props, sievename);
+      if(document.featureCache != null) {
+        document.featureCache.put(featureSet(props), m, candidate, mentionDist, datum);
+      }
+    }
+    return this.rf.probabilityOfTrue(datum);
+  }
+
+  /** Names the features {@link #extractDatum} extracts for this sieve, so that sieves extracting the same ones share them */
+  private String featureSet(Properties props) {
+    if(featureSet == null) {
+      featureSet = "basic=" + CorefProperties.useBasicFeatures(props, sievename)
+          + ",objectRoles=" + CorefProperties.combineObjectRoles(props, sievename)
+          + ",md=" + CorefProperties.useMentionDetectionFeatures(props, sievename)
+          + ",dcoref=" + CorefProperties.useDcorefRules(props, sievename)
+          + ",mType=" + new TreeSet<MentionType>(CorefProperties.getMentionType(props, sievename))
+          + ",pos=" + CorefProperties.usePOSFeatures(props, sievename)
+          + ",lexical=" + CorefProperties.useLexicalFeatures(props, sievename)
+          + ",embedding=" + CorefProperties.useWordEmbedding(props, sievename)
+          + ",tree=" + CorefProperties.useConstituencyTree(props);
+    }
+    return featureSet;
+  }
+
+  private static synchronized ExecutorService candidateExecutor() {
+    if(candidateExecutor == null) {
+      candidateExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "RFSieve candidates");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return candidateExecutor;
+  }
+
   public static RVFDatum<Boolean, String> extractDatum(Mention m, Mention candidate, 
       Document document, int mentionDist, Dictionaries dict, Properties props, String sievename) {
     try {
@@ -176,6 +176,7 @@ public abstract class Sieve implements Serializable {
     CorefCluster.mergeClusters(c2, c1);
     document.mergeIncompatibles(c2, c1);
     document.corefClusters.remove(removeID);
+    if(document.featureCache != null) document.featureCache.clusterChanged(c2.getClusterID());
   }
   
   // check if two mentions are really coref in gold annotation
@@ -47,6 +47,8 @@ import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.CoreLabel.GenericAnnotation;
 import edu.stanford.nlp.objectbank.ObjectBank;
+import edu.stanford.nlp.process.CompiledLexicon;
+import edu.stanford.nlp.process.DistSimClassifier;
 import edu.stanford.nlp.process.WordShapeClassifier;
 import edu.stanford.nlp.sequences.Clique;
 import edu.stanford.nlp.sequences.CoNLLDocumentReaderAndWriter;
@@ -55,7 +57,6 @@ import edu.stanford.nlp.sequences.SeqClassifierFlags;
 import edu.stanford.nlp.trees.international.pennchinese.RadicalMap;
 import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.PaddedList;
-import edu.stanford.nlp.util.Timing;
 
 
 /**
@@ -465,38 +466,18 @@ public class NERFeatureFactory<IN extends CoreLabel> extends FeatureFactory<IN>
     if (flags.distSimLexicon == null) {
       return;
     }
-    if (lexicon != null) {
+    // a compiled lexicon is shared, so it replaces even a lexicon read in with the classifier
+    if (CompiledLexicon.isCompiled(flags.distSimLexicon)) {
+      CompiledLexicon compiled = CompiledLexicon.load(flags.distSimLexicon);
+      compiled.checkOptions(flags.casedDistSim, flags.numberEquivalenceDistSim);
+      lexicon = compiled;
       return;
     }
-    Timing.startDoing("Loading distsim lexicon from " + flags.distSimLexicon);
-    lexicon = Generics.newHashMap();
-    boolean terryKoo = "terryKoo".equals(flags.distSimFileFormat);
-    for (String line : ObjectBank.getLineIterator(flags.distSimLexicon,
-                                                  flags.inputEncoding)) {
-      String word;
-      String wordClass;
-      if (terryKoo) {
-        String[] bits = line.split("\\t");
-        word = bits[1];
-        wordClass = bits[0];
-        if (flags.distSimMaxBits > 0 && wordClass.length() > flags.distSimMaxBits) {
-          wordClass = wordClass.substring(0, flags.distSimMaxBits);
-        }
-      } else {
-        // "alexClark"
-        String[] bits = line.split("\\s+");
-        word = bits[0];
-        wordClass = bits[1];
-      }
-      if ( ! flags.casedDistSim) {
-        word = word.toLowerCase();
-      }
-      if (flags.numberEquivalenceDistSim) {
-        word = WordShapeClassifier.wordShape(word, WordShapeClassifier.WORDSHAPEDIGITS);
-      }
-      lexicon.put(word, wordClass);
+    if (lexicon != null) {
+      return;
     }
-    Timing.endDoing();
+    lexicon = DistSimClassifier.readLexicon(flags.distSimLexicon, flags.distSimFileFormat, flags.inputEncoding,
+                                            flags.distSimMaxBits, flags.casedDistSim, flags.numberEquivalenceDistSim);
   }
 
 
@@ -165,6 +165,9 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
   // Label dictionary for fast decoding
   LabelDictionary labelDictionary;
 
+  /** Reusable buffers for {@link #classifyViterbi}, one set per thread */
+  private final ThreadLocal<CRFViterbiDecoder> viterbiDecoders = ThreadLocal.withInitial(CRFViterbiDecoder::new);
+
   // List selftraindatums = new ArrayList();
 
   protected CRFClassifier() {
@@ -1213,10 +1216,71 @@ public class CRFClassifier<IN extends CoreMap> extends AbstractSequenceClassifie
       return document;
     }
 
+    if (flags.inferenceType == null) {
+      flags.inferenceType = "Viterbi";
+    }
+    CliquePotentialFunction potentials = getCliquePotentialFunctionForTest();
+    if (flags.inferenceType.equalsIgnoreCase("Viterbi") && labelDictionary == null &&
+        potentials instanceof LinearCliquePotentialFunction && labelIndices.size() == windowSize) {
+      if (classifyViterbi(document, (LinearCliquePotentialFunction) potentials)) {
+        return document;
+      }
+    }
+
     SequenceModel model = getSequenceModel(document);
     return classifyMaxEnt(document, model);
   }
 
+  /**
+   * Does the same Viterbi decoding as {@link #classifyMaxEnt(List)}, but
+   * without building the data arrays, factor tables, and sequence model
+   * for the document: the feature indices and clique potentials go
+   * straight into the buffers of a {@link CRFViterbiDecoder}.
+   *
+   * @return true if the document was labeled, false if no sequence
+   *   had a finite score, in which case the usual path should be used
+   */
+  private boolean classifyViterbi(List<IN> document, LinearCliquePotentialFunction potentials) {
+    CRFViterbiDecoder decoder = viterbiDecoders.get();
+    int docSize = document.size();
+    decoder.start(docSize, classIndex.size(), windowSize);
+
+    if (flags.useReverse) {
+      Collections.reverse(document);
+    }
+    for (int j = 0; j < docSize; j++) {
+      CRFDatum<List<String>, CRFLabel> d = makeDatum(document, j, featureFactories);
+      List<List<String>> features = d.asFeatures();
+      List<double[]> featureValList = d.asFeatureVals();
+      for (int k = 0, fSize = features.size(); k < fSize; k++) {
+        Collection<String> cliqueFeatures = features.get(k);
+        int[] indices = decoder.featureBuffer(cliqueFeatures.size());
+        int m = 0;
+        for (String feature : cliqueFeatures) {
+          int index = featureIndex.indexOf(feature);
+          if (index >= 0) {
+            indices[m] = index;
+            m++;
+          }
+        }
+        // as in documentToDataAndLabels, only the first m values are used when features were dropped
+        double[] featureVal = (featureValList != null) ? featureValList.get(k) : null;
+        decoder.addClique(j, k, labelIndices.get(k), potentials, indices, m, featureVal);
+      }
+    }
+
+    int[] bestSequence = decoder.bestSequence(classIndex.indexOf(flags.backgroundSymbol));
+    if (bestSequence != null) {
+      for (int j = 0; j < docSize; j++) {
+        document.get(j).set(CoreAnnotations.AnswerAnnotation.class, classIndex.get(bestSequence[j]));
+      }
+    }
+    if (flags.useReverse) {
+      Collections.reverse(document);
+    }
+    return bestSequence != null;
+  }
+
   private List<IN> classifyMaxEnt(List<IN> document, Triple<int[][][], int[], double[][][]> documentDataAndLabels) {
     if (document.isEmpty()) {
       return document;
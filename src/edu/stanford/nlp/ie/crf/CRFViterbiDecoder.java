@@ -0,0 +1,305 @@
+package edu.stanford.nlp.ie.crf;
+
+import java.util.Arrays;
+
+import edu.stanford.nlp.math.ArrayMath;
+import edu.stanford.nlp.math.SloppyMath;
+import edu.stanford.nlp.util.Index;
+
+/**
+ * Viterbi decoding for a {@link CRFClassifier} which does all its work
+ * in primitive arrays that are reused from one document to the next.
+ * <br>
+ * The usual test time path builds a {@link FactorTable} per position,
+ * calibrates them into a {@link CRFCliqueTree}, and runs an
+ * {@link edu.stanford.nlp.sequences.ExactBestSequenceFinder} over a
+ * {@link TestSequenceModel}, which allocates new arrays for every
+ * score it is asked for.  This class keeps all the factor tables of a
+ * document in one flat array, calibrates them in place, and runs the
+ * Viterbi search over the same conditional log probabilities.  Every
+ * floating point operation is done with the same operands in the same
+ * order as on the usual path, so the best sequence is exactly the same.
+ * <br>
+ * A decoder is not threadsafe; CRFClassifier keeps one per thread.
+ * It is used for one document at a time: {@link #start}, then
+ * {@link #addClique} for each clique of each position in order, then
+ * {@link #bestSequence}.
+ */
+class CRFViterbiDecoder {
+
+  /** Buffers bigger than this many entries are not kept after decoding a document */
+  private static final int MAX_RETAINED_SIZE = 1 << 22;
+
+  private int length;
+  private int numClasses;
+  private int windowSize;
+  /** numClasses ^ windowSize, the size of a factor table */
+  private int tableSize;
+  /** numClasses ^ (windowSize - 1), the size of a message between factor tables */
+  private int messageSize;
+
+  /** The factor table of position i starts at i * tableSize */
+  private double[] tables = new double[0];
+  private double[] messages = new double[0];
+  /** The factor tables of the cliques of the current position */
+  private double[] clique = new double[0];
+  private double[] previousClique = new double[0];
+  private double[] summedOut = new double[0];
+  private int[] features = new int[16];
+
+  private int[] productSizes = new int[0];
+  /** The scores and traces of padded position pos start at offsets[pos] */
+  private int[] offsets = new int[0];
+  private double[] score = new double[0];
+  private int[] trace = new int[0];
+  private int[] tags = new int[0];
+
+  /** Starts a new document of the given length */
+  void start(int length, int numClasses, int windowSize) {
+    this.length = length;
+    this.numClasses = numClasses;
+    this.windowSize = windowSize;
+    this.tableSize = SloppyMath.intPow(numClasses, windowSize);
+    this.messageSize = tableSize / numClasses;
+
+    tables = ensure(tables, length * tableSize);
+    messages = ensure(messages, Math.max(0, length - 1) * messageSize);
+    clique = ensure(clique, tableSize);
+    previousClique = ensure(previousClique, tableSize);
+    summedOut = ensure(summedOut, messageSize);
+  }
+
+  /** A buffer for the indices of the features of one clique */
+  int[] featureBuffer(int size) {
+    if (features.length < size) {
+      features = new int[Math.max(size, features.length * 2)];
+    }
+    return features;
+  }
+
+  /**
+   * Computes the factor table of one clique of a position, as in
+   * {@link CRFCliqueTree#getFactorTable}.  The cliques of each position
+   * must be added smallest first.
+   *
+   * @param position The position in the document
+   * @param cliqueIndex The clique, where clique k covers k+1 labels
+   * @param labelIndex The label assignments of the clique
+   * @param potentials The weights of the classifier
+   * @param features The feature indices, in the first numFeatures entries
+   * @param numFeatures The number of features
+   * @param featureVal The values of the features, or null if they are all 1
+   */
+  void addClique(int position, int cliqueIndex, Index<CRFLabel> labelIndex, LinearCliquePotentialFunction potentials,
+                 int[] features, int numFeatures, double[] featureVal) {
+    double[] temp = previousClique;
+    previousClique = clique;
+    clique = temp;
+
+    int size = SloppyMath.intPow(numClasses, cliqueIndex + 1);
+    Arrays.fill(clique, 0, size, 0.0);
+    for (int k = 0, liSize = labelIndex.size(); k < liSize; k++) {
+      int[] label = labelIndex.get(k).getLabel();
+      int index = 0;
+      for (int item : label) {
+        index *= numClasses;
+        index += item;
+      }
+      clique[index] = potentials.computeCliquePotential(k, features, numFeatures, featureVal);
+    }
+    if (cliqueIndex > 0) {
+      int divisor = size / numClasses;
+      for (int i = 0; i < size; i++) {
+        clique[i] += previousClique[i % divisor];
+      }
+    }
+    if (cliqueIndex == windowSize - 1) {
+      System.arraycopy(clique, 0, tables, position * tableSize, tableSize);
+    }
+  }
+
+  /**
+   * Calibrates the factor tables and finds the best sequence of labels.
+   *
+   * @return The best label of each position in the first length
+   *   entries, or null if no sequence has a score better than -infinity
+   */
+  int[] bestSequence(int backgroundIndex) {
+    calibrate();
+    int[] result = viterbi(backgroundIndex);
+    if (tables.length > MAX_RETAINED_SIZE || score.length > MAX_RETAINED_SIZE) {
+      tables = new double[0];
+      messages = new double[0];
+      score = new double[0];
+      trace = new int[0];
+    }
+    return result;
+  }
+
+  /** The forward and backward passes of {@link CRFCliqueTree#getCalibratedCliqueTree} */
+  private void calibrate() {
+    for (int i = 1; i < length; i++) {
+      int previous = (i - 1) * tableSize;
+      int message = (i - 1) * messageSize;
+      // sumOutFront
+      for (int j = 0; j < messageSize; j++) {
+        messages[message + j] = ArrayMath.logSum(tables, previous + j, previous + tableSize, messageSize);
+      }
+      // multiplyInFront
+      int table = i * tableSize;
+      for (int j = 0; j < tableSize; j++) {
+        tables[table + j] += messages[message + j / numClasses];
+      }
+    }
+
+    for (int i = length - 2; i >= 0; i--) {
+      int next = (i + 1) * tableSize;
+      // sumOutEnd
+      for (int j = 0; j < messageSize; j++) {
+        summedOut[j] = ArrayMath.logSum(tables, next + j * numClasses, next + (j + 1) * numClasses);
+      }
+      // divideBy
+      int message = i * messageSize;
+      for (int j = 0; j < messageSize; j++) {
+        if (summedOut[j] != Double.NEGATIVE_INFINITY || messages[message + j] != Double.NEGATIVE_INFINITY) {
+          summedOut[j] -= messages[message + j];
+        }
+      }
+      // multiplyInEnd
+      int table = i * tableSize;
+      for (int j = 0; j < tableSize; j++) {
+        tables[table + j] += summedOut[j % messageSize];
+      }
+    }
+  }
+
+  /**
+   * The Viterbi search of {@link edu.stanford.nlp.sequences.ExactBestSequenceFinder}
+   * over the scores of a {@link TestSequenceModel}: the sequence is
+   * padded on the left with windowSize - 1 background labels, and the
+   * score of a label is its log probability given the previous labels.
+   */
+  private int[] viterbi(int backgroundIndex) {
+    int leftWindow = windowSize - 1;
+    int padLength = length + leftWindow;
+
+    productSizes = ensure(productSizes, padLength);
+    offsets = ensure(offsets, padLength + 1);
+    tags = ensure(tags, padLength);
+    int curProduct = 1;
+    for (int i = 0; i < leftWindow; i++) {
+      curProduct *= tagNum(i, leftWindow);
+    }
+    for (int pos = leftWindow; pos < padLength; pos++) {
+      if (pos > leftWindow) {
+        curProduct /= tagNum(pos - leftWindow - 1, leftWindow);
+      }
+      curProduct *= tagNum(pos, leftWindow);
+      productSizes[pos] = curProduct;
+    }
+    int total = 0;
+    for (int pos = 0; pos < padLength; pos++) {
+      offsets[pos] = total;
+      if (pos >= leftWindow) {
+        total += productSizes[pos];
+      }
+    }
+    offsets[padLength] = total;
+    score = ensure(score, total);
+    trace = ensure(trace, total);
+
+    for (int pos = leftWindow; pos < length + leftWindow; pos++) {
+      int table = (pos - leftWindow) * tableSize;
+      int numTags = tagNum(pos, leftWindow);
+      int offset = offsets[pos];
+      int previousOffset = (pos > leftWindow) ? offsets[pos - 1] : 0;
+      int start = 0;
+      double z = 0.0;
+      for (int product = 0; product < productSizes[pos]; product++) {
+        int tag = product % numTags;
+        int sharedProduct = product / numTags;
+        if (tag == 0) {
+          // FactorTable.conditionalLogProbGivenPrevious for the previous labels in this product
+          int given = 0;
+          int multiplier = 1;
+          int p = sharedProduct;
+          for (int curPos = pos - 1; curPos >= pos - leftWindow; curPos--) {
+            int curTagNum = tagNum(curPos, leftWindow);
+            int label = (curPos < leftWindow) ? backgroundIndex : p % curTagNum;
+            p /= curTagNum;
+            given += label * multiplier;
+            multiplier *= numClasses;
+          }
+          start = table + given * numClasses;
+          z = ArrayMath.logSum(tables, start, start + numClasses);
+        }
+        double windowScore = tables[start + tag] - z;
+
+        if (pos == leftWindow) {
+          score[offset + product] = windowScore;
+          trace[offset + product] = -1;
+        } else {
+          double best = Double.NEGATIVE_INFINITY;
+          int bestTrace = -1;
+          int factor = productSizes[pos] / numTags;
+          for (int newTagNum = 0; newTagNum < tagNum(pos - leftWindow - 1, leftWindow); newTagNum++) {
+            int predProduct = newTagNum * factor + sharedProduct;
+            double predScore = score[previousOffset + predProduct] + windowScore;
+            if (predScore > best) {
+              best = predScore;
+              bestTrace = predProduct;
+            }
+          }
+          score[offset + product] = best;
+          trace[offset + product] = bestTrace;
+        }
+      }
+    }
+
+    int lastPos = leftWindow + length - 1;
+    double bestFinalScore = Double.NEGATIVE_INFINITY;
+    int bestCurrentProduct = -1;
+    for (int product = 0; product < productSizes[lastPos]; product++) {
+      if (score[offsets[lastPos] + product] > bestFinalScore) {
+        bestCurrentProduct = product;
+        bestFinalScore = score[offsets[lastPos] + product];
+      }
+    }
+    if (bestCurrentProduct < 0) {
+      return null;
+    }
+
+    int lastProduct = bestCurrentProduct;
+    for (int last = padLength - 1; last >= length - 1 && last >= 0; last--) {
+      tags[last] = tag(last, lastProduct % tagNum(last, leftWindow), leftWindow, backgroundIndex);
+      lastProduct /= tagNum(last, leftWindow);
+    }
+    for (int pos = leftWindow + length - 2; pos >= leftWindow; pos--) {
+      int bestNextProduct = bestCurrentProduct;
+      bestCurrentProduct = trace[offsets[pos + 1] + bestNextProduct];
+      int digit = bestCurrentProduct / (productSizes[pos] / tagNum(pos - leftWindow, leftWindow));
+      tags[pos - leftWindow] = tag(pos - leftWindow, digit, leftWindow, backgroundIndex);
+    }
+    // the labels of the document start after the padding
+    System.arraycopy(tags, leftWindow, tags, 0, length);
+    return tags;
+  }
+
+  /** The padding positions can only have the background label */
+  private int tagNum(int pos, int leftWindow) {
+    return (pos < leftWindow) ? 1 : numClasses;
+  }
+
+  private static int tag(int pos, int digit, int leftWindow, int backgroundIndex) {
+    return (pos < leftWindow) ? backgroundIndex : digit;
+  }
+
+  private static double[] ensure(double[] buffer, int size) {
+    return (buffer.length >= size) ? buffer : new double[size];
+  }
+
+  private static int[] ensure(int[] buffer, int size) {
+    return (buffer.length >= size) ? buffer : new int[size];
+  }
+
+}
@@ -25,4 +25,21 @@ public class LinearCliquePotentialFunction implements CliquePotentialFunction {
     return output;
   }
 
+  /**
+   * The same as {@link #computeCliquePotential(int, int, int[], double[], int)},
+   * but only using the first numFeatures entries of cliqueFeatures, so
+   * that a buffer can be reused for the features.
+   */
+  double computeCliquePotential(int labelIndex, int[] cliqueFeatures, int numFeatures, double[] featureVal) {
+    double output = 0.0;
+    for (int m = 0; m < numFeatures; m++) {
+      double dotProd = weights[cliqueFeatures[m]][labelIndex];
+      if (featureVal != null) {
+        dotProd *= featureVal[m];
+      }
+      output += dotProd;
+    }
+    return output;
+  }
+
 }
@@ -21,7 +21,9 @@ import edu.stanford.nlp.io.IOUtils;
 import edu.stanford.nlp.io.RuntimeIOException;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.tokensregex.matcher.AhoCorasickMatcher;
 import edu.stanford.nlp.sequences.DocumentReaderAndWriter;
+import edu.stanford.nlp.util.ArrayUtils;
 import edu.stanford.nlp.util.CoreMap;
 import edu.stanford.nlp.util.Generics;
 
@@ -53,8 +55,12 @@ import edu.stanford.nlp.util.Generics;
  * already been tokenized.  So, for example, with our usual English tokenization, things like genitives
  * and commas at the end of words will be separated in the input and matched as a separate token.
  *
- * This class isn't implemented very efficiently, since every regex is evaluated at every token position.
- * So it can and does get quite slow if you have a lot of patterns in your NER rules.
+ * Entries whose tokens are plain strings, which is the usual case for gazetteers, are compiled into
+ * an Aho-Corasick automaton which finds all of them in a single pass over the document.  Entries which
+ * start with one or more plain tokens followed by real regexes are indexed by those leading tokens,
+ * so their regexes are only tried where the leading tokens occur.  Only entries whose first token is
+ * a real regex are tried at every token position, so it is still possible to make this class slow
+ * with a lot of those.
  * {@code TokensRegex} is a more general framework to provide the functionality of this class.
  * But at present we still use this class.
  *
@@ -65,6 +71,15 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
 
   private final List<Entry> entries;
 
+  /**
+   * The leading plain string tokens of each entry (all the tokens, for
+   * most entries), mapping to the index of the entry in entries
+   */
+  private final AhoCorasickMatcher<String, Integer> literalMatcher;
+
+  /** Indices of the entries whose first token is a real regex */
+  private final int[] unanchoredEntries;
+
   private final Set<String> myLabels;
 
   private final boolean ignoreCase;
@@ -98,31 +113,7 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
    *                      (Note that this is a postfilter; using this will not speed up matching.)
    */
   public RegexNERSequenceClassifier(String mapping, boolean ignoreCase, boolean overwriteMyLabels, String validPosRegex) {
-    super(new Properties());
-    if (validPosRegex != null && !validPosRegex.equals("")) {
-      validPosPattern = Pattern.compile(validPosRegex);
-    } else {
-      validPosPattern = null;
-    }
-    BufferedReader rd = null;
-    try {
-      rd = IOUtils.readerFromString(mapping);
-      entries = readEntries(rd, ignoreCase);
-    } catch (IOException e) {
-      throw new RuntimeIOException("Couldn't read RegexNER from " + mapping, e);
-    } finally {
-      IOUtils.closeIgnoringExceptions(rd);
-    }
-
-    this.ignoreCase = ignoreCase;
-    myLabels = Generics.newHashSet();
-    // Can always override background or none.
-    myLabels.add(flags.backgroundSymbol);
-    myLabels.add(null);
-    if (overwriteMyLabels) {
-      for (Entry entry: entries) myLabels.add(entry.type);
-    }
-    // System.err.println("RegexNER using labels: " +  myLabels);
+    this(readEntries(mapping, ignoreCase), ignoreCase, overwriteMyLabels, validPosRegex);
   }
 
   /**
@@ -144,19 +135,32 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
                                     boolean ignoreCase,
                                     boolean overwriteMyLabels,
                                     String validPosRegex) {
+    this(readEntries(reader, "reader", ignoreCase), ignoreCase, overwriteMyLabels, validPosRegex);
+  }
+
+  private RegexNERSequenceClassifier(List<Entry> entries,
+                                     boolean ignoreCase,
+                                     boolean overwriteMyLabels,
+                                     String validPosRegex) {
     super(new Properties());
     if (validPosRegex != null && !validPosRegex.equals("")) {
       validPosPattern = Pattern.compile(validPosRegex);
     } else {
       validPosPattern = null;
     }
-    try {
-      entries = readEntries(reader, ignoreCase);
-    } catch (IOException e) {
-      throw new RuntimeIOException("Couldn't read RegexNER from reader", e);
-    }
-
+    this.entries = entries;
     this.ignoreCase = ignoreCase;
+    literalMatcher = new AhoCorasickMatcher<String, Integer>();
+    List<Integer> unanchored = new ArrayList<Integer>();
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      if (entry.literalPrefix > 0) {
+        literalMatcher.add(entry.literalKey(ignoreCase), i);
+      } else {
+        unanchored.add(i);
+      }
+    }
+    unanchoredEntries = ArrayUtils.asPrimitiveIntArray(unanchored);
     myLabels = Generics.newHashSet();
     // Can always override background or none.
     myLabels.add(flags.backgroundSymbol);
@@ -173,6 +177,8 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
     public String type; // the associated type
     public Set<String> overwritableTypes;
     public double priority;
+    /** How many of the leading regexes are plain strings */
+    public int literalPrefix;
 
     public Entry(List<Pattern> regex, String type, Set<String> overwritableTypes, double priority) {
       this.regex = regex;
@@ -187,6 +193,18 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
           exact.add(null);
         }
       }
+      while (literalPrefix < regex.size() && isLiteral(regex.get(literalPrefix).toString())) {
+        literalPrefix++;
+      }
+    }
+
+    /** The leading plain string tokens, normalized the same way as the words they will be matched against */
+    public List<String> literalKey(boolean ignoreCase) {
+      List<String> key = new ArrayList<String>(literalPrefix);
+      for (int i = 0; i < literalPrefix; i++) {
+        key.add(normalize(regex.get(i).toString(), ignoreCase));
+      }
+      return key;
     }
 
     /** If the given priorities are equal, an entry whose regex has more tokens is assigned
@@ -206,6 +224,44 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
     }
   }
 
+  /**
+   * Whether the given regex only matches the one String which is the
+   * regex itself, meaning that it contains no regex metacharacters
+   */
+  private static boolean isLiteral(String regex) {
+    for (int i = 0; i < regex.length(); i++) {
+      if ("\\^$.|?*+()[]{}".indexOf(regex.charAt(i)) >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Normalizes a plain string token or a word so that the two are equal
+   * exactly when the regex for the token matches the word.  The regexes
+   * are compiled with Pattern.CASE_INSENSITIVE but not UNICODE_CASE, so
+   * only ASCII letters are case folded.
+   */
+  private static String normalize(String word, boolean ignoreCase) {
+    if (!ignoreCase || word == null) {
+      return word;
+    }
+    for (int i = 0; i < word.length(); i++) {
+      char ch = word.charAt(i);
+      if (ch >= 'A' && ch <= 'Z') {
+        char[] chars = word.toCharArray();
+        for (int j = i; j < chars.length; j++) {
+          if (chars[j] >= 'A' && chars[j] <= 'Z') {
+            chars[j] += 'a' - 'A';
+          }
+        }
+        return new String(chars);
+      }
+    }
+    return word;
+  }
+
   private boolean containsValidPos(List<CoreLabel> tokens, int start, int end) {
     if (validPosPattern == null) {
       return true;
@@ -224,30 +280,97 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
 
   @Override
   public List<CoreLabel> classify(List<CoreLabel> document) {
-    // This is pretty deathly slow. It loops over each entry, and then loops over each document token for it.
-    // We could gain by compiling into disjunctions patterns for the same class with the same priorities and restrictions?
-    for (Entry entry : entries) {
-      int start = 0; // the index of the token from which we begin our search each iteration
-      while (true) {
-        // only search the part of the document that we haven't yet considered
-        // System.err.println("REGEX FIND MATCH FOR " + entry.regex.toString());
-        start = findStartIndex(entry, document, start, myLabels, this.ignoreCase);
-        if (start < 0) break; // no match found
-
-        // make sure we annotate only valid POS tags
-        if (containsValidPos(document, start, start + entry.regex.size())) {
-          // annotate each matching token
-          for (int i = start; i < start + entry.regex.size(); i++) {
-            CoreLabel token = document.get(i);
-            token.set(CoreAnnotations.AnswerAnnotation.class, entry.type);
-          }
+    // First find every place where the regexes of an entry match the words,
+    // then apply the entries in order, best first, as if each entry were
+    // searched for in turn over the whole document.  Whether a match can be
+    // labeled depends on the labels assigned by the entries before it, so
+    // those checks have to wait until the entries are applied.
+    long[] candidates = findCandidates(document);
+    for (long candidate : candidates) {
+      Entry entry = entries.get((int) (candidate >>> 32));
+      int start = (int) candidate;
+      if (!canLabel(entry, document, start)) {
+        continue;
+      }
+
+      // make sure we annotate only valid POS tags
+      if (containsValidPos(document, start, start + entry.regex.size())) {
+        // annotate each matching token
+        for (int i = start; i < start + entry.regex.size(); i++) {
+          CoreLabel token = document.get(i);
+          token.set(CoreAnnotations.AnswerAnnotation.class, entry.type);
         }
-        start++;
       }
     }
     return document;
   }
 
+  /** A growable array of (entry index, start) pairs packed into longs */
+  private static class Candidates {
+    long[] items = new long[16];
+    int size = 0;
+
+    void add(int entryIndex, int start) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+      }
+      items[size++] = (((long) entryIndex) << 32) | start;
+    }
+  }
+
+  /**
+   * Finds every entry and start position where the regexes of the entry
+   * match the words of the document.  The entries which start with plain
+   * strings are found with one pass of the Aho-Corasick automaton; only the
+   * remaining regexes of those entries need to be checked, and only where
+   * the plain strings matched.
+   *
+   * @return The matches as (entry index, start) pairs packed into longs,
+   *         sorted by entry and then by start
+   */
+  private long[] findCandidates(List<CoreLabel> document) {
+    Candidates candidates = new Candidates();
+    literalMatcher.findAll(document, token -> normalize(token.word(), ignoreCase),
+                           (entryIndex, begin, end) -> {
+      Entry entry = entries.get(entryIndex);
+      if (begin + entry.regex.size() <= document.size() &&
+          wordsMatch(entry, document, begin, entry.literalPrefix, ignoreCase)) {
+        candidates.add(entryIndex, begin);
+      }
+    });
+    for (int entryIndex : unanchoredEntries) {
+      Entry entry = entries.get(entryIndex);
+      for (int start = 0, end = document.size() - entry.regex.size(); start <= end; start++) {
+        if (wordsMatch(entry, document, start, 0, ignoreCase)) {
+          candidates.add(entryIndex, start);
+        }
+      }
+    }
+    long[] sorted = Arrays.copyOf(candidates.items, candidates.size);
+    Arrays.sort(sorted);
+    return sorted;
+  }
+
+  private static List<Entry> readEntries(String mapping, boolean ignoreCase) {
+    BufferedReader rd = null;
+    try {
+      rd = IOUtils.readerFromString(mapping);
+      return readEntries(rd, ignoreCase);
+    } catch (IOException e) {
+      throw new RuntimeIOException("Couldn't read RegexNER from " + mapping, e);
+    } finally {
+      IOUtils.closeIgnoringExceptions(rd);
+    }
+  }
+
+  private static List<Entry> readEntries(BufferedReader mapping, String source, boolean ignoreCase) {
+    try {
+      return readEntries(mapping, ignoreCase);
+    } catch (IOException e) {
+      throw new RuntimeIOException("Couldn't read RegexNER from " + source, e);
+    }
+  }
+
   /**
    *  Creates a combined list of Entries using the provided mapping file, and sorts them by
    *  first by priority, then the number of tokens in the regex.
@@ -302,46 +425,40 @@ public class RegexNERSequenceClassifier extends AbstractSequenceClassifier<CoreL
   }
 
   /**
-   * Checks if the entry's regex sequence is contained in the tokenized document, starting the search
-   * from index searchStart. Also requires that each token's current NER-type be overwritable,
-   * and that each token has not yet been Answer-annotated.
-   *
-   * @param entry
-   * @param document
-   * @return on success, the index of the first token in the matching sequence, otherwise -1
+   * Checks whether the entry's regexes, starting from the regex at index
+   * from, match the words of the document at the corresponding positions
+   * after start.
    */
-  private static int findStartIndex(Entry entry, List<CoreLabel> document, int searchStart, Set<String> myLabels, boolean ignoreCase) {
+  private static boolean wordsMatch(Entry entry, List<CoreLabel> document, int start, int from, boolean ignoreCase) {
     List<Pattern> regex = entry.regex;
-    int rSize = regex.size();
-    // System.err.println("REGEX FIND MATCH FOR " + regex.toString() + " length: " + rSize);
-
-    for (int start = searchStart, end = document.size() - regex.size(); start <= end; start++) {
-      boolean failed = false;
-      for (int i = 0; i < rSize; i++) {
-        Pattern pattern = regex.get(i);
-        String exact = entry.exact.get(i);
-        CoreLabel token = document.get(start + i);
-        String NERType = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
-        String currentType = token.get(CoreAnnotations.AnswerAnnotation.class);
-
-        if (
-            currentType != null ||
-            (exact != null && ! (ignoreCase ? exact.equalsIgnoreCase(token.word()) : exact.equals(token.word()))) ||
-            ! (entry.overwritableTypes.contains(NERType) || myLabels.contains(NERType))  ||
-            ! pattern.matcher(token.word()).matches()  // last, as this is likely the expensive operation
-            ) {
-          failed = true;
-          break;
-        }
+    for (int i = from, rSize = regex.size(); i < rSize; i++) {
+      Pattern pattern = regex.get(i);
+      String exact = entry.exact.get(i);
+      String word = document.get(start + i).word();
+      if ((exact != null && ! (ignoreCase ? exact.equalsIgnoreCase(word) : exact.equals(word))) ||
+          ! pattern.matcher(word).matches()) {  // last, as this is likely the expensive operation
+        return false;
       }
-      if (! failed) {
-        // System.err.print("MATCHED REGEX:");
-        // for(int i = start; i < start + regex.size(); i ++) System.err.print(" " + document.get(i).word());
-        // System.err.println();
-        return start;
+    }
+    return true;
+  }
+
+  /**
+   * Checks that the entry can label the tokens it matched at start: each
+   * token's current NER-type must be overwritable, and no token may have
+   * been Answer-annotated yet.
+   */
+  private boolean canLabel(Entry entry, List<CoreLabel> document, int start) {
+    for (int i = start, end = start + entry.regex.size(); i < end; i++) {
+      CoreLabel token = document.get(i);
+      String NERType = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
+      String currentType = token.get(CoreAnnotations.AnswerAnnotation.class);
+      if (currentType != null ||
+          ! (entry.overwritableTypes.contains(NERType) || myLabels.contains(NERType))) {
+        return false;
       }
     }
-    return -1;
+    return true;
   }
 
 
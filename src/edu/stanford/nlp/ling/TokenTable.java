@@ -0,0 +1,378 @@
+package edu.stanford.nlp.ling;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import edu.stanford.nlp.util.ArrayCoreMap;
+import edu.stanford.nlp.util.CoreMap;
+
+/**
+ * Column oriented storage for the tokens of a document.
+ * <br>
+ * Each token of a document is normally an {@link ArrayCoreMap} of its
+ * own, holding a key and a value array and a boxed Integer for each
+ * offset and index.  A TokenTable instead keeps the annotations which
+ * nearly every token has in one array per annotation: Strings for the
+ * word, value, original text, surrounding whitespace, tag, lemma and
+ * NER, and ints for the character offsets, the index and the sentence
+ * index.  The tokens themselves are {@link CoreLabel}s which read and
+ * write their row of the table, so they work everywhere a CoreLabel
+ * does.  Any other annotation is stored in the token's own key and
+ * value arrays as usual, which stay empty until one is set.
+ * <br>
+ * The int annotations are unboxed when stored and boxed again by
+ * {@link CoreLabel#get}.  Setting one of them to null is allowed, in
+ * which case the null is kept with the other annotations.  The
+ * keySet of a token lists the column annotations first, so it is not
+ * in the order the annotations were set, as it would be for an
+ * ArrayCoreMap.
+ * <br>
+ * Tokens are added to the table with {@link #newToken} or
+ * {@link #add}, or a whole list can be copied with {@link #compact}.
+ * Adding tokens is not thread safe, but once all the tokens are in the
+ * table, different tokens can be annotated by different threads, just
+ * as with separate CoreLabels.
+ *
+ * @see edu.stanford.nlp.pipeline.TokenizerAnnotator
+ */
+public class TokenTable implements Serializable {
+
+  /** The annotations kept in String columns */
+  private static final Class<?>[] STRING_KEYS = {
+    CoreAnnotations.TextAnnotation.class,
+    CoreAnnotations.ValueAnnotation.class,
+    CoreAnnotations.OriginalTextAnnotation.class,
+    CoreAnnotations.BeforeAnnotation.class,
+    CoreAnnotations.AfterAnnotation.class,
+    CoreAnnotations.PartOfSpeechAnnotation.class,
+    CoreAnnotations.LemmaAnnotation.class,
+    CoreAnnotations.NamedEntityTagAnnotation.class,
+  };
+
+  /** The annotations kept in int columns */
+  private static final Class<?>[] INT_KEYS = {
+    CoreAnnotations.CharacterOffsetBeginAnnotation.class,
+    CoreAnnotations.CharacterOffsetEndAnnotation.class,
+    CoreAnnotations.IndexAnnotation.class,
+    CoreAnnotations.SentenceIndexAnnotation.class,
+  };
+
+  private static final int NUM_COLUMNS = STRING_KEYS.length + INT_KEYS.length;
+
+  private static final int DEFAULT_CAPACITY = 64;
+
+  /** String columns, indexed by column and then row */
+  private String[][] strings;
+  /** int columns, indexed by column and then row */
+  private int[][] ints;
+  /** Bit i of present[row] is set if that row has a value for column i */
+  private int[] present;
+  private TokenLabel[] labels;
+  private int size; // = 0
+
+  public TokenTable() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public TokenTable(int capacity) {
+    strings = new String[STRING_KEYS.length][capacity];
+    ints = new int[INT_KEYS.length][capacity];
+    present = new int[capacity];
+    labels = new TokenLabel[capacity];
+  }
+
+  /**
+   * Copies the given tokens into a new table.
+   *
+   * @return The new tokens, in the same order, as a new mutable list
+   */
+  public static List<CoreLabel> compact(List<? extends CoreMap> tokens) {
+    TokenTable table = new TokenTable(tokens.size());
+    List<CoreLabel> result = new ArrayList<>(tokens.size());
+    for (CoreMap token : tokens) {
+      result.add(table.add(token));
+    }
+    return result;
+  }
+
+  /** Adds a token with no annotations to the end of the table */
+  public CoreLabel newToken() {
+    if (size == labels.length) {
+      setCapacity(Math.max(DEFAULT_CAPACITY, labels.length * 2));
+    }
+    TokenLabel label = new TokenLabel(this, size);
+    labels[size] = label;
+    size++;
+    return label;
+  }
+
+  /** Adds a copy of the given token to the end of the table */
+  @SuppressWarnings("unchecked")
+  public CoreLabel add(CoreMap token) {
+    CoreLabel label = newToken();
+    for (Class key : token.keySet()) {
+      label.set(key, token.get(key));
+    }
+    return label;
+  }
+
+  /** The token in the given row */
+  public CoreLabel get(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " of a table with " + size + " tokens");
+    }
+    return labels[row];
+  }
+
+  /** The tokens of the table, as a new mutable list */
+  public List<CoreLabel> tokens() {
+    return new ArrayList<>(Arrays.asList(labels).subList(0, size));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Shrinks the columns to the number of tokens in the table */
+  public void trimToSize() {
+    if (labels.length > size) {
+      setCapacity(size);
+    }
+  }
+
+  private void setCapacity(int capacity) {
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = Arrays.copyOf(strings[i], capacity);
+    }
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = Arrays.copyOf(ints[i], capacity);
+    }
+    present = Arrays.copyOf(present, capacity);
+    labels = Arrays.copyOf(labels, capacity);
+  }
+
+  /** The column of the given key, or -1 if it is not kept in a column */
+  private static int column(Class<?> key) {
+    for (int i = 0; i < STRING_KEYS.length; i++) {
+      if (STRING_KEYS[i] == key) {
+        return i;
+      }
+    }
+    for (int i = 0; i < INT_KEYS.length; i++) {
+      if (INT_KEYS[i] == key) {
+        return STRING_KEYS.length + i;
+      }
+    }
+    return -1;
+  }
+
+  private static Class<?> key(int column) {
+    return (column < STRING_KEYS.length) ? STRING_KEYS[column] : INT_KEYS[column - STRING_KEYS.length];
+  }
+
+  private boolean isPresent(int row, int column) {
+    return (present[row] & (1 << column)) != 0;
+  }
+
+  /** The value of a column which is present in the given row */
+  private Object value(int row, int column) {
+    if (column < STRING_KEYS.length) {
+      return strings[column][row];
+    } else {
+      return ints[column - STRING_KEYS.length][row];
+    }
+  }
+
+  /** Stores a value in a column; the value must be an Integer for the int columns */
+  private void setValue(int row, int column, Object value) {
+    if (column < STRING_KEYS.length) {
+      strings[column][row] = (String) value;
+    } else {
+      ints[column - STRING_KEYS.length][row] = (Integer) value;
+    }
+    present[row] |= 1 << column;
+  }
+
+  private void clear(int row, int column) {
+    if (column < STRING_KEYS.length) {
+      strings[column][row] = null;
+    }
+    present[row] &= ~(1 << column);
+  }
+
+
+  /**
+   * A CoreLabel which keeps the column annotations in a row of a
+   * TokenTable and everything else in its own arrays.
+   */
+  private static class TokenLabel extends CoreLabel {
+
+    private final TokenTable table;
+    private final int row;
+
+    TokenLabel(TokenTable table, int row) {
+      super(0);
+      this.table = table;
+      this.row = row;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <VALUE> VALUE get(Class<? extends Key<VALUE>> key) {
+      int column = column(key);
+      if (column >= 0 && table.isPresent(row, column)) {
+        return (VALUE) table.value(row, column);
+      }
+      return super.get(key);
+    }
+
+    @Override
+    public <VALUE> boolean has(Class<? extends Key<VALUE>> key) {
+      int column = column(key);
+      if (column >= 0 && table.isPresent(row, column)) {
+        return true;
+      }
+      return super.has(key);
+    }
+
+    @Override
+    public <VALUE> boolean containsKey(Class<? extends Key<VALUE>> key) {
+      return has(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <VALUE> VALUE set(Class<? extends Key<VALUE>> key, VALUE value) {
+      int column = column(key);
+      if (column < 0) {
+        return super.set(key, value);
+      }
+      VALUE old = table.isPresent(row, column) ? (VALUE) table.value(row, column) : null;
+      if (value == null && column >= STRING_KEYS.length) {
+        // an int column cannot hold a null, so it goes with the other annotations
+        table.clear(row, column);
+        VALUE previous = super.set(key, null);
+        return (old != null) ? old : previous;
+      }
+      if (old == null && super.size() > 0) {
+        // it may have been set to null before
+        old = super.remove(key);
+      }
+      table.setValue(row, column, value);
+      return old;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <VALUE> VALUE remove(Class<? extends Key<VALUE>> key) {
+      int column = column(key);
+      if (column >= 0 && table.isPresent(row, column)) {
+        VALUE old = (VALUE) table.value(row, column);
+        table.clear(row, column);
+        return old;
+      }
+      return super.remove(key);
+    }
+
+    @Override
+    public int size() {
+      return Integer.bitCount(table.present[row]) + super.size();
+    }
+
+    /** The column annotations which are present come first, in column order */
+    @Override
+    public Set<Class<?>> keySet() {
+      return new AbstractSet<Class<?>>() {
+        @Override
+        public Iterator<Class<?>> iterator() {
+          return new Iterator<Class<?>>() {
+            private int column = nextColumn(0);
+            private int lastColumn = -1;
+            private final Iterator<Class<?>> others = TokenLabel.super.keySet().iterator();
+
+            private int nextColumn(int start) {
+              int bits = table.present[row] >>> start;
+              return (bits == 0) ? NUM_COLUMNS : start + Integer.numberOfTrailingZeros(bits);
+            }
+
+            @Override
+            public boolean hasNext() {
+              return column < NUM_COLUMNS || others.hasNext();
+            }
+
+            @Override
+            public Class<?> next() {
+              if (column < NUM_COLUMNS) {
+                lastColumn = column;
+                column = nextColumn(column + 1);
+                return key(lastColumn);
+              }
+              if (!others.hasNext()) {
+                throw new NoSuchElementException();
+              }
+              lastColumn = -1;
+              return others.next();
+            }
+
+            @Override
+            public void remove() {
+              if (lastColumn >= 0) {
+                table.clear(row, lastColumn);
+                lastColumn = -1;
+              } else {
+                others.remove();
+              }
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return TokenLabel.this.size();
+        }
+      };
+    }
+
+    @Override
+    protected boolean isArrayBacked() {
+      return false;
+    }
+
+    /** Adds the column annotations to the hash of the other annotations, the same way ArrayCoreMap does */
+    @Override
+    public int hashCode() {
+      int keysCode = 0;
+      int valuesCode = 0;
+      for (int column = 0; column < NUM_COLUMNS; column++) {
+        if (table.isPresent(row, column)) {
+          Object value = table.value(row, column);
+          if (value != null) {
+            keysCode += key(column).hashCode();
+            valuesCode += value.hashCode();
+          }
+        }
+      }
+      return super.hashCode() + keysCode * 37 + valuesCode;
+    }
+
+    @Override
+    public String toShorterString(String... what) {
+      return new ArrayCoreMap((CoreMap) this).toShorterString(what);
+    }
+
+    @Override
+    public String toShortString(char separator, String... what) {
+      return new ArrayCoreMap((CoreMap) this).toShortString(separator, what);
+    }
+
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static final long serialVersionUID = 1L;
+}
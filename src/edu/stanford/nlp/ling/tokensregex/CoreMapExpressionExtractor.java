@@ -80,7 +80,7 @@ public class CoreMapExpressionExtractor<T extends MatchedExpression> {
       if (origRule instanceof SequenceMatchRules.ListExtractRule) {
         r = (SequenceMatchRules.ListExtractRule<I,O>) origRule;
       } else {
-        r = new SequenceMatchRules.ListExtractRule<I,O>();
+        r = new SequenceMatchRules.TriggeredListExtractRule<I,O>();
         if (origRule != null)
         r.addRules(origRule);
       }
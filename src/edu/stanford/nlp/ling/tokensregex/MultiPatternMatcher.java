@@ -230,4 +230,97 @@ public class MultiPatternMatcher<T> {
     }
   }
 
+
+  /**
+   * SequencePatternTrigger that uses the node patterns every match of each
+   *   pattern needs (see {@link SequencePattern#getTriggerNodePatterns()}).
+   *   A pattern is triggered if one of its trigger node patterns matches
+   *   some node of the sequence; patterns without triggers always are.
+   *   Each distinct node pattern is tried on the sequence only until it
+   *   matches, however many patterns share it.  Original ordering of
+   *   patterns is preserved.
+   * @param <T>
+   */
+  public static class NodePatternsSequencePatternTrigger<T> implements SequencePatternTrigger<T> {
+    List<SequencePattern<T>> patterns;
+    /** For each pattern, the indices of its trigger node patterns, or null if it is always triggered */
+    List<int[]> patternTriggers;
+    List<NodePattern<T>> nodePatterns;
+
+    public NodePatternsSequencePatternTrigger(Collection<? extends SequencePattern<T>> patterns) {
+      this.patterns = new ArrayList<SequencePattern<T>>(patterns);
+      this.patternTriggers = new ArrayList<int[]>(patterns.size());
+      this.nodePatterns = new ArrayList<NodePattern<T>>();
+      Map<NodePattern<T>, Integer> nodePatternIndices = new IdentityHashMap<NodePattern<T>, Integer>();
+      for (SequencePattern<T> pattern:patterns) {
+        Collection<NodePattern<T>> triggers = pattern.getTriggerNodePatterns();
+        if (triggers == null) {
+          patternTriggers.add(null);
+          continue;
+        }
+        int[] indices = new int[triggers.size()];
+        int i = 0;
+        for (NodePattern<T> trigger:triggers) {
+          Integer index = nodePatternIndices.get(trigger);
+          if (index == null) {
+            index = nodePatterns.size();
+            nodePatternIndices.put(trigger, index);
+            nodePatterns.add(trigger);
+          }
+          indices[i++] = index;
+        }
+        patternTriggers.add(indices);
+      }
+    }
+
+    /** The number of distinct node patterns tried on each sequence */
+    public int getNumberOfNodePatterns() {
+      return nodePatterns.size();
+    }
+
+    @Override
+    public Collection<SequencePattern<T>> apply(List<? extends T> elements) {
+      BitSet triggered = getTriggeredPatternIndices(elements);
+      List<SequencePattern<T>> triggeredPatterns = new ArrayList<SequencePattern<T>>(triggered.cardinality());
+      for (int i = triggered.nextSetBit(0); i >= 0; i = triggered.nextSetBit(i + 1)) {
+        triggeredPatterns.add(patterns.get(i));
+      }
+      return triggeredPatterns;
+    }
+
+    /**
+     * Returns the positions, in the list this trigger was made with, of
+     *   the patterns triggered by the sequence
+     */
+    public BitSet getTriggeredPatternIndices(List<? extends T> elements) {
+      // null if not yet tried on this sequence
+      Boolean[] matched = new Boolean[nodePatterns.size()];
+      BitSet triggeredPatterns = new BitSet(patterns.size());
+      for (int i = 0; i < patterns.size(); i++) {
+        int[] triggers = patternTriggers.get(i);
+        boolean triggered = (triggers == null);
+        for (int j = 0; !triggered && j < triggers.length; j++) {
+          int index = triggers[j];
+          if (matched[index] == null) {
+            matched[index] = anyMatch(nodePatterns.get(index), elements);
+          }
+          triggered = matched[index];
+        }
+        if (triggered) {
+          triggeredPatterns.set(i);
+        }
+      }
+      return triggeredPatterns;
+    }
+
+    private static <T> boolean anyMatch(NodePattern<T> nodePattern, List<? extends T> elements) {
+      for (T node:elements) {
+        if (node != null && nodePattern.match(node)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
 }
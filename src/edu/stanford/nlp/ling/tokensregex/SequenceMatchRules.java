@@ -211,6 +211,8 @@ public class SequenceMatchRules {
     public boolean isComposite;
     public boolean includeNested = true;  // TODO: Get parameter from somewhere....
     public boolean active = true;
+    /** Sequence pattern matched by a token or composite rule (null for other rules) */
+    public TokenSequencePattern pattern;
     /** Actual rule performing the extraction (converting annotation to MatchedExpression) */
     public ExtractRule<S, T> extractRule;
     public Predicate<T> filterRule;
@@ -415,6 +417,7 @@ public class SequenceMatchRules {
                                      Expression action,
                                      Expression result)
     {
+      r.pattern = pattern;
       MatchedExpression.SingleAnnotationExtractor valueExtractor = createAnnotationExtractor(env, r);
       valueExtractor.valueExtractor =
               new CoreMapFunctionApplier< List<? extends CoreMap>, Value>(
@@ -471,6 +474,7 @@ public class SequenceMatchRules {
                                      Expression action,
                                      Expression result)
     {
+      r.pattern = pattern;
       MatchedExpression.SingleAnnotationExtractor valueExtractor = createAnnotationExtractor(env, r);
       if (r.annotationField != null && r.annotationField != CoreMap.class) {
         valueExtractor.valueExtractor =
@@ -727,6 +731,153 @@ public class SequenceMatchRules {
     }
   }
 
+  /**
+   * Extraction rule that applies a list of rules in sequence and aggregates
+   *   all matches found, like {@link ListExtractRule}, but skips the token
+   *   and composite rules which cannot match the sequence they are applied
+   *   to, because none of the node patterns every match of the rule needs
+   *   matches any element of it (see {@link SequencePattern#getTriggerNodePatterns()}).
+   *   The elements of each sequence are tried against these node patterns
+   *   once for all the rules.
+   * @param <I> input type
+   * @param <O> output type
+   */
+  public static class TriggeredListExtractRule<I,O> extends ListExtractRule<I,O>
+  {
+    /** Key for the rules which match over the input sequence itself (composite rules) */
+    private static final Class<?> INPUT_SEQUENCE = List.class;
+
+    /** Triggers for the current rules, built when first needed after rules are added */
+    private volatile Triggers triggers;
+
+    public TriggeredListExtractRule(Collection<ExtractRule<I,O>> rules)
+    {
+      super(rules);
+    }
+
+    @SafeVarargs
+    public TriggeredListExtractRule(ExtractRule<I,O>... rules)
+    {
+      super(rules);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addRules(ExtractRule<I,O>... rules)
+    {
+      super.addRules(rules);
+      triggers = null;
+    }
+
+    @Override
+    public void addRules(Collection<ExtractRule<I,O>> rules)
+    {
+      super.addRules(rules);
+      triggers = null;
+    }
+
+    private static class Triggers
+    {
+      /** For each rule, the annotation holding the sequence it matches over, or null if it is always applied */
+      final Class<?>[] ruleSequenceKeys;
+      /** For each rule with a sequence key, the position of its pattern in the trigger for that key */
+      final int[] rulePatternIndices;
+      final Map<Class<?>, MultiPatternMatcher.NodePatternsSequencePatternTrigger<CoreMap>> triggers;
+
+      Triggers(List<? extends ExtractRule<?,?>> rules)
+      {
+        ruleSequenceKeys = new Class<?>[rules.size()];
+        rulePatternIndices = new int[rules.size()];
+        Map<Class<?>, List<SequencePattern<CoreMap>>> patterns = new HashMap<Class<?>, List<SequencePattern<CoreMap>>>();
+        for (int i = 0; i < rules.size(); i++) {
+          Class<?> key = getSequenceKey(rules.get(i));
+          ruleSequenceKeys[i] = key;
+          if (key != null) {
+            List<SequencePattern<CoreMap>> keyPatterns = patterns.get(key);
+            if (keyPatterns == null) {
+              patterns.put(key, keyPatterns = new ArrayList<SequencePattern<CoreMap>>());
+            }
+            rulePatternIndices[i] = keyPatterns.size();
+            keyPatterns.add(((AnnotationExtractRule<?,?>) rules.get(i)).pattern);
+          }
+        }
+        triggers = new HashMap<Class<?>, MultiPatternMatcher.NodePatternsSequencePatternTrigger<CoreMap>>();
+        for (Map.Entry<Class<?>, List<SequencePattern<CoreMap>>> entry:patterns.entrySet()) {
+          triggers.put(entry.getKey(), new MultiPatternMatcher.NodePatternsSequencePatternTrigger<CoreMap>(entry.getValue()));
+        }
+      }
+    }
+
+    private static Class<?> getSequenceKey(ExtractRule<?,?> rule)
+    {
+      if (rule instanceof AnnotationExtractRule) {
+        AnnotationExtractRule<?,?> r = (AnnotationExtractRule<?,?>) rule;
+        if (r.pattern != null) {
+          if (r.isComposite) {
+            return INPUT_SEQUENCE;
+          } else if (r.annotationField == null) {
+            return CoreMap.class;
+          } else {
+            return r.annotationField;
+          }
+        }
+      }
+      return null;
+    }
+
+    private Triggers getTriggers()
+    {
+      Triggers t = triggers;
+      if (t == null) {
+        synchronized (this) {
+          t = triggers;
+          if (t == null) {
+            triggers = t = new Triggers(rules);
+          }
+        }
+      }
+      return t;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<? extends CoreMap> getSequence(Object in, Class<?> key)
+    {
+      if (key == INPUT_SEQUENCE) {
+        return (List<? extends CoreMap>) in;
+      } else if (key == CoreMap.class) {
+        return Arrays.asList((CoreMap) in);
+      } else {
+        return (List<? extends CoreMap>) ((CoreMap) in).get((Class) key);
+      }
+    }
+
+    @Override
+    public boolean extract(I in, List<O> out) {
+      boolean extracted = false;
+      Triggers t = getTriggers();
+      Map<Class<?>, BitSet> triggered = new HashMap<Class<?>, BitSet>();
+      for (int i = 0; i < t.ruleSequenceKeys.length; i++) {
+        Class<?> key = t.ruleSequenceKeys[i];
+        if (key != null) {
+          BitSet keyTriggered = triggered.get(key);
+          if (keyTriggered == null) {
+            List<? extends CoreMap> seq = getSequence(in, key);
+            // rules do not match a missing sequence
+            keyTriggered = (seq != null) ? t.triggers.get(key).getTriggeredPatternIndices(seq) : new BitSet();
+            triggered.put(key, keyTriggered);
+          }
+          if ( ! keyTriggered.get(t.rulePatternIndices[i])) {
+            continue;
+          }
+        }
+        if (rules.get(i).extract(in,out)) {
+          extracted = true;
+        }
+      }
+      return extracted;
+    }
+  }
+
   /**
    * Extraction rule to apply a extraction rule on a particular CoreMap field
    * Input is of type CoreMap, output is templated type O.
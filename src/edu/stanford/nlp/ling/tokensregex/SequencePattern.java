@@ -185,6 +185,19 @@ public class SequencePattern<T> implements Serializable {
     return totalGroups;
   }
 
+  /**
+   * Returns node patterns of which at least one has to match some element
+   * of a sequence for this pattern to match anywhere in it, or null if
+   * the pattern gives no such set.  Sequences which no element of matches
+   * one of these can be skipped without trying the pattern on them.
+   */
+  @SuppressWarnings("unchecked")
+  public Collection<NodePattern<T>> getTriggerNodePatterns() {
+    Set<NodePattern<?>> triggers = triggerNodePatterns(patternExpr);
+    // the node patterns of this pattern all match elements of type T
+    return (triggers != null) ? Collections.unmodifiableCollection((Collection<NodePattern<T>>) (Collection<?>) triggers) : null;
+  }
+
   // Compiles string (regex) to NFA for doing pattern simulation
   public static <T> SequencePattern<T> compile(Env env, String string)
   {
@@ -300,6 +313,91 @@ public class SequencePattern<T> implements Serializable {
     protected abstract PatternExpr transform(NodePatternTransformer transformer);
   }
 
+  /**
+   * Node patterns only looking at the node they are matched against, of
+   * which at least one has to match some element of a sequence for the
+   * given expression to match anywhere in it, or null if there is no
+   * such set (for instance if the expression can match an empty sequence).
+   */
+  private static Set<NodePattern<?>> triggerNodePatterns(PatternExpr expr) {
+    if (expr instanceof NodePatternExpr) {
+      NodePattern<?> trigger = triggerNodePattern(((NodePatternExpr) expr).nodePattern);
+      return (trigger != null) ? Collections.<NodePattern<?>>singleton(trigger) : null;
+    } else if (expr instanceof SequencePatternExpr) {
+      return smallestTriggerNodePatterns(((SequencePatternExpr) expr).patterns);
+    } else if (expr instanceof AndPatternExpr) {
+      return smallestTriggerNodePatterns(((AndPatternExpr) expr).patterns);
+    } else if (expr instanceof OrPatternExpr) {
+      // each alternative needs one of its own triggers
+      Set<NodePattern<?>> triggers = new LinkedHashSet<NodePattern<?>>();
+      for (PatternExpr p : ((OrPatternExpr) expr).patterns) {
+        Set<NodePattern<?>> pTriggers = triggerNodePatterns(p);
+        if (pTriggers == null) {
+          return null;
+        }
+        triggers.addAll(pTriggers);
+      }
+      return triggers;
+    } else if (expr instanceof GroupPatternExpr) {
+      return triggerNodePatterns(((GroupPatternExpr) expr).pattern);
+    } else if (expr instanceof ValuePatternExpr) {
+      return triggerNodePatterns(((ValuePatternExpr) expr).expr);
+    } else if (expr instanceof RepeatPatternExpr) {
+      RepeatPatternExpr repeat = (RepeatPatternExpr) expr;
+      return (repeat.minMatch > 0) ? triggerNodePatterns(repeat.pattern) : null;
+    } else {
+      return null;
+    }
+  }
+
+  private static Set<NodePattern<?>> smallestTriggerNodePatterns(List<PatternExpr> patterns) {
+    // every one of the patterns has to match, so the triggers of any one will do
+    Set<NodePattern<?>> smallest = null;
+    for (PatternExpr p : patterns) {
+      Set<NodePattern<?>> triggers = triggerNodePatterns(p);
+      if (triggers != null && (smallest == null || triggers.size() < smallest.size())) {
+        smallest = triggers;
+      }
+    }
+    return smallest;
+  }
+
+  /**
+   * A node pattern which every node matched by the given one also matches,
+   * and which only looks at the annotations of the node, or null.
+   */
+  private static NodePattern<?> triggerNodePattern(NodePattern<?> nodePattern) {
+    if (nodePattern instanceof NodePattern.ConjNodePattern) {
+      for (NodePattern<?> p : ((NodePattern.ConjNodePattern<?>) nodePattern).nodePatterns) {
+        NodePattern<?> trigger = triggerNodePattern(p);
+        if (trigger != null) {
+          return trigger;
+        }
+      }
+      return null;
+    }
+    return (isAnnotationNodePattern(nodePattern)) ? nodePattern : null;
+  }
+
+  private static boolean isAnnotationNodePattern(NodePattern<?> nodePattern) {
+    if (nodePattern instanceof CoreMapNodePattern) {
+      return true;
+    } else if (nodePattern instanceof NodePattern.NegateNodePattern) {
+      return isAnnotationNodePattern(((NodePattern.NegateNodePattern<?>) nodePattern).p);
+    } else if (nodePattern instanceof NodePattern.ConjNodePattern || nodePattern instanceof NodePattern.DisjNodePattern) {
+      List<? extends NodePattern<?>> nodePatterns = (nodePattern instanceof NodePattern.ConjNodePattern) ?
+              ((NodePattern.ConjNodePattern<?>) nodePattern).nodePatterns : ((NodePattern.DisjNodePattern<?>) nodePattern).nodePatterns;
+      for (NodePattern<?> p : nodePatterns) {
+        if ( ! isAnnotationNodePattern(p)) {
+          return false;
+        }
+      }
+      return true;
+    } else {
+      return false;
+    }
+  }
+
   /** Represents one element to be matched. */
   public static class NodePatternExpr extends PatternExpr {
 
@@ -0,0 +1,174 @@
+package edu.stanford.nlp.ling.tokensregex.matcher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Function;
+
+/**
+ * Finds every occurrence of a large set of key sequences in a sequence
+ * of elements in one left to right pass, using the Aho-Corasick
+ * automaton.  The keys are sequences over an alphabet of objects
+ * (typically the words of a gazetteer, so the alphabet is Strings),
+ * and each key can carry any number of values.
+ * <br>
+ * Unlike {@link TrieMapMatcher}, which walks the trie from every
+ * start position, the time to match a sequence is linear in its
+ * length plus the number of matches, no matter how many keys there are.
+ * <br>
+ * Keys are added with {@link #add}; the failure links are built the
+ * first time the matcher is used, after which no more keys can be
+ * added.  Once built, a matcher can be used from many threads at once.
+ *
+ * @param <K> Type of the elements of the keys
+ * @param <V> Type of the values
+ */
+public class AhoCorasickMatcher<K, V> {
+
+  /** Called for each match found by {@link #findAll} */
+  public interface MatchHandler<V> {
+    /**
+     * @param value The value of the matched key
+     * @param begin The index of the first element of the match
+     * @param end The index after the last element of the match
+     */
+    void matched(V value, int begin, int end);
+  }
+
+  private static class Node<K, V> {
+    Map<K, Node<K, V>> children;
+    /** Values of the keys which end at this node, in the order they were added */
+    List<V> values;
+    /** The node for the longest proper suffix of this node's key which is a prefix of some key */
+    Node<K, V> fail;
+    /** The nearest node along the failure links which has values */
+    Node<K, V> output;
+    final int depth;
+
+    Node(int depth) {
+      this.depth = depth;
+    }
+
+    Node<K, V> child(K key) {
+      return (children != null) ? children.get(key) : null;
+    }
+  }
+
+  private final Node<K, V> root = new Node<>(0);
+  private int size = 0;
+  private volatile boolean built = false;
+
+  /**
+   * Adds a key with the given value.  A key may be added more than
+   * once, in which case all of its values are reported for each match.
+   */
+  public void add(List<? extends K> key, V value) {
+    if (built) {
+      throw new IllegalStateException("Cannot add keys to an AhoCorasickMatcher once it has been used");
+    }
+    if (key.isEmpty()) {
+      throw new IllegalArgumentException("Cannot add an empty key");
+    }
+    Node<K, V> node = root;
+    for (K element : key) {
+      Node<K, V> child = node.child(element);
+      if (child == null) {
+        if (node.children == null) {
+          node.children = new HashMap<>(4);
+        }
+        child = new Node<>(node.depth + 1);
+        node.children.put(element, child);
+      }
+      node = child;
+    }
+    if (node.values == null) {
+      node.values = new ArrayList<>(1);
+    }
+    node.values.add(value);
+    size++;
+  }
+
+  /** Number of (key, value) pairs which have been added */
+  public int size() {
+    return size;
+  }
+
+  /** Computes the failure and output links with a breadth first walk of the trie */
+  private synchronized void build() {
+    if (built) {
+      return;
+    }
+    Queue<Node<K, V>> queue = new ArrayDeque<>();
+    root.fail = root;
+    if (root.children != null) {
+      for (Node<K, V> child : root.children.values()) {
+        child.fail = root;
+        queue.add(child);
+      }
+    }
+    while (!queue.isEmpty()) {
+      Node<K, V> node = queue.remove();
+      node.output = (node.fail.values != null) ? node.fail : node.fail.output;
+      if (node.children == null) {
+        continue;
+      }
+      for (Map.Entry<K, Node<K, V>> entry : node.children.entrySet()) {
+        K element = entry.getKey();
+        Node<K, V> child = entry.getValue();
+        Node<K, V> fail = node.fail;
+        while (fail != root && fail.child(element) == null) {
+          fail = fail.fail;
+        }
+        Node<K, V> next = fail.child(element);
+        child.fail = (next != null && next != child) ? next : root;
+        queue.add(child);
+      }
+    }
+    built = true;
+  }
+
+  /**
+   * Reports every occurrence of every key in the given elements.
+   * Matches are reported in order of their end offset, and for the same
+   * end offset, longest first.
+   *
+   * @param elements The sequence to search
+   * @param toKey Converts each element to the alphabet of the keys.  A null
+   *              result never matches anything.
+   * @param handler Receives the matches
+   */
+  public <T> void findAll(List<? extends T> elements, Function<? super T, ? extends K> toKey, MatchHandler<? super V> handler) {
+    if (!built) {
+      build();
+    }
+    Node<K, V> node = root;
+    for (int i = 0; i < elements.size(); i++) {
+      K element = toKey.apply(elements.get(i));
+      if (element == null) {
+        node = root;
+        continue;
+      }
+      Node<K, V> next = node.child(element);
+      while (next == null && node != root) {
+        node = node.fail;
+        next = node.child(element);
+      }
+      node = (next != null) ? next : root;
+
+      for (Node<K, V> match = (node.values != null) ? node : node.output; match != null; match = match.output) {
+        for (V value : match.values) {
+          handler.matched(value, i + 1 - match.depth, i + 1);
+        }
+      }
+    }
+  }
+
+  /** Convenience version of {@link #findAll} for sequences already over the key alphabet */
+  public void findAll(List<? extends K> elements, MatchHandler<? super V> handler) {
+    findAll(elements, Function.<K>identity(), handler);
+  }
+
+}
@@ -69,4 +69,13 @@ public interface ParserQuery {
   boolean parseUnparsable();
 
   List<? extends HasWord> originalSentence();
+
+  /**
+   * Gives back any memory held for the most recent parse, such as a
+   * chart leased from a shared pool.  The results of the most recent
+   * parse should not be asked for after this is called.  The query can
+   * still be used to parse more sentences.  Queries which hold nothing
+   * between sentences need not implement it.
+   */
+  default void releaseMemory() {}
 }
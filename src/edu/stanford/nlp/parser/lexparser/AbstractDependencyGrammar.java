@@ -6,6 +6,7 @@ import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.HashIndex;
 import edu.stanford.nlp.util.Index;
 import edu.stanford.nlp.util.Interner;
+import edu.stanford.nlp.util.concurrent.ConcurrentInterner;
 
 import static edu.stanford.nlp.parser.lexparser.IntTaggedWord.ANY_WORD_INT;
 import static edu.stanford.nlp.parser.lexparser.IntTaggedWord.ANY_TAG_INT;
@@ -55,8 +56,9 @@ public abstract class AbstractDependencyGrammar implements DependencyGrammar {
 
   protected final Options op;
 
+  // shared by all the threads parsing with this grammar
   transient protected Interner<IntTaggedWord> itwInterner =
-    new Interner<IntTaggedWord>();
+    new ConcurrentInterner<IntTaggedWord>();
 
   public AbstractDependencyGrammar(TreebankLanguagePack tlp, TagProjection tagProjection, boolean directional, boolean useDistance, boolean useCoarseDistance, Options op, Index<String> wordIndex, Index<String> tagIndex) {
     this.tlp = tlp;
@@ -203,7 +205,7 @@ public abstract class AbstractDependencyGrammar implements DependencyGrammar {
   {
     ois.defaultReadObject();
     // reinitialize the transient objects
-    itwInterner = new Interner<IntTaggedWord>();
+    itwInterner = new ConcurrentInterner<IntTaggedWord>();
   }
 
   /**
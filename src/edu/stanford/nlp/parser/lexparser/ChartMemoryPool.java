@@ -0,0 +1,342 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import edu.stanford.nlp.util.Generics;
+
+/**
+ * A pool of the chart arrays of {@link ExhaustivePCFGParser}, shared by
+ * all the queries of a {@link LexicalizedParser}.
+ * <br>
+ * Rather than each query allocating (and keeping) a chart big enough
+ * for the longest sentence it has seen, a parser leases a chart for
+ * each sentence and gives it back with
+ * {@link LexicalizedParserQuery#releaseMemory}, so that the next
+ * sentence parsed by any thread can reuse it.  Charts are made for
+ * lengths rounded up to a multiple of {@link #BUCKET_SIZE}, and a lease
+ * gets the smallest idle chart which is big enough.
+ * <br>
+ * The pool keeps count of the bytes in all its charts, leased or idle.
+ * If a new chart would take the total over the budget, idle charts are
+ * dropped to make room, and if that is not enough the lease is refused
+ * with an {@link OutOfMemoryError}, which the parser handles as it would
+ * a real one.  This bounds the memory of the charts however many threads
+ * are parsing.  Idle charts are only softly held, so the garbage
+ * collector can take them if memory runs short, and a chart whose parser
+ * is garbage collected without releasing it no longer counts against
+ * the budget.
+ *
+ * @see TestOptions#chartMemory
+ */
+public class ChartMemoryPool {
+
+  /** Charts are made for sentence lengths rounded up to a multiple of this */
+  public static final int BUCKET_SIZE = 10;
+
+  private long maxBytes = Long.MAX_VALUE;
+  private long allocatedBytes = 0;
+
+  private final List<IdleChart> idle = new ArrayList<>();
+  private final Set<Lease> leases = Generics.newHashSet();
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+  private long requests = 0;
+  private long hits = 0;
+  private long grows = 0;
+  private long refused = 0;
+  private long reclaimed = 0;
+
+  /** The most bytes the charts of this pool may take, or a nonpositive number for no limit */
+  public synchronized void setMaxBytes(long maxBytes) {
+    this.maxBytes = (maxBytes <= 0) ? Long.MAX_VALUE : maxBytes;
+  }
+
+  public synchronized long maxBytes() {
+    return maxBytes;
+  }
+
+  /** The bytes taken by the charts of this pool, leased or idle */
+  public synchronized long allocatedBytes() {
+    expunge();
+    return allocatedBytes;
+  }
+
+  /** The number of charts asked for */
+  public synchronized long requests() {
+    return requests;
+  }
+
+  /** The number of charts leased by reusing an idle chart */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /** The number of charts which had to be allocated */
+  public synchronized long grows() {
+    return grows;
+  }
+
+  /** The number of charts refused for lack of memory, each of which is a sentence that could not be parsed */
+  public synchronized long refused() {
+    return refused;
+  }
+
+  /** The number of charts collected by the garbage collector rather than released or dropped */
+  public synchronized long reclaimed() {
+    expunge();
+    return reclaimed;
+  }
+
+  public synchronized int idleCharts() {
+    expunge();
+    return idle.size();
+  }
+
+  @Override
+  public synchronized String toString() {
+    expunge();
+    return "ChartMemoryPool[requests=" + requests + ", hits=" + hits + ", grows=" + grows +
+            ", refused=" + refused + ", reclaimed=" + reclaimed + ", leased=" + leases.size() +
+            ", idle=" + idle.size() + ", allocatedBytes=" + allocatedBytes +
+            ", maxBytes=" + (maxBytes == Long.MAX_VALUE ? "unlimited" : String.valueOf(maxBytes)) + ']';
+  }
+
+  /**
+   * Leases a chart with arrays of at least the given size.
+   *
+   * @param owner The parser which will use the chart.  If it is garbage
+   *     collected without releasing the chart, the chart's memory is no
+   *     longer counted.
+   * @param size The array size needed, which is one more than the sentence length
+   * @throws OutOfMemoryError If there is no room for the chart
+   */
+  Chart lease(Object owner, int size, int numStates, int numTags, boolean outside, boolean wordsInSpan) {
+    int capacity = ((size + BUCKET_SIZE - 1) / BUCKET_SIZE) * BUCKET_SIZE;
+    long bytes = Chart.bytes(capacity, numStates, numTags, outside, wordsInSpan);
+    synchronized (this) {
+      expunge();
+      ++requests;
+      IdleChart best = null;
+      Chart bestChart = null;
+      for (IdleChart candidate : idle) {
+        Chart chart = candidate.get();
+        if (chart != null && chart.fits(size, numStates, numTags, outside, wordsInSpan) &&
+            (bestChart == null || chart.size < bestChart.size)) {
+          best = candidate;
+          bestChart = chart;
+        }
+      }
+      if (bestChart != null) {
+        idle.remove(best);
+        best.clear();
+        ++hits;
+        lease(owner, bestChart, best.bytes);
+        return bestChart;
+      }
+
+      if (allocatedBytes + bytes > maxBytes) {
+        makeRoom(bytes);
+      }
+      if (allocatedBytes + bytes > maxBytes) {
+        ++refused;
+        throw new OutOfMemoryError("Chart memory pool has no room for a chart of size " + capacity +
+                " (" + bytes + " bytes) within its budget of " + maxBytes + " bytes");
+      }
+      allocatedBytes += bytes;
+      ++grows;
+    }
+
+    Chart chart;
+    try {
+      chart = new Chart(capacity, numStates, numTags, outside, wordsInSpan);
+    } catch (OutOfMemoryError e) {
+      synchronized (this) {
+        allocatedBytes -= bytes;
+        ++refused;
+        // let the garbage collector have the idle charts before the parser tries anything else
+        for (IdleChart idleChart : idle) {
+          idleChart.clear();
+          allocatedBytes -= idleChart.bytes;
+        }
+        idle.clear();
+      }
+      throw e;
+    }
+    synchronized (this) {
+      lease(owner, chart, bytes);
+    }
+    return chart;
+  }
+
+  private void lease(Object owner, Chart chart, long bytes) {
+    chart.lease = new Lease(owner, bytes, collected);
+    leases.add(chart.lease);
+  }
+
+  /** Gives back a leased chart, so that it can be leased again.  Releasing a chart twice does nothing. */
+  synchronized void release(Chart chart) {
+    expunge();
+    Lease lease = chart.lease;
+    if (lease == null || ! leases.remove(lease)) {
+      return;
+    }
+    lease.clear();
+    chart.lease = null;
+    idle.add(new IdleChart(chart, lease.bytes, collected));
+  }
+
+  /** Drops the idle charts, biggest first, until the given number of bytes fits in the budget */
+  private void makeRoom(long bytes) {
+    while ( ! idle.isEmpty() && allocatedBytes + bytes > maxBytes) {
+      IdleChart biggest = null;
+      for (IdleChart candidate : idle) {
+        if (biggest == null || candidate.bytes > biggest.bytes) {
+          biggest = candidate;
+        }
+      }
+      idle.remove(biggest);
+      biggest.clear();
+      allocatedBytes -= biggest.bytes;
+    }
+  }
+
+  /** Stops counting the charts which the garbage collector has taken */
+  private void expunge() {
+    for (Reference<?> ref; (ref = collected.poll()) != null; ) {
+      if (ref instanceof Lease) {
+        Lease lease = (Lease) ref;
+        if (leases.remove(lease)) {
+          allocatedBytes -= lease.bytes;
+          ++reclaimed;
+        }
+      } else {
+        IdleChart chart = (IdleChart) ref;
+        for (Iterator<IdleChart> it = idle.iterator(); it.hasNext(); ) {
+          if (it.next() == chart) {
+            it.remove();
+            allocatedBytes -= chart.bytes;
+            ++reclaimed;
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  /** Weakly refers to the parser holding a leased chart */
+  private static class Lease extends WeakReference<Object> {
+    final long bytes;
+
+    Lease(Object owner, long bytes, ReferenceQueue<Object> queue) {
+      super(owner, queue);
+      this.bytes = bytes;
+    }
+  }
+
+  private static class IdleChart extends SoftReference<Chart> {
+    final long bytes;
+
+    IdleChart(Chart chart, long bytes, ReferenceQueue<Object> queue) {
+      super(chart, queue);
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * The arrays of the chart of an {@link ExhaustivePCFGParser}.  The
+   * outside score and possible arrays are only made for parsers which
+   * need outside scores, and the words in span arrays only for length
+   * normalization.
+   */
+  static class Chart {
+    final int size;
+    final int numStates;
+    final int numTags;
+
+    final float[][][] iScore;
+    final float[][][] oScore;
+    final int[][][] wordsInSpan;
+    final int[][] narrowRExtent;
+    final int[][] wideRExtent;
+    final int[][] narrowLExtent;
+    final int[][] wideLExtent;
+    final boolean[][] iPossibleByL;
+    final boolean[][] iPossibleByR;
+    final boolean[][] oPossibleByL;
+    final boolean[][] oPossibleByR;
+    final boolean[][] tags;
+
+    private Lease lease; // = null
+
+    Chart(int size, int numStates, int numTags, boolean outside, boolean wordsInSpan) {
+      this.size = size;
+      this.numStates = numStates;
+      this.numTags = numTags;
+      // allocate just the parts of iScore and oScore used (end > start, etc.)
+      iScore = scoreArray(size, numStates);
+      oScore = outside ? scoreArray(size, numStates) : null;
+      narrowRExtent = new int[size][numStates];
+      wideRExtent = new int[size][numStates];
+      narrowLExtent = new int[size + 1][numStates];
+      wideLExtent = new int[size + 1][numStates];
+      if (outside) {
+        iPossibleByL = new boolean[size][numStates];
+        iPossibleByR = new boolean[size + 1][numStates];
+        oPossibleByL = new boolean[size][numStates];
+        oPossibleByR = new boolean[size + 1][numStates];
+      } else {
+        iPossibleByL = iPossibleByR = oPossibleByL = oPossibleByR = null;
+      }
+      tags = new boolean[size][numTags];
+      if (wordsInSpan) {
+        this.wordsInSpan = new int[size][size + 1][];
+        for (int start = 0; start < size; start++) {
+          for (int end = start + 1; end <= size; end++) {
+            this.wordsInSpan[start][end] = new int[numStates];
+          }
+        }
+      } else {
+        this.wordsInSpan = null;
+      }
+    }
+
+    private static float[][][] scoreArray(int size, int numStates) {
+      float[][][] scores = new float[size][size + 1][];
+      for (int start = 0; start < size; start++) {
+        for (int end = start + 1; end <= size; end++) {
+          scores[start][end] = new float[numStates];
+        }
+      }
+      return scores;
+    }
+
+    boolean fits(int size, int numStates, int numTags, boolean outside, boolean wordsInSpan) {
+      return this.size >= size && this.numStates == numStates && this.numTags == numTags &&
+              (oScore != null) == outside && (this.wordsInSpan != null) == wordsInSpan;
+    }
+
+    /** Roughly the bytes taken by the arrays of a chart, ignoring object headers */
+    static long bytes(int size, int numStates, int numTags, boolean outside, boolean wordsInSpan) {
+      long cells = ((long) size) * (size + 1) / 2 * numStates;
+      long bytes = 4 * cells;                                    // iScore
+      bytes += 4L * (4L * size + 2) * numStates;                 // extents
+      bytes += ((long) size) * numTags;                          // tags
+      if (outside) {
+        bytes += 4 * cells;                                      // oScore
+        bytes += (4L * size + 2) * numStates;                    // possibles
+      }
+      if (wordsInSpan) {
+        bytes += 4 * cells;
+      }
+      return bytes;
+    }
+  }
+
+}
@@ -0,0 +1,120 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import java.util.Map;
+
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+/**
+ * Projects a split grammar onto the grammar of its unsplit categories.
+ * The name of each state is projected with a {@link TagProjection}, so
+ * with a {@link BasicCategoryTagProjection} the state NP^S projects to NP
+ * and the binarization state {@code @NP|^S| NN_JJ} projects to {@code @NP}.
+ * <br>
+ * The score of each rule of the coarse grammar is the maximum score of
+ * the split rules which project onto it.  Any split parse therefore
+ * scores no higher than its projection, so the Viterbi inside and
+ * outside scores of the coarse grammar are upper bounds on those of the
+ * split grammar, which is what {@link CoarseToFinePruner} relies on.
+ *
+ * @see CoarseToFinePruner
+ */
+class CoarseGrammarProjection implements GrammarProjection {
+
+  private final BinaryGrammar sourceBG;
+  private final UnaryGrammar sourceUG;
+  private final BinaryGrammar targetBG;
+  private final UnaryGrammar targetUG;
+
+  private final Index<String> targetIndex;
+  private final int[] projection;
+
+  CoarseGrammarProjection(BinaryGrammar bg, UnaryGrammar ug, Index<String> stateIndex, TagProjection tagProjection) {
+    this.sourceBG = bg;
+    this.sourceUG = ug;
+    targetIndex = new HashIndex<>();
+    int numStates = stateIndex.size();
+    projection = new int[numStates];
+    for (int state = 0; state < numStates; state++) {
+      projection[state] = targetIndex.addToIndex(projectState(stateIndex.get(state), tagProjection));
+    }
+
+    Map<BinaryRule,BinaryRule> binaries = Generics.newHashMap();
+    for (BinaryRule rule : bg) {
+      BinaryRule coarse = new BinaryRule(projection[rule.parent], projection[rule.leftChild], projection[rule.rightChild], rule.score);
+      BinaryRule old = binaries.get(coarse);
+      if (old == null) {
+        binaries.put(coarse, coarse);
+      } else if (old.score < coarse.score) {
+        old.score = coarse.score;
+      }
+    }
+    targetBG = new BinaryGrammar(targetIndex);
+    for (BinaryRule rule : binaries.keySet()) {
+      targetBG.addRule(rule);
+    }
+    targetBG.splitRules();
+
+    // the closed rules are projected, so that a chain of split unaries
+    // is never scored lower than the coarse chain it projects onto
+    Map<UnaryRule,UnaryRule> unaries = Generics.newHashMap();
+    for (UnaryRule rule : (Iterable<UnaryRule>) ug::closedRuleIterator) {
+      int parent = projection[rule.parent];
+      int child = projection[rule.child];
+      if (parent == child) {
+        continue;
+      }
+      UnaryRule coarse = new UnaryRule(parent, child, rule.score);
+      UnaryRule old = unaries.get(coarse);
+      if (old == null) {
+        unaries.put(coarse, coarse);
+      } else if (old.score < coarse.score) {
+        old.score = coarse.score;
+      }
+    }
+    targetUG = new UnaryGrammar(targetIndex);
+    for (UnaryRule rule : unaries.keySet()) {
+      targetUG.addRule(rule);
+    }
+    targetUG.purgeRules();
+  }
+
+  private static String projectState(String state, TagProjection tagProjection) {
+    if (state.length() > 1 && state.charAt(0) == '@') {
+      return '@' + tagProjection.project(state.substring(1));
+    }
+    return tagProjection.project(state);
+  }
+
+  /** The states of the coarse grammar */
+  Index<String> targetIndex() {
+    return targetIndex;
+  }
+
+  @Override
+  public int project(int state) {
+    return projection[state];
+  }
+
+  @Override
+  public UnaryGrammar sourceUG() {
+    return sourceUG;
+  }
+
+  @Override
+  public BinaryGrammar sourceBG() {
+    return sourceBG;
+  }
+
+  @Override
+  public UnaryGrammar targetUG() {
+    return targetUG;
+  }
+
+  @Override
+  public BinaryGrammar targetBG() {
+    return targetBG;
+  }
+
+}
@@ -0,0 +1,269 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.stanford.nlp.util.Index;
+
+/**
+ * The coarse pass of coarse-to-fine PCFG parsing.  Before the
+ * {@link ExhaustivePCFGParser} fills its chart, the sentence is parsed
+ * with the much smaller grammar of a {@link CoarseGrammarProjection}.
+ * A coarse state over a span is kept only if the best coarse parse
+ * through it scores within {@code op.testOptions.coarseToFineThreshold}
+ * (a log probability) of the best coarse parse of the sentence; the
+ * fine parser then only builds the states over each span which project
+ * onto a kept coarse state, and skips spans where nothing was kept.
+ * <br>
+ * The parser works in the Viterbi semiring, so rather than posteriors
+ * the pruning uses max-marginals: the sum of the coarse inside and
+ * outside scores of the best parses.  Since coarse rules score the
+ * maximum of the split rules they come from, these bound the fine
+ * max-marginals from above.  Pruning is therefore safe for any state
+ * which could be in a fine parse within the threshold of the best
+ * coarse parse, and a larger threshold gives parses closer to those of
+ * the unpruned parser.
+ * <br>
+ * The coarse chart starts from the projection of the fine parser's
+ * tagging of the sentence, so the lexicon is only scored once.
+ *
+ * @see CoarseGrammarProjection
+ */
+class CoarseToFinePruner {
+
+  private final GrammarProjection projection;
+  private final int numCoarseStates;
+  private final int numFineStates;
+  private final int goal;
+  private final float threshold;
+
+  private final BinaryRule[][] rulesWithLC;
+  private final UnaryRule[][] closedRulesWithChild;
+  private final UnaryRule[][] closedRulesWithParent;
+
+  private float[][][] iScore; // start idx, end idx, coarse state -> logProb
+  private float[][][] oScore;
+  private boolean[][][] allowed; // start idx, end idx, coarse state -> kept
+  private boolean[][] spanKept; // start idx, end idx -> whether any state was kept
+  private int arraySize = 0;
+  private int length;
+
+  private int numSpans;
+  private int numPrunedSpans;
+
+  CoarseToFinePruner(CoarseGrammarProjection projection, Index<String> stateIndex, String goalStr, float threshold) {
+    this.projection = projection;
+    this.numCoarseStates = projection.targetIndex().size();
+    this.numFineStates = stateIndex.size();
+    this.goal = projection.project(stateIndex.indexOf(goalStr));
+    this.threshold = threshold;
+
+    BinaryGrammar bg = projection.targetBG();
+    UnaryGrammar ug = projection.targetUG();
+    rulesWithLC = new BinaryRule[numCoarseStates][];
+    closedRulesWithChild = new UnaryRule[numCoarseStates][];
+    closedRulesWithParent = new UnaryRule[numCoarseStates][];
+    for (int state = 0; state < numCoarseStates; state++) {
+      List<BinaryRule> rules = bg.ruleListByLeftChild(state);
+      rulesWithLC[state] = rules.toArray(new BinaryRule[rules.size()]);
+      closedRulesWithChild[state] = ug.closedRulesByChild(state);
+      closedRulesWithParent[state] = ug.closedRulesByParent(state);
+    }
+  }
+
+  /**
+   * Parses a sentence with the coarse grammar and decides which states
+   * the fine parser may build over each span of two or more words.
+   *
+   * @param fineIScore The chart of the fine parser, with the tags of the
+   *     sentence (and the unaries over them) filled in
+   * @param length The length of the sentence, including the boundary symbol
+   * @return Whether anything was pruned.  If the coarse grammar cannot
+   *     parse the sentence, nothing is pruned.
+   */
+  boolean prune(float[][][] fineIScore, int length) {
+    this.length = length;
+    if (length > arraySize) {
+      createArrays(length);
+    }
+    for (int start = 0; start < length; start++) {
+      for (int end = start + 1; end <= length; end++) {
+        Arrays.fill(iScore[start][end], Float.NEGATIVE_INFINITY);
+        Arrays.fill(oScore[start][end], Float.NEGATIVE_INFINITY);
+      }
+      float[] fine = fineIScore[start][start + 1];
+      float[] coarse = iScore[start][start + 1];
+      for (int state = 0; state < numFineStates; state++) {
+        int coarseState = projection.project(state);
+        if (fine[state] > coarse[coarseState]) {
+          coarse[coarseState] = fine[state];
+        }
+      }
+    }
+
+    doInsideScores();
+    float best = iScore[0][length][goal];
+    if (best == Float.NEGATIVE_INFINITY) {
+      return false;
+    }
+    oScore[0][length][goal] = 0.0f;
+    doOutsideScores();
+
+    float cutoff = best - threshold;
+    boolean pruned = false;
+    for (int diff = 2; diff <= length; diff++) {
+      for (int start = 0; start < ((diff == length) ? 1 : length - diff); start++) {
+        int end = start + diff;
+        float[] iS = iScore[start][end];
+        float[] oS = oScore[start][end];
+        boolean[] keep = allowed[start][end];
+        boolean any = false;
+        for (int state = 0; state < numCoarseStates; state++) {
+          keep[state] = iS[state] + oS[state] >= cutoff;
+          if (keep[state]) {
+            any = true;
+          } else if (iS[state] > Float.NEGATIVE_INFINITY) {
+            pruned = true;
+          }
+        }
+        spanKept[start][end] = any;
+        ++numSpans;
+        if ( ! any) {
+          ++numPrunedSpans;
+        }
+      }
+    }
+    return pruned;
+  }
+
+  /**
+   * The coarse states kept over a span of two or more words, indexed by
+   * {@link GrammarProjection#project}, or null if nothing was kept.
+   * Only valid after a call to {@link #prune} which returned true.
+   */
+  boolean[] allowedStates(int start, int end) {
+    return spanKept[start][end] ? allowed[start][end] : null;
+  }
+
+  GrammarProjection projection() {
+    return projection;
+  }
+
+  /** The fraction of the spans of two or more words over which nothing was kept, over all sentences so far */
+  double prunedSpanFraction() {
+    return (numSpans == 0) ? 0.0 : ((double) numPrunedSpans) / numSpans;
+  }
+
+  private void doInsideScores() {
+    for (int diff = 2; diff <= length; diff++) {
+      // as in the fine parser, the boundary symbol only combines with the whole sentence
+      for (int start = 0; start < ((diff == length) ? 1 : length - diff); start++) {
+        int end = start + diff;
+        float[] iS = iScore[start][end];
+        for (int split = start + 1; split < end; split++) {
+          float[] leftScores = iScore[start][split];
+          float[] rightScores = iScore[split][end];
+          for (int leftState = 0; leftState < numCoarseStates; leftState++) {
+            float lS = leftScores[leftState];
+            if (lS == Float.NEGATIVE_INFINITY) {
+              continue;
+            }
+            for (BinaryRule rule : rulesWithLC[leftState]) {
+              float rS = rightScores[rule.rightChild];
+              if (rS == Float.NEGATIVE_INFINITY) {
+                continue;
+              }
+              float tot = lS + rS + rule.score;
+              if (tot > iS[rule.parent]) {
+                iS[rule.parent] = tot;
+              }
+            }
+          }
+        }
+        for (int state = 0; state < numCoarseStates; state++) {
+          float childScore = iS[state];
+          if (childScore == Float.NEGATIVE_INFINITY) {
+            continue;
+          }
+          for (UnaryRule rule : closedRulesWithChild[state]) {
+            float tot = childScore + rule.score;
+            if (tot > iS[rule.parent]) {
+              iS[rule.parent] = tot;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void doOutsideScores() {
+    for (int diff = length; diff >= 2; diff--) {
+      for (int start = 0; start < ((diff == length) ? 1 : length - diff); start++) {
+        int end = start + diff;
+        float[] iS = iScore[start][end];
+        float[] oS = oScore[start][end];
+        for (int state = 0; state < numCoarseStates; state++) {
+          float parentScore = oS[state];
+          if (parentScore == Float.NEGATIVE_INFINITY) {
+            continue;
+          }
+          for (UnaryRule rule : closedRulesWithParent[state]) {
+            if (iS[rule.child] == Float.NEGATIVE_INFINITY) {
+              continue;
+            }
+            float tot = parentScore + rule.score;
+            if (tot > oS[rule.child]) {
+              oS[rule.child] = tot;
+            }
+          }
+        }
+        for (int split = start + 1; split < end; split++) {
+          float[] leftIScores = iScore[start][split];
+          float[] rightIScores = iScore[split][end];
+          float[] leftOScores = oScore[start][split];
+          float[] rightOScores = oScore[split][end];
+          for (int leftState = 0; leftState < numCoarseStates; leftState++) {
+            float lS = leftIScores[leftState];
+            if (lS == Float.NEGATIVE_INFINITY) {
+              continue;
+            }
+            for (BinaryRule rule : rulesWithLC[leftState]) {
+              float pS = oS[rule.parent];
+              if (pS == Float.NEGATIVE_INFINITY) {
+                continue;
+              }
+              float rS = rightIScores[rule.rightChild];
+              if (rS == Float.NEGATIVE_INFINITY) {
+                continue;
+              }
+              float totL = pS + rule.score + rS;
+              if (totL > leftOScores[leftState]) {
+                leftOScores[leftState] = totL;
+              }
+              float totR = pS + rule.score + lS;
+              if (totR > rightOScores[rule.rightChild]) {
+                rightOScores[rule.rightChild] = totR;
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void createArrays(int length) {
+    iScore = new float[length][length + 1][];
+    oScore = new float[length][length + 1][];
+    allowed = new boolean[length][length + 1][];
+    spanKept = new boolean[length][length + 1];
+    for (int start = 0; start < length; start++) {
+      for (int end = start + 1; end <= length; end++) {
+        iScore[start][end] = new float[numCoarseStates];
+        oScore[start][end] = new float[numCoarseStates];
+        allowed[start][end] = new boolean[numCoarseStates];
+      }
+    }
+    arraySize = length;
+  }
+
+}
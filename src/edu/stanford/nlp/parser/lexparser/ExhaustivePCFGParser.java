@@ -104,6 +104,10 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
   protected final int numStates;
   protected int arraySize = 0;
 
+  /** If not null, the chart arrays are leased from this pool rather than owned by this parser */
+  protected ChartMemoryPool chartPool; // = null
+  private ChartMemoryPool.Chart chart; // = null
+
   /**
    * When you want to force the parser to parse a particular
    * subsequence into a particular state.  Parses will only be made
@@ -330,6 +334,13 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
 
   protected final boolean[] isTag; // this records whether grammar states (stateIndex) correspond to POS tags
 
+  /** The coarse pass of coarse-to-fine parsing; made when first needed if op.testOptions.coarseToFine is set */
+  protected CoarseToFinePruner pruner; // = null
+  /** Whether the chart of the current sentence has been pruned by the coarse pass */
+  private boolean chartPruned = false;
+  /** Set while reparsing a sentence whose pruned chart had no parse */
+  private boolean skipPruning = false;
+
 
   public boolean parse(List<? extends HasWord> sentence) {
     lr = null; // better nullPointer exception than silent error
@@ -459,6 +470,17 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
     initializeChart(sentence);
     //if (op.testOptions.outsideFilter)
     // buildOFilter();
+    chartPruned = false;
+    if (useCoarseToFine() && ! skipPruning) {
+      if (op.testOptions.verbose) {
+        Timing.tick("done.");
+        System.err.print("Starting coarse pass...");
+      }
+      chartPruned = coarseToFinePruner().prune(iScore, length);
+      if (op.testOptions.verbose) {
+        System.err.print(" pruned " + Math.round(100 * pruner.prunedSpanFraction()) + "% of spans so far...");
+      }
+    }
     if (op.testOptions.verbose) {
       Timing.tick("done.");
       System.err.print("Starting insides...");
@@ -472,6 +494,16 @@ public class ExhaustivePCFGParser implements Scorer, KBestViterbiParser {
     }
     bestScore = iScore[0][length][goal];
     boolean succeeded = hasParse();
+    if (chartPruned && !succeeded) {
+      // the coarse pass pruned away every parse; try again without it
+      chartPruned = false;
+      skipPruning = true;
+      try {
+        return parse(sentence);
+      } finally {
+        skipPruning = false;
+      }
+    }
     if (op.testOptions.doRecovery && !succeeded && !floodTags) {
       floodTags = true; // sentence will try to reparse
       // ms: disabled message. this is annoying and it doesn't really provide much information
@@ -830,6 +862,29 @@ oScore[split][end][br.rightChild] = totR;
     }
   }
 
+  /** Whether to prune the chart with a coarse pass before filling it in.
+   *  Coarse-to-fine parsing needs Viterbi scores and single word tags,
+   *  so it is not done for length normalized or multiword tag parsing.
+   */
+  protected boolean useCoarseToFine() {
+    return op.testOptions.coarseToFine && ! op.testOptions.lengthNormalization &&
+            op.testOptions.maxSpanForTags <= 1;
+  }
+
+  private CoarseToFinePruner coarseToFinePruner() {
+    if (pruner == null) {
+      setCoarseGrammar(new CoarseGrammarProjection(bg, ug, stateIndex, new BasicCategoryTagProjection(tlp)));
+    }
+    return pruner;
+  }
+
+  /** Sets the projection of this parser's grammar used for the coarse
+   *  pass, so that it can be shared between parsers of the same grammar.
+   */
+  void setCoarseGrammar(CoarseGrammarProjection projection) {
+    pruner = new CoarseToFinePruner(projection, stateIndex, goalStr, op.testOptions.coarseToFineThreshold);
+  }
+
   /** Fills in the iScore array of each category over each span
    *  of length 2 or more.
    */
@@ -865,6 +920,20 @@ oScore[split][end][br.rightChild] = totR;
       }
     }
 
+    // with coarse-to-fine parsing, only build states whose projection was not pruned
+    final boolean[] coarseAllowed;
+    final GrammarProjection projection;
+    if (chartPruned) {
+      coarseAllowed = pruner.allowedStates(start, end);
+      if (coarseAllowed == null) {
+        return;
+      }
+      projection = pruner.projection();
+    } else {
+      coarseAllowed = null;
+      projection = null;
+    }
+
     // 2011-11-26 jdk1.6: caching/hoisting a bunch of variables gives you about 15% speed up!
     // caching this saves a bit of time in the inner loop, maybe 1.8%
     int[] narrowRExtent_start = narrowRExtent[start];
@@ -883,6 +952,9 @@ oScore[split][end][br.rightChild] = totR;
       BinaryRule[] leftRules = bg.splitRulesWithLC(leftState);
       //      if (spillGuts) System.out.println("Found " + leftRules.length + " left rules for state " + stateIndex.get(leftState));
       for (BinaryRule rule : leftRules) {
+        if (coarseAllowed != null && ! coarseAllowed[projection.project(rule.parent)]) {
+          continue;
+        }
         int rightChild = rule.rightChild;
         int narrowL = narrowLExtent_end[rightChild];
         if (narrowL < narrowR) { // can this right constituent fit next to the left constituent?
@@ -1012,6 +1084,9 @@ oScore[split][end][br.rightChild] = totR;
       //      if (spillGuts) System.out.println("Found " + rightRules.length + " right rules for state " + stateIndex.get(rightState));
       for (BinaryRule rule : rightRules) {
         //      if (spillGuts) System.out.println("Considering rule for " + start + " to " + end + ": " + rightRules[i]);
+        if (coarseAllowed != null && ! coarseAllowed[projection.project(rule.parent)]) {
+          continue;
+        }
 
         int leftChild = rule.leftChild;
         int narrowR = narrowRExtent_start[leftChild];
@@ -1144,6 +1219,9 @@ oScore[split][end][br.rightChild] = totR;
 
       UnaryRule[] unaries = ug.closedRulesByChild(state);
       for (UnaryRule ur : unaries) {
+        if (coarseAllowed != null && ! coarseAllowed[projection.project(ur.parent)]) {
+          continue;
+        }
 
         if (constraints != null) {
           boolean skip = false;
@@ -2169,7 +2247,31 @@ oScore[split][end][br.rightChild] = totR;
   }
 
 
+  /** Uses charts leased from the given pool.  Any chart this parser has is released. */
+  void setChartPool(ChartMemoryPool chartPool) {
+    releaseChart();
+    clearArrays();
+    arraySize = 0;
+    this.chartPool = chartPool;
+  }
+
+  /** Gives the chart back to the pool, if it came from one.  This parser
+   *  then has no parse until it parses another sentence.
+   */
+  public void releaseChart() {
+    if (chart != null && chartPool != null) {
+      chartPool.release(chart);
+      chart = null;
+      clearArrays();
+      arraySize = 0;
+    }
+  }
+
   public void nudgeDownArraySize() {
+    if (chartPool != null) {
+      releaseChart();
+      return;
+    }
     try {
       if (arraySize > 2) {
         considerCreatingArrays(arraySize - 2);
@@ -2182,6 +2284,16 @@ oScore[split][end][br.rightChild] = totR;
   private void considerCreatingArrays(int length) {
     if (length > op.testOptions.maxLength + 1 || length >= myMaxLength) {
       throw new OutOfMemoryError("Refusal to create such large arrays.");
+    } else if (chartPool != null) {
+      // a refusal here is not remembered in myMaxLength, as the pool may have room later
+      releaseChart();
+      clearArrays();
+      arraySize = 0;
+      chart = chartPool.lease(this, length + 1, numStates, tagIndex.size(), op.doDep && !op.testOptions.useFastFactored, op.testOptions.lengthNormalization);
+      useChart(chart);
+      if (op.testOptions.verbose) {
+        System.err.println("Leased PCFG parser arrays of size " + arraySize);
+      }
     } else {
       try {
         createArrays(length + 1);
@@ -2206,49 +2318,24 @@ oScore[split][end][br.rightChild] = totR;
   protected void createArrays(int length) {
     // zero out some stuff first in case we recently ran out of memory and are reallocating
     clearArrays();
-
-    int numTags = tagIndex.size();
-    // allocate just the parts of iScore and oScore used (end > start, etc.)
     // todo: with some modifications to doInsideScores, we wouldn't need to allocate iScore[i,length] for i != 0 and i != length
-    //    System.out.println("initializing iScore arrays with length " + length + " and numStates " + numStates);
-    iScore = new float[length][length + 1][];
-    for (int start = 0; start < length; start++) {
-      for (int end = start + 1; end <= length; end++) {
-        iScore[start][end] = new float[numStates];
-      }
-    }
-    //    System.out.println("finished initializing iScore arrays");
-    if (op.doDep && !op.testOptions.useFastFactored) {
-      //      System.out.println("initializing oScore arrays with length " + length + " and numStates " + numStates);
-      oScore = new float[length][length + 1][];
-      for (int start = 0; start < length; start++) {
-        for (int end = start + 1; end <= length; end++) {
-          oScore[start][end] = new float[numStates];
-        }
-      }
-      // System.out.println("finished initializing oScore arrays");
-    }
-    narrowRExtent = new int[length][numStates];
-    wideRExtent = new int[length][numStates];
-    narrowLExtent = new int[length + 1][numStates];
-    wideLExtent = new int[length + 1][numStates];
-    if (op.doDep && !op.testOptions.useFastFactored) {
-      iPossibleByL = new boolean[length][numStates];
-      iPossibleByR = new boolean[length + 1][numStates];
-      oPossibleByL = new boolean[length][numStates];
-      oPossibleByR = new boolean[length + 1][numStates];
-    }
-    tags = new boolean[length][numTags];
-
-    if (op.testOptions.lengthNormalization) {
-      wordsInSpan = new int[length][length + 1][];
-      for (int start = 0; start < length; start++) {
-        for (int end = start + 1; end <= length; end++) {
-          wordsInSpan[start][end] = new int[numStates];
-        }
-      }
-    }
-    //    System.out.println("ExhaustivePCFGParser constructor finished.");
+    useChart(new ChartMemoryPool.Chart(length, numStates, tagIndex.size(), op.doDep && !op.testOptions.useFastFactored, op.testOptions.lengthNormalization));
+  }
+
+  private void useChart(ChartMemoryPool.Chart chart) {
+    iScore = chart.iScore;
+    oScore = chart.oScore;
+    wordsInSpan = chart.wordsInSpan;
+    narrowRExtent = chart.narrowRExtent;
+    wideRExtent = chart.wideRExtent;
+    narrowLExtent = chart.narrowLExtent;
+    wideLExtent = chart.wideLExtent;
+    iPossibleByL = chart.iPossibleByL;
+    iPossibleByR = chart.iPossibleByR;
+    oPossibleByL = chart.oPossibleByL;
+    oPossibleByR = chart.oPossibleByR;
+    tags = chart.tags;
+    arraySize = chart.size;
   }
 
   private void clearArrays() {
@@ -2257,6 +2344,7 @@ oScore[split][end][br.rightChild] = totR;
     oFilteredEnd = oFilteredStart = null;
     tags = null;
     narrowRExtent = wideRExtent = narrowLExtent = wideLExtent = null;
+    wordsInSpan = null;
   }
 
 } // end class ExhaustivePCFGParser
@@ -20,6 +20,12 @@ public class IterativeCKYPCFGParser extends ExhaustivePCFGParser {
     super(bg, ug, lex, op, stateIndex, wordIndex, tagIndex);
   }
 
+  /** The iterative deepening does its own pruning, so no coarse pass is done. */
+  @Override
+  protected boolean useCoarseToFine() {
+    return false;
+  }
+
   /** Fills in the iScore array of each category over each span
    *  of length 2 or more.
    */
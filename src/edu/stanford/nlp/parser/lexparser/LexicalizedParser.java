@@ -102,6 +102,34 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
 
   public Reranker reranker; // = null;
 
+  /** The grammar projection for coarse-to-fine parsing, made when first asked for */
+  private transient CoarseGrammarProjection coarseGrammar; // = null
+
+  /** The pool of PCFG charts shared by the queries of this parser */
+  private transient ChartMemoryPool chartMemoryPool; // = null
+
+  /**
+   * The pool which the PCFG charts of this parser's queries are leased
+   * from.  Its budget is set from the <code>-chartMemory</code> option
+   * when the pool is made, and may be changed afterwards with
+   * {@link ChartMemoryPool#setMaxBytes}.  The pool also keeps count of
+   * how often charts were reused, grown, or refused.
+   */
+  public synchronized ChartMemoryPool chartMemoryPool() {
+    if (chartMemoryPool == null) {
+      chartMemoryPool = new ChartMemoryPool();
+      chartMemoryPool.setMaxBytes(op.testOptions.chartMemory * (1L << 20));
+    }
+    return chartMemoryPool;
+  }
+
+  synchronized CoarseGrammarProjection coarseGrammar() {
+    if (coarseGrammar == null || coarseGrammar.sourceBG() != bg || coarseGrammar.sourceUG() != ug) {
+      coarseGrammar = new CoarseGrammarProjection(bg, ug, stateIndex, new BasicCategoryTagProjection(treebankLanguagePack()));
+    }
+    return coarseGrammar;
+  }
+
   @Override
   public TreebankLangParserParams getTLPParams() { return op.tlpParams; }
 
@@ -291,8 +319,8 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
    * an X tree is returned instead of barfing.
    */
   public Tree parse(List<? extends HasWord> lst) {
+    ParserQuery pq = parserQuery();
     try {
-      ParserQuery pq = parserQuery();
       if (pq.parse(lst)) {
         Tree bestparse = pq.getBestParse();
         // -10000 denotes unknown words
@@ -303,6 +331,8 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
       System.err.println("Following exception caught during parsing:");
       e.printStackTrace();
       System.err.println("Recovering using fall through strategy: will construct an (X ...) tree.");
+    } finally {
+      pq.releaseMemory();
     }
     // if can't parse or exception, fall through
     return ParserUtils.xTree(lst);
@@ -356,10 +386,14 @@ public class LexicalizedParser extends ParserGrammar implements Serializable {
    */
   public Tree parseTree(List<? extends HasWord> sentence) {
     ParserQuery pq = parserQuery();
-    if (pq.parse(sentence)) {
-      return pq.getBestParse();
-    } else {
-      return null;
+    try {
+      if (pq.parse(sentence)) {
+        return pq.getBestParse();
+      } else {
+        return null;
+      }
+    } finally {
+      pq.releaseMemory();
     }
   }
 
@@ -97,6 +97,17 @@ public class LexicalizedParserQuery implements ParserQuery {
   @Override
   public List<? extends HasWord> originalSentence() { return originalSentence; }
 
+  /**
+   * Gives the chart of the PCFG parser back to the parser's
+   * {@link ChartMemoryPool}, for other queries to use.
+   */
+  @Override
+  public void releaseMemory() {
+    if (pparser != null) {
+      pparser.releaseChart();
+    }
+  }
+
   /** Keeps track of whether the sentence had punctuation added, which affects the expected length of the sentence */
   private boolean addedPunct = false;
 
@@ -128,6 +139,10 @@ public class LexicalizedParserQuery implements ParserQuery {
       } else {
         pparser = new ExhaustivePCFGParser(bg, ug, lex, op, stateIndex, wordIndex, tagIndex);
       }
+      if (pparser.useCoarseToFine()) {
+        pparser.setCoarseGrammar(parser.coarseGrammar());
+      }
+      pparser.setChartPool(parser.chartMemoryPool());
     } else {
       pparser = null;
     }
@@ -245,6 +245,16 @@ public class Options implements Serializable {
     } else if (args[i].equalsIgnoreCase("-iterativeCKY")) {
       testOptions.iterativeCKY = true;
       i++;
+    } else if (args[i].equalsIgnoreCase("-chartMemory") && (i + 1 < args.length)) {
+      testOptions.chartMemory = Integer.parseInt(args[i + 1]);
+      i += 2;
+    } else if (args[i].equalsIgnoreCase("-coarseToFine")) {
+      testOptions.coarseToFine = true;
+      i++;
+    } else if (args[i].equalsIgnoreCase("-coarseToFineThreshold") && (i + 1 < args.length)) {
+      testOptions.coarseToFine = true;
+      testOptions.coarseToFineThreshold = Float.parseFloat(args[i + 1]);
+      i += 2;
     } else if (args[i].equalsIgnoreCase("-vMarkov") && (i + 1 < args.length)) {
       int order = Integer.parseInt(args[i + 1]);
       if (order <= 1) {
@@ -65,6 +65,28 @@ public class TestOptions implements Serializable {
   /** If true, use faster iterative deepening CKY algorithm. */
   public boolean iterativeCKY = false;
 
+  /**
+   * If true, the PCFG parser first parses with the grammar projected onto
+   * basic categories, and only builds the states over each span which the
+   * coarse parse did not prune.  See {@link CoarseToFinePruner}.
+   */
+  public boolean coarseToFine = false;
+
+  /**
+   * How far below the best coarse parse (as a log probability) the best
+   * coarse parse through a state over a span may be before the state is
+   * pruned.  Larger values prune less.
+   */
+  public float coarseToFineThreshold = 10.0f;
+
+  /**
+   * The most memory, in megabytes, which the PCFG charts of all the
+   * queries of a parser may take together.  A sentence whose chart does
+   * not fit is not parsed, as if memory had run out.  0 means no limit.
+   * See {@link ChartMemoryPool}.
+   */
+  public int chartMemory = 0;
+
   /**
    * The maximum sentence length (including punctuation, etc.) to parse.
    */
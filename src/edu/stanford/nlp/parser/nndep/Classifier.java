@@ -5,6 +5,7 @@ import edu.stanford.nlp.util.Pair;
 import edu.stanford.nlp.util.concurrent.MulticoreWrapper;
 import edu.stanford.nlp.util.concurrent.ThreadsafeProcessor;
 
+import java.nio.FloatBuffer;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -43,6 +44,15 @@ public class Classifier {
   private final double[][] W1, W2, E;
   private final double[] b1;
 
+  /**
+   * Embedding matrix stored outside of the heap, as a row-major
+   * {@code numEmbeddings x embeddingSize} buffer (usually a view of a
+   * memory-mapped binary model file). Exactly one of {@link #E} and
+   * this buffer is non-null; classifiers backed by a buffer can only
+   * be used for inference.
+   */
+  private final FloatBuffer embeddings;
+
   // Global gradSaved
   private double[][] gradSaved;
 
@@ -108,7 +118,24 @@ public class Classifier {
    * @param preComputed
    */
   public Classifier(Config config, double[][] E, double[][] W1, double[] b1, double[][] W2, List<Integer> preComputed) {
-    this(config, null, E, W1, b1, W2, preComputed);
+    this(config, null, E, null, W1, b1, W2, preComputed);
+  }
+
+  /**
+   * Instantiate a classifier for inference whose embedding matrix
+   * stays in the given buffer rather than being copied onto the heap.
+   * Embedding rows are read straight out of the buffer as they are
+   * needed.
+   *
+   * @param config
+   * @param embeddings Row-major {@code numEmbeddings x embeddingSize} embedding matrix
+   * @param W1
+   * @param b1
+   * @param W2
+   * @param preComputed
+   */
+  public Classifier(Config config, FloatBuffer embeddings, double[][] W1, double[] b1, double[][] W2, List<Integer> preComputed) {
+    this(config, null, null, embeddings, W1, b1, W2, preComputed);
   }
 
   /**
@@ -125,16 +152,20 @@ public class Classifier {
    */
   public Classifier(Config config, Dataset dataset, double[][] E, double[][] W1, double[] b1, double[][] W2,
                     List<Integer> preComputed) {
+    this(config, dataset, E, null, W1, b1, W2, preComputed);
+  }
+
+  private Classifier(Config config, Dataset dataset, double[][] E, FloatBuffer embeddings, double[][] W1, double[] b1,
+                     double[][] W2, List<Integer> preComputed) {
     this.config = config;
     this.dataset = dataset;
 
     this.E = E;
+    this.embeddings = embeddings;
     this.W1 = W1;
     this.b1 = b1;
     this.W2 = W2;
 
-    initGradientHistories();
-
     numLabels = W2.length;
 
     preMap = new HashMap<>();
@@ -142,10 +173,17 @@ public class Classifier {
       preMap.put(preComputed.get(i), i);
 
     isTraining = dataset != null;
-    if (isTraining)
+    if (isTraining) {
+      if (E == null)
+        throw new IllegalArgumentException("Training requires an on-heap embedding matrix");
+
+      // Gradient histories are only needed for training; don't hold
+      // copies of all the weight matrices when just parsing
+      initGradientHistories();
       jobHandler = new MulticoreWrapper<>(config.trainingThreads, new CostFunction(), false);
-    else
+    } else {
       jobHandler = null;
+    }
   }
 
   /**
@@ -654,13 +692,15 @@ public class Classifier {
     // "smallMap.")
     saved = new double[preMap.size()][config.hiddenSize];
 
+    double[] buffer = new double[config.embeddingSize];
     for (int x : toPreCompute) {
       int mapX = preMap.get(x);
       int tok = x / config.numTokens;
       int pos = x % config.numTokens;
+      double[] e = getEmbedding(tok, buffer);
       for (int j = 0; j < config.hiddenSize; ++j)
         for (int k = 0; k < config.embeddingSize; ++k)
-          saved[mapX][j] += W1[j][pos * config.embeddingSize + k] * E[tok][k];
+          saved[mapX][j] += W1[j][pos * config.embeddingSize + k] * e[k];
     }
     System.err.println("PreComputed " + toPreCompute.size() + ", Elapsed Time: " + (System
         .currentTimeMillis() - startTime) / 1000.0 + " (s)");
@@ -676,6 +716,7 @@ public class Classifier {
    */
   private double[] computeScores(int[] feature, Map<Integer, Integer> preMap) {
     double[] hidden = new double[config.hiddenSize];
+    double[] buffer = E == null ? new double[config.embeddingSize] : null;
     int offset = 0;
     for (int j = 0; j < feature.length; ++j) {
       int tok = feature[j];
@@ -686,9 +727,10 @@ public class Classifier {
         for (int i = 0; i < config.hiddenSize; ++i)
           hidden[i] += saved[id][i];
       } else {
+        double[] e = getEmbedding(tok, buffer);
         for (int i = 0; i < config.hiddenSize; ++i)
           for (int k = 0; k < config.embeddingSize; ++k)
-            hidden[i] += W1[i][offset + k] * E[tok][k];
+            hidden[i] += W1[i][offset + k] * e[k];
       }
       offset += config.embeddingSize;
     }
@@ -705,6 +747,86 @@ public class Classifier {
     return scores;
   }
 
+  /**
+   * Feed a batch of feature vectors forward through the network at
+   * once. This is equivalent to calling {@link #computeScores(int[])}
+   * on each of the first {@code numRows} rows of {@code features}, and
+   * produces exactly the same scores (the per-unit summation order is
+   * unchanged), but each weight row is streamed once per batch rather
+   * than once per configuration.
+   *
+   * @param features Feature vectors, one per row; only the first
+   *                 {@code numRows} rows are read
+   * @param numRows Number of rows of {@code features} to score
+   * @return Output layer values for all rows, as a flat
+   *         {@code numRows x numLabels} row-major array
+   */
+  double[] computeScores(int[][] features, int numRows) {
+    int hiddenSize = config.hiddenSize;
+    int embeddingSize = config.embeddingSize;
+    int numFeatures = Config.numTokens;
+
+    // Resolve the pre-computed activation index (or -1) of every input
+    // once, rather than once per hidden unit
+    int[] savedIDs = new int[numRows * numFeatures];
+    for (int b = 0; b < numRows; ++b) {
+      int[] feature = features[b];
+      for (int j = 0; j < numFeatures; ++j) {
+        Integer id = preMap.get(feature[j] * numFeatures + j);
+        savedIDs[b * numFeatures + j] = id == null ? -1 : id;
+      }
+    }
+
+    // Gather the embedding rows of all the inputs which were not
+    // pre-computed (for off-heap embeddings, this reads each row once
+    // per batch rather than once per hidden unit)
+    double[][] inputs = new double[numRows * numFeatures][];
+    for (int b = 0; b < numRows; ++b) {
+      for (int j = 0; j < numFeatures; ++j) {
+        int index = b * numFeatures + j;
+        if (savedIDs[index] < 0)
+          inputs[index] = getEmbedding(features[b][j], E == null ? new double[embeddingSize] : null);
+      }
+    }
+
+    // Hidden layer: numRows x hiddenSize
+    double[] hidden = new double[numRows * hiddenSize];
+    for (int i = 0; i < hiddenSize; ++i) {
+      double[] W1i = W1[i];
+      for (int b = 0; b < numRows; ++b) {
+        double h = 0.0;
+        int offset = 0;
+        for (int j = 0; j < numFeatures; ++j) {
+          int id = savedIDs[b * numFeatures + j];
+          if (id >= 0) {
+            h += saved[id][i];
+          } else {
+            double[] e = inputs[b * numFeatures + j];
+            for (int k = 0; k < embeddingSize; ++k)
+              h += W1i[offset + k] * e[k];
+          }
+          offset += embeddingSize;
+        }
+        h += b1[i];
+        hidden[b * hiddenSize + i] = h * h * h;  // cube nonlinearity
+      }
+    }
+
+    // Output layer: (numRows x hiddenSize) * (hiddenSize x numLabels)
+    double[] scores = new double[numRows * numLabels];
+    for (int i = 0; i < numLabels; ++i) {
+      double[] W2i = W2[i];
+      for (int b = 0; b < numRows; ++b) {
+        double s = 0.0;
+        int hOffset = b * hiddenSize;
+        for (int j = 0; j < hiddenSize; ++j)
+          s += W2i[j] * hidden[hOffset + j];
+        scores[b * numLabels + i] = s;
+      }
+    }
+    return scores;
+  }
+
   public double[][] getW1() {
     return W1;
   }
@@ -717,8 +839,34 @@ public class Classifier {
     return W2;
   }
 
+  /**
+   * Returns the embedding matrix. If this classifier reads its
+   * embeddings from an off-heap buffer, this is a fresh on-heap copy.
+   */
   public double[][] getE() {
-    return E;
+    if (E != null)
+      return E;
+
+    double[][] copy = new double[embeddings.limit() / config.embeddingSize][];
+    for (int i = 0; i < copy.length; ++i)
+      copy[i] = getEmbedding(i, new double[config.embeddingSize]);
+    return copy;
+  }
+
+  /**
+   * Returns the embedding row for the given token ID. For on-heap
+   * embeddings this is the row of {@link #E} itself; otherwise the row
+   * is read from {@link #embeddings} into {@code buffer}, which is
+   * returned.
+   */
+  private double[] getEmbedding(int tok, double[] buffer) {
+    if (E != null)
+      return E[tok];
+
+    int base = tok * config.embeddingSize;
+    for (int k = 0; k < config.embeddingSize; ++k)
+      buffer[k] = embeddings.get(base + k);
+    return buffer;
   }
 
   /**
@@ -202,6 +202,15 @@ public class Config
    */
   public String tagger = MaxentTagger.DEFAULT_JAR_PATH;
 
+  /**
+   * Maximum number of sentences whose parser configurations are
+   * scored together in one batched feed-forward pass when parsing
+   * many sentences at once.
+   *
+   * @see DependencyParser#predictAll(java.util.List)
+   */
+  public int testBatchSize = 100;
+
   public Config(Properties properties) {
     setProperties(properties);
   }
@@ -229,6 +238,7 @@ public class Config
     // Runtime parsing options
     sentenceDelimiter = PropertiesUtils.getString(props, "sentenceDelimiter", sentenceDelimiter);
     tagger = PropertiesUtils.getString(props, "tagger.model", tagger);
+    testBatchSize = PropertiesUtils.getInt(props, "testBatchSize", testBatchSize);
 
     String escaperClass = props.getProperty("escaper");
     escaper = escaperClass != null ? ReflectionLoading.loadByReflection(escaperClass) : null;
@@ -27,18 +27,29 @@ import edu.stanford.nlp.util.StringUtils;
 import edu.stanford.nlp.util.Timing;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
-
-import static java.util.stream.Collectors.toList;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * This class defines a transition-based dependency parser which makes
@@ -472,6 +483,101 @@ public class DependencyParser {
     }
   }
 
+  /**
+   * Magic number at the start of binary model files ("NNDP" when read
+   * as little-endian ASCII).
+   *
+   * @see #writeBinaryModelFile(String)
+   */
+  private static final int BINARY_MODEL_MAGIC = 0x50444e4e;
+
+  private static final int BINARY_MODEL_VERSION = 1;
+
+  /**
+   * Save the model in a compact binary format which can be memory-mapped
+   * at load time. The file is little-endian throughout, and laid out as
+   * <ul>
+   *   <li>header: magic number, format version, then the number of words,
+   *       POS tags and labels, embedding size, hidden layer size, number of
+   *       feature tokens and number of pre-computed features (all int32)</li>
+   *   <li>dictionaries: each known word, POS tag and label as an int32 byte
+   *       length followed by its UTF-8 bytes, padded at the end to a
+   *       multiple of four bytes</li>
+   *   <li>weights: {@code E}, {@code W1}, {@code b1} and {@code W2} as
+   *       row-major float32 matrices</li>
+   *   <li>the pre-computed feature IDs (int32)</li>
+   * </ul>
+   * Weights are stored with single precision, so a model converted from
+   * the text format may give very slightly different scores.
+   *
+   * @param modelFile Path to write to. If it ends in {@code .gz} the file is
+   *                  gzipped, and so cannot be memory-mapped when it is loaded.
+   */
+  public void writeBinaryModelFile(String modelFile) {
+    double[][] W1 = classifier.getW1();
+    double[] b1 = classifier.getb1();
+    double[][] W2 = classifier.getW2();
+    double[][] E = classifier.getE();
+
+    List<byte[]> dictionary = new ArrayList<>();
+    int dictionaryBytes = 0;
+    for (List<String> entries : Arrays.asList(knownWords, knownPos, knownLabels)) {
+      for (String entry : entries) {
+        byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+        dictionary.add(bytes);
+        dictionaryBytes += 4 + bytes.length;
+      }
+    }
+    dictionaryBytes = (dictionaryBytes + 3) & ~3;
+
+    long size = 4L * 9 + dictionaryBytes
+        + 4L * (E.length * E[0].length + W1.length * W1[0].length + b1.length + W2.length * W2[0].length)
+        + 4L * preComputed.size();
+    if (size > Integer.MAX_VALUE)
+      throw new IllegalStateException("Model is too large for the binary format: " + size + " bytes");
+
+    ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(BINARY_MODEL_MAGIC);
+    buffer.putInt(BINARY_MODEL_VERSION);
+    buffer.putInt(knownWords.size());
+    buffer.putInt(knownPos.size());
+    buffer.putInt(knownLabels.size());
+    buffer.putInt(E[0].length);
+    buffer.putInt(b1.length);
+    buffer.putInt(W1[0].length / E[0].length);
+    buffer.putInt(preComputed.size());
+
+    for (byte[] bytes : dictionary) {
+      buffer.putInt(bytes.length);
+      buffer.put(bytes);
+    }
+    while (buffer.position() % 4 != 0)
+      buffer.put((byte) 0);
+
+    for (double[][] matrix : Arrays.asList(E, W1, new double[][] { b1 }, W2))
+      for (double[] row : matrix)
+        for (double value : row)
+          buffer.putFloat((float) value);
+    for (int id : preComputed)
+      buffer.putInt(id);
+    buffer.flip();
+
+    if (modelFile.endsWith(".gz")) {
+      try (OutputStream os = new GZIPOutputStream(new FileOutputStream(modelFile))) {
+        os.write(buffer.array(), 0, buffer.limit());
+      } catch (IOException e) {
+        throw new RuntimeIOException(e);
+      }
+      return;
+    }
+    try (FileChannel channel = new FileOutputStream(modelFile).getChannel()) {
+      while (buffer.hasRemaining())
+        channel.write(buffer);
+    } catch (IOException e) {
+      throw new RuntimeIOException(e);
+    }
+  }
+
   /**
    * Convenience method; see {@link #loadFromModelFile(String, java.util.Properties)}.
    *
@@ -482,7 +588,10 @@ public class DependencyParser {
   }
 
   /**
-   * Load a saved parser model.
+   * Load a saved parser model. Both the text format written by
+   * {@link #writeModelFile(String)} and the binary format written by
+   * {@link #writeBinaryModelFile(String)} are accepted; binary models on
+   * the file system are memory-mapped rather than read onto the heap.
    *
    * @param modelFile       Path to serialized model (may be GZipped)
    * @param extraProperties Extra test-time properties not already associated with model (may be null)
@@ -505,99 +614,199 @@ public class DependencyParser {
 
   private void loadModelFile(String modelFile, boolean verbose) {
     Timing t = new Timing();
+    System.err.println("Loading depparse model file: " + modelFile + " ... ");
     try {
+      if (isBinaryModelFile(modelFile))
+        loadBinaryModel(modelFile);
+      else
+        loadTextModel(modelFile);
+    } catch (IOException e) {
+      throw new RuntimeIOException(e);
+    }
 
-      System.err.println("Loading depparse model file: " + modelFile + " ... ");
-      String s;
-      BufferedReader input = IOUtils.readerFromString(modelFile);
+    // initialize the loaded parser
+    initialize(verbose);
+    t.done("Initializing dependency parser");
+  }
 
+  private static boolean isBinaryModelFile(String modelFile) throws IOException {
+    try (InputStream is = IOUtils.getInputStreamFromURLOrClasspathOrFileSystem(modelFile)) {
+      byte[] magic = new byte[4];
+      int read = 0;
+      for (int n; read < magic.length && (n = is.read(magic, read, magic.length - read)) > 0; )
+        read += n;
+      return read == magic.length &&
+          ByteBuffer.wrap(magic).order(ByteOrder.LITTLE_ENDIAN).getInt() == BINARY_MODEL_MAGIC;
+    }
+  }
+
+  /**
+   * Load a model in the binary format (see
+   * {@link #writeBinaryModelFile(String)}). If the model is a file on the
+   * file system it is memory-mapped, so that the embedding matrix is
+   * never copied onto the heap and is shared through the page cache by
+   * all processes which load the same file. Models from the classpath or
+   * a URL, and gzipped models, are decompressed if need be and read into a
+   * direct buffer instead.
+   */
+  private void loadBinaryModel(String modelFile) throws IOException {
+    ByteBuffer buffer;
+    File file = new File(modelFile);
+    if (file.isFile() && ! modelFile.endsWith(".gz")) {
+      try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+    } else {
+      try (InputStream is = IOUtils.getInputStreamFromURLOrClasspathOrFileSystem(modelFile)) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        IOUtils.writeStreamToStream(is, bytes);
+        buffer = ByteBuffer.allocateDirect(bytes.size());
+        buffer.put(bytes.toByteArray());
+        buffer.flip();
+      }
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+    if (buffer.getInt() != BINARY_MODEL_MAGIC)
+      throw new RuntimeIOException("Not a binary depparse model: " + modelFile);
+    int version = buffer.getInt();
+    if (version != BINARY_MODEL_VERSION)
+      throw new RuntimeIOException("Unsupported binary depparse model version " + version + ": " + modelFile);
+
+    int nDict = buffer.getInt();
+    int nPOS = buffer.getInt();
+    int nLabel = buffer.getInt();
+    int eSize = buffer.getInt();
+    int hSize = buffer.getInt();
+    int nTokens = buffer.getInt();
+    int nPreComputed = buffer.getInt();
+
+    knownWords = readBinaryDictionary(buffer, nDict);
+    knownPos = readBinaryDictionary(buffer, nPOS);
+    knownLabels = readBinaryDictionary(buffer, nLabel);
+    generateIDs();
+    buffer.position((buffer.position() + 3) & ~3);
+
+    // The embedding matrix stays in the mapped buffer
+    int nEmbeddings = nDict + nPOS + nLabel;
+    ByteBuffer embeddingBytes = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    embeddingBytes.limit(4 * nEmbeddings * eSize);
+    FloatBuffer E = embeddingBytes.asFloatBuffer();
+    buffer.position(buffer.position() + 4 * nEmbeddings * eSize);
+
+    double[][] W1 = readBinaryMatrix(buffer, hSize, eSize * nTokens);
+    double[] b1 = readBinaryMatrix(buffer, 1, hSize)[0];
+    double[][] W2 = readBinaryMatrix(buffer, nLabel * 2 - 1, hSize);
+
+    preComputed = new ArrayList<>(nPreComputed);
+    for (int i = 0; i < nPreComputed; ++i)
+      preComputed.add(buffer.getInt());
+
+    classifier = new Classifier(config, E, W1, b1, W2, preComputed);
+  }
+
+  private static List<String> readBinaryDictionary(ByteBuffer buffer, int size) {
+    List<String> entries = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      entries.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return entries;
+  }
+
+  private static double[][] readBinaryMatrix(ByteBuffer buffer, int rows, int columns) {
+    double[][] matrix = new double[rows][columns];
+    for (int i = 0; i < rows; ++i)
+      for (int j = 0; j < columns; ++j)
+        matrix[i][j] = buffer.getFloat();
+    return matrix;
+  }
+
+  private void loadTextModel(String modelFile) throws IOException {
+    String s;
+    BufferedReader input = IOUtils.readerFromString(modelFile);
+
+    s = input.readLine();
+    int nDict = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+    s = input.readLine();
+    int nPOS = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+    s = input.readLine();
+    int nLabel = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+    s = input.readLine();
+    int eSize = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+    s = input.readLine();
+    int hSize = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+    s = input.readLine();
+    int nTokens = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+    s = input.readLine();
+    int nPreComputed = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+
+    knownWords = new ArrayList<String>();
+    knownPos = new ArrayList<String>();
+    knownLabels = new ArrayList<String>();
+    double[][] E = new double[nDict + nPOS + nLabel][eSize];
+    String[] splits;
+    int index = 0;
+
+    for (int k = 0; k < nDict; ++k) {
       s = input.readLine();
-      int nDict = Integer.parseInt(s.substring(s.indexOf('=') + 1));
-      s = input.readLine();
-      int nPOS = Integer.parseInt(s.substring(s.indexOf('=') + 1));
-      s = input.readLine();
-      int nLabel = Integer.parseInt(s.substring(s.indexOf('=') + 1));
-      s = input.readLine();
-      int eSize = Integer.parseInt(s.substring(s.indexOf('=') + 1));
-      s = input.readLine();
-      int hSize = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+      splits = s.split(" ");
+      knownWords.add(splits[0]);
+      for (int i = 0; i < eSize; ++i)
+        E[index][i] = Double.parseDouble(splits[i + 1]);
+      index = index + 1;
+    }
+    for (int k = 0; k < nPOS; ++k) {
       s = input.readLine();
-      int nTokens = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+      splits = s.split(" ");
+      knownPos.add(splits[0]);
+      for (int i = 0; i < eSize; ++i)
+        E[index][i] = Double.parseDouble(splits[i + 1]);
+      index = index + 1;
+    }
+    for (int k = 0; k < nLabel; ++k) {
       s = input.readLine();
-      int nPreComputed = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+      splits = s.split(" ");
+      knownLabels.add(splits[0]);
+      for (int i = 0; i < eSize; ++i)
+        E[index][i] = Double.parseDouble(splits[i + 1]);
+      index = index + 1;
+    }
+    generateIDs();
 
-      knownWords = new ArrayList<String>();
-      knownPos = new ArrayList<String>();
-      knownLabels = new ArrayList<String>();
-      double[][] E = new double[nDict + nPOS + nLabel][eSize];
-      String[] splits;
-      int index = 0;
+    double[][] W1 = new double[hSize][eSize * nTokens];
+    for (int j = 0; j < W1[0].length; ++j) {
+      s = input.readLine();
+      splits = s.split(" ");
+      for (int i = 0; i < W1.length; ++i)
+        W1[i][j] = Double.parseDouble(splits[i]);
+    }
 
-      for (int k = 0; k < nDict; ++k) {
-        s = input.readLine();
-        splits = s.split(" ");
-        knownWords.add(splits[0]);
-        for (int i = 0; i < eSize; ++i)
-          E[index][i] = Double.parseDouble(splits[i + 1]);
-        index = index + 1;
-      }
-      for (int k = 0; k < nPOS; ++k) {
-        s = input.readLine();
-        splits = s.split(" ");
-        knownPos.add(splits[0]);
-        for (int i = 0; i < eSize; ++i)
-          E[index][i] = Double.parseDouble(splits[i + 1]);
-        index = index + 1;
-      }
-      for (int k = 0; k < nLabel; ++k) {
-        s = input.readLine();
-        splits = s.split(" ");
-        knownLabels.add(splits[0]);
-        for (int i = 0; i < eSize; ++i)
-          E[index][i] = Double.parseDouble(splits[i + 1]);
-        index = index + 1;
-      }
-      generateIDs();
-
-      double[][] W1 = new double[hSize][eSize * nTokens];
-      for (int j = 0; j < W1[0].length; ++j) {
-        s = input.readLine();
-        splits = s.split(" ");
-        for (int i = 0; i < W1.length; ++i)
-          W1[i][j] = Double.parseDouble(splits[i]);
-      }
+    double[] b1 = new double[hSize];
+    s = input.readLine();
+    splits = s.split(" ");
+    for (int i = 0; i < b1.length; ++i)
+      b1[i] = Double.parseDouble(splits[i]);
 
-      double[] b1 = new double[hSize];
+    double[][] W2 = new double[nLabel * 2 - 1][hSize];
+    for (int j = 0; j < W2[0].length; ++j) {
       s = input.readLine();
       splits = s.split(" ");
-      for (int i = 0; i < b1.length; ++i)
-        b1[i] = Double.parseDouble(splits[i]);
-
-      double[][] W2 = new double[nLabel * 2 - 1][hSize];
-      for (int j = 0; j < W2[0].length; ++j) {
-        s = input.readLine();
-        splits = s.split(" ");
-        for (int i = 0; i < W2.length; ++i)
-          W2[i][j] = Double.parseDouble(splits[i]);
-      }
+      for (int i = 0; i < W2.length; ++i)
+        W2[i][j] = Double.parseDouble(splits[i]);
+    }
 
-      preComputed = new ArrayList<Integer>();
-      while (preComputed.size() < nPreComputed) {
-        s = input.readLine();
-        splits = s.split(" ");
-        for (String split : splits) {
-          preComputed.add(Integer.parseInt(split));
-        }
+    preComputed = new ArrayList<Integer>();
+    while (preComputed.size() < nPreComputed) {
+      s = input.readLine();
+      splits = s.split(" ");
+      for (String split : splits) {
+        preComputed.add(Integer.parseInt(split));
       }
-      input.close();
-      classifier = new Classifier(config, E, W1, b1, W2, preComputed);
-    } catch (IOException e) {
-      throw new RuntimeIOException(e);
     }
-
-    // initialize the loaded parser
-    initialize(verbose);
-    t.done("Initializing dependency parser");
+    input.close();
+    classifier = new Classifier(config, E, W1, b1, W2, preComputed);
   }
 
   // TODO this should be a function which returns the embeddings array + embedID
@@ -703,7 +912,7 @@ public class DependencyParser {
         // prediction, we just do this once in #initialize
         classifier.preCompute();
 
-        List<DependencyTree> predicted = devSents.stream().map(this::predictInner).collect(toList());
+        List<DependencyTree> predicted = predictInner(devSents);
 
         double uas = config.noPunc ? system.getUASnoPunc(devSents, predicted, devTrees) : system.getUAS(devSents, predicted, devTrees);
         System.err.println("UAS: " + uas);
@@ -728,7 +937,7 @@ public class DependencyParser {
     if (devFile != null) {
       // Do final UAS evaluation and save if final model beats the
       // best intermediate one
-      List<DependencyTree> predicted = devSents.stream().map(this::predictInner).collect(toList());
+      List<DependencyTree> predicted = predictInner(devSents);
       double uas = config.noPunc ? system.getUASnoPunc(devSents, predicted, devTrees) : system.getUAS(devSents, predicted, devTrees);
 
       if (uas > bestUAS) {
@@ -931,6 +1140,69 @@ public class DependencyParser {
     return c.tree;
   }
 
+  /**
+   * Determine the dependency parses of several sentences at once.
+   * <p>
+   * The configurations of (up to {@link Config#testBatchSize}) sentences
+   * are moved forward in lockstep: at each step, the features of every
+   * unfinished configuration are scored by the classifier in a single
+   * batched feed-forward pass. The parses are identical to those found by
+   * {@link #predictInner(edu.stanford.nlp.util.CoreMap)}.
+   */
+  private List<DependencyTree> predictInner(List<? extends CoreMap> sentences) {
+    int numTrans = system.numTransitions();
+    int batchSize = Math.max(1, config.testBatchSize);
+
+    List<DependencyTree> trees = new ArrayList<>(sentences.size());
+    for (int start = 0; start < sentences.size(); start += batchSize) {
+      int end = Math.min(sentences.size(), start + batchSize);
+
+      Configuration[] active = new Configuration[end - start];
+      int numActive = 0;
+      List<Configuration> configurations = new ArrayList<>(end - start);
+      for (CoreMap sentence : sentences.subList(start, end)) {
+        Configuration c = system.initialConfiguration(sentence);
+        configurations.add(c);
+        if (!system.isTerminal(c))
+          active[numActive++] = c;
+      }
+
+      int[][] features = new int[active.length][];
+      while (numActive > 0) {
+        for (int b = 0; b < numActive; ++b)
+          features[b] = getFeatureArray(active[b]);
+        double[] scores = classifier.computeScores(features, numActive);
+
+        // Apply the best transition to each configuration, compacting
+        // the finished ones out of the active set as we go
+        int stillActive = 0;
+        for (int b = 0; b < numActive; ++b) {
+          Configuration c = active[b];
+
+          double optScore = Double.NEGATIVE_INFINITY;
+          String optTrans = null;
+
+          int offset = b * numTrans;
+          for (int j = 0; j < numTrans; ++j) {
+            if (scores[offset + j] > optScore && system.canApply(c, system.transitions.get(j))) {
+              optScore = scores[offset + j];
+              optTrans = system.transitions.get(j);
+            }
+          }
+          system.apply(c, optTrans);
+
+          if (!system.isTerminal(c))
+            active[stillActive++] = c;
+        }
+        numActive = stillActive;
+      }
+
+      for (Configuration c : configurations)
+        trees.add(c.tree);
+    }
+    return trees;
+  }
+
   /**
    * Determine the dependency parse of the given sentence using the loaded model.
    * You must first load a parser before calling this method.
@@ -943,8 +1215,33 @@ public class DependencyParser {
       throw new IllegalStateException("Parser has not been  " +
           "loaded and initialized; first load a model.");
 
-    DependencyTree result = predictInner(sentence);
+    return toGrammaticalStructure(sentence, predictInner(sentence));
+  }
+
+  /**
+   * Determine the dependency parses of a list of sentences using the
+   * loaded model. This gives the same results as calling
+   * {@link #predict(edu.stanford.nlp.util.CoreMap)} on each sentence,
+   * but is considerably faster for many sentences, as the classifier
+   * scores the parser configurations of all the sentences in batches.
+   *
+   * @throws java.lang.IllegalStateException If parser has not yet been loaded and initialized
+   *         (see {@link #initialize(boolean)}
+   */
+  public List<GrammaticalStructure> predictAll(List<? extends CoreMap> sentences) {
+    if (system == null)
+      throw new IllegalStateException("Parser has not been  " +
+          "loaded and initialized; first load a model.");
+
+    List<DependencyTree> results = predictInner(sentences);
+
+    List<GrammaticalStructure> structures = new ArrayList<>(sentences.size());
+    for (int i = 0; i < sentences.size(); i++)
+      structures.add(toGrammaticalStructure(sentences.get(i), results.get(i)));
+    return structures;
+  }
 
+  private GrammaticalStructure toGrammaticalStructure(CoreMap sentence, DependencyTree result) {
     // The rest of this method is just busy-work to convert the
     // package-local representation into a CoreNLP-standard
     // GrammaticalStructure.
@@ -1077,7 +1374,7 @@ public class DependencyParser {
     }
     System.err.printf("OOV Words: %d / %d = %.2f%%\n", numOOVWords, numWords, numOOVWords * 100.0 / numWords);
 
-    List<DependencyTree> predicted = testSents.stream().map(this::predictInner).collect(toList());
+    List<DependencyTree> predicted = predictInner(testSents);
     Map<String, Double> result = system.evaluate(testSents, predicted, testTrees);
     
     double uas = config.noPunc ? result.get("UASnoPunc") : result.get("UAS");
@@ -1183,6 +1480,10 @@ public class DependencyParser {
    *     <code>java edu.stanford.nlp.parser.nndep.DependencyParser -model modelOutputFile.txt.gz -textFile rawTextToParse -outFile dependenciesOutputFile.txt</code>
    *   </li>
    *   <li>
+   *     <strong>Convert a model to the memory-mappable binary format:</strong>
+   *     <code>java edu.stanford.nlp.parser.nndep.DependencyParser -model modelOutputFile.txt.gz -binaryModel modelOutputFile.bin</code>
+   *   </li>
+   *   <li>
    *     <strong>Parse raw text from standard input, writing to standard output:</strong>
    *     <code>java edu.stanford.nlp.parser.nndep.DependencyParser -model modelOutputFile.txt.gz -textFile - -outFile -</code>
    *   </li>
@@ -1195,9 +1496,10 @@ public class DependencyParser {
    * Input / output options:
    * <table>
    *   <tr><th>Option</th><th>Required for training</th><th>Required for testing / parsing</th><th>Description</th></tr>
+   *   <tr><td><tt>&#8209;binaryModel</tt></td><td>No</td><td>No</td><td>If provided, load the model given by <tt>&#8209;model</tt> and save it to this path in the binary format, which loads much faster and is memory-mapped rather than read onto the heap. Binary models can be passed to <tt>&#8209;model</tt> like text models.</td></tr>
    *   <tr><td><tt>&#8209;devFile</tt></td><td>Optional</td><td>No</td><td>Path to a development-set treebank in <a href="http://ilk.uvt.nl/conll/#dataformat">CoNLL-X format</a>. If provided, the </td></tr>
    *   <tr><td><tt>&#8209;embedFile</tt></td><td>Optional (highly recommended!)</td><td>No</td><td>A word embedding file, containing distributed representations of English words. Each line of the provided file should contain a single word followed by the elements of the corresponding word embedding (space-delimited). It is not absolutely necessary that all words in the treebank be covered by this embedding file, though the parser's performance will generally improve if you are able to provide better embeddings for more words.</td></tr>
-   *   <tr><td><tt>&#8209;model</tt></td><td>Yes</td><td>Yes</td><td>Path to a model file. If the path ends in <tt>.gz</tt>, the model will be read as a Gzipped model file. During training, we write to this path; at test time we read a pre-trained model from this path.</td></tr>
+   *   <tr><td><tt>&#8209;model</tt></td><td>Yes</td><td>Yes</td><td>Path to a model file, in either the text or the binary format. If the path ends in <tt>.gz</tt>, the model will be read as a Gzipped model file. During training, we write to this path; at test time we read a pre-trained model from this path.</td></tr>
    *   <tr><td><tt>&#8209;textFile</tt></td><td>No</td><td>Yes (or <tt>testFile</tt>)</td><td>Path to a plaintext file containing sentences to be parsed.</td></tr>
    *   <tr><td><tt>&#8209;testFile</tt></td><td>No</td><td>Yes (or <tt>textFile</tt>)</td><td>Path to a test-set treebank in <a href="http://ilk.uvt.nl/conll/#dataformat">CoNLL-X format</a> for final evaluation of the parser.</td></tr>
    *   <tr><td><tt>&#8209;trainFile</tt></td><td>Yes</td><td>No</td><td>Path to a training treebank in <a href="http://ilk.uvt.nl/conll/#dataformat">CoNLL-X format</a></td></tr>
@@ -1242,10 +1544,19 @@ public class DependencyParser {
           props.getProperty("embedFile"), props.getProperty("preModel"));
 
     boolean loaded = false;
-    // Test with CoNLL-X data
-    if (props.containsKey("testFile")) {
+    // Convert a model to the binary format
+    if (props.containsKey("binaryModel")) {
       parser.loadModelFile(props.getProperty("model"));
       loaded = true;
+      parser.writeBinaryModelFile(props.getProperty("binaryModel"));
+    }
+
+    // Test with CoNLL-X data
+    if (props.containsKey("testFile")) {
+      if (!loaded) {
+        parser.loadModelFile(props.getProperty("model"));
+        loaded = true;
+      }
       parser.testCoNLL(props.getProperty("testFile"), props.getProperty("outFile"));
     }
 
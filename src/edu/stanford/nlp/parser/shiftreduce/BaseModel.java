@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Random;
 import java.util.Set;
 
@@ -12,6 +13,7 @@ import edu.stanford.nlp.tagger.common.Tagger;
 import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.trees.Treebank;
 import edu.stanford.nlp.util.Index;
+import edu.stanford.nlp.util.ScoredComparator;
 import edu.stanford.nlp.util.ScoredObject;
 
 public abstract class BaseModel implements Serializable {
@@ -116,6 +118,25 @@ public abstract class BaseModel implements Serializable {
 
   public abstract Collection<ScoredObject<Integer>> findHighestScoringTransitions(State state, boolean requireLegal, int numTransitions, List<ParserConstraint> constraints);
 
+  /**
+   * Given the score of each transition in the transitionIndex, returns
+   * the numTransitions highest scoring transitions, legal ones only if
+   * requireLegal is set.
+   */
+  Collection<ScoredObject<Integer>> selectHighestScoringTransitions(State state, float[] scores, boolean requireLegal, int numTransitions, List<ParserConstraint> constraints) {
+    PriorityQueue<ScoredObject<Integer>> queue = new PriorityQueue<ScoredObject<Integer>>(numTransitions + 1, ScoredComparator.ASCENDING_COMPARATOR);
+    for (int i = 0; i < scores.length; ++i) {
+      if (!requireLegal || transitionIndex.get(i).isLegal(state, constraints)) {
+        queue.add(new ScoredObject<Integer>(i, scores[i]));
+        if (queue.size() > numTransitions) {
+          queue.poll();
+        }
+      }
+    }
+
+    return queue;
+  }
+
   /**
    * Train a new model.  This is the method to override for new models
    * such that the ShiftReduceParser will fill in the model.  Given a
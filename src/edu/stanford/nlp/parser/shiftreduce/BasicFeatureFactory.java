@@ -7,76 +7,99 @@ import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.trees.TreeCoreAnnotations;
 import edu.stanford.nlp.util.TreeShapedStack;
 
+/**
+ * The standard features for the shift-reduce parser.  The feature
+ * names are written to a {@link FeatureSink} in pieces, so that the
+ * hashed models never have to concatenate them into Strings.
+ */
 public class BasicFeatureFactory extends FeatureFactory {
-  public static void addUnaryStackFeatures(List<String> features, CoreLabel label, String conFeature, String wordTagFeature, String tagFeature, String wordConFeature, String tagConFeature) {
+  public static void addUnaryStackFeatures(FeatureSink features, CoreLabel label, String conFeature, String wordTagFeature, String tagFeature, String wordConFeature, String tagConFeature) {
     if (label == null) {
-      features.add(conFeature + NULL);
+      features.start(conFeature).append(NULL).end();
       return;
     }
     String constituent = getFeatureFromCoreLabel(label, FeatureComponent.VALUE);
     String tag = getFeatureFromCoreLabel(label, FeatureComponent.HEADTAG);
     String word = getFeatureFromCoreLabel(label, FeatureComponent.HEADWORD);
 
-    features.add(conFeature + constituent);
-    features.add(wordTagFeature + word + "-" + tag);
-    features.add(tagFeature + tag);
-    features.add(wordConFeature + word + "-" + constituent);
-    features.add(tagConFeature + tag + "-" + constituent);
+    features.start(conFeature).append(constituent).end();
+    features.start(wordTagFeature).append(word).append("-").append(tag).end();
+    features.start(tagFeature).append(tag).end();
+    features.start(wordConFeature).append(word).append("-").append(constituent).end();
+    features.start(tagConFeature).append(tag).append("-").append(constituent).end();
   }
 
-  public static void addUnaryQueueFeatures(List<String> features, CoreLabel label, String wtFeature) {
+  public static void addUnaryQueueFeatures(FeatureSink features, CoreLabel label, String wtFeature) {
     if (label == null) {
-      features.add(wtFeature + NULL);
+      features.start(wtFeature).append(NULL).end();
       return;
     }
     String tag = label.get(TreeCoreAnnotations.HeadTagLabelAnnotation.class).value();
     String word = label.get(TreeCoreAnnotations.HeadWordLabelAnnotation.class).value();
 
-    // TODO: check to see if this is slow because of the string concat
-    features.add(wtFeature + tag + "-" + word);
+    features.start(wtFeature).append(tag).append("-").append(word).end();
   }
 
-  public static void addBinaryFeatures(List<String> features,
+  public static void addBinaryFeatures(FeatureSink features,
                                        String name1, CoreLabel label1, FeatureComponent feature11, FeatureComponent feature12,
                                        String name2, CoreLabel label2, FeatureComponent feature21, FeatureComponent feature22) {
     if (label1 == null) {
       if (label2 == null) {
-        features.add(name1 + "n" + name2 + "n");
+        features.start(name1).append("n").append(name2).append("n").end();
       } else {
-        addUnaryFeature(features, name1 + "n" + name2 + feature21.shortName() + "-", label2, feature21);
-        addUnaryFeature(features, name1 + "n" + name2 + feature22.shortName() + "-", label2, feature22);
+        features.start(name1).append("n").append(name2).append(feature21.shortName()).append("-");
+        endUnaryFeature(features, label2, feature21);
+        features.start(name1).append("n").append(name2).append(feature22.shortName()).append("-");
+        endUnaryFeature(features, label2, feature22);
       }
     } else if (label2 == null) {
-      addUnaryFeature(features, name1 + feature11.shortName() + name2 + "n-", label1, feature11);
-      addUnaryFeature(features, name1 + feature12.shortName() + name2 + "n-", label1, feature12);
+      features.start(name1).append(feature11.shortName()).append(name2).append("n-");
+      endUnaryFeature(features, label1, feature11);
+      features.start(name1).append(feature12.shortName()).append(name2).append("n-");
+      endUnaryFeature(features, label1, feature12);
     } else {
-      addBinaryFeature(features, name1 + feature11.shortName() + name2 + feature21.shortName() + "-", label1, feature11, label2, feature21);
-      addBinaryFeature(features, name1 + feature11.shortName() + name2 + feature22.shortName() + "-", label1, feature11, label2, feature22);
-      addBinaryFeature(features, name1 + feature12.shortName() + name2 + feature21.shortName() + "-", label1, feature12, label2, feature21);
-      addBinaryFeature(features, name1 + feature12.shortName() + name2 + feature22.shortName() + "-", label1, feature12, label2, feature22);
+      features.start(name1).append(feature11.shortName()).append(name2).append(feature21.shortName()).append("-");
+      endBinaryFeature(features, label1, feature11, label2, feature21);
+      features.start(name1).append(feature11.shortName()).append(name2).append(feature22.shortName()).append("-");
+      endBinaryFeature(features, label1, feature11, label2, feature22);
+      features.start(name1).append(feature12.shortName()).append(name2).append(feature21.shortName()).append("-");
+      endBinaryFeature(features, label1, feature12, label2, feature21);
+      features.start(name1).append(feature12.shortName()).append(name2).append(feature22.shortName()).append("-");
+      endBinaryFeature(features, label1, feature12, label2, feature22);
     }
   }
 
-  public static void addUnaryFeature(List<String> features, String featureType, CoreLabel label, FeatureComponent feature) {
-    String value = getFeatureFromCoreLabel(label, feature);
-    features.add(featureType + value);
+  /** Finishes a feature whose name has already been started */
+  private static void endUnaryFeature(FeatureSink features, CoreLabel label, FeatureComponent feature) {
+    features.append(getFeatureFromCoreLabel(label, feature)).end();
   }
 
-  public static void addBinaryFeature(List<String> features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2) {
+  /** Finishes a feature whose name has already been started */
+  private static void endBinaryFeature(FeatureSink features, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2) {
     String value1 = getFeatureFromCoreLabel(label1, feature1);
     String value2 = getFeatureFromCoreLabel(label2, feature2);
-    features.add(featureType + value1 + "-" + value2);
+    features.append(value1).append("-").append(value2).end();
+  }
+
+  public static void addUnaryFeature(FeatureSink features, String featureType, CoreLabel label, FeatureComponent feature) {
+    features.start(featureType);
+    endUnaryFeature(features, label, feature);
+  }
+
+  public static void addBinaryFeature(FeatureSink features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2) {
+    features.start(featureType);
+    endBinaryFeature(features, label1, feature1, label2, feature2);
   }
 
-  public static void addTrigramFeature(List<String> features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2, CoreLabel label3, FeatureComponent feature3) {
+  public static void addTrigramFeature(FeatureSink features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2, CoreLabel label3, FeatureComponent feature3) {
     String value1 = getFeatureFromCoreLabel(label1, feature1);
     String value2 = getFeatureFromCoreLabel(label2, feature2);
     String value3 = getFeatureFromCoreLabel(label3, feature3);
 
-    features.add(featureType + value1 + "-" + value2 + "-" + value3);
+    features.start(featureType).append(value1).append("-").append(value2).append("-").append(value3).end();
   }
 
-  public static void addPositionFeatures(List<String> features, State state) {
+  public static void addPositionFeatures(FeatureSink features, State state) {
     if (state.tokenPosition >= state.sentence.size()) {
       features.add("QUEUE_FINISHED");
     }
@@ -85,60 +108,69 @@ public class BasicFeatureFactory extends FeatureFactory {
     }
   }
 
-  public static void addSeparatorFeature(List<String> features, String featureType, State.HeadPosition separator) {
+  public static void addSeparatorFeature(FeatureSink features, String featureType, State.HeadPosition separator) {
     if (separator == null) {
       return;
     }
-    features.add(featureType + separator);
+    features.start(featureType).append(separator.toString()).end();
   }
 
-  public static void addSeparatorFeature(List<String> features, String featureType, CoreLabel label, FeatureComponent feature, State.HeadPosition separator) {
+  public static void addSeparatorFeature(FeatureSink features, String featureType, CoreLabel label, FeatureComponent feature, State.HeadPosition separator) {
     if (separator == null) {
       return;
     }
 
     String value = getFeatureFromCoreLabel(label, feature);
 
-    features.add(featureType + value + "-" + separator);
+    features.start(featureType).append(value).append("-").append(separator.toString()).end();
   }
 
-  public static void addSeparatorFeature(List<String> features, String featureType, CoreLabel label, FeatureComponent feature, boolean between) {
+  public static void addSeparatorFeature(FeatureSink features, String featureType, CoreLabel label, FeatureComponent feature, boolean between) {
     String value = getFeatureFromCoreLabel(label, feature);
 
-    features.add(featureType + value + "-" + between);
+    features.start(featureType).append(value).append("-").append(String.valueOf(between)).end();
   }
 
-  public static void addSeparatorFeature(List<String> features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2, boolean between) {
+  public static void addSeparatorFeature(FeatureSink features, String featureType, CoreLabel label1, FeatureComponent feature1, CoreLabel label2, FeatureComponent feature2, boolean between) {
     String value1 = getFeatureFromCoreLabel(label1, feature1);
     String value2 = getFeatureFromCoreLabel(label2, feature2);
 
-    features.add(featureType + value1 + "-" + value2 + "-" + between);
+    features.start(featureType).append(value1).append("-").append(value2).append("-").append(String.valueOf(between)).end();
   }
 
-  public static void addSeparatorFeatures(List<String> features, String name1, CoreLabel label1, String name2, CoreLabel label2, String separatorBetween, int countBetween) {
+  public static void addSeparatorFeatures(FeatureSink features, String name1, CoreLabel label1, String name2, CoreLabel label2, String separatorBetween, int countBetween) {
     if (label1 == null || label2 == null) {
       return;
     }
 
     // 0 separators is captured by the countBetween features
     if (separatorBetween != null) {
-      String separatorBetweenName = "Sepb" + name1 + name2 + "-" + separatorBetween + "-";
-      addUnaryFeature(features, name1 + "w" + separatorBetweenName, label1, FeatureComponent.HEADWORD);
-      addBinaryFeature(features, name1 + "wc" + separatorBetweenName, label1, FeatureComponent.HEADWORD, label1, FeatureComponent.VALUE);
-      addUnaryFeature(features, name2 + "w" + separatorBetweenName, label2, FeatureComponent.HEADWORD);
-      addBinaryFeature(features, name2 + "wc" + separatorBetweenName, label2, FeatureComponent.HEADWORD, label2, FeatureComponent.VALUE);
-      addBinaryFeature(features, name1 + "c" + name2 + "c" + separatorBetweenName, label1, FeatureComponent.VALUE, label2, FeatureComponent.VALUE);
+      addSeparatorBetweenFeatures(features, name1, label1, name2, label2, separatorBetween);
     }
 
-    String countBetweenName = "Sepb" + name1 + name2 + "-" + countBetween + "-";
-    addUnaryFeature(features, name1 + "w" + countBetweenName, label1, FeatureComponent.HEADWORD);
-    addBinaryFeature(features, name1 + "wc" + countBetweenName, label1, FeatureComponent.HEADWORD, label1, FeatureComponent.VALUE);
-    addUnaryFeature(features, name2 + "w" + countBetweenName, label2, FeatureComponent.HEADWORD);
-    addBinaryFeature(features, name2 + "wc" + countBetweenName, label2, FeatureComponent.HEADWORD, label2, FeatureComponent.VALUE);
-    addBinaryFeature(features, name1 + "c" + name2 + "c" + countBetweenName, label1, FeatureComponent.VALUE, label2, FeatureComponent.VALUE);
+    addSeparatorBetweenFeatures(features, name1, label1, name2, label2, Integer.toString(countBetween));
   }
 
-  public static void addSeparatorFeatures(List<String> features, CoreLabel s0Label, CoreLabel s1Label, State.HeadPosition s0Separator, State.HeadPosition s1Separator) {
+  /**
+   * The features for the nodes on either side of a separator, or a
+   * count of separators.  The feature names are
+   * <code>name + "w" + "Sepb" + name1 + name2 + "-" + between + "-"</code>
+   * and so on.
+   */
+  private static void addSeparatorBetweenFeatures(FeatureSink features, String name1, CoreLabel label1, String name2, CoreLabel label2, String between) {
+    features.start(name1).append("wSepb").append(name1).append(name2).append("-").append(between).append("-");
+    endUnaryFeature(features, label1, FeatureComponent.HEADWORD);
+    features.start(name1).append("wcSepb").append(name1).append(name2).append("-").append(between).append("-");
+    endBinaryFeature(features, label1, FeatureComponent.HEADWORD, label1, FeatureComponent.VALUE);
+    features.start(name2).append("wSepb").append(name1).append(name2).append("-").append(between).append("-");
+    endUnaryFeature(features, label2, FeatureComponent.HEADWORD);
+    features.start(name2).append("wcSepb").append(name1).append(name2).append("-").append(between).append("-");
+    endBinaryFeature(features, label2, FeatureComponent.HEADWORD, label2, FeatureComponent.VALUE);
+    features.start(name1).append("c").append(name2).append("cSepb").append(name1).append(name2).append("-").append(between).append("-");
+    endBinaryFeature(features, label1, FeatureComponent.VALUE, label2, FeatureComponent.VALUE);
+  }
+
+  public static void addSeparatorFeatures(FeatureSink features, CoreLabel s0Label, CoreLabel s1Label, State.HeadPosition s0Separator, State.HeadPosition s1Separator) {
     boolean between = false;
     if ((s0Separator != null && (s0Separator == State.HeadPosition.BOTH || s0Separator == State.HeadPosition.LEFT)) ||
         (s1Separator != null && (s1Separator == State.HeadPosition.BOTH || s1Separator == State.HeadPosition.RIGHT))) {
@@ -182,7 +214,7 @@ public class BasicFeatureFactory extends FeatureFactory {
    * ends of the tree.  Also adds notes about the sizes of the given
    * tree.  However, it seems somewhat slow and doesn't help accuracy.
    */
-  public void addEdgeFeatures(List<String> features, State state, String nodeName, String neighborName, Tree node, Tree neighbor) {
+  public void addEdgeFeatures(FeatureSink features, State state, String nodeName, String neighborName, Tree node, Tree neighbor) {
     if (node == null) {
       return;
     }
@@ -220,7 +252,7 @@ public class BasicFeatureFactory extends FeatureFactory {
   }
 
   /** This option also does not seem to help */
-  public void addEdgeFeatures2(List<String> features, State state, String nodeName, Tree node) {
+  public void addEdgeFeatures2(FeatureSink features, State state, String nodeName, Tree node) {
     if (node == null) {
       return;
     }
@@ -246,7 +278,7 @@ public class BasicFeatureFactory extends FeatureFactory {
   /**
    * Also did not seem to help
    */
-  public void addExtraTrigramFeatures(List<String> features, CoreLabel s0Label, CoreLabel s1Label, CoreLabel s2Label, CoreLabel q0Label, CoreLabel q1Label) {
+  public void addExtraTrigramFeatures(FeatureSink features, CoreLabel s0Label, CoreLabel s1Label, CoreLabel s2Label, CoreLabel q0Label, CoreLabel q1Label) {
     addTrigramFeature(features, "S0wS1wS2c-", s0Label, FeatureComponent.HEADWORD, s1Label, FeatureComponent.HEADWORD, s2Label, FeatureComponent.VALUE);
     addTrigramFeature(features, "S0wS1cS2w-", s0Label, FeatureComponent.HEADWORD, s1Label, FeatureComponent.VALUE, s2Label, FeatureComponent.HEADWORD);
     addTrigramFeature(features, "S0cS1wS2w-", s0Label, FeatureComponent.VALUE, s1Label, FeatureComponent.HEADWORD, s2Label, FeatureComponent.HEADWORD);
@@ -265,7 +297,7 @@ public class BasicFeatureFactory extends FeatureFactory {
   }
 
   @Override
-  public List<String> featurize(State state, List<String> features) {
+  public void featurize(State state, FeatureSink features) {
     final TreeShapedStack<Tree> stack = state.stack;
     final List<Tree> sentence = state.sentence;
     final int tokenPosition = state.tokenPosition;
@@ -376,8 +408,6 @@ public class BasicFeatureFactory extends FeatureFactory {
     Tree q0Node = state.getQueueNode(0);
     addSeparatorFeatures(features, "S0", s0Label, "S1", s1Label, state.getSeparatorBetween(s0Node, s1Node), state.getSeparatorCount(s0Node, s1Node));
     addSeparatorFeatures(features, "S0", s0Label, "Q0", q0Label, state.getSeparatorBetween(q0Node, s0Node), state.getSeparatorCount(q0Node, s0Node));
-
-    return features;
   }
 
   private static final long serialVersionUID = 1;
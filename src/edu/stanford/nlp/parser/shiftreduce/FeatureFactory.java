@@ -14,7 +14,17 @@ public abstract class FeatureFactory implements Serializable {
     return featurize(state, Generics.<String>newArrayList(200));
   }
 
-  abstract public List<String> featurize(State state, List<String> features);
+  public List<String> featurize(State state, List<String> features) {
+    featurize(state, new FeatureSink.Strings(features));
+    return features;
+  }
+
+  /**
+   * Adds the features for the given state to the sink.  The features
+   * must come out the same, and in the same order, whichever kind of
+   * sink is used.
+   */
+  abstract public void featurize(State state, FeatureSink features);
 
   enum Transition {
     LEFT, RIGHT, UNARY
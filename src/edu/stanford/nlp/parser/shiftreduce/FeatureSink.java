@@ -0,0 +1,143 @@
+package edu.stanford.nlp.parser.shiftreduce;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Receives the features produced by a {@link FeatureFactory}.  A
+ * feature is built up one piece at a time with {@link #start},
+ * {@link #append} and {@link #end}, so that the pieces never need to
+ * be concatenated into a String unless the sink actually wants one.
+ * <br>
+ * There are two implementations.  {@link Strings} collects the
+ * features as Strings, exactly as they have always been built.
+ * {@link Hashes} only keeps a 64 bit FNV-1a hash of each feature,
+ * which is what the {@link HashedPerceptronModel} uses to avoid
+ * creating hundreds of Strings for every state it scores.  Since the
+ * hash is computed one character at a time, the hash of a feature
+ * built in pieces is the same as {@link #hash} of the whole feature
+ * String.
+ */
+public abstract class FeatureSink {
+
+  /** Begins a new feature, starting with the given piece */
+  public abstract FeatureSink start(String piece);
+
+  /** Adds another piece to the feature currently being built */
+  public abstract FeatureSink append(String piece);
+
+  /** Finishes the feature currently being built */
+  public abstract void end();
+
+  /** Adds an entire feature at once */
+  public void add(String feature) {
+    start(feature).end();
+  }
+
+  static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  static final long FNV_PRIME = 0x100000001b3L;
+
+  static long hash(long hash, String piece) {
+    if (piece == null) {
+      // the same as concatenating a null String
+      piece = "null";
+    }
+    for (int i = 0, length = piece.length(); i < length; ++i) {
+      hash ^= piece.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /** The hash {@link Hashes} produces for the given feature */
+  public static long hash(String feature) {
+    return hash(FNV_OFFSET, feature);
+  }
+
+
+  /** Adds the features to a list of Strings */
+  public static class Strings extends FeatureSink {
+    private final List<String> features;
+    private final StringBuilder current = new StringBuilder();
+
+    public Strings(List<String> features) {
+      this.features = features;
+    }
+
+    @Override
+    public FeatureSink start(String piece) {
+      current.setLength(0);
+      current.append(piece);
+      return this;
+    }
+
+    @Override
+    public FeatureSink append(String piece) {
+      current.append(piece);
+      return this;
+    }
+
+    @Override
+    public void end() {
+      features.add(current.toString());
+    }
+
+    @Override
+    public void add(String feature) {
+      features.add(feature);
+    }
+  }
+
+
+  /**
+   * Keeps the hash of each feature in a growable long[].  Not
+   * threadsafe; each thread scoring states needs its own.
+   */
+  public static class Hashes extends FeatureSink {
+    private long[] hashes;
+    private int size;
+    private long current;
+
+    public Hashes() {
+      this(200);
+    }
+
+    public Hashes(int capacity) {
+      hashes = new long[capacity];
+    }
+
+    @Override
+    public FeatureSink start(String piece) {
+      current = hash(FNV_OFFSET, piece);
+      return this;
+    }
+
+    @Override
+    public FeatureSink append(String piece) {
+      current = hash(current, piece);
+      return this;
+    }
+
+    @Override
+    public void end() {
+      if (size == hashes.length) {
+        hashes = Arrays.copyOf(hashes, size * 2);
+      }
+      hashes[size++] = current;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public long get(int i) {
+      return hashes[i];
+    }
+
+    /** Forgets all the features, so the sink can be reused for another state */
+    public void clear() {
+      size = 0;
+    }
+  }
+
+}
@@ -0,0 +1,90 @@
+package edu.stanford.nlp.parser.shiftreduce;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import edu.stanford.nlp.parser.common.ParserConstraint;
+import edu.stanford.nlp.tagger.common.Tagger;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.Treebank;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.ScoredObject;
+
+/**
+ * A {@link PerceptronModel} with the feature Strings replaced by
+ * their 64 bit hashes.  The features of each state are hashed as
+ * they are built by the {@link FeatureFactory}, using a
+ * {@link FeatureSink.Hashes}, and looked up in a {@link LongWeightMap},
+ * so scoring a state creates no feature Strings at all.
+ * <br>
+ * The features are summed in the same order as in the original
+ * model, so the scores, and therefore the parses, are the same unless
+ * two features happen to have the same hash.  With 64 bit hashes that
+ * should essentially never happen; the conversion reports it if it
+ * does among the known features.
+ * <br>
+ * These models cannot be trained.  Train a PerceptronModel as usual
+ * and then convert it, for example with the <code>-hashedModel</code>
+ * option of {@link ShiftReduceParser#main}.
+ */
+public class HashedPerceptronModel extends BaseModel {
+  final LongWeightMap featureWeights;
+  final FeatureFactory featureFactory;
+  /** The feature Strings are gone, so the tag set is kept from the original model */
+  private final Set<String> tagSet;
+
+  public HashedPerceptronModel(PerceptronModel other) {
+    super(other);
+    this.featureFactory = other.featureFactory;
+    this.tagSet = Generics.newHashSet(other.tagSet());
+
+    this.featureWeights = new LongWeightMap(other.featureWeights.size());
+    int collisions = 0;
+    for (Map.Entry<String, Weight> entry : other.featureWeights.entrySet()) {
+      long hash = FeatureSink.hash(entry.getKey());
+      Weight weight = new Weight(entry.getValue());
+      Weight previous = featureWeights.put(hash, weight);
+      if (previous != null) {
+        // Colliding features share a row, which is the best we can do
+        weight.addScaled(previous, 1.0f);
+        ++collisions;
+      }
+    }
+    if (collisions > 0) {
+      System.err.println("Warning: " + collisions + " features had the same hash as another feature");
+    }
+  }
+
+  @Override
+  public Collection<ScoredObject<Integer>> findHighestScoringTransitions(State state, boolean requireLegal, int numTransitions, List<ParserConstraint> constraints) {
+    FeatureSink.Hashes features = new FeatureSink.Hashes();
+    featureFactory.featurize(state, features);
+
+    float[] scores = new float[transitionIndex.size()];
+    for (int i = 0; i < features.size(); ++i) {
+      Weight weight = featureWeights.get(features.get(i));
+      if (weight == null) {
+        // Features not in our index are ignored
+        continue;
+      }
+      weight.score(scores);
+    }
+
+    return selectHighestScoringTransitions(state, scores, requireLegal, numTransitions, constraints);
+  }
+
+  @Override
+  public void trainModel(String serializedPath, Tagger tagger, Random random, List<Tree> binarizedTrainTrees, List<List<Transition>> transitionLists, Treebank devTreebank, int nThreads) {
+    throw new UnsupportedOperationException("HashedPerceptronModel cannot be trained.  Train a PerceptronModel and convert it instead");
+  }
+
+  @Override
+  Set<String> tagSet() {
+    return tagSet;
+  }
+
+  private static final long serialVersionUID = 1;
+}
@@ -0,0 +1,114 @@
+package edu.stanford.nlp.parser.shiftreduce;
+
+import java.io.Serializable;
+
+/**
+ * An open addressing map from feature hashes to {@link Weight}s, used
+ * by the {@link HashedPerceptronModel}.  Keys are kept in a primitive
+ * long[] and collisions are resolved by linear probing, so a lookup
+ * costs no allocation and usually touches one or two array slots.
+ * <br>
+ * An empty slot is marked by a null Weight, so every long, including
+ * 0, is a valid key.  Weights can be added but not removed.
+ */
+public class LongWeightMap implements Serializable {
+  private long[] keys;
+  private Weight[] values;
+  private int size;
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  public LongWeightMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a map which can hold the given number of weights without
+   * having to grow.
+   */
+  public LongWeightMap(int expectedSize) {
+    int capacity = DEFAULT_CAPACITY;
+    // keep the table at most half full
+    while (capacity < expectedSize * 2) {
+      capacity <<= 1;
+    }
+    keys = new long[capacity];
+    values = new Weight[capacity];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * The feature hashes are already well mixed in their low bits, but
+   * this guards against poor keys from any other source.
+   */
+  private static int slot(long key, int mask) {
+    long h = key * 0x9e3779b97f4a7c15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  /** Returns the weight for the given key, or null if there is none */
+  public Weight get(long key) {
+    final Weight[] values = this.values;
+    final long[] keys = this.keys;
+    final int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (values[i] != null) {
+      if (keys[i] == key) {
+        return values[i];
+      }
+      i = (i + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * Sets the weight for the given key, returning the weight it
+   * replaced, if any.
+   */
+  public Weight put(long key, Weight weight) {
+    if (weight == null) {
+      throw new IllegalArgumentException("Cannot store a null weight");
+    }
+    if ((size + 1) * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+    final int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (values[i] != null) {
+      if (keys[i] == key) {
+        Weight old = values[i];
+        values[i] = weight;
+        return old;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    values[i] = weight;
+    ++size;
+    return null;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Weight[] oldValues = values;
+    keys = new long[capacity];
+    values = new Weight[capacity];
+    final int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; ++j) {
+      if (oldValues[j] == null) {
+        continue;
+      }
+      int i = slot(oldKeys[j], mask);
+      while (values[i] != null) {
+        i = (i + 1) & mask;
+      }
+      keys[i] = oldKeys[j];
+      values[i] = oldValues[j];
+    }
+  }
+
+  private static final long serialVersionUID = 1;
+}
@@ -212,17 +212,7 @@ public class PerceptronModel extends BaseModel { // Serializable
       weight.score(scores);
     }
 
-    PriorityQueue<ScoredObject<Integer>> queue = new PriorityQueue<ScoredObject<Integer>>(numTransitions + 1, ScoredComparator.ASCENDING_COMPARATOR);
-    for (int i = 0; i < scores.length; ++i) {
-      if (!requireLegal || transitionIndex.get(i).isLegal(state, constraints)) {
-        queue.add(new ScoredObject<Integer>(i, scores[i]));
-        if (queue.size() > numTransitions) {
-          queue.poll();
-        }
-      }
-    }
-
-    return queue;
+    return selectHighestScoringTransitions(state, scores, requireLegal, numTransitions, constraints);
   }
 
   private static class Update {
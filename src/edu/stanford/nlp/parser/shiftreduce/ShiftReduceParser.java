@@ -484,6 +484,18 @@ public class ShiftReduceParser extends ParserGrammar implements Serializable {
     }
   }
 
+  /**
+   * Saves a copy of this parser with the feature Strings of its model
+   * replaced by hashes.  See {@link HashedPerceptronModel}.
+   */
+  public void saveHashedModel(String path) {
+    if (!(model instanceof PerceptronModel)) {
+      throw new IllegalArgumentException("Can only convert a PerceptronModel, not a " + model.getClass().getName());
+    }
+    ShiftReduceParser hashed = new ShiftReduceParser(op, new HashedPerceptronModel((PerceptronModel) model));
+    hashed.saveModel(path);
+  }
+
   static final String[] FORCE_TAGS = { "-forceTags" };
 
   public static void main(String[] args) {
@@ -499,6 +511,8 @@ public class ShiftReduceParser extends ParserGrammar implements Serializable {
 
     String continueTraining = null;
 
+    String hashedModelPath = null;
+
     for (int argIndex = 0; argIndex < args.length; ) {
       if (args[argIndex].equalsIgnoreCase("-trainTreebank")) {
         if (trainTreebankPath == null) {
@@ -521,6 +535,9 @@ public class ShiftReduceParser extends ParserGrammar implements Serializable {
       } else if (args[argIndex].equalsIgnoreCase("-continueTraining")) {
         continueTraining = args[argIndex + 1];
         argIndex += 2;
+      } else if (args[argIndex].equalsIgnoreCase("-hashedModel")) {
+        hashedModelPath = args[argIndex + 1];
+        argIndex += 2;
       } else {
         remainingArgs.add(args[argIndex]);
         ++argIndex;
@@ -556,6 +573,10 @@ public class ShiftReduceParser extends ParserGrammar implements Serializable {
 
     //parser.outputStats();
 
+    if (hashedModelPath != null) {
+      parser.saveHashedModel(hashedModelPath);
+    }
+
     if (testTreebankPath != null) {
       System.err.println("Loading test trees from " + testTreebankPath.first());
       Treebank testTreebank = parser.op.tlpParams.memoryTreebank();
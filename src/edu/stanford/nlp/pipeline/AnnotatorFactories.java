@@ -64,6 +64,9 @@ public class AnnotatorFactories {
         if (properties.getProperty("tokenize.class") != null) {
           os.append(":tokenize.class:").append(properties.getProperty("tokenize.class"));
         }
+        if (Boolean.valueOf(properties.getProperty(TokenizerAnnotator.COMPACT_PROPERTY, "false"))) {
+          os.append(':' + TokenizerAnnotator.COMPACT_PROPERTY + ":true");
+        }
         if (Boolean.valueOf(properties.getProperty("tokenize.whitespace", "false"))) {
           os.append(TokenizerAnnotator.EOL_PROPERTY + ':').append(properties.getProperty(TokenizerAnnotator.EOL_PROPERTY, "false"));
           os.append(StanfordCoreNLP.NEWLINE_SPLITTER_PROPERTY + ':');
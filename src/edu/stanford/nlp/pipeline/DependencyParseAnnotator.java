@@ -1,5 +1,6 @@
 package edu.stanford.nlp.pipeline;
 
+import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.parser.nndep.DependencyParser;
 import edu.stanford.nlp.semgraph.SemanticGraph;
 import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
@@ -59,10 +60,33 @@ public class DependencyParseAnnotator extends SentenceAnnotator {
     return maxTime;
   }
 
+  /**
+   * When running single-threaded without a sentence timeout, all the
+   * sentences of the document are handed to the parser together, so
+   * that it can score their transitions in batches.  Otherwise we fall
+   * back to parsing one sentence at a time.
+   */
+  @Override
+  public void annotate(Annotation annotation) {
+    if (nThreads != 1 || maxTime != DEFAULT_MAXTIME || !annotation.containsKey(CoreAnnotations.SentencesAnnotation.class)) {
+      super.annotate(annotation);
+      return;
+    }
+
+    List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+    List<GrammaticalStructure> parses = parser.predictAll(sentences);
+    for (int i = 0; i < sentences.size(); i++) {
+      setDependencies(sentences.get(i), parses.get(i));
+    }
+  }
+
   @Override
   protected void doOneSentence(Annotation annotation, CoreMap sentence) {
     GrammaticalStructure gs = parser.predict(sentence);
+    setDependencies(sentence, gs);
+  }
 
+  private void setDependencies(CoreMap sentence, GrammaticalStructure gs) {
     SemanticGraph deps = SemanticGraphFactory.makeFromTree(gs, SemanticGraphFactory.Mode.COLLAPSED, extraDependencies, true, null),
                   uncollapsedDeps = SemanticGraphFactory.makeFromTree(gs, SemanticGraphFactory.Mode.BASIC, extraDependencies, true, null),
                   ccDeps = SemanticGraphFactory.makeFromTree(gs, SemanticGraphFactory.Mode.CCPROCESSED, extraDependencies, true, null);
@@ -70,7 +94,6 @@ public class DependencyParseAnnotator extends SentenceAnnotator {
     sentence.set(SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation.class, deps);
     sentence.set(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class, uncollapsedDeps);
     sentence.set(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class, ccDeps);
-
   }
 
   @Override
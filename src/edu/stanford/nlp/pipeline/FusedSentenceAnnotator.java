@@ -0,0 +1,128 @@
+package edu.stanford.nlp.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.Generics;
+
+/**
+ * Runs several {@link SentenceAnnotator}s one sentence at a time: each
+ * sentence goes through all of them, in order, before the next is
+ * started, and sentences are done on several threads at once.  A single
+ * large document can then keep every core busy through pos, lemma, ner
+ * and parse, instead of each annotator going over the whole document by
+ * itself.  Once all the sentences are done, each annotator's
+ * {@link SentenceAnnotator#finishAnnotation} is called in order, so
+ * annotators after this one see the document as if the fused annotators
+ * had been run one after another.
+ * <br>
+ * {@link StanfordCoreNLP} fuses consecutive sentence annotators this way
+ * when the property {@code sentenceThreads} is greater than 1.
+ */
+public class FusedSentenceAnnotator extends SentenceAnnotator {
+
+  private final List<SentenceAnnotator> annotators;
+  private final int nThreads;
+  private final long maxTime;
+
+  /**
+   * @param annotators The annotators to run on each sentence, in order
+   * @param nThreads The number of sentences to annotate at once
+   * @param maxTime The most milliseconds to spend on one sentence, or -1
+   *                for no limit
+   */
+  public FusedSentenceAnnotator(List<? extends SentenceAnnotator> annotators, int nThreads, long maxTime) {
+    if (annotators.isEmpty()) {
+      throw new IllegalArgumentException("Need at least one annotator to fuse");
+    }
+    this.annotators = new ArrayList<SentenceAnnotator>(annotators);
+    this.nThreads = nThreads;
+    this.maxTime = maxTime;
+  }
+
+  /**
+   * Fuses the annotators with the sum of their own sentence time limits,
+   * if any of them has one.
+   */
+  public FusedSentenceAnnotator(List<? extends SentenceAnnotator> annotators, int nThreads) {
+    this(annotators, nThreads, totalMaxTime(annotators));
+  }
+
+  private static long totalMaxTime(List<? extends SentenceAnnotator> annotators) {
+    long total = -1;
+    for (SentenceAnnotator annotator : annotators) {
+      long maxTime = annotator.maxTime();
+      if (maxTime > 0) {
+        total = (total < 0) ? maxTime : (total > Long.MAX_VALUE - maxTime) ? Long.MAX_VALUE : total + maxTime;
+      }
+    }
+    return total;
+  }
+
+  public List<SentenceAnnotator> annotators() {
+    return Collections.unmodifiableList(annotators);
+  }
+
+  @Override
+  protected int nThreads() {
+    return nThreads;
+  }
+
+  @Override
+  protected long maxTime() {
+    return maxTime;
+  }
+
+  @Override
+  protected void doOneSentence(Annotation annotation, CoreMap sentence) {
+    for (SentenceAnnotator annotator : annotators) {
+      annotator.doOneSentence(annotation, sentence);
+    }
+  }
+
+  /**
+   * A timed out sentence may have got part of the way through the
+   * annotators, so all of them fill in what is missing.
+   */
+  @Override
+  protected void doOneFailedSentence(Annotation annotation, CoreMap sentence) {
+    for (SentenceAnnotator annotator : annotators) {
+      annotator.doOneFailedSentence(annotation, sentence);
+    }
+  }
+
+  @Override
+  protected void finishAnnotation(Annotation annotation) {
+    for (SentenceAnnotator annotator : annotators) {
+      annotator.finishAnnotation(annotation);
+    }
+  }
+
+  @Override
+  public Set<Requirement> requires() {
+    return annotators.get(0).requires();
+  }
+
+  @Override
+  public Set<Requirement> requirementsSatisfied() {
+    Set<Requirement> satisfied = Generics.newHashSet();
+    for (SentenceAnnotator annotator : annotators) {
+      satisfied.addAll(annotator.requirementsSatisfied());
+    }
+    return satisfied;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("FusedSentenceAnnotator[");
+    for (int i = 0; i < annotators.size(); i++) {
+      if (i > 0) sb.append(", ");
+      sb.append(annotators.get(i).getClass().getSimpleName());
+    }
+    return sb.append(']').toString();
+  }
+
+}
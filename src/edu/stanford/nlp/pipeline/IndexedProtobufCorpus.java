@@ -0,0 +1,127 @@
+package edu.stanford.nlp.pipeline;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.protobuf.CodedInputStream;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+/**
+ * Reads documents by docID from a corpus written by a
+ * {@link ProtobufCorpusWriter} with an index.
+ * <br>
+ * The whole index is read into memory when the corpus is opened; the
+ * documents are read from the corpus file only when asked for.  The
+ * reads do not move a shared file pointer, so a corpus can be read by
+ * many threads at once.  If several documents have the same docID, the
+ * last one is returned.  A corpus written without an index can be
+ * indexed with {@link ProtobufCorpusReader#writeIndex}.
+ *
+ * @see ProtobufCorpusWriter
+ * @see ProtobufCorpusReader
+ */
+public class IndexedProtobufCorpus implements Closeable {
+
+  private final ProtobufAnnotationSerializer serializer;
+  private final FileChannel channel;
+
+  private final Index<String> docIDs = new HashIndex<>();
+  private long[] offsets = new long[1024];
+  private int[] lengths = new int[1024];
+
+  /** Opens the corpus in the given file, with its index in {@link ProtobufCorpusWriter#indexPath} */
+  public IndexedProtobufCorpus(String path) throws IOException {
+    this(path, new ProtobufAnnotationSerializer());
+  }
+
+  public IndexedProtobufCorpus(String path, ProtobufAnnotationSerializer serializer) throws IOException {
+    this.serializer = serializer;
+    readIndex(ProtobufCorpusWriter.indexPath(path));
+    this.channel = new RandomAccessFile(new File(path), "r").getChannel();
+  }
+
+  private void readIndex(String indexPath) throws IOException {
+    try (BufferedReader reader = IOUtils.readerFromString(indexPath)) {
+      for (String line; (line = reader.readLine()) != null; ) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        int lengthTab = line.lastIndexOf('\t');
+        int offsetTab = line.lastIndexOf('\t', lengthTab - 1);
+        if (offsetTab < 0) {
+          throw new IOException("Bad line in corpus index " + indexPath + ": " + line);
+        }
+        int id = docIDs.addToIndex(line.substring(0, offsetTab));
+        if (id >= offsets.length) {
+          offsets = Arrays.copyOf(offsets, offsets.length * 2);
+          lengths = Arrays.copyOf(lengths, lengths.length * 2);
+        }
+        offsets[id] = Long.parseLong(line.substring(offsetTab + 1, lengthTab));
+        lengths[id] = Integer.parseInt(line.substring(lengthTab + 1));
+      }
+    }
+  }
+
+  /** The number of indexed documents */
+  public int size() {
+    return docIDs.size();
+  }
+
+  public boolean contains(String docID) {
+    return docIDs.indexOf(docID) >= 0;
+  }
+
+  /** The docIDs of the indexed documents, in the order they appear in the index */
+  public List<String> docIDs() {
+    return docIDs.objectsList();
+  }
+
+  /**
+   * Reads the serialized document with the given docID.
+   *
+   * @return The document, or null if there is no document with that docID
+   */
+  public CoreNLPProtos.Document getDocument(String docID) throws IOException {
+    int id = docIDs.indexOf(docID);
+    if (id < 0) {
+      return null;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(lengths[id]);
+    long position = offsets[id];
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException("Corpus ends in the middle of document " + docID);
+      }
+    }
+    CodedInputStream coded = CodedInputStream.newInstance(buffer.array(), 0, lengths[id]);
+    coded.setSizeLimit(Integer.MAX_VALUE);
+    return CoreNLPProtos.Document.parseFrom(coded);
+  }
+
+  /**
+   * Reads the document with the given docID.
+   *
+   * @return The document, or null if there is no document with that docID
+   */
+  public Annotation get(String docID) throws IOException {
+    CoreNLPProtos.Document document = getDocument(docID);
+    return (document == null) ? null : serializer.fromProto(document);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+}
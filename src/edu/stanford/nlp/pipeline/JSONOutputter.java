@@ -18,11 +18,12 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Output an Annotation to human readable JSON.
+ * The JSON is written out as the annotation is visited, rather than built
+ * up in memory first.
  * This is not a lossless operation; for more strict serialization,
  * see {@link edu.stanford.nlp.pipeline.AnnotationSerializer}; e.g.,
  * {@link edu.stanford.nlp.pipeline.ProtobufAnnotationSerializer}.
@@ -167,6 +168,7 @@ public class JSONOutputter extends AnnotationOutputter {
       this.writer = writer;
     }
 
+    /** The string with the characters which JSON requires to be escaped escaped */
     protected static String cleanJSON(String s) {
       return s
           .replace("\\", "\\\\")
@@ -178,31 +180,61 @@ public class JSONOutputter extends AnnotationOutputter {
           .replace("\"", "\\\"");
     }
 
+    /**
+     * Writes the string escaped as {@link #cleanJSON(String)} does, without
+     * making the escaped string first.
+     */
+    private void writeClean(String s) {
+      int start = 0;
+      for (int i = 0, length = s.length(); i < length; i++) {
+        String escaped;
+        switch (s.charAt(i)) {
+          case '\\': escaped = "\\\\"; break;
+          case '\b': escaped = "\\b"; break;
+          case '\f': escaped = "\\f"; break;
+          case '\n': escaped = "\\n"; break;
+          case '\r': escaped = "\\r"; break;
+          case '\t': escaped = "\\t"; break;
+          case '"': escaped = "\\\""; break;
+          default: continue;
+        }
+        writer.write(s, start, i - start);
+        writer.write(escaped);
+        start = i + 1;
+      }
+      writer.write(s, start, s.length() - start);
+    }
+
+    /** Writes the elements as a JSON array, as they are iterated over */
+    private void routeElements(int indent, Iterator<?> elems) {
+      writer.write("[\n");
+      while (elems.hasNext()) {
+        indent(indent + 1);
+        routeObject(indent + 1, elems.next());
+        if (elems.hasNext()) {
+          writer.write(",");
+        }
+        writer.write("\n");
+      }
+      indent(indent);
+      writer.write("]");
+    }
+
     @SuppressWarnings("unchecked")
     private void routeObject(int indent, Object value) {
       if (value instanceof String) {
         // Case: simple string (this is easy!)
         writer.write("\"");
-        writer.write(cleanJSON(value.toString()));
+        writeClean(value.toString());
         writer.write("\"");
       } else if (value instanceof Collection) {
         // Case: collection
-        writer.write("[\n");
-        Iterator<Object> elems = ((Collection<Object>) value).iterator();
-        while (elems.hasNext()) {
-          indent(indent + 1);
-          routeObject(indent + 1, elems.next());
-          if (elems.hasNext()) {
-            writer.write(",");
-          }
-          writer.write("\n");
-        }
-        indent(indent);
-        writer.write("]");
+        routeElements(indent, ((Collection<Object>) value).iterator());
       } else if (value instanceof Consumer) {
         object(indent, (Consumer<Writer>) value);
       } else if (value instanceof Stream) {
-        routeObject(indent, ((Stream) value).collect(Collectors.toList()));
+        // Case: stream; each element is only made when it is written
+        routeElements(indent, ((Stream<Object>) value).iterator());
       } else if (value.getClass().isArray()) {
         routeObject(indent, Arrays.asList((Object[]) value));
       } else if (value instanceof Integer) {
@@ -234,7 +266,7 @@ public class JSONOutputter extends AnnotationOutputter {
           writer.write("\n");
           indent(indent + 1);
           writer.write("\"");
-          writer.write(cleanJSON(key));
+          writeClean(key);
           writer.write("\": ");
           // Write the value
           routeObject(indent + 1, value);
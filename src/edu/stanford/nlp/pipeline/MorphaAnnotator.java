@@ -22,7 +22,7 @@ import java.util.Set;
  *
  * @author Jenny Finkel
  */
-public class MorphaAnnotator implements Annotator{
+public class MorphaAnnotator extends SentenceAnnotator {
 
   private boolean VERBOSE = false;
 
@@ -38,40 +38,61 @@ public class MorphaAnnotator implements Annotator{
     VERBOSE = verbose;
   }
 
+  @Override
   public void annotate(Annotation annotation) {
     if (VERBOSE) {
       System.err.print("Finding lemmas ...");
     }
-    Morphology morphology = new Morphology();
-    if (annotation.has(CoreAnnotations.SentencesAnnotation.class)) {
-      for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
-        List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
-        //System.err.println("Lemmatizing sentence: " + tokens);
-        for (CoreLabel token : tokens) {
-          String text = token.get(CoreAnnotations.TextAnnotation.class);
-          String posTag = token.get(CoreAnnotations.PartOfSpeechAnnotation.class);
-          addLemma(morphology, CoreAnnotations.LemmaAnnotation.class, token, text, posTag);
-        }
+    super.annotate(annotation);
+  }
+
+  @Override
+  protected int nThreads() {
+    return 1;
+  }
+
+  @Override
+  protected long maxTime() {
+    return -1;
+  }
+
+  @Override
+  protected void doOneSentence(Annotation annotation, CoreMap sentence) {
+    List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+    //System.err.println("Lemmatizing sentence: " + tokens);
+    for (CoreLabel token : tokens) {
+      String text = token.get(CoreAnnotations.TextAnnotation.class);
+      String posTag = token.get(CoreAnnotations.PartOfSpeechAnnotation.class);
+      addLemma(CoreAnnotations.LemmaAnnotation.class, token, text, posTag);
+    }
+  }
+
+  @Override
+  protected void doOneFailedSentence(Annotation annotation, CoreMap sentence) {
+    for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
+      if (token.lemma() == null) {
+        token.setLemma(token.word());
       }
-    } else {
-      throw new RuntimeException("Unable to find words/tokens in: " +
-                                 annotation);
     }
   }
 
 
-  private static void addLemma(Morphology morpha,
-                        Class<? extends CoreAnnotation<String>> ann,
+  /**
+   * Uses the cached static lemmatizer of {@link Morphology}, which threads
+   * annotating sentences or documents at the same time can share without
+   * waiting for each other.
+   */
+  private static void addLemma(Class<? extends CoreAnnotation<String>> ann,
                         CoreMap map, String word, String tag) {
     if (tag.length() > 0) {
-      String phrasalVerb = phrasalVerb(morpha, word, tag);
+      String phrasalVerb = phrasalVerb(word, tag);
       if (phrasalVerb == null) {
-        map.set(ann, morpha.lemma(word, tag));
+        map.set(ann, Morphology.lemmaCached(word, tag));
       } else {
         map.set(ann, phrasalVerb);
       }
     } else {
-      map.set(ann, morpha.stem(word));
+      map.set(ann, Morphology.stemCached(word));
     }
   }
 
@@ -79,7 +100,7 @@ public class MorphaAnnotator implements Annotator{
   /** If a token is a phrasal verb with an underscore between a verb and a
    *  particle, return the phrasal verb lemmatized. If not, return null
    */
-  private static String phrasalVerb(Morphology morpha, String word, String tag) {
+  private static String phrasalVerb(String word, String tag) {
 
     // must be a verb and contain an underscore
     assert(word != null);
@@ -92,7 +113,7 @@ public class MorphaAnnotator implements Annotator{
     String particle = verb[1];
     if(particles.contains(particle)) {
       String base = verb[0];
-      String lemma = morpha.lemma(base, tag);
+      String lemma = Morphology.lemmaCached(base, tag);
       return lemma + '_' + particle;
     }
 
@@ -270,26 +270,31 @@ public class ParserAnnotator extends SentenceAnnotator {
                              List<CoreLabel> words) {
     ParserQuery pq = parser.parserQuery();
     pq.setConstraints(constraints);
-    pq.parse(words);
     Tree tree = null;
     try {
-      tree = pq.getBestParse();
-      if (tree == null) {
-        System.err.println("WARNING: Parsing of sentence failed.  " +
-                         "Will ignore and continue: " +
-                         Sentence.listToString(words));
-      } else {
-        // -10000 denotes unknown words
-        tree.setScore(pq.getPCFGScore() % -10000.0);
+      pq.parse(words);
+      try {
+        tree = pq.getBestParse();
+        if (tree == null) {
+          System.err.println("WARNING: Parsing of sentence failed.  " +
+                           "Will ignore and continue: " +
+                           Sentence.listToString(words));
+        } else {
+          // -10000 denotes unknown words
+          tree.setScore(pq.getPCFGScore() % -10000.0);
+        }
+      } catch (OutOfMemoryError e) {
+        System.err.println("WARNING: Parsing of sentence ran out of memory.  " +
+                           "Will ignore and continue: " +
+                           Sentence.listToString(words));
+      } catch (NoSuchParseException e) {
+        System.err.println("WARNING: Parsing of sentence failed, possibly because of out of memory.  " +
+                           "Will ignore and continue: " +
+                           Sentence.listToString(words));
       }
-    } catch (OutOfMemoryError e) {
-      System.err.println("WARNING: Parsing of sentence ran out of memory.  " +
-                         "Will ignore and continue: " +
-                         Sentence.listToString(words));
-    } catch (NoSuchParseException e) {
-      System.err.println("WARNING: Parsing of sentence failed, possibly because of out of memory.  " +
-                         "Will ignore and continue: " +
-                         Sentence.listToString(words));
+    } finally {
+      // let the next sentence, on this or any other thread, reuse the parser's memory
+      pq.releaseMemory();
     }
     return tree;
   }
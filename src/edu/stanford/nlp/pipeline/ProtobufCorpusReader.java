@@ -0,0 +1,228 @@
+package edu.stanford.nlp.pipeline;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.NoSuchElementException;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.io.RuntimeIOException;
+import edu.stanford.nlp.util.AbstractIterator;
+
+/**
+ * Reads the documents of a corpus written by a {@link ProtobufCorpusWriter},
+ * or any other stream of length-delimited {@link CoreNLPProtos.Document}
+ * messages.
+ * <br>
+ * The documents are read and decoded one at a time as the iteration
+ * goes, so a pass over a corpus only ever holds one document in memory,
+ * however large the corpus.  The selector of
+ * {@link #getAnnotations(String, int)} is the path of the corpus.
+ * <br>
+ * An iteration closes the corpus file when it reaches the end.  An
+ * iteration which is abandoned early leaves the file open until the
+ * iterator is garbage collected; to avoid that, iterate over a
+ * {@link DocumentIterator} and close it.
+ *
+ * @see ProtobufCorpusWriter
+ * @see IndexedProtobufCorpus
+ */
+public class ProtobufCorpusReader implements AnnotationSource {
+
+  private final ProtobufAnnotationSerializer serializer;
+
+  public ProtobufCorpusReader() {
+    this(new ProtobufAnnotationSerializer());
+  }
+
+  public ProtobufCorpusReader(ProtobufAnnotationSerializer serializer) {
+    this.serializer = serializer;
+  }
+
+  /**
+   * Returns the annotations of the corpus in the given file.
+   *
+   * @param path The corpus file, which may be compressed as with {@link IOUtils#getFileInputStream}
+   * @param limit The most annotations to return, or 0 or less for all of them
+   */
+  @Override
+  public Iterable<Annotation> getAnnotations(String path, int limit) {
+    return () -> {
+      DocumentIterator documents = open(path, limit);
+      return new AbstractIterator<Annotation>() {
+        @Override
+        public boolean hasNext() {
+          return documents.hasNext();
+        }
+
+        @Override
+        public Annotation next() {
+          return serializer.fromProto(documents.next());
+        }
+      };
+    };
+  }
+
+  @Override
+  public Iterable<Annotation> getAnnotations(String path) {
+    return getAnnotations(path, 0);
+  }
+
+  /** The serialized documents of the corpus in the given file, without converting them to Annotations */
+  public static Iterable<CoreNLPProtos.Document> documents(String path) {
+    return () -> open(path, 0);
+  }
+
+  /** Opens the corpus in the given file to read at most limit documents, or all of them if limit is 0 or less */
+  public static DocumentIterator open(String path, int limit) {
+    try {
+      return new DocumentIterator(new BufferedInputStream(IOUtils.getFileInputStream(path), 1 << 16), limit);
+    } catch (IOException e) {
+      throw new RuntimeIOException("Could not open the corpus " + path, e);
+    }
+  }
+
+  /**
+   * Writes the index of the corpus in the given file, as
+   * {@link ProtobufCorpusWriter} would have.  This is for corpora which
+   * were written without an index, or by some other writer.
+   *
+   * @return The number of documents indexed
+   */
+  public static int writeIndex(String path) throws IOException {
+    int numIndexed = 0;
+    try (DocumentIterator documents = open(path, 0);
+         PrintWriter index = IOUtils.getPrintWriter(ProtobufCorpusWriter.indexPath(path))) {
+      while (documents.hasNext()) {
+        CoreNLPProtos.Document document = documents.next();
+        if (document.hasDocID()) {
+          index.print(document.getDocID());
+          index.print('\t');
+          index.print(documents.offset());
+          index.print('\t');
+          index.print(documents.length());
+          index.print('\n');
+          ++numIndexed;
+        }
+      }
+    }
+    return numIndexed;
+  }
+
+  /**
+   * Reads the documents of a stream one at a time.  The message of each
+   * document is read into a buffer which is reused for the next one.
+   * Errors reading the stream are thrown as {@link RuntimeIOException}s.
+   */
+  public static class DocumentIterator extends AbstractIterator<CoreNLPProtos.Document> implements Closeable {
+
+    private final InputStream in;
+    private final int limit;
+
+    private byte[] buffer = new byte[1 << 12];
+    private CoreNLPProtos.Document next = null;
+    private boolean done = false;
+    private int numRead = 0;
+
+    /** The number of bytes read from the stream so far */
+    private long position = 0;
+    private long offset = -1;
+    private int length = -1;
+    private long nextOffset = -1;
+    private int nextLength = -1;
+
+    public DocumentIterator(InputStream in) {
+      this(in, 0);
+    }
+
+    public DocumentIterator(InputStream in, int limit) {
+      this.in = in;
+      this.limit = limit;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null && !done) {
+        try {
+          next = read();
+        } catch (IOException e) {
+          throw new RuntimeIOException(e);
+        }
+        if (next == null) {
+          done = true;
+          IOUtils.closeIgnoringExceptions(in);
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public CoreNLPProtos.Document next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      CoreNLPProtos.Document result = next;
+      next = null;
+      offset = nextOffset;
+      length = nextLength;
+      return result;
+    }
+
+    /** The offset in the stream of the message of the document last returned by {@link #next} */
+    public long offset() {
+      return offset;
+    }
+
+    /** The length of the message of the document last returned by {@link #next} */
+    public int length() {
+      return length;
+    }
+
+    private CoreNLPProtos.Document read() throws IOException {
+      if (limit > 0 && numRead >= limit) {
+        return null;
+      }
+      int firstByte = in.read();
+      if (firstByte < 0) {
+        return null;
+      }
+      int messageLength = CodedInputStream.readRawVarint32(firstByte, in);
+      if (messageLength < 0) {
+        throw new IOException("Corrupt corpus: negative message length at offset " + position);
+      }
+      if (buffer.length < messageLength) {
+        buffer = new byte[Math.max(messageLength, buffer.length * 2)];
+      }
+      for (int total = 0; total < messageLength; ) {
+        int count = in.read(buffer, total, messageLength - total);
+        if (count < 0) {
+          throw new EOFException("Corpus ends in the middle of a document at offset " + position);
+        }
+        total += count;
+      }
+      nextOffset = position + CodedOutputStream.computeRawVarint32Size(messageLength);
+      nextLength = messageLength;
+      position = nextOffset + messageLength;
+      ++numRead;
+
+      CodedInputStream coded = CodedInputStream.newInstance(buffer, 0, messageLength);
+      coded.setSizeLimit(Integer.MAX_VALUE);
+      return CoreNLPProtos.Document.parseFrom(coded);
+    }
+
+    @Override
+    public void close() {
+      done = true;
+      next = null;
+      IOUtils.closeIgnoringExceptions(in);
+    }
+
+  }
+
+}
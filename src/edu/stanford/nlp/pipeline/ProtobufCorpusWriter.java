@@ -0,0 +1,141 @@
+package edu.stanford.nlp.pipeline;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+
+import com.google.protobuf.CodedOutputStream;
+
+import edu.stanford.nlp.io.IOUtils;
+
+/**
+ * Writes many annotated documents into one corpus file, rather than one
+ * file per document.
+ * <br>
+ * The corpus is a stream of length-delimited {@link CoreNLPProtos.Document}
+ * messages, exactly as written by repeated calls to
+ * {@link ProtobufAnnotationSerializer#write}, so any code which reads
+ * those streams can read a corpus.  {@link ProtobufCorpusReader} reads
+ * a corpus lazily, one document at a time.
+ * <br>
+ * Optionally, an index of the documents is written next to the corpus,
+ * in the file given by {@link #indexPath}.  Each line of the index is
+ * the docID of a document, the offset of its message in the corpus, and
+ * the length of the message, separated by tabs.  Documents without a
+ * docID are not indexed.  {@link IndexedProtobufCorpus} uses the index
+ * to read documents by docID.
+ * <br>
+ * A writer can be shared by many threads; each document is written as
+ * a whole.  The conversion of an Annotation to a protocol buffer is
+ * done before taking the lock.
+ *
+ * @see ProtobufCorpusReader
+ * @see IndexedProtobufCorpus
+ */
+public class ProtobufCorpusWriter implements Closeable {
+
+  private final ProtobufAnnotationSerializer serializer;
+  private final OutputStream out;
+  private final PrintWriter index;
+
+  /** The number of bytes written so far, which is the offset of the next document */
+  private long offset = 0;
+  private int size = 0;
+
+  /**
+   * Writes a new corpus to the given file, replacing any existing file.
+   * A file ending in .gz or .bz2 is compressed, but then it can only be
+   * read sequentially, and cannot have an index.
+   *
+   * @param path The file to write
+   * @param writeIndex If true, also writes an index of the documents to {@link #indexPath}
+   */
+  public ProtobufCorpusWriter(String path, boolean writeIndex) throws IOException {
+    this(path, writeIndex, new ProtobufAnnotationSerializer());
+  }
+
+  public ProtobufCorpusWriter(String path, boolean writeIndex, ProtobufAnnotationSerializer serializer) throws IOException {
+    this(new BufferedOutputStream(IOUtils.getFileOutputStream(checkIndexable(path, writeIndex)), 1 << 16),
+         writeIndex ? IOUtils.getPrintWriter(indexPath(path)) : null,
+         serializer);
+  }
+
+  private static String checkIndexable(String path, boolean writeIndex) {
+    if (writeIndex && (path.endsWith(".gz") || path.endsWith(".bz2"))) {
+      throw new IllegalArgumentException("Cannot index a compressed corpus: " + path);
+    }
+    return path;
+  }
+
+  /** Writes a corpus to a stream, without an index */
+  public ProtobufCorpusWriter(OutputStream out) {
+    this(out, null, new ProtobufAnnotationSerializer());
+  }
+
+  private ProtobufCorpusWriter(OutputStream out, PrintWriter index, ProtobufAnnotationSerializer serializer) {
+    this.out = out;
+    this.index = index;
+    this.serializer = serializer;
+  }
+
+  /** The index file of the corpus in the given file */
+  public static String indexPath(String corpusPath) {
+    return corpusPath + ".index";
+  }
+
+  /** Appends an annotated document to the corpus */
+  public void write(Annotation annotation) throws IOException {
+    write(serializer.toProto(annotation));
+  }
+
+  /** Appends a serialized document to the corpus */
+  public synchronized void write(CoreNLPProtos.Document document) throws IOException {
+    int length = document.getSerializedSize();
+    String docID = document.hasDocID() ? document.getDocID() : null;
+    if (index != null && docID != null && (docID.indexOf('\t') >= 0 || docID.indexOf('\n') >= 0 || docID.indexOf('\r') >= 0)) {
+      throw new IllegalArgumentException("Cannot index a document whose docID contains a tab or line break: " + docID);
+    }
+    document.writeDelimitedTo(out);
+    long messageOffset = offset + CodedOutputStream.computeRawVarint32Size(length);
+    offset = messageOffset + length;
+    ++size;
+    if (index != null && docID != null) {
+      index.print(docID);
+      index.print('\t');
+      index.print(messageOffset);
+      index.print('\t');
+      index.print(length);
+      index.print('\n');
+    }
+  }
+
+  /** The number of documents written so far */
+  public synchronized int size() {
+    return size;
+  }
+
+  /** Writes any buffered documents; the corpus can be read up to here once this returns */
+  public synchronized void flush() throws IOException {
+    out.flush();
+    if (index != null && index.checkError()) {
+      throw new IOException("Error writing the corpus index");
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      out.close();
+    } finally {
+      if (index != null) {
+        index.close();
+        if (index.checkError()) {
+          throw new IOException("Error writing the corpus index");
+        }
+      }
+    }
+  }
+
+}
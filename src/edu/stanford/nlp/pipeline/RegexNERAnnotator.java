@@ -19,7 +19,7 @@ import edu.stanford.nlp.util.PropertiesUtils;
  *
  * @author jtibs
  */
-public class RegexNERAnnotator implements Annotator {
+public class RegexNERAnnotator extends SentenceAnnotator {
 
   private final RegexNERSequenceClassifier classifier;
   private final boolean verbose;
@@ -65,44 +65,61 @@ public class RegexNERAnnotator implements Annotator {
       System.err.print("Adding RegexNER annotations ... ");
     }
 
-    if (! annotation.containsKey(CoreAnnotations.SentencesAnnotation.class))
-      throw new RuntimeException("Unable to find sentences in " + annotation);
+    super.annotate(annotation);
 
-    List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
-    for (CoreMap sentence : sentences) {
-      List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
-      classifier.classify(tokens);
+    if (verbose)
+      System.err.println("done.");
+  }
 
-      for (CoreLabel token : tokens) {
-        if (token.get(CoreAnnotations.NamedEntityTagAnnotation.class) == null)
-          token.set(CoreAnnotations.NamedEntityTagAnnotation.class, classifier.flags.backgroundSymbol);
-      }
+  @Override
+  protected int nThreads() {
+    return 1;
+  }
+
+  @Override
+  protected long maxTime() {
+    return -1;
+  }
+
+  @Override
+  protected void doOneSentence(Annotation annotation, CoreMap sentence) {
+    List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+    classifier.classify(tokens);
 
-      for (int start = 0; start < tokens.size(); start++) {
-        CoreLabel token = tokens.get(start);
-        String answerType = token.get(CoreAnnotations.AnswerAnnotation.class);
-        if (answerType == null) continue;
-        String NERType = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
-
-        int answerEnd = findEndOfAnswerAnnotation(tokens, start);
-        int NERStart = findStartOfNERAnnotation(tokens, start);
-        int NEREnd = findEndOfNERAnnotation(tokens, start);
-
-        // check that the spans are the same, specially handling the case of
-        // tokens with background named entity tags ("other")
-        if ((NERStart == start || NERType.equals(classifier.flags.backgroundSymbol)) &&
-            (answerEnd == NEREnd || (NERType.equals(classifier.flags.backgroundSymbol) && NEREnd >= answerEnd))) {
-
-          // annotate each token in the span
-          for (int i = start; i < answerEnd; i ++)
-            tokens.get(i).set(CoreAnnotations.NamedEntityTagAnnotation.class, answerType);
-        }
-        start = answerEnd - 1;
+    for (CoreLabel token : tokens) {
+      if (token.get(CoreAnnotations.NamedEntityTagAnnotation.class) == null)
+        token.set(CoreAnnotations.NamedEntityTagAnnotation.class, classifier.flags.backgroundSymbol);
+    }
+
+    for (int start = 0; start < tokens.size(); start++) {
+      CoreLabel token = tokens.get(start);
+      String answerType = token.get(CoreAnnotations.AnswerAnnotation.class);
+      if (answerType == null) continue;
+      String NERType = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
+
+      int answerEnd = findEndOfAnswerAnnotation(tokens, start);
+      int NERStart = findStartOfNERAnnotation(tokens, start);
+      int NEREnd = findEndOfNERAnnotation(tokens, start);
+
+      // check that the spans are the same, specially handling the case of
+      // tokens with background named entity tags ("other")
+      if ((NERStart == start || NERType.equals(classifier.flags.backgroundSymbol)) &&
+          (answerEnd == NEREnd || (NERType.equals(classifier.flags.backgroundSymbol) && NEREnd >= answerEnd))) {
+
+        // annotate each token in the span
+        for (int i = start; i < answerEnd; i ++)
+          tokens.get(i).set(CoreAnnotations.NamedEntityTagAnnotation.class, answerType);
       }
+      start = answerEnd - 1;
     }
+  }
 
-    if (verbose)
-      System.err.println("done.");
+  @Override
+  protected void doOneFailedSentence(Annotation annotation, CoreMap sentence) {
+    for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
+      if (token.get(CoreAnnotations.NamedEntityTagAnnotation.class) == null)
+        token.set(CoreAnnotations.NamedEntityTagAnnotation.class, classifier.flags.backgroundSymbol);
+    }
   }
 
   private static int findEndOfAnswerAnnotation(List<CoreLabel> tokens, int start) {
@@ -11,8 +11,12 @@ import edu.stanford.nlp.util.concurrent.ThreadsafeProcessor;
 /**
  * A parent class for annotators which might want to analyze one
  * sentence at a time, possibly in a multithreaded manner.
- *
- * TODO: also factor out the POS
+ * <br>
+ * {@link #doOneSentence} may only look at and change the sentence it is
+ * given (and read the document), so that consecutive SentenceAnnotators
+ * can be run together, one sentence at a time, by a
+ * {@link FusedSentenceAnnotator}.  Work on the whole document after all
+ * its sentences are done goes in {@link #finishAnnotation}.
  *
  * @author John Bauer
  */
@@ -95,6 +99,7 @@ public abstract class SentenceAnnotator implements Annotator {
           doOneSentence(annotation, sentence);
         }
       }
+      finishAnnotation(annotation);
     } else {
       throw new RuntimeException("unable to find sentences in: " + annotation);
     }
@@ -112,5 +117,13 @@ public abstract class SentenceAnnotator implements Annotator {
    * failed or timed out.  Not supposed to do major processing.
    */
   protected abstract void doOneFailedSentence(Annotation annotation, CoreMap sentence);
+
+  /**
+   * Called once all the sentences of the annotation have been done, for
+   * any work on the whole document.  Does nothing by default.
+   */
+  protected void finishAnnotation(Annotation annotation) {
+  }
+
 }
 
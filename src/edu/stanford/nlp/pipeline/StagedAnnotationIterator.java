@@ -0,0 +1,264 @@
+package edu.stanford.nlp.pipeline;
+
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.RuntimeInterruptedException;
+import edu.stanford.nlp.util.StringUtils;
+import edu.stanford.nlp.util.Timing;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs the annotators of a pipeline over a stream of documents as a
+ * chain of stages, with a bounded queue between each pair of consecutive
+ * stages.  While one document is being parsed, the next can be tagged
+ * and the one after that tokenized, so that a single pipeline keeps
+ * several cores busy even when every document is small.
+ * <p>
+ * Each stage has its own number of worker threads.  With one worker, an
+ * annotator only ever sees one document at a time, so it need not be
+ * thread-safe with respect to itself; it must only tolerate being called
+ * from a thread other than the one which created it.  With more workers,
+ * the annotator is called on several documents at once, as by
+ * {@link AnnotationPipeline#annotate(Iterable, int)}, so that a slow
+ * stage such as the parser or coref does not bound the throughput of the
+ * whole chain.  Documents may then overtake each other between stages,
+ * but each document is numbered as it is read, and a reorder buffer after
+ * the last stage returns the annotated documents in the order in which
+ * they were read.  The input iterator is consumed on a separate thread.
+ * <p>
+ * If an annotator throws an exception or error, it is rethrown by {@link #hasNext()}
+ * or {@link #next()} once all the documents before the failing one have
+ * been returned, and all the stage threads are stopped.  Callers who stop
+ * consuming documents early should call {@link #close()}.
+ *
+ * @see AnnotationPipeline#annotateStaged(java.util.Iterator, int, int[])
+ */
+public class StagedAnnotationIterator implements Iterator<Annotation>, AutoCloseable {
+
+  /** Marks the end of the input on a queue */
+  private static final Object END = new Object();
+
+  /** Carries an exception or error thrown by a stage down to the consumer */
+  private static class Failure {
+    final Throwable exception;
+
+    Failure(Throwable exception) {
+      this.exception = exception;
+    }
+
+    RuntimeException rethrow() {
+      if (exception instanceof RuntimeException) {
+        throw (RuntimeException) exception;
+      } else if (exception instanceof Error) {
+        throw (Error) exception;
+      } else {
+        throw new RuntimeException(exception);
+      }
+    }
+  }
+
+  /** A document, or the failure in place of it, with its position in the input */
+  private static class Numbered {
+    final long number;
+    final Object item;
+
+    Numbered(long number, Object item) {
+      this.number = number;
+      this.item = item;
+    }
+  }
+
+  private final List<Thread> threads = new ArrayList<>();
+  private final BlockingQueue<Object> output;
+
+  /** The next item from the output queue, if we have already taken it */
+  private Object next;
+  private boolean finished = false;
+
+  /**
+   * Starts a reader thread, the workers of each annotator, and a thread
+   * which puts the annotated documents back in order.
+   *
+   * @param annotators The annotators to run, in order
+   * @param workers The number of threads to run each annotator on
+   * @param times Accumulated annotation time for each annotator, or null to not time them
+   * @param input The documents to annotate
+   * @param queueSize The maximum number of documents waiting in front of each stage
+   * @param onFinish Called (on the thread which puts the documents in order, and in
+   *                 input order) with each document after every annotator has run on it
+   */
+  StagedAnnotationIterator(List<Annotator> annotators, int[] workers, List<AtomicLong> times,
+                           Iterator<Annotation> input, int queueSize, Consumer<Annotation> onFinish) {
+    if (queueSize < 1) {
+      throw new IllegalArgumentException("Queue size must be positive: " + queueSize);
+    }
+    if (workers.length != annotators.size()) {
+      throw new IllegalArgumentException("Expected a number of workers for each of the " + annotators.size() +
+                                         " annotators, not " + workers.length);
+    }
+
+    BlockingQueue<Object> first = new ArrayBlockingQueue<>(queueSize);
+    threads.add(new Thread(() -> read(input, first), "StagedAnnotation-input"));
+
+    BlockingQueue<Object> in = first;
+    for (int i = 0; i < annotators.size(); ++i) {
+      if (workers[i] < 1) {
+        throw new IllegalArgumentException("Number of workers must be positive: " + workers[i]);
+      }
+      Annotator annotator = annotators.get(i);
+      AtomicLong time = times == null ? null : times.get(i);
+      BlockingQueue<Object> stageIn = in;
+      BlockingQueue<Object> stageOut = new ArrayBlockingQueue<>(queueSize);
+      AtomicInteger running = new AtomicInteger(workers[i]);
+      for (int worker = 0; worker < workers[i]; ++worker) {
+        threads.add(new Thread(() -> runStage(annotator, time, stageIn, stageOut, running),
+                               "StagedAnnotation-" + StringUtils.getShortClassName(annotator) + '-' + worker));
+      }
+      in = stageOut;
+    }
+    BlockingQueue<Object> annotated = in;
+    output = new ArrayBlockingQueue<>(queueSize);
+    threads.add(new Thread(() -> reorder(annotated, output, onFinish), "StagedAnnotation-output"));
+
+    for (Thread thread : threads) {
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  private static void read(Iterator<Annotation> input, BlockingQueue<Object> out) {
+    long number = 0;
+    try {
+      try {
+        while (input.hasNext()) {
+          out.put(new Numbered(number, input.next()));
+          ++number;
+        }
+      } catch (Throwable e) {
+        out.put(new Numbered(number, new Failure(e)));
+      }
+      out.put(END);
+    } catch (InterruptedException e) {
+      // closed; just stop
+    }
+  }
+
+  /**
+   * One worker of a stage.  The workers of a stage share its queues; the
+   * first to see the end of the input puts it back for the others, and the
+   * last to stop passes it on to the next stage.
+   */
+  private static void runStage(Annotator annotator, AtomicLong time,
+                               BlockingQueue<Object> in, BlockingQueue<Object> out, AtomicInteger running) {
+    Timing t = new Timing();
+    try {
+      while (true) {
+        Object item = in.take();
+        if (item == END) {
+          in.put(END);
+          if (running.decrementAndGet() == 0) {
+            out.put(END);
+          }
+          return;
+        }
+
+        Numbered numbered = (Numbered) item;
+        if (numbered.item instanceof Annotation) {
+          try {
+            t.start();
+            annotator.annotate((Annotation) numbered.item);
+            if (time != null) {
+              time.addAndGet(t.stop());
+            }
+          } catch (Throwable e) {
+            numbered = new Numbered(numbered.number, new Failure(e));
+          }
+        }
+        out.put(numbered);
+      }
+    } catch (InterruptedException e) {
+      // closed; just stop
+    }
+  }
+
+  /** Puts the documents back in input order, holding those which arrive early */
+  private static void reorder(BlockingQueue<Object> in, BlockingQueue<Object> out, Consumer<Annotation> onFinish) {
+    Map<Long, Object> early = Generics.newHashMap();
+    long expected = 0;
+    try {
+      while (true) {
+        Object item = in.take();
+        if (item == END) {
+          out.put(END);
+          return;
+        }
+        Numbered numbered = (Numbered) item;
+        early.put(numbered.number, numbered.item);
+        for (Object ready; (ready = early.remove(expected)) != null; ++expected) {
+          if (ready instanceof Annotation && onFinish != null) {
+            try {
+              onFinish.accept((Annotation) ready);
+            } catch (Throwable e) {
+              ready = new Failure(e);
+            }
+          }
+          out.put(ready);
+        }
+      }
+    } catch (InterruptedException e) {
+      // closed; just stop
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null && !finished) {
+      try {
+        next = output.take();
+      } catch (InterruptedException e) {
+        close();
+        throw new RuntimeInterruptedException(e);
+      }
+      if (next == END) {
+        finished = true;
+      } else if (next instanceof Failure) {
+        finished = true;
+        close();
+        throw ((Failure) next).rethrow();
+      }
+    }
+    return !finished;
+  }
+
+  @Override
+  public Annotation next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Annotation annotation = (Annotation) next;
+    next = null;
+    return annotation;
+  }
+
+  /**
+   * Stops all the stage threads.  Documents which have not yet been
+   * returned by {@link #next()} are dropped.
+   */
+  @Override
+  public void close() {
+    finished = true;
+    for (Thread thread : threads) {
+      thread.interrupt();
+    }
+  }
+
+}
@@ -41,6 +41,7 @@ import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import static edu.stanford.nlp.util.logging.Redwood.Util.*;
@@ -80,7 +81,7 @@ import static edu.stanford.nlp.util.logging.Redwood.Util.*;
 
 public class StanfordCoreNLP extends AnnotationPipeline {
 
-  enum OutputFormat { TEXT, XML, JSON, CONLL, SERIALIZED }
+  enum OutputFormat { TEXT, XML, STREAMING_XML, JSON, CONLL, SERIALIZED }
 
   // other constants
   public static final String CUSTOM_ANNOTATOR_PREFIX = "customAnnotatorClass.";
@@ -96,8 +97,8 @@ public class StanfordCoreNLP extends AnnotationPipeline {
   /** Formats the dependency parse trees for human-readable display */
   private TreePrint dependencyTreePrinter;
 
-  /** Stores the overall number of words processed */
-  private int numWords;
+  /** Stores the overall number of words processed, which may be counted on several threads */
+  private final AtomicLong numWords = new AtomicLong();
 
   /** Maintains the shared pool of annotators */
   protected static AnnotatorPool pool = null;
@@ -260,7 +261,6 @@ public class StanfordCoreNLP extends AnnotationPipeline {
   //
 
   private void construct(Properties props, boolean enforceRequirements, AnnotatorImplementations annotatorImplementations) {
-    this.numWords = 0;
     this.constituentTreePrinter = new TreePrint("penn");
     this.dependencyTreePrinter = new TreePrint("typedDependenciesCollapsed");
 
@@ -281,13 +281,14 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     List<String> annoNames = Arrays.asList(getRequiredProperty(props, "annotators").split("[, \t]+"));
     Set<String> alreadyAddedAnnoNames = Generics.newHashSet();
     Set<Requirement> requirementsSatisfied = Generics.newHashSet();
+    List<Annotator> annotators = new ArrayList<Annotator>();
     for (String name : annoNames) {
       name = name.trim();
       if (name.isEmpty()) { continue; }
       System.err.println("Adding annotator " + name);
 
       Annotator an = pool.get(name);
-      this.addAnnotator(an);
+      annotators.add(an);
 
       if (enforceRequirements) {
         Set<Requirement> allRequirements = an.requires();
@@ -304,12 +305,46 @@ public class StanfordCoreNLP extends AnnotationPipeline {
       alreadyAddedAnnoNames.add(name);
     }
 
+    int sentenceThreads = PropertiesUtils.getInt(props, "sentenceThreads", 1);
+    if (sentenceThreads > 1) {
+      annotators = fuseSentenceAnnotators(annotators, sentenceThreads);
+    }
+    for (Annotator an : annotators) {
+      this.addAnnotator(an);
+    }
+
     // Sanity check
     if (! alreadyAddedAnnoNames.contains(STANFORD_SSPLIT)) {
       System.setProperty(NEWLINE_SPLITTER_PROPERTY, "false");
     }
   }
 
+  /**
+   * Replaces each run of consecutive {@link SentenceAnnotator}s with one
+   * {@link FusedSentenceAnnotator}, which takes each sentence through the
+   * whole run on one of the given number of threads.  The other
+   * annotators, which work on the whole document, act as barriers.
+   */
+  static List<Annotator> fuseSentenceAnnotators(List<Annotator> annotators, int nThreads) {
+    List<Annotator> fused = new ArrayList<Annotator>();
+    List<SentenceAnnotator> run = new ArrayList<SentenceAnnotator>();
+    for (Annotator an : annotators) {
+      if (an instanceof SentenceAnnotator) {
+        run.add((SentenceAnnotator) an);
+      } else {
+        if ( ! run.isEmpty()) {
+          fused.add(new FusedSentenceAnnotator(run, nThreads));
+          run.clear();
+        }
+        fused.add(an);
+      }
+    }
+    if ( ! run.isEmpty()) {
+      fused.add(new FusedSentenceAnnotator(run, nThreads));
+    }
+    return fused;
+  }
+
   /**
    * Call this if you are no longer using StanfordCoreNLP and want to
    * release the memory associated with the annotators.
@@ -410,9 +445,18 @@ public class StanfordCoreNLP extends AnnotationPipeline {
   @Override
   public void annotate(Annotation annotation) {
     super.annotate(annotation);
+    countWords(annotation);
+  }
+
+  @Override
+  protected void stagedAnnotationFinished(Annotation annotation) {
+    countWords(annotation);
+  }
+
+  private void countWords(Annotation annotation) {
     List<CoreLabel> words = annotation.get(CoreAnnotations.TokensAnnotation.class);
     if (words != null) {
-      numWords += words.size();
+      numWords.addAndGet(words.size());
     }
   }
 
@@ -520,6 +564,23 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     }
   }
 
+  /**
+   * Displays the output of all annotators in XML format, writing each
+   * sentence as it goes rather than building the whole XML document first.
+   * @param annotation Contains the output of all annotators
+   * @param os The output stream
+   * @throws IOException
+   */
+  public void streamingXmlPrint(Annotation annotation, OutputStream os) throws IOException {
+    try {
+      Class clazz = Class.forName("edu.stanford.nlp.pipeline.StreamingXMLOutputter");
+      Method method = clazz.getMethod("xmlPrint", Annotation.class, OutputStream.class, StanfordCoreNLP.class);
+      method.invoke(null, annotation, os, this);
+    } catch (NoSuchMethodException | IllegalAccessException | ClassNotFoundException | InvocationTargetException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   //
   // runtime, shell-specific, and help menu methods
   //
@@ -626,11 +687,14 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     os.println("\t             output is generated for every input file as file.outputExtension");
     os.println("\t\"outputDirectory\" - where to put output (defaults to the current directory)");
     os.println("\t\"outputExtension\" - extension to use for the output file (defaults to \".xml\" for XML, \".ser.gz\" for serialized).  Don't forget the dot!");
-    os.println("\t\"outputFormat\" - \"xml\" to output XML (default), \"serialized\" to output serialized Java objects, \"text\" to output text");
+    os.println("\t\"outputFormat\" - \"xml\" to output XML (default), \"streaming_xml\" to output the same XML without building it all in memory first, \"serialized\" to output serialized Java objects, \"text\" to output text");
     os.println("\t\"serializer\" - Class of annotation serializer to use when outputFormat is \"serialized\".  By default, uses Java serialization.");
     os.println("\t\"replaceExtension\" - flag to chop off the last extension before adding outputExtension to file");
     os.println("\t\"noClobber\" - don't automatically override (clobber) output files that already exist");
+    os.println("\t\"outputCorpus\" - with outputFormat serialized, append every document to this one protobuf corpus file instead of writing a file for each");
+    os.println("\t\"outputCorpus.index\" - write an index of the corpus by docID next to it (default true)");
 		os.println("\t\"threads\" - multithread on this number of threads");
+    os.println("\t\"sentenceThreads\" - run consecutive sentence-level annotators (pos, lemma, ner, parse, ...) together, on the sentences of each document in parallel on this number of threads");
     os.println();
     os.println("If none of the above are present, run the pipeline in an interactive shell (default properties will be loaded from the classpath).");
     os.println("The shell accepts input from stdin and displays the output at stdout.");
@@ -648,10 +712,11 @@ public class StanfordCoreNLP extends AnnotationPipeline {
   @Override
   public String timingInformation() {
     StringBuilder sb = new StringBuilder(super.timingInformation());
-    if (TIME && numWords >= 0) {
+    long words = numWords.get();
+    if (TIME && words >= 0) {
       long total = this.getTotalTime();
-      sb.append(" for ").append(this.numWords).append(" tokens at ");
-      sb.append(String.format("%.1f", numWords / (((double) total)/1000)));
+      sb.append(" for ").append(words).append(" tokens at ");
+      sb.append(String.format("%.1f", words / (((double) total)/1000)));
       sb.append( " tokens/sec.");
     }
     return sb.toString();
@@ -680,6 +745,9 @@ public class StanfordCoreNLP extends AnnotationPipeline {
         case XML:
           pipeline.xmlPrint(anno, System.out);
           break;
+        case STREAMING_XML:
+          pipeline.streamingXmlPrint(anno, System.out);
+          break;
         case JSON:
           new JSONOutputter().print(anno, System.out, pipeline);
           System.out.println();
@@ -737,7 +805,7 @@ public class StanfordCoreNLP extends AnnotationPipeline {
             OutputFormat.valueOf(properties.getProperty("outputFormat", DEFAULT_OUTPUT_FORMAT).toUpperCase());
     String defaultExtension;
     switch (outputFormat) {
-      case XML: defaultExtension = ".xml"; break;
+      case XML: case STREAMING_XML: defaultExtension = ".xml"; break;
       case JSON: defaultExtension = ".json"; break;
       case CONLL: defaultExtension = ".conll"; break;
       case TEXT: defaultExtension = ".out"; break;
@@ -757,6 +825,27 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     final boolean noClobber = Boolean.parseBoolean(properties.getProperty("noClobber", "false"));
     final boolean randomize = Boolean.parseBoolean(properties.getProperty("randomize", "false"));
 
+    // all the documents go to one corpus, rather than a file each
+    final String outputCorpus = properties.getProperty("outputCorpus");
+    final ProtobufCorpusWriter corpusWriter;
+    if (outputCorpus != null) {
+      if (outputFormat != OutputFormat.SERIALIZED) {
+        throw new IllegalArgumentException("outputCorpus can only be used with outputFormat serialized, not " + outputFormat);
+      }
+      if (noClobber && new File(outputCorpus).exists()) {
+        err("Skipping all " + files.size() + " files: output corpus " + outputCorpus + " already exists.  Don't use the noClobber option to override this.");
+        log("Skipped " + files.size() + " documents");
+        return;
+      }
+      AnnotationSerializer outputSerializer = loadSerializer(outputSerializerClass, outputSerializerName, properties);
+      ProtobufAnnotationSerializer corpusSerializer = (outputSerializer instanceof ProtobufAnnotationSerializer) ?
+          (ProtobufAnnotationSerializer) outputSerializer : new ProtobufAnnotationSerializer();
+      boolean writeIndex = Boolean.parseBoolean(properties.getProperty("outputCorpus.index", "true"));
+      corpusWriter = new ProtobufCorpusWriter(outputCorpus, writeIndex, corpusSerializer);
+    } else {
+      corpusWriter = null;
+    }
+
     final MutableInteger totalProcessed = new MutableInteger(0);
     final MutableInteger totalSkipped = new MutableInteger(0);
     final MutableInteger totalErrorAnnotating = new MutableInteger(0);
@@ -796,16 +885,19 @@ public class StanfordCoreNLP extends AnnotationPipeline {
       }
       // normalize filename for the upcoming comparison
       outputFilename = new File(outputFilename).getCanonicalPath();
+      if (corpusWriter != null) {
+        outputFilename = outputCorpus;
+      }
 
       //--Conditions For Skipping The File
       // TODO this could fail if there are softlinks, etc. -- need some sort of sameFile tester
       //      Java 7 will have a Files.isSymbolicLink(file) method
-      if (outputFilename.equals(file.getCanonicalPath())) {
+      if (corpusWriter == null && outputFilename.equals(file.getCanonicalPath())) {
         err("Skipping " + file.getName() + ": output file " + outputFilename + " has the same filename as the input file -- assuming you don't actually want to do this.");
         totalSkipped.incValue(1);
         continue;
       }
-      if (noClobber && new File(outputFilename).exists()) {
+      if (corpusWriter == null && noClobber && new File(outputFilename).exists()) {
         err("Skipping " + file.getName() + ": output file " + outputFilename + " as it already exists.  Don't use the noClobber option to override this.");
         totalSkipped.incValue(1);
         continue;
@@ -817,7 +909,7 @@ public class StanfordCoreNLP extends AnnotationPipeline {
         //catching exceptions...
         try {
           // Check whether this file should be skipped again
-          if (noClobber && new File(finalOutputFilename).exists()) {
+          if (corpusWriter == null && noClobber && new File(finalOutputFilename).exists()) {
             err("Skipping " + file.getName() + ": output file " + finalOutputFilename + " as it already exists.  Don't use the noClobber option to override this.");
             synchronized (totalSkipped) {
               totalSkipped.incValue(1);
@@ -891,6 +983,12 @@ public class StanfordCoreNLP extends AnnotationPipeline {
               fos.close();
               break;
             }
+            case STREAMING_XML: {
+              OutputStream fos = new BufferedOutputStream(new FileOutputStream(finalOutputFilename));
+              streamingXmlPrint(annotation, fos);
+              fos.close();
+              break;
+            }
             case JSON: {
               OutputStream fos = new BufferedOutputStream(new FileOutputStream(finalOutputFilename));
               new JSONOutputter().print(annotation, fos);
@@ -910,7 +1008,13 @@ public class StanfordCoreNLP extends AnnotationPipeline {
               break;
             }
             case SERIALIZED: {
-              if (outputSerializerClass != null) {
+              if (corpusWriter != null) {
+                // the corpus is indexed by docID
+                if (annotation.get(CoreAnnotations.DocIDAnnotation.class) == null) {
+                  annotation.set(CoreAnnotations.DocIDAnnotation.class, file.getPath());
+                }
+                corpusWriter.write(annotation);
+              } else if (outputSerializerClass != null) {
                 AnnotationSerializer outputSerializer = loadSerializer(outputSerializerClass, outputSerializerName, properties);
                 OutputStream fos = new BufferedOutputStream(new FileOutputStream(finalOutputFilename));
                 outputSerializer.write(annotation, fos).close();
@@ -946,10 +1050,16 @@ public class StanfordCoreNLP extends AnnotationPipeline {
     }
     log("Ready to process: " + toRun.size() + " files, skipped " + totalSkipped + ", total " + nFiles);
     //--Run Jobs
-    if(numThreads == 1){
-      for(Runnable r : toRun){ r.run(); }
-    } else {
-      Redwood.Util.threadAndRun("StanfordCoreNLP <" + numThreads + " threads>", toRun, numThreads);
+    try {
+      if(numThreads == 1){
+        for(Runnable r : toRun){ r.run(); }
+      } else {
+        Redwood.Util.threadAndRun("StanfordCoreNLP <" + numThreads + " threads>", toRun, numThreads);
+      }
+    } finally {
+      if (corpusWriter != null) {
+        corpusWriter.close();
+      }
     }
     log("Processed " + totalProcessed + " documents");
     log("Skipped " + totalSkipped + " documents, error annotating " + totalErrorAnnotating + " documents");
@@ -0,0 +1,473 @@
+package edu.stanford.nlp.pipeline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.stanford.nlp.util.CacheMap;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.PropertiesUtils;
+import edu.stanford.nlp.util.StringUtils;
+
+/**
+ * A CoreNLP server running on the HTTP server which comes with the JDK, so
+ * it needs no servlet container.  Each request POSTs the text of one
+ * document, and gets it back annotated.  The query string of the request
+ * may give the annotators to run ({@code annotators=tokenize,ssplit,pos})
+ * and the output format ({@code outputFormat=json}, {@code xml},
+ * {@code streaming_xml}, {@code text}, {@code conll} or
+ * {@code serialized}, the last being the
+ * protocol buffer serialization of {@link ProtobufAnnotationSerializer});
+ * otherwise the ones the server was started with are used.
+ * {@code GET /ping} answers "pong", to check that the server is up.
+ * <br>
+ * All the pipelines share the annotators of the {@link AnnotatorPool}, so
+ * each model is only loaded once however many different annotator lists
+ * are asked for.  Documents are annotated by a fixed number of worker
+ * threads, taking them from a queue of bounded length: when the queue is
+ * full, further requests are turned away at once with a 503 (Service
+ * Unavailable), and a request whose document is not annotated within the
+ * timeout gets a 504 (Gateway Timeout).  The number of requests being
+ * handled at once is bounded too, and requests beyond it also get a 503
+ * at once.  Connections are kept alive between requests.
+ * <br>
+ * Short documents waiting in the queue for the same pipeline are
+ * annotated together, in one pass over the pipeline (see
+ * {@link AnnotationPipeline#annotateBatch(List)}), which is quicker than
+ * annotating them one after the other when there are many small requests
+ * at once.  Requests are never held back to wait for others to batch with.
+ * <br>
+ * Besides the properties of the pipelines, the server is configured by
+ * these properties:
+ * <table>
+ * <tr><th>Property</th><th>Default</th><th>Description</th></tr>
+ * <tr><td>port</td><td>9000</td><td>The port to listen on</td></tr>
+ * <tr><td>threads</td><td>number of processors</td><td>The number of worker threads annotating documents</td></tr>
+ * <tr><td>queueSize</td><td>64</td><td>The number of documents which may wait for a worker</td></tr>
+ * <tr><td>timeout</td><td>15000</td><td>Milliseconds a request may wait for its document to be annotated</td></tr>
+ * <tr><td>batchSize</td><td>16</td><td>The most documents annotated together; 1 for no batching</td></tr>
+ * <tr><td>batchChars</td><td>2000</td><td>The most characters a document may have to be batched with others</td></tr>
+ * <tr><td>maxChars</td><td>-1</td><td>The most characters a document may have, or -1 for no limit</td></tr>
+ * <tr><td>pipelines</td><td>16</td><td>The number of different annotator lists to keep pipelines for</td></tr>
+ * </table>
+ */
+public class StanfordCoreNLPServer {
+
+  private static final String DEFAULT_OUTPUT_FORMAT = "json";
+
+  private final Properties props;
+  private final String defaultAnnotators;
+  private final int nThreads;
+  private final long timeout;
+  private final int batchSize;
+  private final int batchChars;
+  private final int maxChars;
+
+  private final HttpServer server;
+  /** Runs the HTTP handlers, which mostly wait for the workers */
+  private final ExecutorService handlerThreads;
+  private final List<Thread> workers;
+  private final BlockingQueue<Job> queue;
+  /** Pipelines by their annotators */
+  private final Map<String, StanfordCoreNLP> pipelines;
+  /** Held while making a pipeline, since the shared annotator pool is not safe to fill from several threads */
+  private static final Object pipelineLock = new Object();
+
+  /** Set while an exchange runs on the dispatcher thread because every handler was busy */
+  private static final ThreadLocal<Boolean> turnedAway = new ThreadLocal<Boolean>();
+
+  private volatile boolean stopped; // = false
+
+  /**
+   * Creates a server on the port given in the properties; call
+   * {@link #start()} to start it.
+   */
+  public StanfordCoreNLPServer(Properties props) throws IOException {
+    this.props = props;
+    this.defaultAnnotators = props.getProperty("annotators", "tokenize,ssplit,pos,lemma,ner,parse,dcoref");
+    this.nThreads = PropertiesUtils.getInt(props, "threads", Runtime.getRuntime().availableProcessors());
+    this.timeout = PropertiesUtils.getLong(props, "timeout", 15000);
+    this.batchSize = Math.max(PropertiesUtils.getInt(props, "batchSize", 16), 1);
+    this.batchChars = PropertiesUtils.getInt(props, "batchChars", 2000);
+    this.maxChars = PropertiesUtils.getInt(props, "maxChars", -1);
+    int queueSize = PropertiesUtils.getInt(props, "queueSize", 64);
+    int port = PropertiesUtils.getInt(props, "port", 9000);
+
+    queue = new ArrayBlockingQueue<Job>(queueSize);
+    pipelines = Collections.synchronizedMap(new CacheMap<String, StanfordCoreNLP>(PropertiesUtils.getInt(props, "pipelines", 16), 0.75f, true));
+    workers = new ArrayList<Thread>(nThreads);
+
+    server = HttpServer.create(new InetSocketAddress(port), 0);
+    // enough handlers for every worker and queued document, and as many
+    // again to turn away the requests which do not fit.  Beyond that, the
+    // exchange is run on the server's own dispatcher thread, only to answer
+    // 503 without reading the request body, rather than waiting in an
+    // unbounded queue
+    int nHandlers = 2 * (nThreads + queueSize);
+    handlerThreads = new ThreadPoolExecutor(nHandlers, nHandlers, 0L, TimeUnit.MILLISECONDS,
+        new SynchronousQueue<Runnable>(),
+        (exchange, executor) -> {
+          turnedAway.set(Boolean.TRUE);
+          try {
+            exchange.run();
+          } finally {
+            turnedAway.remove();
+          }
+        });
+    server.setExecutor(handlerThreads);
+    server.createContext("/", new AnnotateHandler());
+    server.createContext("/ping", new PingHandler());
+  }
+
+  /** The port the server listens on */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /** Starts the workers and starts accepting requests. */
+  public void start() {
+    for (int i = 0; i < nThreads; i++) {
+      Thread worker = new Thread(new Worker(), "StanfordCoreNLPServer-worker-" + i);
+      worker.setDaemon(true);
+      workers.add(worker);
+      worker.start();
+    }
+    server.start();
+    System.err.println("StanfordCoreNLPServer listening on port " + getPort());
+  }
+
+  /** Stops accepting requests and stops the workers, giving requests being handled up to a second to finish. */
+  public void stop() {
+    server.stop(1);
+    stopped = true;
+    for (Thread worker : workers) {
+      worker.interrupt();
+    }
+    handlerThreads.shutdownNow();
+  }
+
+  /**
+   * The pipeline running the given annotators, made when it is first asked for.
+   *
+   * @throws IllegalArgumentException If an annotator is unknown, or the
+   *         annotators are not in an order which satisfies their requirements
+   */
+  StanfordCoreNLP getPipeline(String annotators) {
+    String key = annotators.replaceAll("\\s+", "");
+    StanfordCoreNLP pipeline = pipelines.get(key);
+    if (pipeline == null) {
+      // making a pipeline registers and loads annotators in the shared
+      // pool, so only one thread may do it at a time
+      synchronized (pipelineLock) {
+        pipeline = pipelines.get(key);
+        if (pipeline == null) {
+          Properties pipelineProps = new Properties();
+          pipelineProps.putAll(props);
+          pipelineProps.setProperty("annotators", key);
+          pipeline = new StanfordCoreNLP(pipelineProps);
+          pipelines.put(key, pipeline);
+        }
+      }
+    }
+    return pipeline;
+  }
+
+  /** A document waiting to be annotated, and then its result */
+  private static class Job {
+    final StanfordCoreNLP pipeline;
+    final String text;
+    volatile Annotation annotation;
+    final CountDownLatch done = new CountDownLatch(1);
+    /** Set if the request has timed out, so there is no need to annotate the document */
+    volatile boolean abandoned; // = false
+    volatile Throwable error; // = null
+
+    Job(StanfordCoreNLP pipeline, String text) {
+      this.pipeline = pipeline;
+      this.text = text;
+      this.annotation = new Annotation(text);
+    }
+  }
+
+  private class Worker implements Runnable {
+    @Override
+    public void run() {
+      while ( ! stopped) {
+        Job job;
+        try {
+          job = queue.take();
+        } catch (InterruptedException e) {
+          return;
+        }
+        List<Job> batch = new ArrayList<Job>();
+        batch.add(job);
+        if (isSmall(job)) {
+          // take the other short documents already waiting for the same pipeline
+          for (Iterator<Job> it = queue.iterator(); it.hasNext() && batch.size() < batchSize; ) {
+            Job other = it.next();
+            if (other.pipeline == job.pipeline && isSmall(other) && queue.remove(other)) {
+              batch.add(other);
+            }
+          }
+        }
+        annotate(batch);
+      }
+    }
+
+    private boolean isSmall(Job job) {
+      return batchSize > 1 && job.text.length() <= batchChars;
+    }
+
+    private void annotate(List<Job> batch) {
+      List<Job> jobs = new ArrayList<Job>(batch.size());
+      for (Job job : batch) {
+        if (job.abandoned) {
+          job.done.countDown();
+        } else {
+          jobs.add(job);
+        }
+      }
+      if (jobs.size() > 1) {
+        List<Annotation> annotations = new ArrayList<Annotation>(jobs.size());
+        for (Job job : jobs) {
+          annotations.add(job.annotation);
+        }
+        try {
+          jobs.get(0).pipeline.annotateBatch(annotations);
+          for (Job job : jobs) {
+            job.done.countDown();
+          }
+          return;
+        } catch (Throwable t) {
+          // one of the documents failed: annotate them again one at a time,
+          // so that only that one fails
+          for (Job job : jobs) {
+            job.annotation = new Annotation(job.text);
+          }
+        }
+      }
+      for (Job job : jobs) {
+        try {
+          job.pipeline.annotate(job.annotation);
+        } catch (Throwable t) {
+          job.error = t;
+        }
+        job.done.countDown();
+      }
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    OutputStream os = exchange.getResponseBody();
+    os.write(body);
+    os.close();
+  }
+
+  private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+    respond(exchange, status, "text/plain; charset=utf-8", (message + '\n').getBytes("utf-8"));
+  }
+
+  private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+    Map<String, String> params = Generics.newHashMap();
+    if (query != null) {
+      for (String param : query.split("&")) {
+        int equals = param.indexOf('=');
+        if (equals > 0) {
+          params.put(URLDecoder.decode(param.substring(0, equals), "utf-8"),
+                     URLDecoder.decode(param.substring(equals + 1), "utf-8"));
+        }
+      }
+    }
+    return params;
+  }
+
+  /**
+   * Reads the body of the request as UTF-8 text, or returns null as soon
+   * as it is known to be longer than maxChars characters (if maxChars is
+   * not negative), without reading the rest of it.
+   */
+  private static String readBody(HttpExchange exchange, int maxChars) throws IOException {
+    if (maxChars >= 0) {
+      // no character takes more than three bytes per char in UTF-8
+      String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+      if (contentLength != null) {
+        try {
+          if (Long.parseLong(contentLength.trim()) > 3L * maxChars) {
+            return null;
+          }
+        } catch (NumberFormatException e) {
+          // leave it to the HTTP server
+        }
+      }
+    }
+    Reader reader = new InputStreamReader(exchange.getRequestBody(), "utf-8");
+    StringBuilder text = new StringBuilder();
+    char[] buffer = new char[8192];
+    for (int n; (n = reader.read(buffer)) >= 0; ) {
+      text.append(buffer, 0, n);
+      if (maxChars >= 0 && text.length() > maxChars) {
+        return null;
+      }
+    }
+    reader.close();
+    return text.toString();
+  }
+
+  private static AnnotationOutputter getOutputter(String outputFormat) {
+    switch (outputFormat) {
+      case "json":
+        return new JSONOutputter();
+      case "xml":
+        return new XMLOutputter();
+      case "streaming_xml":
+        return new StreamingXMLOutputter();
+      case "text":
+        return new TextOutputter();
+      case "conll":
+        return new CoNLLOutputter();
+      default:
+        return null;
+    }
+  }
+
+  private static String getContentType(String outputFormat) {
+    switch (outputFormat) {
+      case "json":
+        return "application/json; charset=utf-8";
+      case "xml":
+      case "streaming_xml":
+        return "application/xml; charset=utf-8";
+      case "serialized":
+        return "application/x-protobuf";
+      default:
+        return "text/plain; charset=utf-8";
+    }
+  }
+
+  /** Annotates the text POSTed to it */
+  private class AnnotateHandler implements HttpHandler {
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        if (turnedAway.get() != null) {
+          // the body is not read, so do not try to reuse the connection
+          exchange.getResponseHeaders().set("Connection", "close");
+          exchange.getResponseHeaders().set("Retry-After", "1");
+          respond(exchange, 503, "The server is busy");
+          return;
+        }
+        if ( ! "POST".equals(exchange.getRequestMethod())) {
+          exchange.getResponseHeaders().set("Allow", "POST");
+          respond(exchange, 405, "POST the text of a document to annotate it");
+          return;
+        }
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        String text = readBody(exchange, maxChars);
+        if (text == null) {
+          exchange.getResponseHeaders().set("Connection", "close");
+          respond(exchange, 413, "The document is longer than " + maxChars + " characters");
+          return;
+        }
+        String outputFormat = params.containsKey("outputFormat") ? params.get("outputFormat") : DEFAULT_OUTPUT_FORMAT;
+        AnnotationOutputter outputter = getOutputter(outputFormat);
+        if (outputter == null && ! outputFormat.equals("serialized")) {
+          respond(exchange, 400, "Unknown output format: " + outputFormat);
+          return;
+        }
+        StanfordCoreNLP pipeline;
+        try {
+          pipeline = getPipeline(params.containsKey("annotators") ? params.get("annotators") : defaultAnnotators);
+        } catch (IllegalArgumentException e) {
+          respond(exchange, 400, e.getMessage());
+          return;
+        }
+
+        Job job = new Job(pipeline, text);
+        if (stopped || ! queue.offer(job)) {
+          exchange.getResponseHeaders().set("Retry-After", "1");
+          respond(exchange, 503, "The server is busy");
+          return;
+        }
+        boolean done;
+        if (timeout < 0) {
+          job.done.await();
+          done = true;
+        } else {
+          done = job.done.await(timeout, TimeUnit.MILLISECONDS);
+        }
+        if ( ! done) {
+          job.abandoned = true;
+          respond(exchange, 504, "The document was not annotated within " + timeout + " ms");
+          return;
+        }
+        if (job.error != null) {
+          respond(exchange, 500, "Error annotating the document: " + job.error);
+          return;
+        }
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        if (outputter != null) {
+          outputter.print(job.annotation, os, AnnotationOutputter.getOptions(pipeline));
+        } else {
+          new ProtobufAnnotationSerializer(false).toProto(job.annotation).writeTo(os);
+        }
+        respond(exchange, 200, getContentType(outputFormat), os.toByteArray());
+      } catch (InterruptedException e) {
+        respond(exchange, 503, "The server is stopping");
+      } catch (Exception e) {
+        respond(exchange, 500, "Error: " + e);
+      } finally {
+        exchange.close();
+      }
+    }
+  }
+
+  private static class PingHandler implements HttpHandler {
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        respond(exchange, 200, "pong");
+      } finally {
+        exchange.close();
+      }
+    }
+  }
+
+  /**
+   * Starts a server, configured by the command line flags as properties
+   * (e.g., {@code -port 9000 -threads 4 -annotators tokenize,ssplit,pos}),
+   * or by a properties file given with {@code -props}.
+   */
+  public static void main(String[] args) throws IOException {
+    Properties props = StringUtils.argsToProperties(args);
+    StanfordCoreNLPServer server = new StanfordCoreNLPServer(props);
+    // load the default pipeline now, rather than on the first request
+    server.getPipeline(server.defaultAnnotators);
+    server.start();
+  }
+
+}
@@ -0,0 +1,147 @@
+package edu.stanford.nlp.pipeline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+import java.util.Map;
+
+import edu.stanford.nlp.dcoref.CorefChain;
+import edu.stanford.nlp.dcoref.CorefCoreAnnotations;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import nu.xom.Element;
+import nu.xom.ProcessingInstruction;
+import nu.xom.Serializer;
+
+import static edu.stanford.nlp.pipeline.XMLOutputter.NAMESPACE_URI;
+
+/**
+ * Writes the same XML as {@link XMLOutputter}, byte for byte, but without
+ * building the whole document in memory first.  The XML of each sentence
+ * (and of each coreference chain) is built and written out in turn, so at
+ * most one sentence's worth of XML is held at a time, however long the
+ * document is.  Use this for large documents; use {@link XMLOutputter} to
+ * get the XML as a {@link nu.xom.Document}, e.g. to transform it.
+ */
+public class StreamingXMLOutputter extends AnnotationOutputter {
+
+  public StreamingXMLOutputter() {}
+
+  /** {@inheritDoc} */
+  @Override
+  public void print(Annotation annotation, OutputStream os, Options options) throws IOException {
+    StreamingSerializer ser = new StreamingSerializer(os, options.encoding);
+    ser.setIndent(2);
+    ser.setMaxLength(0);
+    ser.startDocument(XMLOutputter.stylesheetInstruction());
+
+    Element root = container("root");
+    ser.startElement(root);
+    Element docElem = container("document");
+    ser.startElement(docElem);
+
+    Element docInfo = new Element("document", NAMESPACE_URI);
+    XMLOutputter.addDocumentInfo(docInfo, annotation, options);
+    while (docInfo.getChildCount() > 0) {
+      ser.element((Element) docInfo.removeChild(0));
+    }
+
+    List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+    if (sentences == null || sentences.isEmpty()) {
+      ser.element(new Element("sentences", NAMESPACE_URI));
+    } else {
+      Element sentencesElem = container("sentences");
+      ser.startElement(sentencesElem);
+      int sentCount = 1;
+      for (CoreMap sentence : sentences) {
+        ser.element(XMLOutputter.sentenceToElement(sentence, sentCount, options));
+        sentCount++;
+      }
+      ser.endElement(sentencesElem);
+    }
+
+    Map<Integer, CorefChain> corefChains = annotation.get(CorefCoreAnnotations.CorefChainAnnotation.class);
+    if (corefChains != null) {
+      // the coreference element is only written if there is a chain to go in it
+      Element corefInfo = null;
+      for (CorefChain chain : corefChains.values()) {
+        Element chainElem = XMLOutputter.corefChainToElement(options, sentences, chain, NAMESPACE_URI);
+        if (chainElem != null) {
+          if (corefInfo == null) {
+            corefInfo = container("coreference");
+            ser.startElement(corefInfo);
+          }
+          ser.element(chainElem);
+        }
+      }
+      if (corefInfo != null) {
+        ser.endElement(corefInfo);
+      }
+    }
+
+    ser.endElement(docElem);
+    ser.endElement(root);
+    ser.endDocument();
+  }
+
+  /**
+   * An element whose start and end tags are written separately, with its
+   * content written in between.  The serializer only breaks the line
+   * before an end tag if the element has element children, so it is given
+   * a child which is never written.
+   */
+  private static Element container(String name) {
+    Element element = new Element(name, NAMESPACE_URI);
+    element.appendChild(new Element(name, NAMESPACE_URI));
+    return element;
+  }
+
+  public static void xmlPrint(Annotation annotation, OutputStream os) throws IOException {
+    new StreamingXMLOutputter().print(annotation, os);
+  }
+
+  public static void xmlPrint(Annotation annotation, OutputStream os, StanfordCoreNLP pipeline) throws IOException {
+    new StreamingXMLOutputter().print(annotation, os, pipeline);
+  }
+
+  public static void xmlPrint(Annotation annotation, OutputStream os, Options options) throws IOException {
+    new StreamingXMLOutputter().print(annotation, os, options);
+  }
+
+  /**
+   * A Serializer which writes a document a piece at a time, in the same way
+   * as {@link Serializer#write(nu.xom.Document)} writes it all at once.
+   */
+  private static class StreamingSerializer extends Serializer {
+
+    StreamingSerializer(OutputStream os, String encoding) throws UnsupportedEncodingException {
+      super(os, encoding);
+    }
+
+    void startDocument(ProcessingInstruction pi) throws IOException {
+      writeXMLDeclaration();
+      writeChild(pi);
+      breakLine();
+    }
+
+    void startElement(Element element) throws IOException {
+      writeStartTag(element);
+    }
+
+    /** Writes a whole element, with its content */
+    void element(Element element) throws IOException {
+      write(element);
+    }
+
+    void endElement(Element element) throws IOException {
+      writeEndTag(element);
+    }
+
+    void endDocument() throws IOException {
+      breakLine();
+      flush();
+    }
+  }
+
+}
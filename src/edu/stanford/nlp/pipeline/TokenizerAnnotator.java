@@ -10,6 +10,7 @@ import java.util.Properties;
 
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.TokenTable;
 import edu.stanford.nlp.process.TokenizerFactory;
 import edu.stanford.nlp.process.CoreLabelTokenFactory;
 import edu.stanford.nlp.process.PTBTokenizer;
@@ -119,8 +120,15 @@ public class TokenizerAnnotator implements Annotator {
 
   public static final String EOL_PROPERTY = "tokenize.keepeol";
 
+  /**
+   * If true, the tokens are stored in a {@link TokenTable}, which takes
+   * much less memory for documents with many tokens
+   */
+  public static final String COMPACT_PROPERTY = "tokenize.compact";
+
   private final boolean VERBOSE;
   private final TokenizerFactory<CoreLabel> factory;
+  private final boolean compact;
 
   // CONSTRUCTORS
 
@@ -153,6 +161,7 @@ public class TokenizerAnnotator implements Annotator {
 
     TokenizerType type = TokenizerType.getTokenizerType(props);
     factory = initFactory(type, props, options);
+    compact = false;
   }
 
   public TokenizerAnnotator(boolean verbose, Properties props) {
@@ -167,6 +176,7 @@ public class TokenizerAnnotator implements Annotator {
 
     TokenizerType type = TokenizerType.getTokenizerType(props);
     factory = initFactory(type, props, options);
+    compact = Boolean.valueOf(props.getProperty(COMPACT_PROPERTY, "false"));
   }
 
   /**
@@ -260,6 +270,9 @@ public class TokenizerAnnotator implements Annotator {
       // for (CoreLabel token: tokens) {
       // token.set(CoreAnnotations.TextAnnotation.class, token.get(CoreAnnotations.TextAnnotation.class));
       // }
+      if (compact) {
+        tokens = TokenTable.compact(tokens);
+      }
 
       annotation.set(CoreAnnotations.TokensAnnotation.class, tokens);
       if (VERBOSE) {
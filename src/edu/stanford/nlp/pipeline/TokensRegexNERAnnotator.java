@@ -5,6 +5,7 @@ import edu.stanford.nlp.io.RuntimeIOException;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.tokensregex.*;
+import edu.stanford.nlp.ling.tokensregex.matcher.AhoCorasickMatcher;
 import edu.stanford.nlp.ling.tokensregex.matcher.TrieMap;
 import edu.stanford.nlp.sequences.SeqClassifierFlags;
 import edu.stanford.nlp.util.*;
@@ -62,6 +63,13 @@ import java.util.regex.Pattern;
  * any optimization that is included in the TokensRegex library.
  * </p>
  * <p>
+ * Entries which are just a sequence of plain strings, which is the usual case for large gazetteers, are not
+ * compiled into TokensRegex patterns.  Instead, they are put in an {@link AhoCorasickMatcher}, which finds all
+ * of them in one pass over each sentence.  Their matches are then combined with the matches of the remaining
+ * patterns and selected in the same way: by priority, then length, then the order of the entries in the
+ * mapping files, then offset.
+ * </p>
+ * <p>
  * Main differences from {@link RegexNERAnnotator}:
  * <ul>
  *   <li>Supports both TokensRegex patterns and patterns over the text of the tokens</li>
@@ -111,16 +119,21 @@ import java.util.regex.Pattern;
  *
  * @author Angel Chang
  */
-public class TokensRegexNERAnnotator implements Annotator {
+public class TokensRegexNERAnnotator extends SentenceAnnotator {
   protected static final Redwood.RedwoodChannels logger = Redwood.channels("TokenRegexNER");
 
   private final boolean ignoreCase;
   private final List<Entry> entries;
-  private final Map<SequencePattern<CoreMap>,Entry> patternToEntry;
+  // index into entries of the entry each pattern came from
+  private final Map<SequencePattern<CoreMap>,Integer> patternToEntry;
   private final MultiPatternMatcher<CoreMap>  multiPatternMatcher;
+  // entries which are plain strings, by index into entries
+  private final AhoCorasickMatcher<String,Integer> literalMatcher;
 
   private final Set<String> myLabels;  // set of labels to always overwrite
   private final Pattern validPosPattern;
+  // validPosPattern as a node pattern, when every token of a match must have a valid POS
+  private final NodePattern<String> posTagPattern;
   private final boolean verbose;
 
   // Labels for which we don't use the default overwrite types (mylabels)
@@ -198,9 +211,12 @@ public class TokensRegexNERAnnotator implements Annotator {
     } else {
       validPosPattern = null;
     }
+    posTagPattern = (validPosPattern != null && PosMatchType.MATCH_ALL_TOKENS.equals(posMatchType))?
+            new CoreMapNodePattern.StringAnnotationRegexPattern(validPosPattern):null;
     entries = Collections.unmodifiableList(readEntries(name, noDefaultOverwriteLabels, ignoreCase, verbose, mappings));
-    IdentityHashMap<SequencePattern<CoreMap>, Entry> patternToEntry = new IdentityHashMap<SequencePattern<CoreMap>, Entry>();
-    multiPatternMatcher = createPatternMatcher(patternToEntry);
+    IdentityHashMap<SequencePattern<CoreMap>, Integer> patternToEntry = new IdentityHashMap<SequencePattern<CoreMap>, Integer>();
+    literalMatcher = new AhoCorasickMatcher<String, Integer>();
+    multiPatternMatcher = createPatternMatcher(patternToEntry, literalMatcher);
     this.patternToEntry = Collections.unmodifiableMap(patternToEntry);
     Set<String> myLabels = Generics.newHashSet();
     // Can always override background or none.
@@ -217,12 +233,8 @@ public class TokensRegexNERAnnotator implements Annotator {
       System.err.print("Adding TokensRegexNER annotations ... ");
     }
 
-    List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
-    if (sentences != null) {
-      for (CoreMap sentence : sentences) {
-        List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
-        annotateMatched(tokens);
-      }
+    if (annotation.containsKey(CoreAnnotations.SentencesAnnotation.class)) {
+      super.annotate(annotation);
     } else {
       List<CoreLabel> tokens = annotation.get(CoreAnnotations.TokensAnnotation.class);
       if (tokens != null){
@@ -236,17 +248,49 @@ public class TokensRegexNERAnnotator implements Annotator {
       System.err.println("done.");
   }
 
-  private MultiPatternMatcher<CoreMap> createPatternMatcher(Map<SequencePattern<CoreMap>, Entry> patternToEntry) {
+  @Override
+  protected int nThreads() {
+    return 1;
+  }
+
+  @Override
+  protected long maxTime() {
+    return -1;
+  }
+
+  @Override
+  protected void doOneSentence(Annotation annotation, CoreMap sentence) {
+    annotateMatched(sentence.get(CoreAnnotations.TokensAnnotation.class));
+  }
+
+  @Override
+  protected void doOneFailedSentence(Annotation annotation, CoreMap sentence) {
+    // nothing to fill in: tokens keep the named entity tags they had
+  }
+
+  /**
+   * Compiles the entries.  Entries which are just plain strings go into
+   * the literalMatcher, and the rest are compiled into TokensRegex patterns.
+   */
+  private MultiPatternMatcher<CoreMap> createPatternMatcher(Map<SequencePattern<CoreMap>, Integer> patternToEntry,
+                                                            AhoCorasickMatcher<String, Integer> literalMatcher) {
     // Convert to tokensregex pattern
     int patternFlags = ignoreCase? Pattern.CASE_INSENSITIVE:0;
     int stringMatchFlags = ignoreCase? NodePattern.CASE_INSENSITIVE:0;
     Env env = TokenSequencePattern.getNewEnv();
     env.setDefaultStringPatternFlags(patternFlags);
     env.setDefaultStringMatchFlags(stringMatchFlags);
-    NodePattern<String> posTagPattern = (validPosPattern != null && PosMatchType.MATCH_ALL_TOKENS.equals(posMatchType))?
-            new CoreMapNodePattern.StringAnnotationRegexPattern(validPosPattern):null;
-    List<TokenSequencePattern> patterns = new ArrayList<TokenSequencePattern>(entries.size());
-    for (Entry entry:entries) {
+    List<TokenSequencePattern> patterns = new ArrayList<TokenSequencePattern>();
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      if (entry.literal && entry.annotateGroup == 0) {
+        String[] key = new String[entry.regex.length];
+        for (int j = 0; j < key.length; j++) {
+          key[j] = normalize(entry.regex[j]);
+        }
+        literalMatcher.add(Arrays.asList(key), i);
+        continue;
+      }
       TokenSequencePattern pattern;
       if (entry.tokensRegex != null) {
         // TODO: posTagPatterns...
@@ -268,20 +312,152 @@ public class TokensRegexNERAnnotator implements Annotator {
       }
       pattern.setPriority(entry.priority);
       patterns.add(pattern);
-      patternToEntry.put(pattern, entry);
+      patternToEntry.put(pattern, i);
     }
     return TokenSequencePattern.getMultiPatternMatcher(patterns);
   }
 
+  /**
+   * Puts a plain string, or a word, in the form used as a key of the
+   * literalMatcher.  When ignoring case, a word has the same key as a plain
+   * string exactly when they are equalsIgnoreCase.
+   */
+  private String normalize(String word) {
+    if (!ignoreCase || word == null) {
+      return word;
+    }
+    char[] chars = null;
+    for (int i = 0; i < word.length(); i++) {
+      char ch = word.charAt(i);
+      char folded = Character.toLowerCase(Character.toUpperCase(ch));
+      if (folded != ch) {
+        if (chars == null) {
+          chars = word.toCharArray();
+        }
+        chars[i] = folded;
+      }
+    }
+    return (chars == null) ? word : new String(chars);
+  }
+
+  /** A match of one entry, either from the literalMatcher or from a TokensRegex pattern */
+  private static class EntryMatch implements HasInterval<Integer> {
+    final Entry entry;
+    final int order;
+    final Interval<Integer> interval;
+    // The tokens to annotate
+    final int start;
+    final int end;
+    final double score;
+    // Only for matches of TokensRegex patterns
+    final SequenceMatchResult<CoreMap> result;
+
+    EntryMatch(Entry entry, int order, int start, int end) {
+      this.entry = entry;
+      this.order = order;
+      this.interval = Interval.toInterval(start, end, Interval.INTERVAL_OPEN_END);
+      this.start = start;
+      this.end = end;
+      this.score = 0.0;
+      this.result = null;
+    }
+
+    EntryMatch(Entry entry, int order, SequenceMatchResult<CoreMap> result) {
+      this.entry = entry;
+      this.order = order;
+      this.interval = Interval.toInterval(result.start(), result.end(), Interval.INTERVAL_OPEN_END);
+      this.start = result.start(entry.annotateGroup);
+      this.end = result.end(entry.annotateGroup);
+      this.score = result.score();
+      this.result = result;
+    }
+
+    @Override
+    public Interval<Integer> getInterval() {
+      return interval;
+    }
+
+    int length() {
+      return interval.getEnd() - interval.getBegin();
+    }
+  }
+
+  /**
+   * The same order as SequenceMatchResult.DEFAULT_COMPARATOR: highest
+   * priority, then highest score, then longest, then first entry, then
+   * earliest offset
+   */
+  private static final Comparator<EntryMatch> MATCH_COMPARATOR = (m1, m2) -> {
+    if (m1.entry.priority != m2.entry.priority) {
+      return (m1.entry.priority > m2.entry.priority) ? -1 : 1;
+    }
+    if (m1.score != m2.score) {
+      return (m1.score > m2.score) ? -1 : 1;
+    }
+    if (m1.length() != m2.length()) {
+      return (m1.length() > m2.length()) ? -1 : 1;
+    }
+    if (m1.order != m2.order) {
+      return (m1.order < m2.order) ? -1 : 1;
+    }
+    return m1.interval.compareTo(m2.interval);
+  };
+
+  private static final Comparator<EntryMatch> OFFSET_COMPARATOR = (m1, m2) -> m1.interval.compareTo(m2.interval);
+
+  /**
+   * Finds the matches of all the entries in the tokens, and keeps the best
+   * ones which don't overlap.  As with a TokensRegex pattern, the matches
+   * of each plain string entry don't overlap each other.
+   */
+  private List<EntryMatch> findNonOverlapping(List<CoreLabel> tokens) {
+    List<EntryMatch> all = new ArrayList<EntryMatch>();
+
+    if (literalMatcher.size() > 0) {
+      Map<Integer,Integer> lastEnds = new HashMap<Integer,Integer>();
+      literalMatcher.findAll(tokens, token -> normalize(token.word()), (entryIndex, begin, end) -> {
+        Integer lastEnd = lastEnds.get(entryIndex);
+        if (lastEnd != null && begin < lastEnd) {
+          return;
+        }
+        Entry entry = entries.get(entryIndex);
+        for (int i = begin; i < end; i++) {
+          String word = tokens.get(i).word();
+          Pattern verify = entry.verify[i - begin];
+          if (verify != null && !verify.matcher(word).matches()) {
+            return;
+          }
+          if (posTagPattern != null && !posTagPattern.match(tokens.get(i).get(CoreAnnotations.PartOfSpeechAnnotation.class))) {
+            return;
+          }
+        }
+        lastEnds.put(entryIndex, end);
+        all.add(new EntryMatch(entry, entryIndex, begin, end));
+      });
+    }
+
+    for (SequencePattern<CoreMap> p : multiPatternMatcher.getTriggeredPatterns(tokens)) {
+      int entryIndex = patternToEntry.get(p);
+      Entry entry = entries.get(entryIndex);
+      SequenceMatcher<CoreMap> m = p.getMatcher(tokens);
+      while (m.find()) {
+        all.add(new EntryMatch(entry, entryIndex, m.toBasicSequenceMatchResult()));
+      }
+    }
+
+    List<EntryMatch> res = IntervalTree.getNonOverlapping(all, MATCH_COMPARATOR);
+    Collections.sort(res, OFFSET_COMPARATOR);
+    return res;
+  }
+
   private void annotateMatched(List<CoreLabel> tokens) {
-    List<SequenceMatchResult<CoreMap>> matched = multiPatternMatcher.findNonOverlapping(tokens);
-    for (SequenceMatchResult<CoreMap> m:matched) {
-      Entry entry = patternToEntry.get(m.pattern());
+    List<EntryMatch> matched = findNonOverlapping(tokens);
+    for (EntryMatch m:matched) {
+      Entry entry = m.entry;
 
       // Check if we will overwrite the existing annotation with this annotation
-      int g = entry.annotateGroup;
-      int start = m.start(g);
-      int end = m.end(g);
+      int start = m.start;
+      int end = m.end;
 
       boolean overwriteOriginalNer = checkPosTags(tokens, start, end);
       if (overwriteOriginalNer) {
@@ -293,8 +469,8 @@ public class TokensRegexNERAnnotator implements Annotator {
         }
       } else {
         if (verbose) {
-          System.err.println("Not annotating  '" + m.group(g) + "': " +
-                  StringUtils.joinFields(m.groupNodes(g), CoreAnnotations.NamedEntityTagAnnotation.class)
+          System.err.println("Not annotating  '" + StringUtils.joinWords(tokens.subList(start, end), " ") + "': " +
+                  StringUtils.joinFields(tokens.subList(start, end), CoreAnnotations.NamedEntityTagAnnotation.class)
                   + " with " + entry.type + ", sentence is '" + StringUtils.joinWords(tokens, " ") + "'");
         }
       }
@@ -394,6 +570,9 @@ public class TokensRegexNERAnnotator implements Annotator {
     return overwriteOriginalNer;
   }
 
+  // Strings which CoreMapNodePattern treats as plain strings rather than regexes
+  private static final Pattern PLAIN_STRING_PATTERN = Pattern.compile("[A-Za-z0-9_\\-]*");
+
   private static class Entry {
     public final String tokensRegex;
     public final String[] regex; // the regex, tokenized by splitting on white space
@@ -401,14 +580,44 @@ public class TokensRegexNERAnnotator implements Annotator {
     public final Set<String> overwritableTypes; // what types can be overwritten by this entry
     public final double priority;
     public final int annotateGroup;
+    // whether regex is a sequence of plain strings, with no regex metacharacters
+    public final boolean literal;
+    // for plain strings which are nevertheless matched as regexes by TokensRegex,
+    // the regex to check words against (null for the others)
+    public final Pattern[] verify;
 
-    public Entry(String tokensRegex, String[] regex, String type, Set<String> overwritableTypes, double priority, int annotateGroup) {
+    public Entry(String tokensRegex, String[] regex, String type, Set<String> overwritableTypes, double priority, int annotateGroup, boolean ignoreCase) {
       this.tokensRegex = tokensRegex;
       this.regex = regex;
       this.type = type.intern();
       this.overwritableTypes = overwritableTypes;
       this.priority = priority;
       this.annotateGroup = annotateGroup;
+
+      boolean literal = (regex != null);
+      Pattern[] verify = null;
+      if (regex != null) {
+        for (int i = 0; i < regex.length && literal; i++) {
+          String r = regex[i];
+          for (int j = 0; j < r.length(); j++) {
+            if ("\\^$.|?*+()[]{}".indexOf(r.charAt(j)) >= 0) {
+              literal = false;
+              break;
+            }
+          }
+          // CoreMapNodePattern compares strings like this one with equals or
+          // equalsIgnoreCase, but compiles anything else as a regex, which
+          // folds case differently
+          if (literal && ignoreCase && !PLAIN_STRING_PATTERN.matcher(r).matches()) {
+            if (verify == null) {
+              verify = new Pattern[regex.length];
+            }
+            verify[i] = Pattern.compile(r, Pattern.CASE_INSENSITIVE);
+          }
+        }
+      }
+      this.literal = literal;
+      this.verify = (literal && verify == null) ? new Pattern[regex.length] : verify;
     }
 
     public String toString() {
@@ -530,7 +739,7 @@ public class TokensRegexNERAnnotator implements Annotator {
         type = newType;
       }
 
-      Entry entry = new Entry(tokensRegex, regexes, type, overwritableTypes, priority, annotateGroup);
+      Entry entry = new Entry(tokensRegex, regexes, type, overwritableTypes, priority, annotateGroup, ignoreCase);
 
       if (seenRegexes.containsKey(key)) {
         Entry oldEntry = seenRegexes.get(key);
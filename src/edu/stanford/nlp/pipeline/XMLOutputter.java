@@ -42,7 +42,7 @@ import nu.xom.*;
  */
 public class XMLOutputter extends AnnotationOutputter {
   // the namespace is set in the XSLT file
-  private static final String NAMESPACE_URI = null;
+  static final String NAMESPACE_URI = null;
   private static final String STYLESHEET_NAME = "CoreNLP-to-HTML.xsl";
 
   public XMLOutputter() {}
@@ -87,22 +87,11 @@ public class XMLOutputter extends AnnotationOutputter {
     //
     Element root = new Element("root", NAMESPACE_URI);
     Document xmlDoc = new Document(root);
-    ProcessingInstruction pi = new ProcessingInstruction("xml-stylesheet",
-          "href=\"" + STYLESHEET_NAME + "\" type=\"text/xsl\"");
-    xmlDoc.insertChild(pi, 0);
+    xmlDoc.insertChild(stylesheetInstruction(), 0);
     Element docElem = new Element("document", NAMESPACE_URI);
     root.appendChild(docElem);
 
-    setSingleElement(docElem, "docId", NAMESPACE_URI, annotation.get(CoreAnnotations.DocIDAnnotation.class));
-    setSingleElement(docElem, "docDate", NAMESPACE_URI, annotation.get(CoreAnnotations.DocDateAnnotation.class));
-    setSingleElement(docElem, "docSourceType", NAMESPACE_URI, annotation.get(CoreAnnotations.DocSourceTypeAnnotation.class));
-    setSingleElement(docElem, "docType", NAMESPACE_URI, annotation.get(CoreAnnotations.DocTypeAnnotation.class));
-    setSingleElement(docElem, "author", NAMESPACE_URI, annotation.get(CoreAnnotations.AuthorAnnotation.class));
-    setSingleElement(docElem, "location", NAMESPACE_URI, annotation.get(CoreAnnotations.LocationAnnotation.class));
-
-    if (options.includeText) {
-      setSingleElement(docElem, "text", NAMESPACE_URI, annotation.get(CoreAnnotations.TextAnnotation.class));
-    }
+    addDocumentInfo(docElem, annotation, options);
 
     Element sentencesElem = new Element("sentences", NAMESPACE_URI);
     docElem.appendChild(sentencesElem);
@@ -113,87 +102,9 @@ public class XMLOutputter extends AnnotationOutputter {
     if(annotation.get(CoreAnnotations.SentencesAnnotation.class) != null){
       int sentCount = 1;
       for (CoreMap sentence: annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
-        Element sentElem = new Element("sentence", NAMESPACE_URI);
-        sentElem.addAttribute(new Attribute("id", Integer.toString(sentCount)));
-        Integer lineNumber = sentence.get(CoreAnnotations.LineNumberAnnotation.class);
-        if (lineNumber != null) {
-          sentElem.addAttribute(new Attribute("line", Integer.toString(lineNumber)));
-        }
-        sentCount ++;
-
-        // add the word table with all token-level annotations
-        Element wordTable = new Element("tokens", NAMESPACE_URI);
-        List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
-        for(int j = 0; j < tokens.size(); j ++){
-          Element wordInfo = new Element("token", NAMESPACE_URI);
-          addWordInfo(wordInfo, tokens.get(j), j + 1, NAMESPACE_URI);
-          wordTable.appendChild(wordInfo);
-        }
-        sentElem.appendChild(wordTable);
-
-        // add tree info
-        Tree tree = sentence.get(TreeCoreAnnotations.TreeAnnotation.class);
-
-        if(tree != null) {
-          // add the constituent tree for this sentence
-          Element parseInfo = new Element("parse", NAMESPACE_URI);
-          addConstituentTreeInfo(parseInfo, tree, options.constituentTreePrinter);
-          sentElem.appendChild(parseInfo);
-        }
-
-        SemanticGraph basicDependencies = sentence.get(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class);
-
-        if (basicDependencies != null) {
-          // add the dependencies for this sentence
-          Element depInfo = buildDependencyTreeInfo("basic-dependencies", sentence.get(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class), tokens, NAMESPACE_URI);
-          if (depInfo != null) {
-            sentElem.appendChild(depInfo);
-          }
-
-          depInfo = buildDependencyTreeInfo("collapsed-dependencies", sentence.get(SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation.class), tokens, NAMESPACE_URI);
-          if (depInfo != null) {
-            sentElem.appendChild(depInfo);
-          }
-
-          depInfo = buildDependencyTreeInfo("collapsed-ccprocessed-dependencies", sentence.get(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class), tokens, NAMESPACE_URI);
-          if (depInfo != null) {
-            sentElem.appendChild(depInfo);
-          }
-        }
-
-        // add the MR entities and relations
-        List<EntityMention> entities = sentence.get(MachineReadingAnnotations.EntityMentionsAnnotation.class);
-        List<RelationMention> relations = sentence.get(MachineReadingAnnotations.RelationMentionsAnnotation.class);
-        if (entities != null && entities.size() > 0){
-          Element mrElem = new Element("MachineReading", NAMESPACE_URI);
-          Element entElem = new Element("entities", NAMESPACE_URI);
-          addEntities(entities, entElem, NAMESPACE_URI);
-          mrElem.appendChild(entElem);
-
-          if(relations != null){
-            Element relElem = new Element("relations", NAMESPACE_URI);
-            addRelations(relations, relElem, NAMESPACE_URI, options.relationsBeam);
-            mrElem.appendChild(relElem);
-          }
-
-          sentElem.appendChild(mrElem);
-        }
-
-                
-        /**
-         * Adds sentiment as an attribute of this sentence.
-         */
-        Tree sentimentTree = sentence.get(SentimentCoreAnnotations.AnnotatedTree.class);
-        if (sentimentTree != null) {
-          int sentiment = RNNCoreAnnotations.getPredictedClass(sentimentTree);
-          sentElem.addAttribute(new Attribute("sentimentValue", Integer.toString(sentiment)));
-          String sentimentClass = sentence.get(SentimentCoreAnnotations.ClassName.class);
-          sentElem.addAttribute(new Attribute("sentiment", sentimentClass.replaceAll(" ", "")));
-        }
-
-
         // add the sentence to the root
-        sentencesElem.appendChild(sentElem);
+        sentencesElem.appendChild(sentenceToElement(sentence, sentCount, options));
+        sentCount ++;
       }
     }
 
@@ -216,6 +127,114 @@ public class XMLOutputter extends AnnotationOutputter {
     return xmlDoc;
   }
 
+  /** The processing instruction at the top of the document, pointing to the stylesheet */
+  static ProcessingInstruction stylesheetInstruction() {
+    return new ProcessingInstruction("xml-stylesheet",
+          "href=\"" + STYLESHEET_NAME + "\" type=\"text/xsl\"");
+  }
+
+  /**
+   * Adds the metadata of the document, and its text if the options ask for it
+   */
+  static void addDocumentInfo(Element docElem, Annotation annotation, Options options) {
+    setSingleElement(docElem, "docId", NAMESPACE_URI, annotation.get(CoreAnnotations.DocIDAnnotation.class));
+    setSingleElement(docElem, "docDate", NAMESPACE_URI, annotation.get(CoreAnnotations.DocDateAnnotation.class));
+    setSingleElement(docElem, "docSourceType", NAMESPACE_URI, annotation.get(CoreAnnotations.DocSourceTypeAnnotation.class));
+    setSingleElement(docElem, "docType", NAMESPACE_URI, annotation.get(CoreAnnotations.DocTypeAnnotation.class));
+    setSingleElement(docElem, "author", NAMESPACE_URI, annotation.get(CoreAnnotations.AuthorAnnotation.class));
+    setSingleElement(docElem, "location", NAMESPACE_URI, annotation.get(CoreAnnotations.LocationAnnotation.class));
+
+    if (options.includeText) {
+      setSingleElement(docElem, "text", NAMESPACE_URI, annotation.get(CoreAnnotations.TextAnnotation.class));
+    }
+  }
+
+  /**
+   * Generates the XML content for a sentence
+   *
+   * @param sentCount The number of the sentence in the document, from 1
+   */
+  static Element sentenceToElement(CoreMap sentence, int sentCount, Options options) {
+    Element sentElem = new Element("sentence", NAMESPACE_URI);
+    sentElem.addAttribute(new Attribute("id", Integer.toString(sentCount)));
+    Integer lineNumber = sentence.get(CoreAnnotations.LineNumberAnnotation.class);
+    if (lineNumber != null) {
+      sentElem.addAttribute(new Attribute("line", Integer.toString(lineNumber)));
+    }
+
+    // add the word table with all token-level annotations
+    Element wordTable = new Element("tokens", NAMESPACE_URI);
+    List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+    for(int j = 0; j < tokens.size(); j ++){
+      Element wordInfo = new Element("token", NAMESPACE_URI);
+      addWordInfo(wordInfo, tokens.get(j), j + 1, NAMESPACE_URI);
+      wordTable.appendChild(wordInfo);
+    }
+    sentElem.appendChild(wordTable);
+
+    // add tree info
+    Tree tree = sentence.get(TreeCoreAnnotations.TreeAnnotation.class);
+
+    if(tree != null) {
+      // add the constituent tree for this sentence
+      Element parseInfo = new Element("parse", NAMESPACE_URI);
+      addConstituentTreeInfo(parseInfo, tree, options.constituentTreePrinter);
+      sentElem.appendChild(parseInfo);
+    }
+
+    SemanticGraph basicDependencies = sentence.get(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class);
+
+    if (basicDependencies != null) {
+      // add the dependencies for this sentence
+      Element depInfo = buildDependencyTreeInfo("basic-dependencies", sentence.get(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class), tokens, NAMESPACE_URI);
+      if (depInfo != null) {
+        sentElem.appendChild(depInfo);
+      }
+
+      depInfo = buildDependencyTreeInfo("collapsed-dependencies", sentence.get(SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation.class), tokens, NAMESPACE_URI);
+      if (depInfo != null) {
+        sentElem.appendChild(depInfo);
+      }
+
+      depInfo = buildDependencyTreeInfo("collapsed-ccprocessed-dependencies", sentence.get(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class), tokens, NAMESPACE_URI);
+      if (depInfo != null) {
+        sentElem.appendChild(depInfo);
+      }
+    }
+
+    // add the MR entities and relations
+    List<EntityMention> entities = sentence.get(MachineReadingAnnotations.EntityMentionsAnnotation.class);
+    List<RelationMention> relations = sentence.get(MachineReadingAnnotations.RelationMentionsAnnotation.class);
+    if (entities != null && entities.size() > 0){
+      Element mrElem = new Element("MachineReading", NAMESPACE_URI);
+      Element entElem = new Element("entities", NAMESPACE_URI);
+      addEntities(entities, entElem, NAMESPACE_URI);
+      mrElem.appendChild(entElem);
+
+      if(relations != null){
+        Element relElem = new Element("relations", NAMESPACE_URI);
+        addRelations(relations, relElem, NAMESPACE_URI, options.relationsBeam);
+        mrElem.appendChild(relElem);
+      }
+
+      sentElem.appendChild(mrElem);
+    }
+
+
+    /**
+     * Adds sentiment as an attribute of this sentence.
+     */
+    Tree sentimentTree = sentence.get(SentimentCoreAnnotations.AnnotatedTree.class);
+    if (sentimentTree != null) {
+      int sentiment = RNNCoreAnnotations.getPredictedClass(sentimentTree);
+      sentElem.addAttribute(new Attribute("sentimentValue", Integer.toString(sentiment)));
+      String sentimentClass = sentence.get(SentimentCoreAnnotations.ClassName.class);
+      sentElem.addAttribute(new Attribute("sentiment", sentimentClass.replaceAll(" ", "")));
+    }
+
+    return sentElem;
+  }
+
   /**
    * Generates the XML content for a constituent tree
    */
@@ -318,22 +337,33 @@ public class XMLOutputter extends AnnotationOutputter {
   {
     boolean foundCoref = false;
     for (CorefChain chain : corefChains.values()) {
-      if (!options.printSingletons && chain.getMentionsInTextualOrder().size() <= 1)
-        continue;
-      foundCoref = true;
-      Element chainElem = new Element("coreference", curNS);
-      CorefChain.CorefMention source = chain.getRepresentativeMention();
-      addCorefMention(options, chainElem, curNS, sentences, source, true);
-      for (CorefChain.CorefMention mention : chain.getMentionsInTextualOrder()) {
-        if (mention == source)
-          continue;
-        addCorefMention(options, chainElem, curNS, sentences, mention, false);
+      Element chainElem = corefChainToElement(options, sentences, chain, curNS);
+      if (chainElem != null) {
+        foundCoref = true;
+        corefInfo.appendChild(chainElem);
       }
-      corefInfo.appendChild(chainElem);
     }
     return foundCoref;
   }
 
+  /**
+   * Generates the XML content for one coreference chain, or returns null
+   * if it is a singleton which the options say not to print
+   */
+  static Element corefChainToElement(Options options, List<CoreMap> sentences, CorefChain chain, String curNS) {
+    if (!options.printSingletons && chain.getMentionsInTextualOrder().size() <= 1)
+      return null;
+    Element chainElem = new Element("coreference", curNS);
+    CorefChain.CorefMention source = chain.getRepresentativeMention();
+    addCorefMention(options, chainElem, curNS, sentences, source, true);
+    for (CorefChain.CorefMention mention : chain.getMentionsInTextualOrder()) {
+      if (mention == source)
+        continue;
+      addCorefMention(options, chainElem, curNS, sentences, mention, false);
+    }
+    return chainElem;
+  }
+
   private static void addCorefMention(Options options,
                                       Element chainElem, String curNS,
                                       List<CoreMap> sentences,
@@ -0,0 +1,411 @@
+package edu.stanford.nlp.process;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+import edu.stanford.nlp.io.RuntimeIOException;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.PropertiesUtils;
+import edu.stanford.nlp.util.StringUtils;
+import edu.stanford.nlp.util.Timing;
+
+/**
+ * A map from words to their classes, such as a distributional similarity
+ * lexicon, which is kept in a memory-mapped file rather than on the heap.
+ * <br>
+ * The file holds an open-addressed hash table of the words, with each
+ * word's class stored as the index of the class in a table of the
+ * distinct classes.  Opening it only maps the file and reads the (few)
+ * classes, so it takes no time however many words there are, and the
+ * words take no heap at all.  The operating system loads the pages of
+ * the file as they are needed, and shares them among all the processes
+ * which map the same file.  Within a JVM, {@link #load} shares one
+ * CompiledLexicon for each file among all the classifiers using it.
+ * <br>
+ * A compiled lexicon is made from a text lexicon by {@link #main}, for
+ * example
+ * <pre>
+ * java edu.stanford.nlp.process.CompiledLexicon -input egw4-reut.512.clusters -output egw4-reut.512.lex
+ * </pre>
+ * The options are those the text lexicon is read with
+ * (see {@link DistSimClassifier#readLexicon}): {@code -format} (alexClark
+ * or terryKoo), {@code -encoding}, {@code -distSimMaxBits}, {@code -cased}
+ * and {@code -numberEquivalence}.  The words are stored as they are after
+ * being lowercased (unless cased) and mapped to their number shapes (if
+ * numberEquivalence), so a compiled lexicon can only be used with the
+ * same choice of these two, which {@link #checkOptions} checks.  The
+ * format and the number of bits kept of a class are fixed when the
+ * lexicon is compiled.  The file is at most 2GB.
+ * <br>
+ * A compiled lexicon is a read only {@link Map}, and is safe to use from
+ * any number of threads.  It is serialized as an ordinary HashMap, so
+ * models which include their lexicon remain usable without the file.
+ */
+public class CompiledLexicon extends AbstractMap<String,String> implements Serializable {
+
+  private static final int MAGIC = 0x4c455843; // "LEXC"
+  private static final int VERSION = 1;
+  private static final int CASED = 1;
+  private static final int NUMBER_EQUIVALENCE = 2;
+  private static final int HEADER_INTS = 8;
+
+  private final String path;
+  private final boolean cased;
+  private final boolean numberEquivalence;
+  private final int numWords;
+  private final int mask;
+  /** For each slot of the hash table, the index of the word there + 1, or 0 if it is empty */
+  private final IntBuffer slots;
+  private final IntBuffer hashes;
+  /** The characters of word i are at wordStarts[i] to wordStarts[i+1] in chars */
+  private final IntBuffer wordStarts;
+  private final IntBuffer wordClasses;
+  private final CharBuffer chars;
+  private final String[] classes;
+
+  private CompiledLexicon(String path) throws IOException {
+    this.path = path;
+    MappedByteBuffer buffer;
+    try (RandomAccessFile file = new RandomAccessFile(path, "r"); FileChannel channel = file.getChannel()) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(path + " is too large to be a compiled lexicon");
+      }
+      // the mapping stays valid after the channel is closed
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    IntBuffer header = buffer.asIntBuffer();
+    if (buffer.capacity() < HEADER_INTS * 4 || header.get(0) != MAGIC) {
+      throw new IOException(path + " is not a compiled lexicon");
+    }
+    if (header.get(1) != VERSION) {
+      throw new IOException(path + " is a compiled lexicon of version " + header.get(1) + ", not " + VERSION + "; compile it again");
+    }
+    int options = header.get(2);
+    cased = (options & CASED) != 0;
+    numberEquivalence = (options & NUMBER_EQUIVALENCE) != 0;
+    numWords = header.get(3);
+    int numClasses = header.get(4);
+    int capacity = header.get(5);
+    int numWordChars = header.get(6);
+    int numClassChars = header.get(7);
+    mask = capacity - 1;
+
+    int offset = HEADER_INTS * 4;
+    slots = intBuffer(buffer, offset, capacity);
+    offset += capacity * 4;
+    hashes = intBuffer(buffer, offset, numWords);
+    offset += numWords * 4;
+    wordStarts = intBuffer(buffer, offset, numWords + 1);
+    offset += (numWords + 1) * 4;
+    wordClasses = intBuffer(buffer, offset, numWords);
+    offset += numWords * 4;
+    IntBuffer classStarts = intBuffer(buffer, offset, numClasses + 1);
+    offset += (numClasses + 1) * 4;
+    chars = charBuffer(buffer, offset, numWordChars);
+    offset += numWordChars * 2;
+    CharBuffer classChars = charBuffer(buffer, offset, numClassChars);
+
+    classes = new String[numClasses];
+    for (int c = 0; c < numClasses; c++) {
+      int start = classStarts.get(c);
+      classes[c] = classChars.subSequence(start, classStarts.get(c + 1)).toString().intern();
+    }
+  }
+
+  private static IntBuffer intBuffer(ByteBuffer buffer, int offset, int length) {
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(offset);
+    slice.limit(offset + length * 4);
+    return slice.slice().asIntBuffer();
+  }
+
+  private static CharBuffer charBuffer(ByteBuffer buffer, int offset, int length) {
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(offset);
+    slice.limit(offset + length * 2);
+    return slice.slice().asCharBuffer();
+  }
+
+  // avoid mapping the same file twice
+  private static final Map<String,CompiledLexicon> lexicons = Generics.newHashMap();
+
+  /**
+   * The compiled lexicon in the file, which is shared by everything
+   * loading the same file.
+   */
+  public static CompiledLexicon load(String path) {
+    String key;
+    try {
+      key = new File(path).getCanonicalPath();
+    } catch (IOException e) {
+      throw new RuntimeIOException(e);
+    }
+    synchronized (lexicons) {
+      CompiledLexicon lexicon = lexicons.get(key);
+      if (lexicon == null) {
+        try {
+          lexicon = new CompiledLexicon(path);
+        } catch (IOException e) {
+          throw new RuntimeIOException("Could not load the compiled lexicon " + path, e);
+        }
+        lexicons.put(key, lexicon);
+      }
+      return lexicon;
+    }
+  }
+
+  /**
+   * Whether the path is a file holding a compiled lexicon, rather than,
+   * for instance, a text lexicon or a resource in a jar.
+   */
+  public static boolean isCompiled(String path) {
+    if (path == null || ! new File(path).isFile()) {
+      return false;
+    }
+    try (DataInputStream in = new DataInputStream(new FileInputStream(path))) {
+      return in.readInt() == MAGIC;
+    } catch (IOException e) {
+      // too short to hold a compiled lexicon, or unreadable
+      return false;
+    }
+  }
+
+  /**
+   * Throws an IllegalArgumentException unless the words in this lexicon
+   * were stored with the given options.
+   */
+  public void checkOptions(boolean cased, boolean numberEquivalence) {
+    if (cased != this.cased || numberEquivalence != this.numberEquivalence) {
+      throw new IllegalArgumentException("The compiled lexicon " + path + " was compiled with cased=" + this.cased +
+                                         " and numberEquivalence=" + this.numberEquivalence + ", but is used with cased=" +
+                                         cased + " and numberEquivalence=" + numberEquivalence);
+    }
+  }
+
+  private static int spread(int hash) {
+    hash *= 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /** The index of the word, or -1 if it is not in the lexicon */
+  private int find(String word) {
+    int hash = word.hashCode();
+    for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+      int w = slots.get(slot) - 1;
+      if (w < 0) {
+        return -1;
+      }
+      if (hashes.get(w) == hash && wordEquals(w, word)) {
+        return w;
+      }
+    }
+  }
+
+  private boolean wordEquals(int w, String word) {
+    int start = wordStarts.get(w);
+    int length = wordStarts.get(w + 1) - start;
+    if (length != word.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (chars.get(start + i) != word.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String word(int w) {
+    int start = wordStarts.get(w);
+    return chars.subSequence(start, wordStarts.get(w + 1)).toString();
+  }
+
+  /** The class of the word, which must already be lowercased and so on as the lexicon's words are, or null */
+  @Override
+  public String get(Object word) {
+    if ( ! (word instanceof String)) {
+      return null;
+    }
+    int w = find((String) word);
+    return (w < 0) ? null : classes[wordClasses.get(w)];
+  }
+
+  @Override
+  public boolean containsKey(Object word) {
+    return (word instanceof String) && find((String) word) >= 0;
+  }
+
+  @Override
+  public int size() {
+    return numWords;
+  }
+
+  @Override
+  public Set<Entry<String,String>> entrySet() {
+    return new AbstractSet<Entry<String,String>>() {
+      @Override
+      public Iterator<Entry<String,String>> iterator() {
+        return new Iterator<Entry<String,String>>() {
+          private int next = 0;
+
+          @Override
+          public boolean hasNext() {
+            return next < numWords;
+          }
+
+          @Override
+          public Entry<String,String> next() {
+            if (next >= numWords) {
+              throw new NoSuchElementException();
+            }
+            Entry<String,String> entry = new SimpleImmutableEntry<>(word(next), classes[wordClasses.get(next)]);
+            next++;
+            return entry;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return numWords;
+      }
+    };
+  }
+
+  /** Serialized as an ordinary map, so that the file is not needed to read it back */
+  private Object writeReplace() throws ObjectStreamException {
+    return new HashMap<>(this);
+  }
+
+  /**
+   * Writes the lexicon to a file as a compiled lexicon.
+   *
+   * @param lexicon The words, already lowercased and so on, and their classes
+   * @param cased Whether the words were left cased
+   * @param numberEquivalence Whether the words were mapped to their number shapes
+   */
+  public static void write(Map<String,String> lexicon, boolean cased, boolean numberEquivalence, String path) throws IOException {
+    int numWords = lexicon.size();
+    int capacity = 4;
+    while (capacity < numWords * 2) {
+      capacity <<= 1;
+    }
+    int[] slots = new int[capacity];
+    int[] hashes = new int[numWords];
+    int[] wordStarts = new int[numWords + 1];
+    int[] wordClasses = new int[numWords];
+    StringBuilder wordChars = new StringBuilder();
+    Map<String,Integer> classIds = Generics.newHashMap();
+    List<String> classes = new ArrayList<>();
+
+    int w = 0;
+    for (Map.Entry<String,String> entry : lexicon.entrySet()) {
+      String word = entry.getKey();
+      Integer classId = classIds.get(entry.getValue());
+      if (classId == null) {
+        classId = classes.size();
+        classIds.put(entry.getValue(), classId);
+        classes.add(entry.getValue());
+      }
+      hashes[w] = word.hashCode();
+      wordStarts[w] = wordChars.length();
+      wordChars.append(word);
+      wordClasses[w] = classId;
+      int slot = spread(hashes[w]) & (capacity - 1);
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & (capacity - 1);
+      }
+      slots[slot] = w + 1;
+      w++;
+    }
+    wordStarts[numWords] = wordChars.length();
+
+    int[] classStarts = new int[classes.size() + 1];
+    StringBuilder classChars = new StringBuilder();
+    for (int c = 0; c < classes.size(); c++) {
+      classStarts[c] = classChars.length();
+      classChars.append(classes.get(c));
+    }
+    classStarts[classes.size()] = classChars.length();
+
+    long size = 4L * (HEADER_INTS + capacity + numWords * 3L + 1 + classes.size() + 1) +
+      2L * (wordChars.length() + classChars.length());
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("The lexicon is too large to compile: it would take " + size + " bytes");
+    }
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt((cased ? CASED : 0) | (numberEquivalence ? NUMBER_EQUIVALENCE : 0));
+      out.writeInt(numWords);
+      out.writeInt(classes.size());
+      out.writeInt(capacity);
+      out.writeInt(wordChars.length());
+      out.writeInt(classChars.length());
+      writeInts(out, slots);
+      writeInts(out, hashes);
+      writeInts(out, wordStarts);
+      writeInts(out, wordClasses);
+      writeInts(out, classStarts);
+      out.writeChars(wordChars.toString());
+      out.writeChars(classChars.toString());
+    }
+  }
+
+  private static void writeInts(DataOutputStream out, int[] ints) throws IOException {
+    for (int i : ints) {
+      out.writeInt(i);
+    }
+  }
+
+  /**
+   * Compiles a text lexicon.  Options:
+   * <ul>
+   * <li>{@code -input}: the text lexicon</li>
+   * <li>{@code -output}: the compiled lexicon to write</li>
+   * <li>{@code -format}: alexClark (the default) or terryKoo</li>
+   * <li>{@code -encoding}: the encoding of the text lexicon (default utf-8)</li>
+   * <li>{@code -distSimMaxBits}: for terryKoo, how much of each class to keep (default all)</li>
+   * <li>{@code -cased}: keep the case of the words</li>
+   * <li>{@code -numberEquivalence}: store the number shapes of the words</li>
+   * </ul>
+   */
+  public static void main(String[] args) throws IOException {
+    Properties props = StringUtils.argsToProperties(args);
+    String input = props.getProperty("input");
+    String output = props.getProperty("output");
+    if (input == null || output == null) {
+      System.err.println("Usage: java " + CompiledLexicon.class.getName() +
+                         " -input lexicon -output compiledLexicon [-format alexClark|terryKoo] [-encoding utf-8]" +
+                         " [-distSimMaxBits n] [-cased] [-numberEquivalence]");
+      System.exit(1);
+    }
+    boolean cased = PropertiesUtils.getBool(props, "cased", false);
+    boolean numberEquivalence = PropertiesUtils.getBool(props, "numberEquivalence", false);
+    Map<String,String> lexicon = DistSimClassifier.readLexicon(input, props.getProperty("format", "alexClark"),
+                                                               props.getProperty("encoding", "utf-8"),
+                                                               PropertiesUtils.getInt(props, "distSimMaxBits", -1),
+                                                               cased, numberEquivalence);
+    Timing.startDoing("Writing compiled lexicon to " + output);
+    write(lexicon, cased, numberEquivalence, output);
+    Timing.endDoing();
+  }
+
+  private static final long serialVersionUID = 1L;
+
+}
@@ -31,6 +31,11 @@ public class DistSimClassifier implements Serializable {
     this(filename, "alexClark", "utf-8", -1, cased, numberEquivalence, unknownWordClass);
   }
 
+  /**
+   * If the file is a {@link CompiledLexicon}, it is shared with everything
+   * else using it, and the format, encoding and distSimMaxBits it was
+   * compiled with apply rather than these.
+   */
   public DistSimClassifier(String filename, String format, String encoding,
                            int distSimMaxBits,
                            boolean cased, boolean numberEquivalence,
@@ -38,8 +43,30 @@ public class DistSimClassifier implements Serializable {
     this.cased = cased;
     this.numberEquivalence = numberEquivalence;
     this.unknownWordClass = unknownWordClass;
+    if (CompiledLexicon.isCompiled(filename)) {
+      CompiledLexicon compiled = CompiledLexicon.load(filename);
+      compiled.checkOptions(cased, numberEquivalence);
+      lexicon = compiled;
+    } else {
+      lexicon = readLexicon(filename, format, encoding, distSimMaxBits, cased, numberEquivalence);
+    }
+  }
+
+  /**
+   * Reads a text distsim lexicon, with each word lowercased (unless
+   * cased) and mapped to its number shape (if numberEquivalence), as
+   * {@link #distSimClass} looks it up.
+   *
+   * @param format "alexClark" (word then class, separated by whitespace) or
+   *               "terryKoo" (class, tab, word)
+   * @param distSimMaxBits For terryKoo, how many characters of the class to
+   *                       keep, or -1 for all of them
+   */
+  public static Map<String,String> readLexicon(String filename, String format, String encoding,
+                                               int distSimMaxBits,
+                                               boolean cased, boolean numberEquivalence) {
     Timing.startDoing("Loading distsim lexicon from " + filename);
-    lexicon = Generics.newHashMap(1 << 15);  // make a reasonable starting size
+    Map<String,String> lexicon = Generics.newHashMap(1 << 15);  // make a reasonable starting size
     boolean terryKoo = "terryKoo".equals(format);
     for (String line : ObjectBank.getLineIterator(filename, encoding)) {
       String word;
@@ -66,6 +93,7 @@ public class DistSimClassifier implements Serializable {
       lexicon.put(word, wordClass);
     }
     Timing.endDoing();
+    return lexicon;
   }
 
 
@@ -41,7 +41,10 @@ import java.util.function.Function;
  * you can do to get around this is build a new Morphology object for
  * each set of calls to the Morphology.  For example, the
  * MorphaAnnotator builds a Morphology for each document it annotates.
- * The other approach is to use the synchronized methods in this class.
+ * The other approach is to use the static methods {@link #lemmaCached}
+ * and {@link #stemCached}, which any number of threads may call at once:
+ * they give each thread its own lexer, and remember recent lemmas in a
+ * cache shared by all threads, without locking.
  * <br>
  * @author Kristina Toutanova (kristina@cs.stanford.edu)
  * @author Christopher Manning
@@ -51,7 +54,41 @@ public class Morphology implements Function {
   private static final Logger LOGGER = Logger.getLogger(Morphology.class.getName());
 
   private static final boolean DEBUG = false;
-  private static Morpha staticLexer;
+  private static volatile Morpha staticLexer;
+
+  /** The lexers used by the cached methods, one per thread */
+  private static final ThreadLocal<Morpha> threadLexer = ThreadLocal.withInitial(() -> new Morpha(System.in));
+
+  /** The number of lemmas kept by the cached methods; a power of 2 */
+  private static final int LEMMA_CACHE_SIZE = 1 << 16;
+
+  /**
+   * The lemmas remembered by the cached methods.  Each lemma has one place
+   * it may be kept, by the hash of its word and tag, and replaces whatever
+   * was there.  Entries are immutable, so threads may read and replace them
+   * without locking: at worst a thread does not see a lemma just added by
+   * another thread, and works it out again.
+   */
+  private static final LemmaCacheEntry[] lemmaCache = new LemmaCacheEntry[LEMMA_CACHE_SIZE];
+
+  /** How a cached lemma was worked out, which is part of its key */
+  private static final int LEMMA = 0, LEMMA_LOWERCASE = 1, STEM = 2;
+
+  private static class LemmaCacheEntry {
+    final String word;
+    /** The tag, or null for a word stemmed without a tag */
+    final String tag;
+    /** One of LEMMA, LEMMA_LOWERCASE or STEM */
+    final int kind;
+    final String lemma;
+
+    LemmaCacheEntry(String word, String tag, int kind, String lemma) {
+      this.word = word;
+      this.tag = tag;
+      this.kind = kind;
+      this.lemma = lemma;
+    }
+  }
 
   private final Morpha lexer;
 
@@ -93,6 +130,10 @@ public class Morphology implements Function {
   }
 
   public String stem(String word) {
+    return stem(word, lexer);
+  }
+
+  private static String stem(String word, Morpha lexer) {
     try {
       lexer.yyreset(new StringReader(word));
       lexer.yybegin(Morpha.any);
@@ -191,16 +232,88 @@ public class Morphology implements Function {
 
 
 
-  public static synchronized WordTag stemStaticSynchronized(String word,
-                                                            String tag) {
-    return stemStatic(word, tag);
+  /**
+   * As {@link #stemStatic(String, String)}, but safe to call from several
+   * threads at once.  Like it, words are lowercased unless the option of
+   * the static lexer has been turned off by {@link #lemmaStatic}.
+   */
+  public static WordTag stemStaticSynchronized(String word,
+                                               String tag) {
+    Morpha lexer = staticLexer;
+    boolean lowercase = lexer == null || lexer.option(1);
+    return new WordTag(lemmaCached(word, tag, lowercase), tag);
+  }
+
+
+  /** As {@link #lemmaStatic}, but safe to call from several threads at once. */
+  public static String lemmaStaticSynchronized(String word,
+                                               String tag,
+                                               boolean lowercase) {
+    return lemmaCached(word, tag, lowercase);
+  }
+
+  private static int lemmaCacheIndex(String word, String tag, int kind) {
+    int hash = word.hashCode() * 31 + (tag == null ? 0 : tag.hashCode());
+    hash = hash * 3 + kind;
+    hash *= 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & (LEMMA_CACHE_SIZE - 1);
+  }
+
+  /** The cached lemma of the word with this tag (null to stem it without one), or null */
+  private static String cachedLemma(int index, String word, String tag, int kind) {
+    LemmaCacheEntry entry = lemmaCache[index];
+    if (entry != null && entry.kind == kind && entry.word.equals(word)
+        && (tag == null ? entry.tag == null : tag.equals(entry.tag))) {
+      return entry.lemma;
+    }
+    return null;
+  }
+
+  /**
+   * Lemmatize the word, being sensitive to the tag, as
+   * {@link #lemma(String, String, boolean)} does.  Any number of threads
+   * may call this at once: each has its own lexer, and the lemmas of
+   * recently seen words are shared between threads in a cache of bounded
+   * size, without locking.  Since most tokens are common words, nearly all
+   * lemmas come from the cache.
+   *
+   * @param lowercase If this is true, words other than proper nouns will
+   *      be changed to all lowercase.
+   */
+  public static String lemmaCached(String word, String tag, boolean lowercase) {
+    int kind = lowercase ? LEMMA_LOWERCASE : LEMMA;
+    int index = lemmaCacheIndex(word, tag, kind);
+    String lemma = cachedLemma(index, word, tag, kind);
+    if (lemma == null) {
+      lemma = lemmatize(word, tag, threadLexer.get(), lowercase);
+      lemmaCache[index] = new LemmaCacheEntry(word, tag, kind, lemma);
+    }
+    return lemma;
   }
 
+  /**
+   * Lemmatize the word as {@link #lemma(String, String)} does, changing
+   * words other than proper nouns to lowercase, in the same way as
+   * {@link #lemmaCached(String, String, boolean)}.
+   */
+  public static String lemmaCached(String word, String tag) {
+    return lemmaCached(word, tag, true);
+  }
 
-  public static synchronized String lemmaStaticSynchronized(String word,
-                                                            String tag,
-                                                            boolean lowercase) {
-    return lemmaStatic(word, tag, lowercase);
+  /**
+   * Stem the word without a tag, as {@link #stem(String)} does, in the
+   * same way as {@link #lemmaCached(String, String, boolean)}.
+   */
+  public static String stemCached(String word) {
+    int index = lemmaCacheIndex(word, null, STEM);
+    String lemma = cachedLemma(index, word, null, STEM);
+    if (lemma == null) {
+      Morpha lexer = threadLexer.get();
+      lexer.setOption(1, true); // lemmaCached may have changed it
+      lemma = stem(word, lexer);
+      lemmaCache[index] = new LemmaCacheEntry(word, null, STEM, lemma);
+    }
+    return lemma;
   }
 
   /** Return a new WordTag which has the lemma as the value of word().
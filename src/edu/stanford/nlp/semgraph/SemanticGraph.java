@@ -1,6 +1,7 @@
 package edu.stanford.nlp.semgraph;
 
 import edu.stanford.nlp.graph.DirectedMultiGraph;
+import edu.stanford.nlp.graph.FrozenDirectedMultiGraph;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.IndexedWord;
@@ -64,7 +65,12 @@ public class SemanticGraph implements Serializable {
    */
   private final Collection<IndexedWord> roots;
 
-  private final DirectedMultiGraph<IndexedWord, SemanticGraphEdge> graph;
+  /**
+   * The vertices and edges, either an ordinary DirectedMultiGraph or,
+   * once the graph is {@link #freeze() frozen}, a compact read-only copy
+   * of one.  Anything which changes a frozen graph first copies it back.
+   */
+  private DirectedMultiGraph<IndexedWord, SemanticGraphEdge> graph;
 
   private static final MapFactory<IndexedWord, Map<IndexedWord, List<SemanticGraphEdge>>> outerMapFactory = MapFactory.hashMapFactory();
   private static final MapFactory<IndexedWord, List<SemanticGraphEdge>> innerMapFactory = MapFactory.hashMapFactory();
@@ -99,7 +105,10 @@ public class SemanticGraph implements Serializable {
   }
 
   public void addVertex(IndexedWord vertex) {
-    graph.addVertex(vertex);
+    if (isFrozen() && graph.containsVertex(vertex)) {
+      return;
+    }
+    mutableGraph().addVertex(vertex);
   }
 
   public boolean containsVertex(IndexedWord vertex) {
@@ -119,11 +128,48 @@ public class SemanticGraph implements Serializable {
   }
 
   public boolean removeEdge(SemanticGraphEdge e) {
-    return graph.removeEdge(e.getSource(), e.getTarget(), e);
+    if (isFrozen() && ! graph.getEdges(e.getSource(), e.getTarget()).contains(e)) {
+      return false;
+    }
+    return mutableGraph().removeEdge(e.getSource(), e.getTarget(), e);
   }
 
   public boolean removeVertex(IndexedWord vertex) {
-    return graph.removeVertex(vertex);
+    if (isFrozen() && ! graph.containsVertex(vertex)) {
+      return false;
+    }
+    return mutableGraph().removeVertex(vertex);
+  }
+
+  /**
+   * Switches the graph to a compact, read-only representation: the
+   * vertices in an array found by hashing their indices, and the edges of
+   * each vertex in ranges of shared arrays, rather than maps of lists.
+   * This saves most of the memory of the graph and makes walking its
+   * edges (as Semgrex does) faster.  The graph can still be changed
+   * afterwards, but the first change copies it back to the ordinary
+   * representation, so a graph should be frozen once it is built.
+   * Copies of a frozen graph share its representation.
+   *
+   * @see FrozenDirectedMultiGraph
+   */
+  public void freeze() {
+    if ( ! isFrozen()) {
+      graph = new FrozenDirectedMultiGraph<>(graph);
+    }
+  }
+
+  /** Whether the graph is in the compact representation made by {@link #freeze()} */
+  public boolean isFrozen() {
+    return graph instanceof FrozenDirectedMultiGraph;
+  }
+
+  /** The graph, copied back to the ordinary representation if it was frozen, so that it can be changed */
+  private DirectedMultiGraph<IndexedWord, SemanticGraphEdge> mutableGraph() {
+    if (isFrozen()) {
+      graph = new DirectedMultiGraph<>(graph);
+    }
+    return graph;
   }
 
   /**
@@ -156,6 +202,34 @@ public class SemanticGraph implements Serializable {
   }
 
   public Iterable<SemanticGraphEdge> edgeIterable() {
+    if (isFrozen()) {
+      // the iterators of a frozen graph cannot remove edges, so remove them from the graph instead
+      final Iterable<SemanticGraphEdge> edges = graph.edgeIterable();
+      return () -> new Iterator<SemanticGraphEdge>() {
+        private final Iterator<SemanticGraphEdge> iterator = edges.iterator();
+        private SemanticGraphEdge last; // = null
+
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public SemanticGraphEdge next() {
+          last = iterator.next();
+          return last;
+        }
+
+        @Override
+        public void remove() {
+          if (last == null) {
+            throw new IllegalStateException();
+          }
+          removeEdge(last);
+          last = null;
+        }
+      };
+    }
     return graph.edgeIterable();
   }
 
@@ -1607,7 +1681,7 @@ public class SemanticGraph implements Serializable {
 
   public SemanticGraphEdge addEdge(IndexedWord s, IndexedWord d, GrammaticalRelation reln, double weight, boolean isExtra) {
     SemanticGraphEdge newEdge = new SemanticGraphEdge(s, d, reln, weight, isExtra);
-    graph.add(s, d, newEdge);
+    mutableGraph().add(s, d, newEdge);
     return newEdge;
   }
 
@@ -1638,7 +1712,8 @@ public class SemanticGraph implements Serializable {
    * are copied.
    */
   public SemanticGraph(SemanticGraph g) {
-    graph = new DirectedMultiGraph<>(g.graph);
+    // a frozen graph can't change, so the copy can share it
+    graph = g.isFrozen() ? g.graph : new DirectedMultiGraph<>(g.graph);
     roots = wordMapFactory.newSet(g.roots);
   }
 
@@ -195,7 +195,10 @@ public class SemanticGraphFactory {
     // See also the SemanticGraph constructor.
 
     //System.err.println(deps.toString());
-    return new SemanticGraph(deps);
+    SemanticGraph sg = new SemanticGraph(deps);
+    // most graphs are only read once built, so keep them compactly
+    sg.freeze();
+    return sg;
   }
 
 
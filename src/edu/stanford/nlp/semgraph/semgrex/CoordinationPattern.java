@@ -4,6 +4,8 @@ import java.util.*;
 
 import edu.stanford.nlp.ling.IndexedWord;
 import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.Pair;
 
 /** @author Chloe Kiddon */
 public class CoordinationPattern extends SemgrexPattern {
@@ -12,6 +14,7 @@ public class CoordinationPattern extends SemgrexPattern {
    * 
    */
   private static final long serialVersionUID = -3122330899634961002L;
+  private static final int MAX_REQUIRED_LITERAL_SETS = 16;
   private boolean isConj;
   private boolean isNodeCoord;
   private List<SemgrexPattern> children;
@@ -58,6 +61,52 @@ public class CoordinationPattern extends SemgrexPattern {
     return children;
   }
 
+  @Override
+  List<Set<Pair<Class<?>, String>>> requiredLiterals() {
+    if (isNegated() || isOptional()) {
+      return Collections.emptyList();
+    }
+    if (isConj) {
+      List<Set<Pair<Class<?>, String>>> required = new ArrayList<Set<Pair<Class<?>, String>>>();
+      for (SemgrexPattern child : children) {
+        required.addAll(child.requiredLiterals());
+      }
+      return required;
+    }
+    // one of the disjuncts has to match, so taking any one of the sets
+    // each disjunct requires, one of the literals of their union has to
+    // be there.  Every such union is required, up to a limit.
+    List<Set<Pair<Class<?>, String>>> required = Collections.singletonList(Collections.<Pair<Class<?>, String>>emptySet());
+    for (SemgrexPattern child : children) {
+      List<Set<Pair<Class<?>, String>>> childRequired = child.requiredLiterals();
+      if (childRequired.isEmpty()) {
+        return Collections.emptyList();
+      }
+      if (required.size() * childRequired.size() > MAX_REQUIRED_LITERAL_SETS) {
+        childRequired = childRequired.subList(0, 1);
+      }
+      List<Set<Pair<Class<?>, String>>> unions = new ArrayList<Set<Pair<Class<?>, String>>>();
+      for (Set<Pair<Class<?>, String>> literals : required) {
+        for (Set<Pair<Class<?>, String>> childLiterals : childRequired) {
+          Set<Pair<Class<?>, String>> union = Generics.newHashSet(literals);
+          union.addAll(childLiterals);
+          unions.add(union);
+        }
+      }
+      required = unions;
+    }
+    return required;
+  }
+
+  @Override
+  Pair<Class<?>, String> rootLiteral() {
+    // the first node of a conjunction of whole patterns, "A : B", is the root
+    if ( ! isConj || isNegated() || isOptional()) {
+      return null;
+    }
+    return children.get(0).rootLiteral();
+  }
+
   @Override
   public String localString() {
     StringBuilder sb = new StringBuilder();
@@ -87,6 +87,22 @@ abstract class GraphRelation implements Serializable {
     if (name == null || name == "") return null;
     return name;
   }
+
+  /**
+   * The relation name some edge of a graph must have for this relation
+   * to hold anywhere in it, or null if there is no such name.
+   */
+  String requiredEdgeType() {
+    return null;
+  }
+
+  /** The relation type, if it is written as a literal rather than a regex */
+  String literalType() {
+    if (rawType == null || rawType.equals("") || rawType.matches("/.*/")) {
+      return null;
+    }
+    return rawType;
+  }
 	
 
   // ALIGNMENT graph relation: "@" ==============================================
@@ -239,13 +255,17 @@ abstract class GraphRelation implements Serializable {
     GOVERNER(String reln, String name) {
       super(">", reln, name);
     }
+
+    @Override
+    String requiredEdgeType() {
+      return literalType();
+    }
 		  
     @Override
     boolean satisfies(IndexedWord l1, IndexedWord l2, SemanticGraph sg) {
-      List<Pair<GrammaticalRelation, IndexedWord>> deps = sg.childPairs(l1);
-      for (Pair<GrammaticalRelation, IndexedWord> dep : deps) {
-        if (this.type.test(dep.first().toString()) &&
-            dep.second().equals(l2)) {
+      for (SemanticGraphEdge edge : sg.outgoingEdgeIterable(l1)) {
+        if (this.type.test(edge.getRelation().toString()) &&
+            edge.getTarget().equals(l2)) {
           return true;  
         }
       }
@@ -292,14 +312,18 @@ abstract class GraphRelation implements Serializable {
       super("<", reln, name);
     }
 
+    @Override
+    String requiredEdgeType() {
+      return literalType();
+    }
+
     @Override
     boolean satisfies(IndexedWord l1, IndexedWord l2, SemanticGraph sg) {
       if (l1.equals(IndexedWord.NO_WORD) || l2.equals(IndexedWord.NO_WORD) ) 
         return false;
-      List<Pair<GrammaticalRelation, IndexedWord>> govs = sg.parentPairs(l1);
-      for (Pair<GrammaticalRelation, IndexedWord> gov : govs) {
-        if (this.type.test(gov.first().toString()) &&
-            gov.second().equals(l2)) return true;  
+      for (SemanticGraphEdge edge : sg.incomingEdgeIterable(l1)) {
+        if (this.type.test(edge.getRelation().toString()) &&
+            edge.getSource().equals(l2)) return true;  
       }
       return false;
     }
@@ -307,13 +331,7 @@ abstract class GraphRelation implements Serializable {
     @Override
     Iterator<IndexedWord> searchNodeIterator(final IndexedWord node, final SemanticGraph sg) {
       return new SearchNodeIterator() {
-          int nextNum; // subtle bug warning here: if we use int nextNum=0;
-
-          // instead,
-
-          // we get the first daughter twice because the assignment occurs after
-          // advance() has already been
-          // called once by the constructor of SearchNodeIterator.
+          Iterator<SemanticGraphEdge> iterator;
 
           @Override
           public void advance() {
@@ -321,17 +339,19 @@ abstract class GraphRelation implements Serializable {
               next = null;
               return;
             }
-            List<Pair<GrammaticalRelation, IndexedWord>> govs = sg.parentPairs(node);
-            while (nextNum < govs.size() && !type.test(govs.get(nextNum).first().toString())) {
-              nextNum++;
+            if (iterator == null) {
+              iterator = sg.incomingEdgeIterator(node);
             }
-            if (nextNum < govs.size()) {
-              next = govs.get(nextNum).second();
-              relation = govs.get(nextNum).first().toString();
-              nextNum++;
-            } else {
-              next = null;
+            while (iterator.hasNext()) {
+              SemanticGraphEdge edge = iterator.next();
+              relation = edge.getRelation().toString();
+              if (!type.test(relation)) {
+                continue;
+              }
+              this.next = edge.getSource();
+              return;
             }
+            this.next = null;
           }
         };
     }
@@ -350,6 +370,11 @@ abstract class GraphRelation implements Serializable {
       this.startDepth = startDepth;
       this.endDepth = endDepth;
     }
+
+    @Override
+    String requiredEdgeType() {
+      return literalType();
+    }
 		  
     @Override
     boolean satisfies(IndexedWord l1, IndexedWord l2, SemanticGraph sg) {
@@ -367,23 +392,22 @@ abstract class GraphRelation implements Serializable {
                                   SemanticGraph sg,
                                   int depth,
 				  List<Set<IndexedWord>> usedNodes) {
-      List<Pair<GrammaticalRelation, IndexedWord>> deps = sg.childPairs(parent);
       if (depth + 1 > endDepth) {
         return false;
       }
       if (depth + 1 >= startDepth) {
-        for (Pair<GrammaticalRelation, IndexedWord> dep : deps) {
-          if (this.type.test(dep.first().toString()) &&
-              dep.second().equals(l2)) return true;  
+        for (SemanticGraphEdge edge : sg.outgoingEdgeIterable(parent)) {
+          if (this.type.test(edge.getRelation().toString()) &&
+              edge.getTarget().equals(l2)) return true;  
         }
       }
       
       usedNodes.get(depth).add(parent);
       	      
-      for (Pair<GrammaticalRelation, IndexedWord> dep : deps) {
+      for (SemanticGraphEdge edge : sg.outgoingEdgeIterable(parent)) {
         if ((usedNodes.size() < depth + 1 || 
-             !usedNodes.get(depth + 1).contains(dep.second())) && 
-            satisfyHelper(dep.second(), l2, sg, depth + 1, usedNodes))
+             !usedNodes.get(depth + 1).contains(edge.getTarget())) && 
+            satisfyHelper(edge.getTarget(), l2, sg, depth + 1, usedNodes))
           return true;
       }
       return false;
@@ -490,7 +514,10 @@ abstract class GraphRelation implements Serializable {
       super(symbol, reln, name);
     }
 
-    abstract List<Pair<GrammaticalRelation, IndexedWord>> getNeighborPairs(SemanticGraph sg, IndexedWord node);
+    @Override
+    String requiredEdgeType() {
+      return literalType();
+    }
 
     abstract Iterator<SemanticGraphEdge> neighborIterator(SemanticGraph sg, IndexedWord search);
 
@@ -503,16 +530,17 @@ abstract class GraphRelation implements Serializable {
 			  
     private boolean satisfyHelper(IndexedWord node, IndexedWord l2, SemanticGraph sg,
                                   Set<IndexedWord> usedNodes) {
-      List<Pair<GrammaticalRelation, IndexedWord>> govs = getNeighborPairs(sg, node);
-      for (Pair<GrammaticalRelation, IndexedWord> gov : govs) {
-        if (this.type.test(gov.first().toString()) &&
-            gov.second().equals(l2)) return true;  
+      for (Iterator<SemanticGraphEdge> it = neighborIterator(sg, node); it.hasNext(); ) {
+        SemanticGraphEdge edge = it.next();
+        if (this.type.test(edge.getRelation().toString()) &&
+            followEdge(edge).equals(l2)) return true;  
       }
 			      
       usedNodes.add(node);
 			      
-      for (Pair<GrammaticalRelation, IndexedWord> gov : govs) {
-        if (!usedNodes.contains(gov.second()) && satisfyHelper(gov.second(), l2, sg, usedNodes))
+      for (Iterator<SemanticGraphEdge> it = neighborIterator(sg, node); it.hasNext(); ) {
+        IndexedWord other = followEdge(it.next());
+        if (!usedNodes.contains(other) && satisfyHelper(other, l2, sg, usedNodes))
           return true;
       }
       return false;
@@ -586,11 +614,6 @@ abstract class GraphRelation implements Serializable {
       super(">>", reln, name);
     }
 
-    @Override
-    List<Pair<GrammaticalRelation, IndexedWord>> getNeighborPairs(SemanticGraph sg, IndexedWord node) {
-      return sg.childPairs(node);
-    }
-
     @Override
     Iterator<SemanticGraphEdge> neighborIterator(SemanticGraph sg, IndexedWord search) {
       return sg.outgoingEdgeIterator(search);
@@ -612,11 +635,6 @@ abstract class GraphRelation implements Serializable {
       super("<<", reln, name);
     }
 
-    @Override
-    List<Pair<GrammaticalRelation, IndexedWord>> getNeighborPairs(SemanticGraph sg, IndexedWord node) {
-      return sg.parentPairs(node);
-    }
-
     @Override
     Iterator<SemanticGraphEdge> neighborIterator(SemanticGraph sg, IndexedWord search) {
       return sg.incomingEdgeIterator(search);
@@ -641,6 +659,11 @@ abstract class GraphRelation implements Serializable {
       this.startDepth = startDepth;
       this.endDepth = endDepth;
     }
+
+    @Override
+    String requiredEdgeType() {
+      return literalType();
+    }
 		  
     @Override
     boolean satisfies(IndexedWord l1, IndexedWord l2, SemanticGraph sg) {
@@ -658,23 +681,22 @@ abstract class GraphRelation implements Serializable {
                                   SemanticGraph sg,
                                   int depth,
 				  List<Set<IndexedWord>> usedNodes) {
-      List<Pair<GrammaticalRelation, IndexedWord>> deps = sg.parentPairs(child);
       if (depth + 1 > endDepth) {
         return false;
       }
       if (depth + 1 >= startDepth) {
-        for (Pair<GrammaticalRelation, IndexedWord> dep : deps) {
-          if (this.type.test(dep.first().toString()) &&
-              dep.second().equals(l2)) return true;  
+        for (SemanticGraphEdge edge : sg.incomingEdgeIterable(child)) {
+          if (this.type.test(edge.getRelation().toString()) &&
+              edge.getSource().equals(l2)) return true;  
         }
       }
       
       usedNodes.get(depth).add(child);
       	      
-      for (Pair<GrammaticalRelation, IndexedWord> dep : deps) {
+      for (SemanticGraphEdge edge : sg.incomingEdgeIterable(child)) {
         if ((usedNodes.size() < depth + 1 || 
-             !usedNodes.get(depth + 1).contains(dep.second())) && 
-            satisfyHelper(dep.second(), l2, sg, depth + 1, usedNodes))
+             !usedNodes.get(depth + 1).contains(edge.getSource())) && 
+            satisfyHelper(edge.getSource(), l2, sg, depth + 1, usedNodes))
           return true;
       }
       return false;
@@ -1,16 +1,20 @@
 package edu.stanford.nlp.semgraph.semgrex;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import edu.stanford.nlp.ling.AnnotationLookup;
 import edu.stanford.nlp.ling.IndexedWord;
 import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphEdge;
 import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.Pair;
 
@@ -20,6 +24,8 @@ public class NodePattern extends SemgrexPattern {
   private GraphRelation reln;
   private boolean negDesc;
   private Map<String, Pattern> attributes;
+  /** The attributes, compiled for matching */
+  private transient List<AttributeTest> attributeTests;
   private boolean isRoot;
   private boolean isLink;
   private boolean isEmpty;
@@ -66,6 +72,7 @@ public class NodePattern extends SemgrexPattern {
     else if (empty)
       descString += "#";
     descString += '}';
+    attributeTests = compileAttributes(attributes);
 
     this.name = name;
     this.child = null;
@@ -84,40 +91,12 @@ public class NodePattern extends SemgrexPattern {
     if (isEmpty)
       return (negDesc ? !node.equals(IndexedWord.NO_WORD) : node.equals(IndexedWord.NO_WORD));
 
-    // System.err.println("Attributes are: " + attributes);
-    for (Map.Entry<String, Pattern> attr : attributes.entrySet()) {
-      String key = attr.getKey();
-      // System.out.println(key);
-      String nodeValue;
-      // if (key.equals("idx"))
-      // nodeValue = Integer.toString(node.index());
-      // else {
-
-      Class c = Env.lookupAnnotationKey(env, key);
-      //find class for the key
-
+    for (AttributeTest test : attributeTests) {
+      Class c = annotation(test);
       Object value = node.get(c);
       if (value == null)
-        nodeValue = null;
-      else
-        nodeValue = value.toString();
-      // }
-      // System.out.println(nodeValue);
-      if (nodeValue == null)
         return negDesc;
-      Pattern valuePattern = attr.getValue();
-      boolean matches = false;
-      if (ignoreCase) {
-        if (Pattern.compile(valuePattern.pattern(), Pattern.CASE_INSENSITIVE).matcher(nodeValue).matches())
-          matches = true;
-      } else {
-        if (nodeValue.matches(valuePattern.pattern()))
-          matches = true;
-      }
-      if (!matches) {
-
-        // System.out.println("doesnt match");
-        // System.out.println("");
+      if (!test.matches(value.toString(), ignoreCase)) {
         return negDesc;
       }
     }
@@ -126,6 +105,111 @@ public class NodePattern extends SemgrexPattern {
     return !negDesc;
   }
 
+  /**
+   * A test of one attribute of a node.  A value written without regular
+   * expression syntax, such as {@code {word:dog}}, is compared to the
+   * node's value directly, and the annotation class of the key is looked
+   * up once, here, rather than for each node.
+   */
+  private static class AttributeTest {
+    private static final Pattern REGEX_CHARS = Pattern.compile("[\\\\.\\[\\]{}()*+?^$|]");
+
+    final String key;
+    /** The annotation class for the key, when the pattern has no Env */
+    final Class<?> annotation;
+    /** The value a node must have, or null if it is matched with the pattern */
+    final String literal;
+    final Pattern pattern;
+    final Pattern caselessPattern;
+
+    AttributeTest(String key, Pattern pattern) {
+      this.key = key;
+      this.annotation = Env.lookupAnnotationKey(null, key);
+      this.pattern = pattern;
+      this.caselessPattern = Pattern.compile(pattern.pattern(), Pattern.CASE_INSENSITIVE);
+      String regex = pattern.pattern();
+      if (regex.startsWith("^(") && regex.endsWith(")$") &&
+          !REGEX_CHARS.matcher(regex.substring(2, regex.length() - 2)).find()) {
+        literal = regex.substring(2, regex.length() - 2);
+      } else {
+        literal = null;
+      }
+    }
+
+    boolean matches(String value, boolean ignoreCase) {
+      if (ignoreCase) {
+        return caselessPattern.matcher(value).matches();
+      } else if (literal != null) {
+        return literal.equals(value);
+      } else {
+        return pattern.matcher(value).matches();
+      }
+    }
+  }
+
+  private static List<AttributeTest> compileAttributes(Map<String, Pattern> attributes) {
+    List<AttributeTest> tests = new ArrayList<AttributeTest>(attributes.size());
+    for (Map.Entry<String, Pattern> attr : attributes.entrySet()) {
+      tests.add(new AttributeTest(attr.getKey(), attr.getValue()));
+    }
+    return tests;
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    attributeTests = compileAttributes(attributes);
+  }
+
+  /** The annotation class for the key of a test, found in the Env if there is one */
+  private Class<?> annotation(AttributeTest test) {
+    return (env == null) ? test.annotation : Env.lookupAnnotationKey(env, test.key);
+  }
+
+  /** Whether every node this pattern matches must pass its attribute tests */
+  private boolean hasLiteralDescription() {
+    return !isNegated() && !isOptional() && !negDesc && !isRoot && !isEmpty &&
+           reln != GraphRelation.ALIGNED_ROOT && !(reln instanceof GraphRelation.ALIGNMENT);
+  }
+
+  @Override
+  List<Set<Pair<Class<?>, String>>> requiredLiterals() {
+    if (isNegated() || isOptional() ||
+        reln == GraphRelation.ALIGNED_ROOT || reln instanceof GraphRelation.ALIGNMENT) {
+      return Collections.emptyList();
+    }
+    List<Set<Pair<Class<?>, String>>> required = new ArrayList<Set<Pair<Class<?>, String>>>();
+    if (hasLiteralDescription()) {
+      for (AttributeTest test : attributeTests) {
+        Class<?> c = annotation(test);
+        if (test.literal != null && c != null) {
+          required.add(Collections.singleton(new Pair<Class<?>, String>(c, test.literal)));
+        }
+      }
+    }
+    String edgeType = reln.requiredEdgeType();
+    if (edgeType != null) {
+      required.add(Collections.singleton(new Pair<Class<?>, String>(SemanticGraphEdge.class, edgeType)));
+    }
+    if (child != null) {
+      required.addAll(child.requiredLiterals());
+    }
+    return required;
+  }
+
+  @Override
+  Pair<Class<?>, String> rootLiteral() {
+    if (reln != GraphRelation.ROOT || !hasLiteralDescription()) {
+      return null;
+    }
+    for (AttributeTest test : attributeTests) {
+      Class<?> c = annotation(test);
+      if (test.literal != null && c != null) {
+        return new Pair<Class<?>, String>(c, test.literal);
+      }
+    }
+    return null;
+  }
+
   public void makeLink() {
     isLink = true;
   }
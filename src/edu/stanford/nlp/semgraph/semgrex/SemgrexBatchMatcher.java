@@ -0,0 +1,253 @@
+package edu.stanford.nlp.semgraph.semgrex;
+
+import java.util.*;
+
+import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphEdge;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.Pair;
+import edu.stanford.nlp.util.concurrent.MulticoreWrapper;
+import edu.stanford.nlp.util.concurrent.ThreadsafeProcessor;
+
+/**
+ * Matches many {@link SemgrexPattern}s, such as those read by
+ * {@link SemgrexBatchParser}, against the same graphs.
+ * <br>
+ * Each graph is indexed once, by the attribute values of its nodes which
+ * the patterns test and by the relation names of its edges.  A pattern
+ * is only tried on a graph which has the literals the pattern requires
+ * (for example, {@code {lemma:eat} >dobj {tag:NN}} needs a node with
+ * lemma "eat", a node tagged NN and a dobj edge), and if the root node
+ * of the pattern has a literal attribute, {@link SemgrexMatcher#find()}
+ * only tries the nodes with that value.  Regular expressions, negated
+ * and optional nodes and so on are simply tried everywhere, as usual,
+ * so the matches are always exactly those of matching each pattern on
+ * its own, in the same order.
+ * <br>
+ * Matching is case sensitive.  A batch matcher may be shared by any
+ * number of threads.
+ */
+public class SemgrexBatchMatcher {
+
+  private final List<SemgrexPattern> patterns;
+
+  /** For each pattern, the literal sets of which a graph must have one of each */
+  private final List<List<Set<Pair<Class<?>, String>>>> requiredLiterals;
+  /** For each pattern, the literal the node a match starts at must have, or null */
+  private final List<Pair<Class<?>, String>> rootLiterals;
+  /** The node annotations some pattern needs indexed */
+  private final Set<Class<?>> annotations;
+
+  public SemgrexBatchMatcher(List<SemgrexPattern> patterns) {
+    this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+    requiredLiterals = new ArrayList<>(patterns.size());
+    rootLiterals = new ArrayList<>(patterns.size());
+    annotations = Generics.newHashSet();
+    for (SemgrexPattern pattern : patterns) {
+      List<Set<Pair<Class<?>, String>>> required = pattern.requiredLiterals();
+      requiredLiterals.add(required);
+      for (Set<Pair<Class<?>, String>> literals : required) {
+        for (Pair<Class<?>, String> literal : literals) {
+          annotations.add(literal.first());
+        }
+      }
+      Pair<Class<?>, String> root = pattern.rootLiteral();
+      rootLiterals.add(root);
+      if (root != null) {
+        annotations.add(root.first());
+      }
+    }
+    annotations.remove(SemanticGraphEdge.class);
+  }
+
+  public List<SemgrexPattern> patterns() {
+    return patterns;
+  }
+
+  public int size() {
+    return patterns.size();
+  }
+
+  /** Indexes a graph for matching.  The index is no longer valid once the graph is changed. */
+  public GraphIndex index(SemanticGraph sg) {
+    return new GraphIndex(sg, annotations);
+  }
+
+  /**
+   * Whether the pattern could match the indexed graph.  If not, it
+   * certainly does not; if so, it still may not.
+   *
+   * @param pattern The index of the pattern in this batch
+   */
+  public boolean mightMatch(int pattern, GraphIndex index) {
+    for (Set<Pair<Class<?>, String>> literals : requiredLiterals.get(pattern)) {
+      if ( ! index.hasAnyLiteral(literals)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A matcher for one of the patterns on the indexed graph, whose
+   * {@link SemgrexMatcher#find()} only tries the nodes where the pattern
+   * could match.  It finds the same matches as the pattern's own matcher
+   * would.  (After a {@link SemgrexMatcher#reset()}, it tries every node.)
+   *
+   * @param pattern The index of the pattern in this batch
+   */
+  public SemgrexMatcher matcher(int pattern, GraphIndex index) {
+    SemgrexMatcher matcher = patterns.get(pattern).matcher(index.sg);
+    if ( ! mightMatch(pattern, index)) {
+      matcher.findIterator = Collections.emptyIterator();
+    } else if (rootLiterals.get(pattern) != null) {
+      matcher.findIterator = index.nodesWith(rootLiterals.get(pattern));
+    } else {
+      matcher.findIterator = index.nodes.iterator();
+    }
+    return matcher;
+  }
+
+  /**
+   * Matchers for the patterns which might match the graph, in order,
+   * each paired with its pattern.
+   */
+  public List<Pair<SemgrexPattern, SemgrexMatcher>> matchers(SemanticGraph sg) {
+    GraphIndex index = index(sg);
+    List<Pair<SemgrexPattern, SemgrexMatcher>> matchers = new ArrayList<>();
+    for (int pattern = 0; pattern < patterns.size(); pattern++) {
+      if (mightMatch(pattern, index)) {
+        matchers.add(new Pair<>(patterns.get(pattern), matcher(pattern, index)));
+      }
+    }
+    return matchers;
+  }
+
+  /** The indices of the patterns which match somewhere in the graph, in order */
+  public List<Integer> matchingPatterns(SemanticGraph sg) {
+    GraphIndex index = index(sg);
+    List<Integer> matching = new ArrayList<>();
+    for (int pattern = 0; pattern < patterns.size(); pattern++) {
+      if (mightMatch(pattern, index) && matcher(pattern, index).find()) {
+        matching.add(pattern);
+      }
+    }
+    return matching;
+  }
+
+  /**
+   * {@link #matchingPatterns(SemanticGraph)} for each graph, in order,
+   * using the given number of threads.
+   */
+  public List<List<Integer>> matchingPatterns(Collection<SemanticGraph> graphs, int numThreads) {
+    MulticoreWrapper<SemanticGraph, List<Integer>> wrapper = new MulticoreWrapper<>(numThreads, new ThreadsafeProcessor<SemanticGraph, List<Integer>>() {
+        @Override
+        public List<Integer> process(SemanticGraph sg) {
+          return matchingPatterns(sg);
+        }
+
+        @Override
+        public ThreadsafeProcessor<SemanticGraph, List<Integer>> newInstance() {
+          return this;
+        }
+      });
+    List<List<Integer>> results = new ArrayList<>(graphs.size());
+    for (SemanticGraph sg : graphs) {
+      wrapper.put(sg);
+      while (wrapper.peek()) {
+        results.add(wrapper.poll());
+      }
+    }
+    wrapper.join();
+    while (wrapper.peek()) {
+      results.add(wrapper.poll());
+    }
+    return results;
+  }
+
+  /**
+   * The nodes of a graph by the values of the indexed annotations, and
+   * the relation names of its edges.  The nodes are kept in the order
+   * {@link SemgrexMatcher#find()} tries them, topologically sorted if the
+   * graph allows, and their positions in that order are kept in a bit set
+   * for each value.  The sort is done once for all the patterns.
+   */
+  public static class GraphIndex {
+    private final SemanticGraph sg;
+    private final List<IndexedWord> nodes;
+    private final Map<Pair<Class<?>, String>, BitSet> positions;
+    private final Set<String> edgeTypes;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    GraphIndex(SemanticGraph sg, Set<Class<?>> annotations) {
+      this.sg = sg;
+      List<IndexedWord> order;
+      try {
+        order = sg.topologicalSort();
+      } catch (Exception e) {
+        order = new ArrayList<>(sg.vertexSet());
+      }
+      nodes = order;
+      positions = Generics.newHashMap();
+      for (int i = 0; i < nodes.size(); i++) {
+        IndexedWord node = nodes.get(i);
+        for (Class<?> annotation : annotations) {
+          Object value = node.get((Class) annotation);
+          if (value != null) {
+            Pair<Class<?>, String> literal = new Pair<>(annotation, value.toString());
+            BitSet bits = positions.get(literal);
+            if (bits == null) {
+              bits = new BitSet();
+              positions.put(literal, bits);
+            }
+            bits.set(i);
+          }
+        }
+      }
+      edgeTypes = Generics.newHashSet();
+      for (SemanticGraphEdge edge : sg.edgeIterable()) {
+        edgeTypes.add(edge.getRelation().toString());
+      }
+    }
+
+    public SemanticGraph graph() {
+      return sg;
+    }
+
+    boolean hasAnyLiteral(Set<Pair<Class<?>, String>> literals) {
+      for (Pair<Class<?>, String> literal : literals) {
+        if (literal.first() == SemanticGraphEdge.class ? edgeTypes.contains(literal.second()) : positions.containsKey(literal)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    Iterator<IndexedWord> nodesWith(Pair<Class<?>, String> literal) {
+      BitSet bits = positions.get(literal);
+      if (bits == null) {
+        return Collections.emptyIterator();
+      }
+      return new Iterator<IndexedWord>() {
+        private int next = bits.nextSetBit(0);
+
+        @Override
+        public boolean hasNext() {
+          return next >= 0;
+        }
+
+        @Override
+        public IndexedWord next() {
+          if (next < 0) {
+            throw new NoSuchElementException();
+          }
+          IndexedWord node = nodes.get(next);
+          next = bits.nextSetBit(next + 1);
+          return node;
+        }
+      };
+    }
+  }
+
+}
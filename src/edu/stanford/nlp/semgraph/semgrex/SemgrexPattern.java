@@ -11,6 +11,7 @@ import edu.stanford.nlp.trees.MemoryTreebank;
 import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.trees.TreeNormalizer;
 import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.Pair;
 import edu.stanford.nlp.util.StringUtils;
 
 /**
@@ -178,6 +179,20 @@ public abstract class SemgrexPattern implements Serializable {
 
   abstract void setChild(SemgrexPattern child);
 
+  /**
+   * Sets of literals of which a graph must have at least one of each for
+   * this pattern to match it.  A literal is either an annotation class
+   * and a value some node has for it, or {@code SemanticGraphEdge.class}
+   * and the relation name of some edge.  Used by {@link SemgrexBatchMatcher}.
+   */
+  abstract List<Set<Pair<Class<?>, String>>> requiredLiterals();
+
+  /**
+   * An annotation class and the value for it which the node a match of
+   * this pattern starts at must have, or null if there is no such literal.
+   */
+  abstract Pair<Class<?>, String> rootLiteral();
+
   void negate() {
     if (opt) {
       throw new RuntimeException("Node cannot be both negated and optional.");
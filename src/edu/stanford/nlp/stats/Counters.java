@@ -95,6 +95,38 @@ public class Counters {
 
   private Counters() {} // only static methods
 
+  public static final String COUNTER_PROPERTY = "edu.stanford.nlp.counter.impl";
+  public static final String COUNTER_CLASSNAME = System.getProperty(COUNTER_PROPERTY);
+  private static final Class<?> COUNTER_CLASS = getCounterClass();
+
+  private static Class<?> getCounterClass() {
+    try {
+      if (COUNTER_CLASSNAME == null) {
+        return ClassicCounter.class;
+      } else {
+        return Class.forName(COUNTER_CLASSNAME);
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * A new, empty Counter.  This is a {@link ClassicCounter}, unless the
+   * class of Counter to use is given by the system property
+   * {@value #COUNTER_PROPERTY}, e.g. {@link ObjectDoubleCounter}.
+   */
+  public static <E> Counter<E> newCounter() {
+    if (COUNTER_CLASS == ClassicCounter.class) {
+      return new ClassicCounter<E>();
+    }
+    try {
+      return ErasureUtils.uncheckedCast(COUNTER_CLASS.newInstance());
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   //
   // Log arithmetic operations
   //
@@ -159,6 +191,17 @@ public class Counters {
   public static <E> double max(Counter<E> c, double valueIfEmpty) {
     if (c.size() == 0) {
       return valueIfEmpty;
+    } else if (c instanceof ObjectDoubleCounter) {
+      ObjectDoubleCounter<E> odc = (ObjectDoubleCounter<E>) c;
+      Object[] keys = odc.keys;
+      double[] values = odc.values;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < keys.length; i++) {
+        if (ObjectDoubleCounter.isKey(keys[i])) {
+          max = Math.max(max, values[i]);
+        }
+      }
+      return max;
     } else {
       double max = Double.NEGATIVE_INFINITY;
       for (double v : c.values()) {
@@ -257,6 +300,24 @@ public class Counters {
     }
     double max = Double.NEGATIVE_INFINITY;
     E argmax = null;
+    if (c instanceof ObjectDoubleCounter) {
+      ObjectDoubleCounter<E> odc = (ObjectDoubleCounter<E>) c;
+      Object[] keys = odc.keys;
+      double[] values = odc.values;
+      boolean found = false;
+      for (int i = 0; i < keys.length; i++) {
+        if (ObjectDoubleCounter.isKey(keys[i])) {
+          double count = values[i];
+          E key = odc.keyAt(i);
+          if ( ! found || count > max || (count == max && tieBreaker.compare(key, argmax) < 0)) {
+            max = count;
+            argmax = key;
+            found = true;
+          }
+        }
+      }
+      return argmax;
+    }
     for (E key : c.keySet()) {
       double count = c.getCount(key);
       if (argmax == null || count > max || (count == max && tieBreaker.compare(key, argmax) < 0)) {
@@ -320,6 +381,17 @@ public class Counters {
    */
   // TODO: Rewrite to use arg.entrySet()
   public static <E> void addInPlace(Counter<E> target, Counter<E> arg, double scale) {
+    if (arg instanceof ObjectDoubleCounter) {
+      ObjectDoubleCounter<E> odc = (ObjectDoubleCounter<E>) arg;
+      Object[] keys = odc.keys;
+      double[] values = odc.values;
+      for (int i = 0; i < keys.length; i++) {
+        if (ObjectDoubleCounter.isKey(keys[i])) {
+          target.incrementCount(odc.keyAt(i), scale * values[i]);
+        }
+      }
+      return;
+    }
     for (E key : arg.keySet()) {
       target.incrementCount(key, scale * arg.getCount(key));
     }
@@ -329,6 +401,18 @@ public class Counters {
    * Sets each value of target to be target[k]+arg[k] for all keys k in arg.
    */
   public static <E> void addInPlace(Counter<E> target, Counter<E> arg) {
+    if (arg instanceof ObjectDoubleCounter) {
+      ObjectDoubleCounter<E> odc = (ObjectDoubleCounter<E>) arg;
+      Object[] keys = odc.keys;
+      double[] values = odc.values;
+      for (int i = 0; i < keys.length; i++) {
+        double count = values[i];
+        if (count != 0 && ObjectDoubleCounter.isKey(keys[i])) {
+          target.incrementCount(odc.keyAt(i), count);
+        }
+      }
+      return;
+    }
     for (Map.Entry<E, Double> entry : arg.entrySet()) {
       double count = entry.getValue();
       if (count != 0) {
@@ -1205,6 +1289,30 @@ public class Counters {
       c1 = c2;
       c2 = tmpCnt;
     }
+    if (c1 instanceof ObjectDoubleCounter) {
+      ObjectDoubleCounter<E> odc = (ObjectDoubleCounter<E>) c1;
+      Object[] keys = odc.keys;
+      double[] values = odc.values;
+      for (int i = 0; i < keys.length; i++) {
+        if ( ! ObjectDoubleCounter.isKey(keys[i])) {
+          continue;
+        }
+        double count1 = values[i];
+        if (Double.isNaN(count1) || Double.isInfinite(count1)) {
+          E key = odc.keyAt(i);
+          throw new RuntimeException("Counters.dotProduct infinite or NaN value for key: " + key + '\t' + count1 + '\t' + c2.getCount(key));
+        }
+        if (count1 != 0.0) {
+          E key = odc.keyAt(i);
+          double count2 = c2.getCount(key);
+          if (Double.isNaN(count2) || Double.isInfinite(count2)) {
+            throw new RuntimeException("Counters.dotProduct infinite or NaN value for key: " + key + '\t' + count1 + '\t' + count2);
+          }
+          dotProd += (count1 * count2);
+        }
+      }
+      return dotProd;
+    }
     for (E key : c1.keySet()) {
       double count1 = c1.getCount(key);
       if (Double.isNaN(count1) || Double.isInfinite(count1)) {
@@ -1,6 +1,7 @@
 package edu.stanford.nlp.tagger.maxent;
 
 import edu.stanford.nlp.objectbank.ObjectBank;
+import edu.stanford.nlp.process.CompiledLexicon;
 import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.Timing;
 
@@ -32,7 +33,8 @@ public class Distsim implements Serializable {
    * The Extractor argument extraction keeps ; together, so we use
    * that to delimit options.  Actually, the only option supported is
    * mapdigits, which tells the Distsim to try mapping [0-9] to 0 and
-   * requery for an unknown word with digits.
+   * requery for an unknown word with digits.  The file may be a
+   * {@link CompiledLexicon} compiled without -cased or -numberEquivalence.
    */
   public Distsim(String path) {
     String[] pieces = path.split(";");
@@ -45,10 +47,17 @@ public class Distsim implements Serializable {
       }
     }
 
-    lexicon = Generics.newHashMap();
-    for (String word : ObjectBank.getLineIterator(new File(filename))) {
-      String[] bits = word.split("\\s+");
-      lexicon.put(bits[0].toLowerCase(), bits[1]);
+    if (CompiledLexicon.isCompiled(filename)) {
+      // words are looked up lowercased, as below
+      CompiledLexicon compiled = CompiledLexicon.load(filename);
+      compiled.checkOptions(false, false);
+      lexicon = compiled;
+    } else {
+      lexicon = Generics.newHashMap();
+      for (String word : ObjectBank.getLineIterator(new File(filename))) {
+        String[] bits = word.split("\\s+");
+        lexicon.put(bits[0].toLowerCase(), bits[1]);
+      }
     }
 
     if (lexicon.containsKey("<unk>")) {
@@ -173,6 +173,23 @@ public class Extractor implements Serializable {
     return isTag ? pH.getTag(h, position) : pH.getWord(h, position);
   }
 
+  /** The most parts any extractor splits its value into */
+  static final int MAX_PARTS = 3;
+
+  /**
+   * Puts the value {@link #extract(History, PairsHolder)} would return
+   * into parts, as the Strings which joined with '!' make it up, so that
+   * its features can be looked up without building it.  Extractors which
+   * join words and tags override this; by default the value is one part.
+   *
+   * @param parts Where to put the parts, of length at least {@link #MAX_PARTS}
+   * @return The number of parts
+   */
+  int extract(History h, PairsHolder pH, String[] parts) {
+    parts[0] = extract(h, pH);
+    return 1;
+  }
+
   @SuppressWarnings({"MethodMayBeStatic"})
   String extractLV(History h, PairsHolder pH) {
     // should extract last verbal word and also the current word
@@ -320,6 +320,13 @@ public class ExtractorFrames {
       return pH.getTag(h, position) + '!' + pH.getWord(h, wordPosition);
     }
 
+    @Override
+    int extract(History h, PairsHolder pH, String[] parts) {
+      parts[0] = String.valueOf(pH.getTag(h, position));
+      parts[1] = String.valueOf(pH.getWord(h, wordPosition));
+      return 2;
+    }
+
     @Override
     public String toString() {
       return (getClass().getName() + "(w" + wordPosition +
@@ -406,6 +413,13 @@ public class ExtractorFrames {
       return pH.getWord(h, leftPosition) + '!' + pH.getWord(h, rightPosition);
     }
 
+    @Override
+    int extract(History h, PairsHolder pH, String[] parts) {
+      parts[0] = String.valueOf(pH.getWord(h, leftPosition));
+      parts[1] = String.valueOf(pH.getWord(h, rightPosition));
+      return 2;
+    }
+
     @Override public boolean isLocal() { return false; }
 
     // isDynamic --> false, but no need to override
@@ -460,6 +474,13 @@ public class ExtractorFrames {
       return pH.getTag(h, leftPosition) + '!' + pH.getTag(h, rightPosition);
     }
 
+    @Override
+    int extract(History h, PairsHolder pH, String[] parts) {
+      parts[0] = String.valueOf(pH.getTag(h, leftPosition));
+      parts[1] = String.valueOf(pH.getTag(h, rightPosition));
+      return 2;
+    }
+
     @Override public boolean isLocal() { return false; }
     @Override public boolean isDynamic() { return true; }
 
@@ -506,6 +527,14 @@ public class ExtractorFrames {
               pH.getWord(h, rightWord));
     }
 
+    @Override
+    int extract(History h, PairsHolder pH, String[] parts) {
+      parts[0] = String.valueOf(pH.getWord(h, leftWord));
+      parts[1] = String.valueOf(pH.getTag(h, tag));
+      parts[2] = String.valueOf(pH.getWord(h, rightWord));
+      return 3;
+    }
+
     @Override public boolean isLocal() { return false; }
     @Override public boolean isDynamic() { return true; }
 
@@ -552,6 +581,19 @@ public class ExtractorFrames {
       return sb.toString();
     }
 
+    @Override
+    int extract(History h, PairsHolder pH, String[] parts) {
+      int numParts = Math.abs(position);
+      if (numParts > MAX_PARTS) {
+        return super.extract(h, pH, parts);
+      }
+      int step = (position < 0) ? 1 : -1;
+      for (int i = 0, idx = position; i < numParts; i++, idx += step) {
+        parts[i] = String.valueOf(pH.getTag(h, idx));
+      }
+      return numParts;
+    }
+
   }
 
 
@@ -612,6 +654,14 @@ public class ExtractorFrames {
       return pH.getTag(h, position1) + '!' + pH.getTag(h, position2) + '!' + pH.getTag(h, position3);
     }
 
+    @Override
+    int extract(History h, PairsHolder pH, String[] parts) {
+      parts[0] = String.valueOf(pH.getTag(h, position1));
+      parts[1] = String.valueOf(pH.getTag(h, position2));
+      parts[2] = String.valueOf(pH.getTag(h, position3));
+      return 3;
+    }
+
     @Override public boolean isLocal() { return false; }
     @Override public boolean isDynamic() { return true; }
 
@@ -669,6 +719,14 @@ public class ExtractorFrames {
       return pH.getTag(h, position1) + '!' + pH.getWord(h, word) + '!' + pH.getTag(h, position2);
     }
 
+    @Override
+    int extract(History h, PairsHolder pH, String[] parts) {
+      parts[0] = String.valueOf(pH.getTag(h, position1));
+      parts[1] = String.valueOf(pH.getWord(h, word));
+      parts[2] = String.valueOf(pH.getTag(h, position2));
+      return 3;
+    }
+
     @Override public boolean isLocal() { return false; }
     @Override public boolean isDynamic() { return true; }
 
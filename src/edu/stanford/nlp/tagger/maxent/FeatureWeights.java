@@ -0,0 +1,210 @@
+package edu.stanford.nlp.tagger.maxent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The weights of the tagger's features, arranged for tagging.  For each
+ * extractor, the values it extracts are kept in an open-addressed hash
+ * table, and each value leads straight to the (tag, weight) pairs of its
+ * nonzero features, rather than to feature numbers to look up in the
+ * lambda array.  This is built once from {@code fAssociations} and the
+ * lambdas, when the model is loaded.
+ * <br>
+ * Values are looked up by the parts an extractor joins with '!' (see
+ * {@link Extractor#extract(History, PairsHolder, String[])}), so the
+ * joined String is never built: its hash code is computed from the hash
+ * codes of the parts, which the words and tags already have cached, and
+ * it is compared to the stored values part by part.  The scores added up
+ * are exactly those the String keyed {@code fAssociations} give.
+ */
+class FeatureWeights {
+
+  private static final char SEPARATOR = '!';
+
+  /** One per extractor, common extractors first, then the rare ones */
+  private final Table[] tables;
+
+  FeatureWeights(List<Map<String, int[]>> fAssociations, double[] lambda, int ySize) {
+    tables = new Table[fAssociations.size()];
+    for (int i = 0; i < tables.length; i++) {
+      tables[i] = new Table(fAssociations.get(i), lambda, ySize);
+    }
+  }
+
+  /**
+   * Adds the weights of the features of the given extractor and value to
+   * the scores of their tags.
+   *
+   * @param kf The index of the extractor in {@code fAssociations}
+   * @param parts The value, in parts to be joined with '!'
+   * @param numParts The number of parts used
+   * @param scores The scores, by tag index
+   */
+  void addScores(int kf, String[] parts, int numParts, double[] scores) {
+    Table table = tables[kf];
+    int row = table.find(parts, numParts);
+    if (row < 0) {
+      return;
+    }
+    int[] tagIndices = table.tagIndices;
+    double[] weights = table.weights;
+    for (int i = table.rowStarts[row], end = table.rowStarts[row + 1]; i < end; i++) {
+      scores[tagIndices[i]] += weights[i];
+    }
+  }
+
+  /**
+   * Adds the weights of the features of the given extractor and value to
+   * the scores of some of the tags.
+   *
+   * @param positions For each tag index, the position of its score in
+   *                  scores, or -1 if it is not being scored
+   */
+  void addScores(int kf, String[] parts, int numParts, int[] positions, double[] scores) {
+    Table table = tables[kf];
+    int row = table.find(parts, numParts);
+    if (row < 0) {
+      return;
+    }
+    int[] tagIndices = table.tagIndices;
+    double[] weights = table.weights;
+    for (int i = table.rowStarts[row], end = table.rowStarts[row + 1]; i < end; i++) {
+      int position = positions[tagIndices[i]];
+      if (position >= 0) {
+        scores[position] += weights[i];
+      }
+    }
+  }
+
+  /** 31^n, as in String.hashCode, for short strings */
+  private static final int[] POWERS_OF_31 = new int[256];
+  static {
+    POWERS_OF_31[0] = 1;
+    for (int i = 1; i < POWERS_OF_31.length; i++) {
+      POWERS_OF_31[i] = POWERS_OF_31[i - 1] * 31;
+    }
+  }
+
+  private static int powerOf31(int n) {
+    if (n < POWERS_OF_31.length) {
+      return POWERS_OF_31[n];
+    }
+    int power = POWERS_OF_31[POWERS_OF_31.length - 1];
+    for (int i = POWERS_OF_31.length - 1; i < n; i++) {
+      power *= 31;
+    }
+    return power;
+  }
+
+  /** The hashCode of the String made by joining the parts with '!' */
+  static int joinedHashCode(String[] parts, int numParts) {
+    int hash = parts[0].hashCode();
+    for (int i = 1; i < numParts; i++) {
+      String part = parts[i];
+      hash = (hash * 31 + SEPARATOR) * powerOf31(part.length()) + part.hashCode();
+    }
+    return hash;
+  }
+
+  /** Whether the value is the String made by joining the parts with '!' */
+  static boolean matches(String value, String[] parts, int numParts) {
+    int offset = 0;
+    for (int i = 0; i < numParts; i++) {
+      String part = parts[i];
+      if (i > 0) {
+        if (offset >= value.length() || value.charAt(offset) != SEPARATOR) {
+          return false;
+        }
+        offset++;
+      }
+      if ( ! value.startsWith(part, offset)) {
+        return false;
+      }
+      offset += part.length();
+    }
+    return offset == value.length();
+  }
+
+  private static class Table {
+    /** For each slot, the row of the value there + 1, or 0 if it is empty */
+    final int[] slots;
+    final String[] values;
+    final int[] hashes;
+    /** The features of row r are at rowStarts[r] to rowStarts[r+1] in the arrays below */
+    final int[] rowStarts;
+    final int[] tagIndices;
+    final double[] weights;
+
+    Table(Map<String, int[]> associations, double[] lambda, int ySize) {
+      int numRows = associations.size();
+      int capacity = 4;
+      while (capacity < numRows * 2) {
+        capacity <<= 1;
+      }
+      slots = new int[capacity];
+      values = new String[numRows];
+      hashes = new int[numRows];
+      rowStarts = new int[numRows + 1];
+
+      int numFeatures = 0;
+      for (int[] fNums : associations.values()) {
+        for (int y = 0; y < ySize; y++) {
+          if (fNums[y] > -1 && lambda[fNums[y]] != 0.0) {
+            numFeatures++;
+          }
+        }
+      }
+      tagIndices = new int[numFeatures];
+      weights = new double[numFeatures];
+
+      int row = 0, feature = 0;
+      for (Map.Entry<String, int[]> entry : associations.entrySet()) {
+        String value = entry.getKey();
+        int[] fNums = entry.getValue();
+        values[row] = value;
+        hashes[row] = value.hashCode();
+        rowStarts[row] = feature;
+        for (int y = 0; y < ySize; y++) {
+          // a zero weight adds nothing to the score, so it is left out
+          if (fNums[y] > -1 && lambda[fNums[y]] != 0.0) {
+            tagIndices[feature] = y;
+            weights[feature] = lambda[fNums[y]];
+            feature++;
+          }
+        }
+        int slot = spread(hashes[row]) & (capacity - 1);
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & (capacity - 1);
+        }
+        slots[slot] = row + 1;
+        row++;
+      }
+      rowStarts[numRows] = feature;
+    }
+
+    private static int spread(int hash) {
+      hash *= 0x9E3779B9;
+      return hash ^ (hash >>> 16);
+    }
+
+    /** The row of the value made of the parts, or -1 */
+    int find(String[] parts, int numParts) {
+      for (int i = 0; i < numParts; i++) {
+        if (parts[i] == null) {
+          return -1;
+        }
+      }
+      int hash = joinedHashCode(parts, numParts);
+      int mask = slots.length - 1;
+      for (int slot = spread(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+        int row = slots[slot] - 1;
+        if (hashes[row] == hash && matches(values[row], parts, numParts)) {
+          return row;
+        }
+      }
+      return -1;
+    }
+  }
+
+}
@@ -430,6 +430,23 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
     return prob;
   }
 
+  /** The feature weights arranged for tagging; made from fAssociations and the lambdas when first needed */
+  private transient volatile FeatureWeights featureWeights;
+
+  FeatureWeights getFeatureWeights() {
+    FeatureWeights weights = featureWeights;
+    if (weights == null) {
+      synchronized (this) {
+        weights = featureWeights;
+        if (weights == null) {
+          weights = new FeatureWeights(fAssociations, getLambdaSolve().lambda, ySize);
+          featureWeights = weights;
+        }
+      }
+    }
+    return weights;
+  }
+
   // TODO: make these constructors instead of init methods?
   void init(TaggerConfig config) {
     if (initted) return;  // TODO: why not reinit?
@@ -691,6 +708,7 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
     }
 
     prob = new LambdaSolveTagger(condensedLambda);
+    featureWeights = null;
   }
 
   protected void saveModel(String filename) {
@@ -863,6 +881,7 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
       if (VERBOSE) {
         System.err.println(" prob read ");
       }
+      featureWeights = new FeatureWeights(fAssociations, prob.lambda, ySize);
       if (printLoading) t.done();
     } catch (IOException e) {
       throw new RuntimeIOException("Unrecoverable error while loading a tagger model", e);
@@ -1146,6 +1165,7 @@ public class MaxentTagger extends Tagger implements ListProcessor<List<? extends
     Problem p = new Problem(samples, feats);
     LambdaSolveTagger prob = new LambdaSolveTagger(p, 0.0001, fnumArr);
     maxentTagger.prob = prob;
+    maxentTagger.featureWeights = null;
 
     if (config.getSearch().equals("owlqn")) {
       CGRunner runner = new CGRunner(prob, config.getModel(), config.getSigmaSquared());
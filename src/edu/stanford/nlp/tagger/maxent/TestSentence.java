@@ -70,6 +70,11 @@ public class TestSentence implements SequenceModel {
   protected volatile Map<String,double[]> localScores = Generics.newHashMap();
   protected volatile double[][] localContextScores;
 
+  /** Buffer for the parts of extracted feature values */
+  private final String[] parts = new String[Extractor.MAX_PARTS];
+  /** Buffer for the position of each tag among the tags being scored */
+  private int[] tagPositions;
+
   protected final MaxentTagger maxentTagger;
 
   public TestSentence(MaxentTagger maxentTagger) {
@@ -443,35 +448,20 @@ public class TestSentence implements SequenceModel {
   private double[] getExactHistories(History h, List<Pair<Integer,Extractor>> extractors, List<Pair<Integer,Extractor>> extractorsRare) {
     double[] scores = new double[maxentTagger.ySize];
     int szCommon = maxentTagger.extractors.size();
+    FeatureWeights weights = maxentTagger.getFeatureWeights();
 
     for (Pair<Integer,Extractor> e : extractors) {
       int kf = e.first();
       Extractor ex = e.second();
-      String val = ex.extract(h);
-      int[] fAssociations = maxentTagger.fAssociations.get(kf).get(val);
-      if (fAssociations != null) {
-        for (int i = 0; i < maxentTagger.ySize; i++) {
-          int fNum = fAssociations[i];
-          if (fNum > -1) {
-            scores[i] += maxentTagger.getLambdaSolve().lambda[fNum];
-          }
-        }
-      }
+      int numParts = ex.extract(h, h.pairs, parts);
+      weights.addScores(kf, parts, numParts, scores);
     }
     if (extractorsRare != null) {
       for (Pair<Integer,Extractor> e : extractorsRare) {
         int kf = e.first();
         Extractor ex = e.second();
-        String val = ex.extract(h);
-        int[] fAssociations = maxentTagger.fAssociations.get(kf+szCommon).get(val);
-        if (fAssociations != null) {
-          for (int i = 0; i < maxentTagger.ySize; i++) {
-            int fNum = fAssociations[i];
-            if (fNum > -1) {
-              scores[i] += maxentTagger.getLambdaSolve().lambda[fNum];
-            }
-          }
-        }
+        int numParts = ex.extract(h, h.pairs, parts);
+        weights.addScores(kf+szCommon, parts, numParts, scores);
       }
     }
     return scores;
@@ -482,39 +472,28 @@ public class TestSentence implements SequenceModel {
 
     double[] scores = new double[tags.length];
     int szCommon = maxentTagger.extractors.size();
+    FeatureWeights weights = maxentTagger.getFeatureWeights();
+
+    if (tagPositions == null) {
+      tagPositions = new int[maxentTagger.ySize];
+    }
+    Arrays.fill(tagPositions, -1);
+    for (int j = 0; j < tags.length; j++) {
+      tagPositions[maxentTagger.tags.getIndex(tags[j])] = j;
+    }
 
     for (Pair<Integer,Extractor> e : extractors) {
       int kf = e.first();
       Extractor ex = e.second();
-      String val = ex.extract(h);
-      int[] fAssociations = maxentTagger.fAssociations.get(kf).get(val);
-      if (fAssociations != null) {
-        for (int j = 0; j < tags.length; j++) {
-          String tag = tags[j];
-          int tagIndex = maxentTagger.tags.getIndex(tag);
-          int fNum = fAssociations[tagIndex];
-          if (fNum > -1) {
-            scores[j] += maxentTagger.getLambdaSolve().lambda[fNum];
-          }
-        }
-      }
+      int numParts = ex.extract(h, h.pairs, parts);
+      weights.addScores(kf, parts, numParts, tagPositions, scores);
     }
     if (extractorsRare != null) {
       for (Pair<Integer,Extractor> e : extractorsRare) {
         int kf = e.first();
         Extractor ex = e.second();
-        String val = ex.extract(h);
-        int[] fAssociations = maxentTagger.fAssociations.get(szCommon+kf).get(val);
-        if (fAssociations != null) {
-          for (int j = 0; j < tags.length; j++) {
-            String tag = tags[j];
-            int tagIndex = maxentTagger.tags.getIndex(tag);
-            int fNum = fAssociations[tagIndex];
-            if (fNum > -1) {
-              scores[j] += maxentTagger.getLambdaSolve().lambda[fNum];
-            }
-          }
-        }
+        int numParts = ex.extract(h, h.pairs, parts);
+        weights.addScores(szCommon+kf, parts, numParts, tagPositions, scores);
       }
     }
     return scores;
@@ -200,6 +200,8 @@ public class TimeAnnotator implements Annotator {
     if (sentences != null) {
       allTimeExpressions = new ArrayList<CoreMap>();
       List<CoreMap> allNumerics = new ArrayList<CoreMap>();
+      // parse the document date once, rather than for every sentence
+      SUTime.Time refDate = TimeExpressionExtractorImpl.parseReferenceDate(docDate);
       for (CoreMap sentence: sentences) {
         // make sure that token character offsets align with the actual sentence text
         // They may not align due to token normalizations, such as "(" to "-LRB-".
@@ -207,7 +209,7 @@ public class TimeAnnotator implements Annotator {
         // uncomment the next line for verbose dumping of tokens....
         // System.err.println("SENTENCE: " + ((ArrayCoreMap) sentence).toShorterString());
         List<CoreMap> timeExpressions =
-          timexExtractor.extractTimeExpressionCoreMaps(alignedSentence, docDate, timeIndex);
+          timexExtractor.extractTimeExpressionCoreMaps(alignedSentence, refDate, timeIndex);
         if (timeExpressions != null) {
           allTimeExpressions.addAll(timeExpressions);
           sentence.set(TimeAnnotations.TimexAnnotations.class, timeExpressions);
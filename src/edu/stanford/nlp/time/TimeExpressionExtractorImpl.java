@@ -4,6 +4,7 @@ import edu.stanford.nlp.ie.NumberNormalizer;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.tokensregex.*;
 import edu.stanford.nlp.pipeline.ChunkAnnotationUtils;
+import edu.stanford.nlp.util.CacheMap;
 import edu.stanford.nlp.util.CoreMap;
 
 import java.text.SimpleDateFormat;
@@ -29,6 +30,12 @@ public class TimeExpressionExtractorImpl implements TimeExpressionExtractor {
   // Options
   Options options;
 
+  // Timex for the text and attributes of recently seen time expressions.
+  // A Timex never changes, and making one writes out an XML element, so the same Timex is shared.
+  private static final int TIMEX_CACHE_SIZE = 10000;
+  private static final Map<List<String>, Timex> timexCache =
+          Collections.synchronizedMap(new CacheMap<List<String>, Timex>(TIMEX_CACHE_SIZE, 0.75f, true));
+
   public TimeExpressionExtractorImpl()
   {
     init(new Options());
@@ -93,8 +100,7 @@ public class TimeExpressionExtractorImpl implements TimeExpressionExtractor {
     if (timeIndex.docDate == null && docDate != null) {
       try {
         // TODO: have more robust parsing of document date?  docDate may not have century....
-        // TODO: if docDate didn't change, we can cache the parsing of the docDate and not repeat it for every sentence
-        timeIndex.docDate = SUTime.parseDateTime(docDate,true);
+        timeIndex.docDate = SUTime.parseDateTime(docDate, true);
       } catch (Exception e) {
         throw new RuntimeException("Could not parse date string: [" + docDate + "]", e);
       }
@@ -117,10 +123,55 @@ public class TimeExpressionExtractorImpl implements TimeExpressionExtractor {
     return toCoreMaps(annotation, timeExpressions, timeIndex);
   }
 
+  /**
+   * As {@link #extractTimeExpressionCoreMaps(CoreMap, String, SUTime.TimeIndex)},
+   * with a reference date already parsed by {@link #parseReferenceDate}, so
+   * that the sentences of one document can share it.
+   */
+  public List<CoreMap> extractTimeExpressionCoreMaps(CoreMap annotation, SUTime.Time refDate, SUTime.TimeIndex timeIndex)
+  {
+    List<TimeExpression> timeExpressions = extractTimeExpressions(annotation, refDate, timeIndex);
+    return toCoreMaps(annotation, timeExpressions, timeIndex);
+  }
+
   public void finalize(CoreMap docAnnotation) {
     docAnnotation.remove(TimeExpression.TimeIndexAnnotation.class);
   }
 
+  /**
+   * Parses a document or section date.  The result is mutable, so it is
+   * only shared by the sentences of one document.
+   *
+   * @return The date, or null if refDateStr is null
+   */
+  public static SUTime.Time parseReferenceDate(String refDateStr)
+  {
+    if (refDateStr == null) return null;
+    try {
+      // TODO: have more robust parsing of document date?  docDate may not have century....
+      return SUTime.parseDateTime(refDateStr, true);
+    } catch (Exception e) {
+      throw new RuntimeException("Could not parse date string: [" + refDateStr + "]", e);
+    }
+  }
+
+  private static Timex getTimex(String text, Map<String,String> timexAttributes)
+  {
+    // The attributes are kept in order, as they are written out in that order
+    List<String> key = new ArrayList<String>(2 * timexAttributes.size() + 1);
+    key.add(text);
+    for (Map.Entry<String,String> entry:timexAttributes.entrySet()) {
+      key.add(entry.getKey());
+      key.add(entry.getValue());
+    }
+    Timex timex = timexCache.get(key);
+    if (timex == null) {
+      timex = Timex.fromMap(text, timexAttributes);
+      timexCache.put(key, timex);
+    }
+    return timex;
+  }
+
   private List<CoreMap> toCoreMaps(CoreMap annotation, List<TimeExpression> timeExpressions, SUTime.TimeIndex timeIndex)
   {
     if (timeExpressions == null) return null;
@@ -151,7 +202,7 @@ public class TimeExpressionExtractorImpl implements TimeExpressionExtractor {
         }
         Timex timex;
         try {
-          timex = Timex.fromMap(text, timexAttributes);
+          timex = getTimex(text, timexAttributes);
         } catch (Exception e) {
           logger.log(Level.WARNING, "Failed to process timex " + text + " with attributes " + timexAttributes, e);
           continue;
@@ -165,16 +216,7 @@ public class TimeExpressionExtractorImpl implements TimeExpressionExtractor {
   }
 
   public List<TimeExpression> extractTimeExpressions(CoreMap annotation, String refDateStr, SUTime.TimeIndex timeIndex) {
-    SUTime.Time refDate = null;
-    if (refDateStr != null) {
-      try {
-        // TODO: have more robust parsing of document date?  docDate may not have century....
-        // TODO: if docDate didn't change, we can cache the parsing of the docDate and not repeat it for every sentence
-        refDate = SUTime.parseDateTime(refDateStr,true);
-      } catch (Exception e) {
-        throw new RuntimeException("Could not parse date string: [" + refDateStr + "]", e);
-      }
-    }
+    SUTime.Time refDate = parseReferenceDate(refDateStr);
     return extractTimeExpressions(annotation, refDate, timeIndex);
   }
 
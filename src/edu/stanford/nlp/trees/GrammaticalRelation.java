@@ -418,8 +418,20 @@ public class GrammaticalRelation implements Comparable<GrammaticalRelation>, Ser
    */
   public boolean isApplicable(Tree t) {
     // System.err.println("Testing whether " + sourcePattern + " matches " + ((TreeGraphNode) t).toOneLineString());
-    return (sourcePattern != null) && (t.value() != null) &&
-             sourcePattern.matcher(t.value()).matches();
+    return isApplicable(t.value());
+  }
+
+  /** Whether this relation could hold at a node with the given value.
+   *  See {@link #isApplicable(Tree)}.
+   */
+  boolean isApplicable(String value) {
+    return (sourcePattern != null) && (value != null) &&
+             sourcePattern.matcher(value).matches();
+  }
+
+  /** The patterns {@link #getRelatedNodes} uses, in the order it uses them. */
+  List<TregexPattern> targetPatterns() {
+    return Collections.unmodifiableList(targetPatterns);
   }
 
   /** Returns whether this is equal to or an ancestor of gr in the grammatical relations hierarchy. */
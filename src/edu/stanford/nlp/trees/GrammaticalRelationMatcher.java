@@ -0,0 +1,238 @@
+package edu.stanford.nlp.trees;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.stanford.nlp.trees.tregex.TregexMatcher;
+import edu.stanford.nlp.trees.tregex.TregexPattern;
+import edu.stanford.nlp.trees.tregex.TregexPatternSet;
+import edu.stanford.nlp.util.ArraySet;
+import edu.stanford.nlp.util.CacheMap;
+import edu.stanford.nlp.util.Pair;
+
+/**
+ * Finds the nodes a set of {@link GrammaticalRelation}s relate, for all
+ * the relations together, as {@link GrammaticalStructure} does when it
+ * converts a tree to dependencies.
+ * <br>
+ * The target patterns of all the relations are put in one
+ * {@link TregexPatternSet}, and each tree is indexed by the labels of
+ * its nodes once, so a pattern needing a label the tree does not have
+ * is never tried on it.  For each node label, the relations whose source
+ * pattern matches it, and their target patterns whose root could match
+ * it, are worked out the first time the label is seen, rather than at
+ * every node.  Each pattern has one matcher per tree, which is reused at
+ * each node.  The nodes found are exactly those
+ * {@link GrammaticalRelation#getRelatedNodes} finds for each relation
+ * {@link GrammaticalRelation#isApplicable applicable} to the node, in the
+ * same order.
+ * <br>
+ * A GrammaticalRelationMatcher may be shared by any number of threads,
+ * but a {@link TreeMatcher} may not.
+ */
+public class GrammaticalRelationMatcher {
+
+  /** Beyond this many labels, the relations for a label are not kept */
+  private static final int MAX_CACHED_LABELS = 10000;
+
+  private final GrammaticalRelation[] relations;
+  /** The patterns of relation r are patternStarts[r] to patternStarts[r+1] in the pattern set */
+  private final int[] patternStarts;
+  private final TregexPatternSet patterns;
+  private final Map<String, Candidates> candidatesByLabel = new ConcurrentHashMap<>();
+
+  public GrammaticalRelationMatcher(Collection<GrammaticalRelation> relations) {
+    List<GrammaticalRelation> withPatterns = withPatterns(relations);
+    this.relations = withPatterns.toArray(new GrammaticalRelation[withPatterns.size()]);
+    patternStarts = new int[this.relations.length + 1];
+    List<TregexPattern> allPatterns = new ArrayList<>();
+    for (int r = 0; r < this.relations.length; r++) {
+      patternStarts[r] = allPatterns.size();
+      allPatterns.addAll(this.relations[r].targetPatterns());
+    }
+    patternStarts[this.relations.length] = allPatterns.size();
+    patterns = new TregexPatternSet(allPatterns);
+  }
+
+  /**
+   * The relations which have target patterns.  The others never relate
+   * any nodes, and they include the collapsed relations, such as
+   * prep_in, which are added to the lists of relations as they are met.
+   */
+  private static List<GrammaticalRelation> withPatterns(Collection<GrammaticalRelation> relations) {
+    List<GrammaticalRelation> withPatterns = new ArrayList<>();
+    for (GrammaticalRelation relation : relations) {
+      if ( ! relation.targetPatterns().isEmpty()) {
+        withPatterns.add(relation);
+      }
+    }
+    return withPatterns;
+  }
+
+  /** Keyed by the relations with target patterns, as the lists of relations themselves change */
+  private static final Map<List<GrammaticalRelation>, GrammaticalRelationMatcher> matcherCache =
+    Collections.synchronizedMap(new CacheMap<List<GrammaticalRelation>, GrammaticalRelationMatcher>(16, 0.75f, true));
+
+  /**
+   * A GrammaticalRelationMatcher for the relations, made the first time
+   * it is asked for and then kept.  If relations with target patterns
+   * have been added or removed since, a new one is made.  If the
+   * collection of relations may be changed by another thread, hold its
+   * lock while calling this.
+   */
+  public static GrammaticalRelationMatcher forRelations(Collection<GrammaticalRelation> relations) {
+    List<GrammaticalRelation> withPatterns = withPatterns(relations);
+    GrammaticalRelationMatcher matcher = matcherCache.get(withPatterns);
+    if (matcher == null || ! matcher.isFor(withPatterns)) {
+      matcher = new GrammaticalRelationMatcher(withPatterns);
+      matcherCache.put(withPatterns, matcher);
+    }
+    return matcher;
+  }
+
+  /**
+   * Whether these are the very relations this matcher was made for, in
+   * the same order, and not just relations with the same names.
+   */
+  private boolean isFor(List<GrammaticalRelation> withPatterns) {
+    if (withPatterns.size() != relations.length) {
+      return false;
+    }
+    for (int r = 0; r < relations.length; r++) {
+      if (withPatterns.get(r) != relations[r]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A matcher for the tree.  The tree must not be changed while the
+   * matcher is in use.
+   *
+   * @param root The root of the tree, with its heads percolated
+   * @param headFinder The HeadFinder the patterns are to use
+   */
+  public TreeMatcher matcher(TreeGraphNode root, HeadFinder headFinder) {
+    return new TreeMatcher(root, headFinder);
+  }
+
+  /** The relations which could hold at nodes with this label, and which of their patterns to try */
+  private Candidates candidates(String label) {
+    if (label == null) {
+      return Candidates.NONE;
+    }
+    Candidates candidates = candidatesByLabel.get(label);
+    if (candidates == null) {
+      candidates = computeCandidates(label);
+      if (candidatesByLabel.size() < MAX_CACHED_LABELS) {
+        candidatesByLabel.put(label, candidates);
+      }
+    }
+    return candidates;
+  }
+
+  private Candidates computeCandidates(String label) {
+    List<GrammaticalRelation> applicable = new ArrayList<>();
+    List<int[]> applicablePatterns = new ArrayList<>();
+    for (int r = 0; r < relations.length; r++) {
+      if ( ! relations[r].isApplicable(label)) {
+        continue;
+      }
+      int[] indices = new int[patternStarts[r + 1] - patternStarts[r]];
+      int numIndices = 0;
+      for (int p = patternStarts[r]; p < patternStarts[r + 1]; p++) {
+        Set<String> rootLabels = patterns.rootLabels(p);
+        if (rootLabels == null || rootLabels.contains(label)) {
+          indices[numIndices++] = p;
+        }
+      }
+      if (numIndices > 0) {
+        applicable.add(relations[r]);
+        applicablePatterns.add(Arrays.copyOf(indices, numIndices));
+      }
+    }
+    return new Candidates(applicable.toArray(new GrammaticalRelation[applicable.size()]),
+                          applicablePatterns.toArray(new int[applicablePatterns.size()][]));
+  }
+
+  private static class Candidates {
+    static final Candidates NONE = new Candidates(new GrammaticalRelation[0], new int[0][]);
+
+    final GrammaticalRelation[] relations;
+    /** For each of the relations, the indices of those of its patterns to try */
+    final int[][] patternIndices;
+
+    Candidates(GrammaticalRelation[] relations, int[][] patternIndices) {
+      this.relations = relations;
+      this.patternIndices = patternIndices;
+    }
+  }
+
+  /** Finds the related nodes in one tree. */
+  public class TreeMatcher {
+    private final TreeGraphNode root;
+    private final HeadFinder headFinder;
+    private final TregexPatternSet.TreeIndex index;
+    /** For each pattern, 1 if it might match in this tree, -1 if not, 0 if not yet known */
+    private final byte[] mightMatch;
+    private final TregexMatcher[] matchers;
+
+    private TreeMatcher(TreeGraphNode root, HeadFinder headFinder) {
+      this.root = root;
+      this.headFinder = headFinder;
+      index = patterns.index(root);
+      mightMatch = new byte[patterns.size()];
+      matchers = new TregexMatcher[patterns.size()];
+    }
+
+    /**
+     * The relations which hold with {@code t} as the governor, each with
+     * the nodes it relates {@code t} to, in the order of the relations.
+     * Relations which relate {@code t} to nothing are left out.
+     */
+    public List<Pair<GrammaticalRelation, Set<TreeGraphNode>>> relatedNodes(TreeGraphNode t) {
+      Candidates candidates = candidates(t.value());
+      List<Pair<GrammaticalRelation, Set<TreeGraphNode>>> related = new ArrayList<>();
+      for (int r = 0; r < candidates.relations.length; r++) {
+        Set<TreeGraphNode> nodes = null;
+        for (int p : candidates.patternIndices[r]) {
+          if ( ! mightMatch(p)) {
+            continue;
+          }
+          TregexMatcher m = matcher(p);
+          m.reset();
+          while (m.findAt(t)) {
+            TreeGraphNode target = (TreeGraphNode) m.getNode("target");
+            if (target == null) {
+              throw new AssertionError("Expression has no target: " + patterns.patterns().get(p));
+            }
+            if (nodes == null) {
+              nodes = new ArraySet<>();
+            }
+            nodes.add(target);
+          }
+        }
+        if (nodes != null) {
+          related.add(new Pair<>(candidates.relations[r], nodes));
+        }
+      }
+      return related;
+    }
+
+    private boolean mightMatch(int p) {
+      if (mightMatch[p] == 0) {
+        mightMatch[p] = patterns.mightMatch(p, index) ? (byte) 1 : (byte) -1;
+      }
+      return mightMatch[p] > 0;
+    }
+
+    private TregexMatcher matcher(int p) {
+      if (matchers[p] == null) {
+        matchers[p] = patterns.patterns().get(p).matcher(root, headFinder);
+      }
+      return matchers[p];
+    }
+  }
+
+}
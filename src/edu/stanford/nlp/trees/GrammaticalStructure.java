@@ -195,7 +195,8 @@ public abstract class GrammaticalStructure implements Serializable {
       relationsLock.lock();
     }
     try {
-      analyzeNode(root, root, relations, hf, puncFilter, basicGraph, completeGraph);
+      GrammaticalRelationMatcher.TreeMatcher matcher = GrammaticalRelationMatcher.forRelations(relations).matcher(root, hf);
+      analyzeNode(root, matcher, puncFilter, basicGraph, completeGraph);
     }
     finally {
       if (relationsLock != null) {
@@ -452,34 +453,34 @@ public abstract class GrammaticalStructure implements Serializable {
   }
 
   // cdm dec 2009: I changed this to automatically fail on preterminal nodes, since they shouldn't match for GR parent patterns.  Should speed it up.
-  private static void analyzeNode(TreeGraphNode t, TreeGraphNode root, Collection<GrammaticalRelation> relations, HeadFinder hf, Predicate<String> puncFilter, DirectedMultiGraph<TreeGraphNode, GrammaticalRelation> basicGraph, DirectedMultiGraph<TreeGraphNode, GrammaticalRelation> completeGraph) {
+  // The matcher finds what each applicable relation's getRelatedNodes would, but with one pass over the tree for all the relations.
+  private static void analyzeNode(TreeGraphNode t, GrammaticalRelationMatcher.TreeMatcher matcher, Predicate<String> puncFilter, DirectedMultiGraph<TreeGraphNode, GrammaticalRelation> basicGraph, DirectedMultiGraph<TreeGraphNode, GrammaticalRelation> completeGraph) {
     if (t.isPhrasal()) {    // don't do leaves or preterminals!
       TreeGraphNode tHigh = t.highestNodeWithSameHead();
-      for (GrammaticalRelation egr : relations) {
-        if (egr.isApplicable(t)) {
-          for (TreeGraphNode u : egr.getRelatedNodes(t, root, hf)) {
-            TreeGraphNode uHigh = u.highestNodeWithSameHead();
-            if (uHigh == tHigh) {
-              continue;
-            }
-            if (!puncFilter.test(uHigh.headWordNode().label().value())) {
-              continue;
-            }
-            completeGraph.add(tHigh, uHigh, egr);
-            // If there are two patterns that add dependencies, X --> Z and Y --> Z, and X dominates Y, then the dependency Y --> Z is not added to the basic graph to prevent unwanted duplication.
-            // Similarly, if there is already a path from X --> Y, and an expression would trigger Y --> X somehow, we ignore that
-            Set<TreeGraphNode> parents = basicGraph.getParents(uHigh);
-            if ((parents == null || parents.size() == 0 || parents.contains(tHigh)) &&
-                basicGraph.getShortestPath(uHigh, tHigh, true) == null) {
-              // System.err.println("Adding " + egr.getShortName() + " from " + t + " to " + u + " tHigh=" + tHigh + "(" + tHigh.headWordNode() + ") uHigh=" + uHigh + "(" + uHigh.headWordNode() + ")");
-              basicGraph.add(tHigh, uHigh, egr);
-            }
+      for (Pair<GrammaticalRelation, Set<TreeGraphNode>> related : matcher.relatedNodes(t)) {
+        GrammaticalRelation egr = related.first();
+        for (TreeGraphNode u : related.second()) {
+          TreeGraphNode uHigh = u.highestNodeWithSameHead();
+          if (uHigh == tHigh) {
+            continue;
+          }
+          if (!puncFilter.test(uHigh.headWordNode().label().value())) {
+            continue;
+          }
+          completeGraph.add(tHigh, uHigh, egr);
+          // If there are two patterns that add dependencies, X --> Z and Y --> Z, and X dominates Y, then the dependency Y --> Z is not added to the basic graph to prevent unwanted duplication.
+          // Similarly, if there is already a path from X --> Y, and an expression would trigger Y --> X somehow, we ignore that
+          Set<TreeGraphNode> parents = basicGraph.getParents(uHigh);
+          if ((parents == null || parents.size() == 0 || parents.contains(tHigh)) &&
+              basicGraph.getShortestPath(uHigh, tHigh, true) == null) {
+            // System.err.println("Adding " + egr.getShortName() + " from " + t + " to " + u + " tHigh=" + tHigh + "(" + tHigh.headWordNode() + ") uHigh=" + uHigh + "(" + uHigh.headWordNode() + ")");
+            basicGraph.add(tHigh, uHigh, egr);
           }
         }
       }
       // now recurse into children
       for (TreeGraphNode kid : t.children()) {
-        analyzeNode(kid, root, relations, hf, puncFilter, basicGraph, completeGraph);
+        analyzeNode(kid, matcher, puncFilter, basicGraph, completeGraph);
       }
     }
   }
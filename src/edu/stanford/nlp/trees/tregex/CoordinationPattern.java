@@ -3,13 +3,21 @@ package edu.stanford.nlp.trees.tregex;
 import edu.stanford.nlp.trees.HeadFinder;
 import edu.stanford.nlp.trees.Tree;
 
+import edu.stanford.nlp.util.Generics;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 
 class CoordinationPattern extends TregexPattern {
 
+  /** The most label sets {@link #requiredLabels} makes of a disjunction */
+  private static final int MAX_REQUIRED_LABEL_SETS = 16;
+
   private final boolean isConj;
   private final List<TregexPattern> children;
 
@@ -33,6 +41,60 @@ class CoordinationPattern extends TregexPattern {
     return (isConj ? "and" : "or");
   }
 
+  @Override
+  List<Set<String>> requiredLabels() {
+    if (isNegated() || isOptional()) {
+      return Collections.emptyList();
+    }
+    if (isConj) {
+      List<Set<String>> required = new ArrayList<>();
+      for (TregexPattern child : children) {
+        required.addAll(child.requiredLabels());
+      }
+      return required;
+    }
+    // one of the disjuncts has to match, so taking any one of the sets
+    // each disjunct requires, one of the labels of their union has to
+    // be there.  Every such union is required, up to a limit.
+    List<Set<String>> required = Collections.singletonList(Collections.emptySet());
+    for (TregexPattern child : children) {
+      List<Set<String>> childRequired = child.requiredLabels();
+      if (childRequired.isEmpty()) {
+        return Collections.emptyList();
+      }
+      if (required.size() * childRequired.size() > MAX_REQUIRED_LABEL_SETS) {
+        childRequired = childRequired.subList(0, 1);
+      }
+      List<Set<String>> unions = new ArrayList<>();
+      for (Set<String> labels : required) {
+        for (Set<String> childLabels : childRequired) {
+          Set<String> union = Generics.newHashSet(labels);
+          union.addAll(childLabels);
+          unions.add(union);
+        }
+      }
+      required = unions;
+    }
+    return required;
+  }
+
+  @Override
+  Set<String> rootLabels() {
+    // a disjunction at the root is a disjunction of whole patterns
+    if (isConj || isNegated() || isOptional()) {
+      return null;
+    }
+    Set<String> labels = Generics.newHashSet();
+    for (TregexPattern child : children) {
+      Set<String> childLabels = child.rootLabels();
+      if (childLabels == null) {
+        return null;
+      }
+      labels.addAll(childLabels);
+    }
+    return labels;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -278,6 +278,46 @@ class DescriptionPattern extends TregexPattern {
     }
   }
 
+  /** The labels this node may match, if they are a fixed set of strings, or else null */
+  private Set<String> literalLabels() {
+    if (negDesc || basicCatFunction != null || descriptionMode == null) {
+      return null;
+    }
+    switch (descriptionMode) {
+    case EXACT:
+      return Collections.singleton(exactMatch);
+    case STRINGS:
+      if (stringFilter instanceof ArrayStringFilter &&
+          ((ArrayStringFilter) stringFilter).mode() == ArrayStringFilter.Mode.EXACT) {
+        return new HashSet<>(((ArrayStringFilter) stringFilter).words());
+      }
+      return null;
+    default:
+      return null;
+    }
+  }
+
+  @Override
+  List<Set<String>> requiredLabels() {
+    if (isNegated() || isOptional()) {
+      return Collections.emptyList();
+    }
+    List<Set<String>> required = new ArrayList<>();
+    Set<String> labels = literalLabels();
+    if (labels != null) {
+      required.add(labels);
+    }
+    if (child != null) {
+      required.addAll(child.requiredLabels());
+    }
+    return required;
+  }
+
+  @Override
+  Set<String> rootLabels() {
+    return (isNegated() || isOptional()) ? null : literalLabels();
+  }
+
   @Override
   public TregexMatcher matcher(Tree root, Tree tree,
                                IdentityHashMap<Tree, Tree> nodesToParents,
@@ -390,6 +390,22 @@ public abstract class TregexPattern implements Serializable {
     return neg;
   }
 
+  /**
+   * Sets of node labels such that, for this pattern to match a tree, the
+   * tree must have a node with one of the labels of each set.  This is
+   * only what can be told from the literal labels in the pattern, so it
+   * may well be empty.
+   *
+   * @see TregexPatternSet
+   */
+  abstract List<Set<String>> requiredLabels();
+
+  /**
+   * The labels one of which the node matching the root of this pattern
+   * must have, or null if there is no telling.
+   */
+  abstract Set<String> rootLabels();
+
   boolean isOptional() {
     return opt;
   }
@@ -0,0 +1,231 @@
+package edu.stanford.nlp.trees.tregex;
+
+import java.util.*;
+
+import edu.stanford.nlp.trees.HeadFinder;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.concurrent.MulticoreWrapper;
+import edu.stanford.nlp.util.concurrent.ThreadsafeProcessor;
+
+/**
+ * Matches many {@link TregexPattern}s against the same trees.
+ * <br>
+ * Each tree is indexed once, by the labels of its nodes.  A pattern is
+ * only tried on a tree which has the literal labels the pattern
+ * requires (for example, {@code NP < (PP < IN)} needs an NP, a PP and
+ * an IN somewhere in the tree), and if the root of the pattern has a
+ * literal label, {@link TregexMatcher#find()} only tries the nodes with
+ * that label.  Patterns written with regular expressions, negated
+ * descriptions, basic categories and so on are simply tried everywhere,
+ * as usual, so the matches are always exactly those of matching each
+ * pattern on its own, in the same order.
+ * <br>
+ * For example, to find the patterns which match each tree of a treebank,
+ * <pre>
+ * TregexPatternSet patterns = new TregexPatternSet(patternList);
+ * List&lt;List&lt;Integer&gt;&gt; matches = patterns.matchingPatterns(treebank, numThreads);
+ * </pre>
+ * To apply many Tsurgeon operations, see
+ * {@link edu.stanford.nlp.trees.tregex.tsurgeon.Tsurgeon#processPatternsOnTrees(List, List, int)}.
+ * A pattern set may be shared by any number of threads.
+ */
+public class TregexPatternSet {
+
+  private final List<TregexPattern> patterns;
+  private final HeadFinder headFinder;
+
+  /** For each pattern, the label sets of which a tree must have a label of each */
+  private final List<List<Set<String>>> requiredLabels;
+  /** For each pattern, the labels the root of a match may have, or null for any */
+  private final List<Set<String>> rootLabels;
+
+  public TregexPatternSet(List<TregexPattern> patterns) {
+    this(patterns, null);
+  }
+
+  /**
+   * @param headFinder The HeadFinder the patterns use, or null for the default
+   */
+  public TregexPatternSet(List<TregexPattern> patterns, HeadFinder headFinder) {
+    this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+    this.headFinder = headFinder;
+    requiredLabels = new ArrayList<>(patterns.size());
+    rootLabels = new ArrayList<>(patterns.size());
+    for (TregexPattern pattern : patterns) {
+      requiredLabels.add(pattern.requiredLabels());
+      rootLabels.add(pattern.rootLabels());
+    }
+  }
+
+  public List<TregexPattern> patterns() {
+    return patterns;
+  }
+
+  public int size() {
+    return patterns.size();
+  }
+
+  /**
+   * The labels one of which a node must have for the pattern to match
+   * there, or null if it could match at a node with any label.
+   *
+   * @param pattern The index of the pattern in this set
+   */
+  public Set<String> rootLabels(int pattern) {
+    return rootLabels.get(pattern);
+  }
+
+  /** Indexes a tree for matching.  The index is no longer valid once the tree is changed. */
+  public TreeIndex index(Tree tree) {
+    return new TreeIndex(tree);
+  }
+
+  /**
+   * Whether the pattern could match the indexed tree.  If not, it
+   * certainly does not; if so, it still may not.
+   *
+   * @param pattern The index of the pattern in this set
+   */
+  public boolean mightMatch(int pattern, TreeIndex index) {
+    for (Set<String> labels : requiredLabels.get(pattern)) {
+      if ( ! index.hasAnyLabel(labels)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A matcher for one of the patterns on the indexed tree, whose
+   * {@link TregexMatcher#find()} only tries the nodes where the pattern
+   * could match.  It finds the same matches as the pattern's own matcher
+   * would.  (After a {@link TregexMatcher#reset()}, it tries every node.)
+   *
+   * @param pattern The index of the pattern in this set
+   */
+  public TregexMatcher matcher(int pattern, TreeIndex index) {
+    TregexPattern p = patterns.get(pattern);
+    TregexMatcher matcher = (headFinder == null) ? p.matcher(index.tree) : p.matcher(index.tree, headFinder);
+    if ( ! mightMatch(pattern, index)) {
+      matcher.findIterator = Collections.emptyIterator();
+    } else if (rootLabels.get(pattern) != null) {
+      matcher.findIterator = index.nodesWithLabels(rootLabels.get(pattern));
+    }
+    return matcher;
+  }
+
+  /** The indices of the patterns which match somewhere in the tree, in order */
+  public List<Integer> matchingPatterns(Tree tree) {
+    TreeIndex index = index(tree);
+    List<Integer> matching = new ArrayList<>();
+    for (int pattern = 0; pattern < patterns.size(); pattern++) {
+      if (mightMatch(pattern, index) && matcher(pattern, index).find()) {
+        matching.add(pattern);
+      }
+    }
+    return matching;
+  }
+
+  /**
+   * {@link #matchingPatterns(Tree)} for each tree, in order, using the
+   * given number of threads.
+   */
+  public List<List<Integer>> matchingPatterns(Collection<Tree> trees, int numThreads) {
+    MulticoreWrapper<Tree, List<Integer>> wrapper = new MulticoreWrapper<>(numThreads, new ThreadsafeProcessor<Tree, List<Integer>>() {
+        @Override
+        public List<Integer> process(Tree tree) {
+          return matchingPatterns(tree);
+        }
+
+        @Override
+        public ThreadsafeProcessor<Tree, List<Integer>> newInstance() {
+          return this;
+        }
+      });
+    List<List<Integer>> results = new ArrayList<>(trees.size());
+    for (Tree tree : trees) {
+      wrapper.put(tree);
+      while (wrapper.peek()) {
+        results.add(wrapper.poll());
+      }
+    }
+    wrapper.join();
+    while (wrapper.peek()) {
+      results.add(wrapper.poll());
+    }
+    return results;
+  }
+
+  /**
+   * The nodes of a tree by label.  The positions of the nodes in a
+   * preorder walk of the tree are kept in a bit set for each label, so
+   * the nodes with any of several labels come out in the order
+   * {@link Tree#iterator()} visits them.
+   */
+  public static class TreeIndex {
+    private final Tree tree;
+    private final List<Tree> nodes;
+    private final Map<String, BitSet> positions;
+
+    TreeIndex(Tree tree) {
+      this.tree = tree;
+      nodes = new ArrayList<>();
+      positions = Generics.newHashMap();
+      for (Tree node : tree) {
+        String label = node.value();
+        if (label != null) {
+          BitSet bits = positions.get(label);
+          if (bits == null) {
+            bits = new BitSet();
+            positions.put(label, bits);
+          }
+          bits.set(nodes.size());
+        }
+        nodes.add(node);
+      }
+    }
+
+    public Tree tree() {
+      return tree;
+    }
+
+    boolean hasAnyLabel(Set<String> labels) {
+      for (String label : labels) {
+        if (positions.containsKey(label)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    Iterator<Tree> nodesWithLabels(Set<String> labels) {
+      BitSet bits = new BitSet();
+      for (String label : labels) {
+        BitSet labelBits = positions.get(label);
+        if (labelBits != null) {
+          bits.or(labelBits);
+        }
+      }
+      return new Iterator<Tree>() {
+        private int next = bits.nextSetBit(0);
+
+        @Override
+        public boolean hasNext() {
+          return next >= 0;
+        }
+
+        @Override
+        public Tree next() {
+          if (next < 0) {
+            throw new NoSuchElementException();
+          }
+          Tree node = nodes.get(next);
+          next = bits.nextSetBit(next + 1);
+          return node;
+        }
+      };
+    }
+  }
+
+}
@@ -33,11 +33,14 @@ import edu.stanford.nlp.trees.*;
 import edu.stanford.nlp.trees.tregex.Macros;
 import edu.stanford.nlp.trees.tregex.TregexPattern;
 import edu.stanford.nlp.trees.tregex.TregexPatternCompiler;
+import edu.stanford.nlp.trees.tregex.TregexPatternSet;
 import edu.stanford.nlp.trees.tregex.TregexMatcher;
 import edu.stanford.nlp.util.Generics;
 import edu.stanford.nlp.util.Pair;
 import edu.stanford.nlp.util.ReflectionLoading;
 import edu.stanford.nlp.util.StringUtils;
+import edu.stanford.nlp.util.concurrent.MulticoreWrapper;
+import edu.stanford.nlp.util.concurrent.ThreadsafeProcessor;
 
 import java.util.*;
 import java.util.regex.Pattern;
@@ -613,6 +616,75 @@ public class Tsurgeon {
 
 
 
+  /**
+   * Applies {@link #processPatternsOnTree} to each of the trees, using
+   * the given number of threads, and returns the results in order.  A
+   * {@link TregexPatternSet} is used to skip the patterns which cannot
+   * match each tree, which gives the same results as applying every
+   * pattern but is much faster when there are many of them.
+   *
+   * @param ops The patterns and the operations to apply where they match, in order
+   * @param trees The trees to operate on.  They are changed in place.
+   * @param numThreads The number of threads to use
+   * @return For each tree, the changed tree, or null if an operation deleted the whole tree
+   */
+  public static List<Tree> processPatternsOnTrees(List<Pair<TregexPattern, TsurgeonPattern>> ops, List<Tree> trees, int numThreads) {
+    List<TregexPattern> matchPatterns = new ArrayList<>(ops.size());
+    for (Pair<TregexPattern, TsurgeonPattern> op : ops) {
+      matchPatterns.add(op.first());
+    }
+    TregexPatternSet patterns = new TregexPatternSet(matchPatterns);
+    MulticoreWrapper<Tree, Tree> wrapper = new MulticoreWrapper<>(numThreads, new ThreadsafeProcessor<Tree, Tree>() {
+        @Override
+        public Tree process(Tree tree) {
+          return processPatternsOnTree(ops, patterns, tree);
+        }
+
+        @Override
+        public ThreadsafeProcessor<Tree, Tree> newInstance() {
+          return this;
+        }
+      });
+    List<Tree> results = new ArrayList<>(trees.size());
+    for (Tree tree : trees) {
+      wrapper.put(tree);
+      while (wrapper.peek()) {
+        results.add(wrapper.poll());
+      }
+    }
+    wrapper.join();
+    while (wrapper.peek()) {
+      results.add(wrapper.poll());
+    }
+    return results;
+  }
+
+  private static Tree processPatternsOnTree(List<Pair<TregexPattern, TsurgeonPattern>> ops, TregexPatternSet patterns, Tree t) {
+    TregexPatternSet.TreeIndex index = patterns.index(t);
+    for (int i = 0; i < ops.size(); i++) {
+      if ( ! patterns.mightMatch(i, index)) {
+        continue;
+      }
+      Pair<TregexPattern, TsurgeonPattern> op = ops.get(i);
+      try {
+        TregexMatcher m = patterns.matcher(i, index);
+        TsurgeonMatcher tsm = op.second().matcher();
+        while (m.find()) {
+          t = tsm.evaluate(t, m);
+          if (t == null) {
+            return null;
+          }
+          // the operation changed the tree, so it has to be indexed again
+          index = patterns.index(t);
+          m = patterns.matcher(i, index);
+        }
+      } catch (NullPointerException npe) {
+        throw new RuntimeException("Tsurgeon.processPatternsOnTree failed to match label for pattern: " + op.first() + ", " + op.second(), npe);
+      }
+    }
+    return t;
+  }
+
   /**
    * Parses an operation string into a {@link TsurgeonPattern}.  Throws an {@link TsurgeonParseException} if
    * the operation string is ill-formed.
@@ -50,6 +50,10 @@ public class ArrayCoreMap implements CoreMap /*, Serializable */ {
   /** Total number of elements actually in keys,values */
   private int size; // = 0;
 
+  /** Shared by all maps created with capacity 0, until they grow */
+  private static final Class[] EMPTY_KEYS = new Class[0];
+  private static final Object[] EMPTY_VALUES = new Object[0];
+
   /**
    * Default constructor - initializes with default initial annotation
    * capacity of 4.
@@ -65,8 +69,13 @@ public class ArrayCoreMap implements CoreMap /*, Serializable */ {
    * @param capacity Initial capacity of object in key,value pairs
    */
   public ArrayCoreMap(int capacity) {
-    keys = ErasureUtils.uncheckedCast(new Class[capacity]);
-    values = new Object[capacity];
+    if (capacity == 0) {
+      keys = ErasureUtils.uncheckedCast(EMPTY_KEYS);
+      values = EMPTY_VALUES;
+    } else {
+      keys = ErasureUtils.uncheckedCast(new Class[capacity]);
+      values = new Object[capacity];
+    }
     // size starts at 0
   }
 
@@ -75,17 +84,25 @@ public class ArrayCoreMap implements CoreMap /*, Serializable */ {
    * @param other The ArrayCoreMap to copy. It may not be null.
    */
   public ArrayCoreMap(ArrayCoreMap other) {
-    size = other.size;
-    keys = Arrays.copyOf(other.keys, size);
-    values = Arrays.copyOf(other.values, size);
+    if (other.isArrayBacked()) {
+      size = other.size;
+      keys = Arrays.copyOf(other.keys, size);
+      values = Arrays.copyOf(other.values, size);
+    } else {
+      copyFrom(other);
+    }
   }
 
   /**
    * Copy constructor.
    * @param other The ArrayCoreMap to copy. It may not be null.
    */
-  @SuppressWarnings("unchecked")
   public ArrayCoreMap(CoreMap other) {
+    copyFrom(other);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void copyFrom(CoreMap other) {
     Set<Class<?>> otherKeys = other.keySet();
 
     size = otherKeys.size();
@@ -481,7 +498,7 @@ public class ArrayCoreMap implements CoreMap /*, Serializable */ {
       return obj.equals(this);
     }
 
-    if (obj instanceof ArrayCoreMap) {
+    if (obj instanceof ArrayCoreMap && isArrayBacked() && ((ArrayCoreMap) obj).isArrayBacked()) {
       // specialized equals for ArrayCoreMap
       return equals((ArrayCoreMap)obj);
     }
@@ -517,6 +534,16 @@ public class ArrayCoreMap implements CoreMap /*, Serializable */ {
   }
 
 
+  /**
+   * Whether every key and value of this map is kept in its own keys
+   * and values arrays.  Subclasses which keep some of their annotations
+   * elsewhere, such as the rows of a {@link edu.stanford.nlp.ling.TokenTable},
+   * return false, so that equals goes through keySet() and get().
+   */
+  protected boolean isArrayBacked() {
+    return true;
+  }
+
   private boolean equals(ArrayCoreMap other) {
     TwoDimensionalMap<CoreMap, CoreMap, Boolean> calledMap = equalsCalled.get();
     boolean createdCalledMap = (calledMap == null);
@@ -2,7 +2,9 @@ package edu.stanford.nlp.util;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -35,6 +37,15 @@ public class ArrayStringFilter implements Predicate<String>, Serializable {
     this.length = words.length;
   }
 
+  public Mode mode() {
+    return mode;
+  }
+
+  /** The words this filter accepts, or accepts the prefixes of */
+  public List<String> words() {
+    return Collections.unmodifiableList(Arrays.asList(words));
+  }
+
   @Override
   public boolean test(String input) {
     switch (mode) {
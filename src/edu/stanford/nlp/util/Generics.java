@@ -19,6 +19,7 @@ import java.util.TreeSet;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
+import edu.stanford.nlp.util.concurrent.ConcurrentInterner;
 import edu.stanford.nlp.util.concurrent.SynchronizedInterner;
 
 /**
@@ -248,8 +249,36 @@ public class Generics {
     return new TreeMap<K,V>();
   }
 
+  public static final String INDEX_PROPERTY = "edu.stanford.nlp.index.impl";
+  public static final String INDEX_CLASSNAME = System.getProperty(INDEX_PROPERTY);
+  private static final Class<?> INDEX_CLASS = getIndexClass();
+
+  private static Class getIndexClass() {
+    try {
+      if (INDEX_CLASSNAME == null) {
+        return HashIndex.class;
+      } else {
+        return Class.forName(INDEX_CLASSNAME);
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * A new, empty Index.  This is a {@link HashIndex}, unless the class of
+   * Index to use is given by the system property {@value #INDEX_PROPERTY},
+   * e.g. {@link ObjectIntIndex}.
+   */
   public static <E> Index<E> newIndex() {
-    return new HashIndex<E>();
+    if (INDEX_CLASS == HashIndex.class) {
+      return new HashIndex<E>();
+    }
+    try {
+      return ErasureUtils.uncheckedCast(INDEX_CLASS.newInstance());
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
   }
 
 
@@ -266,6 +295,10 @@ public class Generics {
     return new Interner<T>();
   }
 
+  public static <T> ConcurrentInterner<T> newConcurrentInterner() {
+    return new ConcurrentInterner<T>();
+  }
+
   public static <T> SynchronizedInterner<T> newSynchronizedInterner(Interner<T> interner) {
     return new SynchronizedInterner<T>(interner);
   }
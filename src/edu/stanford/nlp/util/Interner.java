@@ -4,6 +4,8 @@ import java.lang.ref.WeakReference;
 import java.util.Map;
 import java.util.Set;
 
+import edu.stanford.nlp.util.concurrent.ConcurrentInterner;
+
 /**
  * For interning (canonicalizing) things.
  * <p/>
@@ -21,6 +23,8 @@ import java.util.Set;
  * Note that in general it is just as good or better to use the
  * static Interner.globalIntern() method rather than making an
  * instance of Interner and using the instance-level intern().
+ * The global interner is a {@link ConcurrentInterner}, which does not
+ * lock, so it is also the best choice from many threads.
  * <p/>
  * Author: Dan Klein
  * Date: 9/28/03
@@ -29,7 +33,7 @@ import java.util.Set;
  */
 public class Interner<T> {
 
-  protected static Interner<Object> interner = Generics.newInterner();
+  protected static Interner<Object> interner = Generics.newConcurrentInterner();
 
   /**
    * For getting the instance that global methods use.
@@ -60,7 +64,19 @@ public class Interner<T> {
   }
 
 
-  protected Map<T,WeakReference<T>> map = Generics.newWeakHashMap();
+  protected Map<T,WeakReference<T>> map;
+
+  public Interner() {
+    this(Generics.<T,WeakReference<T>>newWeakHashMap());
+  }
+
+  /**
+   * For subclasses which keep the interned objects elsewhere, and
+   * override every method which uses the map, so that they can pass null.
+   */
+  protected Interner(Map<T,WeakReference<T>> map) {
+    this.map = map;
+  }
 
   public void clear() { map = Generics.newWeakHashMap(); }
   
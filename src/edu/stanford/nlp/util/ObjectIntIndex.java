@@ -0,0 +1,332 @@
+package edu.stanford.nlp.util;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * An {@link Index} which keeps its objects in an array, in index order,
+ * and finds the index of an object by an open-addressed hash table of
+ * {@code int}s, rather than in an {@code ArrayList} and a
+ * {@code Map<E,Integer>} as a {@link HashIndex} does.  No objects are made
+ * per entry, so it takes well under half the memory of a HashIndex of the
+ * same objects, and looking objects up makes no garbage.
+ * <br>
+ * It otherwise behaves like a HashIndex, including saving to files in the
+ * same format.  Lookups are safe alongside other lookups, and additions
+ * are synchronized, but a lookup may not run at the same time as an
+ * addition, just as with a HashIndex.
+ *
+ * @param <E> The type of the objects
+ */
+public class ObjectIntIndex<E> implements Index<E>, RandomAccess {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int MIN_CAPACITY = 16;
+  private static final double MAX_LOAD = 0.6;
+
+  /** The objects, by index */
+  private transient Object[] objects;
+  /** The hash codes of the objects, by index */
+  private transient int[] hashes;
+  /** The hash table: each slot holds the index of an object + 1, or 0 if it is empty */
+  private transient int[] table;
+  private transient int size;
+  private boolean locked; // = false; // Mutable
+
+  public ObjectIntIndex() {
+    this(0);
+  }
+
+  public ObjectIntIndex(int capacity) {
+    objects = new Object[Math.max(capacity, 4)];
+    hashes = new int[objects.length];
+    table = new int[tableCapacityFor(capacity)];
+  }
+
+  public ObjectIntIndex(Collection<? extends E> c) {
+    this(c.size());
+    addAll(c);
+  }
+
+  public ObjectIntIndex(Index<? extends E> index) {
+    this(index.size());
+    addAll(index.objectsList());
+  }
+
+  private static int tableCapacityFor(int size) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * MAX_LOAD < size + 1) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private static int hash(Object o) {
+    int h = (o == null) ? 0 : o.hashCode();
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /** The table slot of the object, or of the empty slot where it would go */
+  private int slot(Object o, int h) {
+    int mask = table.length - 1;
+    int i = h & mask;
+    for (int entry; (entry = table[i]) != 0; i = (i + 1) & mask) {
+      int index = entry - 1;
+      if (hashes[index] == h) {
+        Object other = objects[index];
+        if (other == o || (o != null && o.equals(other))) {
+          break;
+        }
+      }
+    }
+    return i;
+  }
+
+  private void rehash(int capacity) {
+    table = new int[capacity];
+    int mask = capacity - 1;
+    for (int index = 0; index < size; index++) {
+      int i = hashes[index] & mask;
+      while (table[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      table[i] = index + 1;
+    }
+  }
+
+  /** Adds the object, which is not in the index yet, at the given table slot */
+  private int append(E o, int h, int slot) {
+    if (size == objects.length) {
+      int capacity = objects.length + (objects.length >> 1) + 1;
+      objects = Arrays.copyOf(objects, capacity);
+      hashes = Arrays.copyOf(hashes, capacity);
+    }
+    int index = size;
+    objects[index] = o;
+    hashes[index] = h;
+    table[slot] = index + 1;
+    size++;
+    if (size > table.length * MAX_LOAD) {
+      rehash(table.length << 1);
+    }
+    return index;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int i) {
+    if (i < 0 || i >= size)
+      throw new ArrayIndexOutOfBoundsException("Index " + i +
+                                               " outside the bounds [0," +
+                                               size() + ")");
+    return (E) objects[i];
+  }
+
+  @Override
+  public int indexOf(E o) {
+    return table[slot(o, hash(o))] - 1;
+  }
+
+  @Override
+  public int addToIndex(E o) {
+    int h = hash(o);
+    int index = table[slot(o, h)] - 1;
+    if (index < 0) {
+      if (locked) {
+        return -1;
+      }
+      synchronized (this) {
+        int slot = slot(o, h);
+        index = table[slot] - 1;
+        if (index < 0) {
+          index = append(o, h, slot);
+        }
+      }
+    }
+    return index;
+  }
+
+  @Override
+  @Deprecated
+  public int indexOf(E o, boolean add) {
+    if (add) {
+      return addToIndex(o);
+    } else {
+      return indexOf(o);
+    }
+  }
+
+  @Override
+  public List<E> objectsList() {
+    return new ObjectsList();
+  }
+
+  /** A live, unmodifiable view of the objects in index order */
+  private class ObjectsList extends AbstractList<E> implements RandomAccess {
+    @Override
+    public E get(int index) {
+      return ObjectIntIndex.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  @Override
+  public Collection<E> objects(final int[] indices) {
+    return new AbstractList<E>() {
+      @Override
+      public E get(int index) {
+        return ObjectIntIndex.this.get(indices[index]);
+      }
+
+      @Override
+      public int size() {
+        return indices.length;
+      }
+    };
+  }
+
+  public int[] indices(Collection<E> elements) {
+    int[] indices = new int[elements.size()];
+    int i = 0;
+    for (E elem : elements) {
+      indices[i++] = indexOf(elem);
+    }
+    return indices;
+  }
+
+  @Override
+  public boolean isLocked() {
+    return locked;
+  }
+
+  @Override
+  public void lock() {
+    locked = true;
+  }
+
+  @Override
+  public void unlock() {
+    locked = false;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return table[slot(o, hash(o))] != 0;
+  }
+
+  @Override
+  public synchronized boolean add(E o) {
+    int h = hash(o);
+    int slot = slot(o, h);
+    if (table[slot] == 0 && ! locked) {
+      append(o, h, slot);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends E> c) {
+    boolean changed = false;
+    for (E element: c) {
+      changed |= add(element);
+    }
+    return changed;
+  }
+
+  @Override
+  public synchronized void clear() {
+    Arrays.fill(objects, 0, size, null);
+    Arrays.fill(table, 0);
+    size = 0;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return objectsList().iterator();
+  }
+
+  @Override
+  public void saveToFilename(String file) {
+    BufferedWriter bw = null;
+    try {
+      bw = new BufferedWriter(new FileWriter(file));
+      saveToWriter(bw);
+      bw.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      if (bw != null) {
+        try {
+          bw.close();
+        } catch (IOException ioe) {
+          // give up
+        }
+      }
+    }
+  }
+
+  @Override
+  public void saveToWriter(Writer bw) throws IOException {
+    for (int i = 0, sz = size(); i < sz; i++) {
+      bw.write(i + "=" + get(i) + '\n');
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buff = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      buff.append(i).append('=').append(objects[i]);
+      if (i < size - 1) buff.append(',');
+    }
+    buff.append(']');
+    return buff.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof ObjectIntIndex)) return false;
+    return objectsList().equals(((ObjectIntIndex) o).objectsList());
+  }
+
+  @Override
+  public int hashCode() {
+    return objectsList().hashCode();
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      out.writeObject(objects[i]);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    int n = in.readInt();
+    objects = new Object[Math.max(n, 4)];
+    hashes = new int[objects.length];
+    table = new int[tableCapacityFor(n)];
+    for (int i = 0; i < n; i++) {
+      E o = (E) in.readObject();
+      int h = hash(o);
+      append(o, h, slot(o, h));
+    }
+  }
+
+}
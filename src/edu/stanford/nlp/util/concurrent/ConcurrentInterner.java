@@ -0,0 +1,154 @@
+package edu.stanford.nlp.util.concurrent;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.stanford.nlp.util.Interner;
+
+/**
+ * An {@link Interner} which can be used from many threads at once
+ * without locking.
+ * <br>
+ * The interned objects are kept in a {@link ConcurrentHashMap} of
+ * weak references, so lookups take no locks at all and adding a new
+ * object only contends with threads adding to the same bin of the map.
+ * As with Interner, an interned object can still be garbage collected
+ * once nothing else refers to it.  The references of collected objects
+ * are put on a {@link ReferenceQueue} and their entries are removed by
+ * the next call to intern or size.
+ * <br>
+ * This is the global interner used by {@link Interner#globalIntern},
+ * and since it is an Interner it can be used anywhere one is, including
+ * as the delegate of a {@link SynchronizedInterner}, which then skips
+ * its lock.
+ *
+ * @see edu.stanford.nlp.benchmark.InternerBenchmark
+ */
+public class ConcurrentInterner<T> extends Interner<T> {
+
+  private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+  /**
+   * The keys of the map.  Two keys are equal if their referents are
+   * equal; a key whose referent has been collected is only equal to
+   * itself, so it can still be removed.
+   */
+  private static class WeakKey<T> extends WeakReference<T> {
+    private final int hash;
+
+    WeakKey(T referent, ReferenceQueue<? super T> queue) {
+      super(referent, queue);
+      this.hash = referent.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof WeakKey) || hash != obj.hashCode()) {
+        return false;
+      }
+      T referent = get();
+      return referent != null && referent.equals(((WeakKey<?>) obj).get());
+    }
+  }
+
+  /**
+   * Looks up an object without creating a weak reference to it, which
+   * would cost the garbage collector more than an ordinary object
+   */
+  private static class LookupKey {
+    private final Object object;
+    private final int hash;
+
+    LookupKey(Object object) {
+      this.object = object;
+      this.hash = object.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return (obj instanceof WeakKey) && hash == obj.hashCode() && object.equals(((WeakKey<?>) obj).get());
+    }
+  }
+
+  /** Holds WeakKeys, and is only ever queried with a LookupKey */
+  private final ConcurrentHashMap<Object, WeakKey<T>> interned;
+  private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+  public ConcurrentInterner() {
+    this(DEFAULT_INITIAL_CAPACITY);
+  }
+
+  public ConcurrentInterner(int initialCapacity) {
+    super(null); // the inherited map is never used
+    interned = new ConcurrentHashMap<>(initialCapacity);
+  }
+
+  /**
+   * Returns a unique object o' that .equals the argument o.  If o
+   * itself is returned, this is the first request for an object
+   * .equals to o.
+   */
+  @Override
+  public T intern(T o) {
+    if (o == null) {
+      return null;
+    }
+    expungeStaleEntries();
+    WeakKey<T> existing = interned.get(new LookupKey(o));
+    if (existing != null) {
+      T result = existing.get();
+      if (result != null) {
+        return result;
+      }
+    }
+
+    WeakKey<T> key = new WeakKey<>(o, queue);
+    while (true) {
+      existing = interned.putIfAbsent(key, key);
+      if (existing == null) {
+        return o;
+      }
+      T result = existing.get();
+      if (result != null) {
+        // another thread interned an equal object first
+        return result;
+      }
+      // collected, but not yet expunged
+      interned.remove(existing, existing);
+    }
+  }
+
+  private void expungeStaleEntries() {
+    Reference<? extends T> stale;
+    while ((stale = queue.poll()) != null) {
+      interned.remove(stale, stale);
+    }
+  }
+
+  @Override
+  public void clear() {
+    interned.clear();
+  }
+
+  @Override
+  public int size() {
+    expungeStaleEntries();
+    return interned.size();
+  }
+
+}
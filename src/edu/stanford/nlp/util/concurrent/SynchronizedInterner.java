@@ -29,11 +29,13 @@ import edu.stanford.nlp.util.Interner;
  *
  * @author Ilya Sherman
  * @see edu.stanford.nlp.util.Interner
+ * @see ConcurrentInterner
  */
 // TODO would be nice to have this share an interface with Interner
 public class SynchronizedInterner<T> {
   protected static final Object globalMutex = new Object();
-  protected static SynchronizedInterner<Object> interner =
+  /** Volatile so that reading it takes no lock; only setGlobal locks globalMutex */
+  protected static volatile SynchronizedInterner<Object> interner =
      Generics.newSynchronizedInterner(Interner.getGlobal(), globalMutex);
 
 
@@ -41,9 +43,7 @@ public class SynchronizedInterner<T> {
    * For getting the instance that global methods use.
    */
   public static SynchronizedInterner<Object> getGlobal() {
-    synchronized(globalMutex) {
-      return interner;
-    }
+    return interner;
   }
 
   /**
@@ -66,25 +66,26 @@ public class SynchronizedInterner<T> {
    */
   @SuppressWarnings("unchecked")
   public static <T> T globalIntern(T o) {
-    synchronized(globalMutex) {
-      return (T) getGlobal().intern(o);
-    }
+    // reading the global interner takes no lock; it locks globalMutex
+    // itself around intern, unless its delegate is a ConcurrentInterner
+    return (T) getGlobal().intern(o);
   }
 
 
   protected final Interner<T> delegate;
   protected final Object mutex;
+  /** A ConcurrentInterner is already threadsafe, so intern does not lock it */
+  private final boolean concurrent;
 
   public SynchronizedInterner(Interner<T> delegate) {
-    if (delegate == null) throw new NullPointerException();
-    this.delegate = delegate;
-    this.mutex = this;
+    this(delegate, null);
   }
 
   public SynchronizedInterner(Interner<T> delegate, Object mutex) {
     if (delegate == null) throw new NullPointerException();
     this.delegate = delegate;
-    this.mutex = mutex;
+    this.mutex = (mutex != null) ? mutex : this;
+    this.concurrent = delegate instanceof ConcurrentInterner;
   }
 
   public void clear() {
@@ -99,6 +100,9 @@ public class SynchronizedInterner<T> {
    * .equals to o.
    */
   public T intern(T o) {
+    if (concurrent) {
+      return delegate.intern(o);
+    }
     synchronized(mutex) {
       return delegate.intern(o);
     }
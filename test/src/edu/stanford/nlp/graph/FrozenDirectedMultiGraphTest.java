@@ -0,0 +1,99 @@
+package edu.stanford.nlp.graph;
+
+import java.util.*;
+
+import edu.stanford.nlp.util.CollectionUtils;
+import junit.framework.TestCase;
+
+public class FrozenDirectedMultiGraphTest extends TestCase {
+
+  DirectedMultiGraph<Integer, String> graph;
+  FrozenDirectedMultiGraph<Integer, String> frozen;
+
+  public void setUp() {
+    graph = new DirectedMultiGraph<Integer, String>();
+    graph.add(1, 2, "1->2");
+    graph.add(2, 3, "2->3");
+    graph.add(1, 4, "1->4");
+    // cyclic
+    graph.add(4, 1, "4->1");
+    graph.addVertex(5);
+    graph.add(5, 6, "5->6");
+    graph.add(7, 6, "7->6");
+    graph.addVertex(7);
+    graph.addVertex(8);
+    graph.add(9, 10, "9->10");
+    // a multi-edge
+    graph.add(1, 2, "1->2 again");
+    frozen = new FrozenDirectedMultiGraph<Integer, String>(graph);
+  }
+
+  public void testSameGraph() {
+    assertEquals(graph, frozen);
+    assertEquals(frozen, graph);
+    assertEquals(graph.hashCode(), frozen.hashCode());
+    assertEquals(graph.toString(), frozen.toString());
+    assertEquals(10, frozen.getNumVertices());
+    assertEquals(8, frozen.getNumEdges());
+    assertEquals(graph.getAllVertices(), frozen.getAllVertices());
+    assertEquals(CollectionUtils.toList(graph.getAllVertices()), CollectionUtils.toList(frozen.getAllVertices()));
+    assertEquals(graph.getAllEdges(), frozen.getAllEdges());
+    assertEquals(CollectionUtils.toList(graph.edgeIterable()), CollectionUtils.toList(frozen.edgeIterable()));
+    for (int vertex = 0; vertex <= 11; vertex++) {
+      assertEquals(graph.containsVertex(vertex), frozen.containsVertex(vertex));
+      assertEquals(graph.getOutgoingEdges(vertex), frozen.getOutgoingEdges(vertex));
+      assertEquals(graph.getIncomingEdges(vertex), frozen.getIncomingEdges(vertex));
+      assertEquals(CollectionUtils.toList(graph.outgoingEdgeIterable(vertex)), CollectionUtils.toList(frozen.outgoingEdgeIterable(vertex)));
+      assertEquals(CollectionUtils.toList(graph.incomingEdgeIterable(vertex)), CollectionUtils.toList(frozen.incomingEdgeIterable(vertex)));
+      assertEquals(graph.getChildren(vertex), frozen.getChildren(vertex));
+      assertEquals(graph.getParents(vertex), frozen.getParents(vertex));
+      assertEquals(graph.getInDegree(vertex), frozen.getInDegree(vertex));
+      assertEquals(graph.getOutDegree(vertex), frozen.getOutDegree(vertex));
+      for (int other = 0; other <= 11; other++) {
+        assertEquals(graph.isEdge(vertex, other), frozen.isEdge(vertex, other));
+        assertEquals(graph.getEdges(vertex, other), frozen.getEdges(vertex, other));
+      }
+    }
+    assertEquals(Arrays.asList("1->2", "1->2 again"), frozen.getEdges(1, 2));
+    assertNull(frozen.getChildren(11));
+    assertEquals(graph.getShortestPath(2, 4), frozen.getShortestPath(2, 4));
+    assertEquals(graph.getShortestPathEdges(1, 3, true), frozen.getShortestPathEdges(1, 3, true));
+    assertEquals(new HashSet<>(graph.getConnectedComponents()), new HashSet<>(frozen.getConnectedComponents()));
+  }
+
+  public void testUnmodifiable() {
+    try {
+      frozen.add(1, 3, "1->3");
+      fail("Expected a frozen graph to refuse a new edge");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      frozen.removeVertex(1);
+      fail("Expected a frozen graph to refuse to remove a vertex");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    Iterator<String> edges = frozen.edgeIterator();
+    edges.next();
+    try {
+      edges.remove();
+      fail("Expected a frozen graph to refuse to remove an edge");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    assertEquals(8, frozen.getNumEdges());
+  }
+
+  public void testThaw() {
+    DirectedMultiGraph<Integer, String> copy = new DirectedMultiGraph<Integer, String>(frozen);
+    assertFalse(copy instanceof FrozenDirectedMultiGraph);
+    assertEquals(graph, copy);
+    assertEquals(graph.getIncomingEdges(2), copy.getIncomingEdges(2));
+    copy.removeVertex(2);
+    assertEquals(5, copy.getNumEdges());
+    assertEquals(8, frozen.getNumEdges());
+    assertFalse(copy.equals(frozen));
+  }
+
+}
@@ -0,0 +1,77 @@
+package edu.stanford.nlp.hcoref.data;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.ling.RVFDatum;
+import edu.stanford.nlp.stats.ClassicCounter;
+
+public class MentionPairFeatureCacheTest extends TestCase {
+
+  private static Mention mention(int id) {
+    Mention m = new Mention();
+    m.mentionID = id;
+    m.corefClusterID = id;
+    return m;
+  }
+
+  private static RVFDatum<Boolean, String> datum() {
+    return new RVFDatum<Boolean, String>(new ClassicCounter<String>(), false);
+  }
+
+  public void testInvalidatedByMerge() {
+    MentionPairFeatureCache cache = new MentionPairFeatureCache(100);
+    Mention m1 = mention(1), m2 = mention(2), m3 = mention(3), m4 = mention(4);
+    RVFDatum<Boolean, String> d12 = datum(), d34 = datum();
+    cache.put("f", m2, m1, 1, d12);
+    cache.put("f", m4, m3, 1, d34);
+    assertSame(d12, cache.get("f", m2, m1, 1));
+    assertNull(cache.get("f", m2, m1, 2));
+    assertNull(cache.get("g", m2, m1, 1));
+    assertNull(cache.get("f", m1, m2, 1));
+
+    // m3 joins the cluster of m1
+    m3.corefClusterID = m1.corefClusterID;
+    cache.clusterChanged(m1.corefClusterID);
+    assertNull(cache.get("f", m2, m1, 1));
+    assertNull(cache.get("f", m4, m3, 1));
+
+    cache.put("f", m2, m1, 1, d12);
+    assertSame(d12, cache.get("f", m2, m1, 1));
+    cache.clear();
+    assertNull(cache.get("f", m2, m1, 1));
+  }
+
+  /** A later sieve with the same features finds the pairs an earlier one scored */
+  public void testHits() {
+    MentionPairFeatureCache cache = new MentionPairFeatureCache(100);
+    Mention[] mentions = new Mention[6];
+    for (int i = 0; i < mentions.length; i++) {
+      mentions[i] = mention(i);
+    }
+    // two sieves with the same features, and one with other features, each scoring every pair once
+    for (String featureSet : new String[] {"f", "g", "f"}) {
+      for (int i = 1; i < mentions.length; i++) {
+        for (int j = i - 1; j >= 0; j--) {
+          if (cache.get(featureSet, mentions[i], mentions[j], i - j) == null) {
+            cache.put(featureSet, mentions[i], mentions[j], i - j, datum());
+          }
+        }
+      }
+    }
+    assertEquals(45, cache.lookups());
+    assertEquals(15, cache.hits());
+  }
+
+  public void testSize() {
+    MentionPairFeatureCache cache = new MentionPairFeatureCache(2);
+    Mention m1 = mention(1), m2 = mention(2), m3 = mention(3);
+    cache.put("f", m2, m1, 1, datum());
+    cache.put("f", m3, m1, 2, datum());
+    cache.get("f", m2, m1, 1);
+    cache.put("f", m3, m2, 1, datum());
+    assertEquals(2, cache.size());
+    assertNotNull(cache.get("f", m2, m1, 1));
+    assertNull(cache.get("f", m3, m1, 2));
+  }
+
+}
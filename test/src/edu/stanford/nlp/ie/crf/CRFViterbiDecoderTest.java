@@ -0,0 +1,83 @@
+package edu.stanford.nlp.ie.crf;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.sequences.ExactBestSequenceFinder;
+
+/**
+ * Checks that the buffered Viterbi path of CRFClassifier.classifyMaxEnt
+ * gives the same labels as decoding the usual sequence model.
+ */
+public class CRFViterbiDecoderTest extends TestCase {
+
+  private static final String[] LABELS = { "O", "PER", "LOC", "ORG" };
+
+  private static List<List<CoreLabel>> documents(Random random, int numDocuments, boolean labeled) {
+    List<List<CoreLabel>> documents = new ArrayList<List<CoreLabel>>();
+    for (int i = 0; i < numDocuments; i++) {
+      List<CoreLabel> document = new ArrayList<CoreLabel>();
+      int length = 1 + random.nextInt(12);
+      for (int j = 0; j < length; j++) {
+        String label = LABELS[random.nextInt(LABELS.length)];
+        CoreLabel token = new CoreLabel();
+        String word = (random.nextInt(5) == 0) ? "the" : label.toLowerCase() + random.nextInt(labeled ? 8 : 10);
+        token.setWord(word);
+        token.setValue(word);
+        token.set(CoreAnnotations.AnswerAnnotation.class, labeled ? label : "O");
+        document.add(token);
+      }
+      documents.add(document);
+    }
+    return documents;
+  }
+
+  private static void checkSameLabels(String maxLeft, boolean useReverse) {
+    Properties props = new Properties();
+    props.setProperty("useWord", "true");
+    props.setProperty("usePrev", "true");
+    props.setProperty("useNext", "true");
+    props.setProperty("useSequences", "true");
+    props.setProperty("usePrevSequences", "true");
+    props.setProperty("useClassFeature", "true");
+    props.setProperty("maxLeft", maxLeft);
+    props.setProperty("maxIterations", "15");
+    props.setProperty("useReverse", Boolean.toString(useReverse));
+    CRFClassifier<CoreLabel> crf = new CRFClassifier<CoreLabel>(props);
+    Random random = new Random(1234);
+    crf.train(documents(random, 100, true));
+
+    for (List<CoreLabel> document : documents(random, 50, false)) {
+      int[] best = new ExactBestSequenceFinder().bestSequence(crf.getSequenceModel(document));
+      crf.classifyMaxEnt(document);
+      List<CoreLabel> ordered = new ArrayList<CoreLabel>(document);
+      if (useReverse) {
+        Collections.reverse(ordered);
+      }
+      for (int j = 0; j < ordered.size(); j++) {
+        assertEquals(crf.classIndex.get(best[j + crf.windowSize - 1]),
+                     ordered.get(j).get(CoreAnnotations.AnswerAnnotation.class));
+      }
+    }
+  }
+
+  public void testWindowTwo() {
+    checkSameLabels("1", false);
+  }
+
+  public void testWindowThree() {
+    checkSameLabels("2", false);
+  }
+
+  public void testReverse() {
+    checkSameLabels("1", true);
+  }
+
+}
@@ -207,4 +207,61 @@ public class RegexNERSequenceClassifierTest extends TestCase {
     }
   }
 
+  /** Tokens from "word/tag/ner" strings */
+  private static List<CoreLabel> tokens(String... words) {
+    List<CoreLabel> sentence = new ArrayList<CoreLabel>();
+    for (String word : words) {
+      String[] pieces = word.split("/");
+      CoreLabel token = new CoreLabel();
+      token.setWord(pieces[0]);
+      token.setTag(pieces[1]);
+      token.setNER(pieces[2]);
+      sentence.add(token);
+    }
+    return sentence;
+  }
+
+  private static void checkAnswers(String mapping, boolean overwriteMyLabels, String validPosRegex,
+                                   List<CoreLabel> sentence, String expected) {
+    RegexNERSequenceClassifier classifier =
+      new RegexNERSequenceClassifier(new BufferedReader(new StringReader(mapping)), false, overwriteMyLabels, validPosRegex);
+    compareAnswers(expected.split(" "), classifier.classify(sentence));
+  }
+
+  public void testPriority() {
+    List<CoreLabel> sentence = tokens("in/IN/O", "New/NNP/O", "York/NNP/O", "City/NNP/O");
+    checkAnswers("New York City\tCITY\t\t1\nNew York\tSTATE\t\t2\n", false, null,
+                 deepCopy(sentence), "- STATE STATE -");
+    checkAnswers("New York City\tCITY\t\t2\nNew York\tSTATE\t\t1\n", false, null,
+                 deepCopy(sentence), "- CITY CITY CITY");
+    // with equal priorities the longer entry goes first
+    checkAnswers("New York\tSTATE\nNew York City\tCITY\n", false, null,
+                 deepCopy(sentence), "- CITY CITY CITY");
+    // the same, when one of the entries is a real regex
+    checkAnswers("New York City\tCITY\t\t1\nNew Yo.*\tSTATE\t\t2\n", false, null,
+                 deepCopy(sentence), "- STATE STATE -");
+    checkAnswers("N.w York\tSTATE\nNew York City\tCITY\n", false, null,
+                 deepCopy(sentence), "- CITY CITY CITY");
+  }
+
+  public void testOverwriteMyLabels() {
+    // PARK was assigned by an earlier run of the same mapping
+    List<CoreLabel> sentence = tokens("Shoreline/NNP/PARK", "Park/NNP/PARK");
+    String mapping = "Shoreline Park\tGARDEN\nYosemite\tPARK\n";
+    checkAnswers(mapping, false, null, deepCopy(sentence), "- -");
+    checkAnswers(mapping, true, null, deepCopy(sentence), "GARDEN GARDEN");
+    // other labels can only be overwritten when the entry says so
+    sentence = tokens("Shoreline/NNP/LOCATION", "Park/NNP/LOCATION");
+    checkAnswers(mapping, true, null, deepCopy(sentence), "- -");
+    checkAnswers("Shoreline Park\tGARDEN\tLOCATION\n", false, null, deepCopy(sentence), "GARDEN GARDEN");
+  }
+
+  public void testValidPos() {
+    String mapping = "Shoreline Park\tPARK\n";
+    checkAnswers(mapping, false, "^(NN|JJ)", tokens("Shoreline/VB/O", "Park/VB/O"), "- -");
+    // only one of the tags needs to match, and with find() rather than matches()
+    checkAnswers(mapping, false, "^(NN|JJ)", tokens("Shoreline/VB/O", "Park/NNP/O"), "PARK PARK");
+    checkAnswers(mapping, false, "", tokens("Shoreline/VB/O", "Park/VB/O"), "PARK PARK");
+  }
+
 }
@@ -0,0 +1,113 @@
+package edu.stanford.nlp.ling;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.util.List;
+
+import edu.stanford.nlp.process.PTBTokenizer;
+import edu.stanford.nlp.util.Generics;
+
+/**
+ * Checks that the tokens of a TokenTable behave like ordinary CoreLabels.
+ */
+public class TokenTableTest extends TestCase {
+
+  private static List<CoreLabel> tokenize(String text) {
+    List<CoreLabel> tokens = PTBTokenizer.newPTBTokenizer(new StringReader(text), false, true).tokenize();
+    for (int i = 0; i < tokens.size(); ++i) {
+      CoreLabel token = tokens.get(i);
+      token.setIndex(i + 1);
+      token.setSentIndex(0);
+      token.setTag(i % 2 == 0 ? "NN" : "VB");
+      token.set(CoreAnnotations.ShapeAnnotation.class, "x");
+    }
+    return tokens;
+  }
+
+  public void testCompact() {
+    List<CoreLabel> tokens = tokenize("Tom's cat sat on the mat.");
+    List<CoreLabel> compact = TokenTable.compact(tokens);
+    assertEquals(tokens.size(), compact.size());
+    for (int i = 0; i < tokens.size(); ++i) {
+      CoreLabel token = tokens.get(i);
+      CoreLabel other = compact.get(i);
+      assertEquals(token, other);
+      assertEquals(other, token);
+      assertEquals(token.hashCode(), other.hashCode());
+      assertEquals(token.size(), other.size());
+      assertEquals(Generics.newHashSet(token.keySet()), Generics.newHashSet(other.keySet()));
+      assertEquals(token.word(), other.word());
+      assertEquals(token.beginPosition(), other.beginPosition());
+      assertEquals(token.endPosition(), other.endPosition());
+      assertEquals(token.index(), other.index());
+      assertEquals("x", other.get(CoreAnnotations.ShapeAnnotation.class));
+      assertEquals(token.toString(CoreLabel.OutputFormat.VALUE_TAG_INDEX), other.toString(CoreLabel.OutputFormat.VALUE_TAG_INDEX));
+      assertEquals(token.toShorterString("Text", "Index"), other.toShorterString("Text", "Index"));
+    }
+  }
+
+  public void testSetAndRemove() {
+    TokenTable table = new TokenTable(1);
+    CoreLabel token = table.newToken();
+    assertEquals(0, token.size());
+    assertEquals(-1, token.index());
+    assertNull(token.word());
+
+    token.setWord("dog");
+    token.setIndex(3);
+    token.setNER("O");
+    token.set(CoreAnnotations.ShapeAnnotation.class, "xxx");
+    assertEquals(4, token.size());
+    assertEquals("dog", token.word());
+    assertEquals(3, token.index());
+    assertEquals(Integer.valueOf(3), token.set(CoreAnnotations.IndexAnnotation.class, 4));
+    assertEquals(4, token.index());
+
+    // nulls are kept like any other value
+    token.setLemma(null);
+    assertTrue(token.has(CoreAnnotations.LemmaAnnotation.class));
+    assertEquals(5, token.size());
+    assertEquals(Integer.valueOf(4), token.set(CoreAnnotations.IndexAnnotation.class, null));
+    assertTrue(token.has(CoreAnnotations.IndexAnnotation.class));
+    assertNull(token.get(CoreAnnotations.IndexAnnotation.class));
+    assertEquals(5, token.size());
+    assertNull(token.set(CoreAnnotations.IndexAnnotation.class, 5));
+    assertEquals(5, token.index());
+    assertEquals(5, token.size());
+
+    assertEquals("dog", token.remove(CoreAnnotations.TextAnnotation.class));
+    assertFalse(token.has(CoreAnnotations.TextAnnotation.class));
+    assertEquals("xxx", token.remove(CoreAnnotations.ShapeAnnotation.class));
+    assertEquals(3, token.size());
+    assertEquals(3, token.keySet().size());
+
+    // other rows are not affected, even after the table grows
+    CoreLabel second = table.newToken();
+    second.setWord("cat");
+    assertEquals(2, table.size());
+    assertSame(token, table.get(0));
+    assertSame(second, table.get(1));
+    assertEquals(5, token.index());
+    assertEquals("cat", table.get(1).word());
+    assertNull(token.word());
+  }
+
+  public void testSerialization() throws Exception {
+    List<CoreLabel> tokens = tokenize("A short test.");
+    List<CoreLabel> compact = TokenTable.compact(tokens);
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bout);
+    out.writeObject(compact);
+    out.close();
+    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+    @SuppressWarnings("unchecked")
+    List<CoreLabel> read = (List<CoreLabel>) in.readObject();
+    assertEquals(tokens, read);
+  }
+
+}
@@ -0,0 +1,109 @@
+package edu.stanford.nlp.ling.tokensregex;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.util.CoreMap;
+
+public class SequencePatternTriggerTest extends TestCase {
+
+  private static final String[] PATTERNS = {
+    "/the/ /quick/",
+    "/quick/ | /lazy/",
+    "/brown/? /fox/",
+    "/brown/?",
+    "[ !{ word:fox } ]",
+    "[ { word:/f.*/ } & { word:/.*x/ } ]",
+    "( /jumps/ /over/ ) /the/",
+    "/dog/ /sleeps/",
+    "/cat/+ /sat/",
+    "/cat/* /sat/",
+    "[]",
+  };
+
+  private static final String[] SENTENCES = {
+    "the quick brown fox jumps over the lazy dog",
+    "the cat sat",
+    "a dog sleeps",
+    "fox",
+    "",
+  };
+
+  private static List<CoreLabel> tokens(String sentence) {
+    List<CoreLabel> tokens = new ArrayList<CoreLabel>();
+    int offset = 0;
+    for (String word : sentence.split(" ")) {
+      if ( ! word.isEmpty()) {
+        CoreLabel token = new CoreLabel();
+        token.setWord(word);
+        token.setValue(word);
+        token.set(CoreAnnotations.TextAnnotation.class, word);
+        token.setBeginPosition(offset);
+        token.setEndPosition(offset + word.length());
+        tokens.add(token);
+      }
+      offset += word.length() + 1;
+    }
+    return tokens;
+  }
+
+  public void testTriggerNodePatterns() {
+    assertEquals(1, TokenSequencePattern.compile("/the/ /quick/").getTriggerNodePatterns().size());
+    assertEquals(2, TokenSequencePattern.compile("/quick/ | /lazy/").getTriggerNodePatterns().size());
+    assertNull(TokenSequencePattern.compile("/brown/?").getTriggerNodePatterns());
+    assertNull(TokenSequencePattern.compile("/cat/* | /sat/").getTriggerNodePatterns());
+    assertNull(TokenSequencePattern.compile("[]").getTriggerNodePatterns());
+  }
+
+  public void testTriggersMatchingPatterns() {
+    List<SequencePattern<CoreMap>> patterns = new ArrayList<SequencePattern<CoreMap>>();
+    for (String pattern : PATTERNS) {
+      patterns.add((SequencePattern) TokenSequencePattern.compile(pattern));
+    }
+    MultiPatternMatcher.NodePatternsSequencePatternTrigger<CoreMap> trigger =
+            new MultiPatternMatcher.NodePatternsSequencePatternTrigger<CoreMap>(patterns);
+    for (String sentence : SENTENCES) {
+      List<CoreLabel> tokens = tokens(sentence);
+      BitSet triggered = trigger.getTriggeredPatternIndices(tokens);
+      for (int i = 0; i < patterns.size(); i++) {
+        if (patterns.get(i).getMatcher(tokens).find()) {
+          assertTrue(PATTERNS[i] + " on " + sentence, triggered.get(i));
+        }
+      }
+    }
+    BitSet triggered = trigger.getTriggeredPatternIndices(tokens("a dog sleeps"));
+    assertFalse(triggered.get(0));
+    assertFalse(triggered.get(6));
+    assertFalse(triggered.get(8));
+    assertFalse(triggered.get(9));
+    assertTrue(triggered.get(7));
+    // patterns without triggers are always tried
+    assertTrue(triggered.get(3));
+    assertTrue(triggered.get(10));
+  }
+
+  public void testExtractor() throws Exception {
+    Env env = TokenSequencePattern.getNewEnv();
+    CoreMapExpressionExtractor extractor = CoreMapExpressionExtractor.createExtractorFromString(env,
+            "{ ruleType: \"tokens\", pattern: ( /quick/ /brown/ ), result: \"QB\" }\n" +
+            "{ ruleType: \"tokens\", pattern: ( /cat/ ), result: \"CAT\" }\n" +
+            "{ ruleType: \"tokens\", pattern: ( /lazy/? /dog/ ), result: \"DOG\" }\n");
+    String[] expected = { "[quick brown, lazy dog]", "[cat]", "[dog]", "[]", "[]" };
+    for (int i = 0; i < SENTENCES.length; i++) {
+      CoreMap sentence = new Annotation(SENTENCES[i]);
+      sentence.set(CoreAnnotations.TokensAnnotation.class, tokens(SENTENCES[i]));
+      List<String> texts = new ArrayList<String>();
+      for (Object expr : extractor.extractExpressions(sentence)) {
+        texts.add(((MatchedExpression) expr).getText());
+      }
+      assertEquals(SENTENCES[i], expected[i], texts.toString());
+    }
+  }
+
+}
@@ -0,0 +1,66 @@
+package edu.stanford.nlp.ling.tokensregex.matcher;
+
+import junit.framework.TestCase;
+
+import java.util.*;
+
+/**
+ * Test case for AhoCorasickMatcher
+ */
+public class AhoCorasickMatcherTest extends TestCase {
+
+  private static List<String> findAll(AhoCorasickMatcher<String,String> matcher, String text) {
+    List<String> matches = new ArrayList<String>();
+    List<String> tokens = Arrays.asList(text.split(" "));
+    matcher.findAll(tokens, (value, begin, end) -> matches.add(value + ":" + begin + "-" + end));
+    return matches;
+  }
+
+  public void testOverlapping() {
+    AhoCorasickMatcher<String,String> matcher = new AhoCorasickMatcher<String,String>();
+    matcher.add(Arrays.asList("a", "white", "cat"), "awc");
+    matcher.add(Arrays.asList("white", "cat"), "wc");
+    matcher.add(Arrays.asList("cat"), "c");
+    matcher.add(Arrays.asList("white", "cat", "climbed"), "wcc");
+    matcher.add(Arrays.asList("a", "white", "hat"), "awh");
+    assertEquals(5, matcher.size());
+
+    assertEquals(Arrays.asList("awc:1-4", "wc:2-4", "c:3-4", "wcc:2-5"),
+                 findAll(matcher, "on a white cat climbed"));
+    assertEquals(Arrays.asList("awh:1-4"), findAll(matcher, "a a white hat"));
+    // The failure link from "a white" has to go to "white"
+    assertEquals(Arrays.asList("wc:2-4", "c:3-4"), findAll(matcher, "a white white cat"));
+    assertEquals(Collections.emptyList(), findAll(matcher, "a black dog"));
+  }
+
+  public void testRepeated() {
+    AhoCorasickMatcher<String,String> matcher = new AhoCorasickMatcher<String,String>();
+    matcher.add(Arrays.asList("a", "a"), "aa");
+    matcher.add(Arrays.asList("a", "a"), "aa2");
+    assertEquals(Arrays.asList("aa:0-2", "aa2:0-2", "aa:1-3", "aa2:1-3"),
+                 findAll(matcher, "a a a"));
+  }
+
+  public void testNullKeys() {
+    AhoCorasickMatcher<String,String> matcher = new AhoCorasickMatcher<String,String>();
+    matcher.add(Arrays.asList("new", "york"), "ny");
+    List<String> matches = new ArrayList<String>();
+    matcher.findAll(Arrays.asList("New", "York", "new", "?", "york"),
+                    word -> word.equals("?") ? null : word.toLowerCase(),
+                    (value, begin, end) -> matches.add(value + ":" + begin + "-" + end));
+    assertEquals(Arrays.asList("ny:0-2"), matches);
+  }
+
+  public void testNoAddAfterUse() {
+    AhoCorasickMatcher<String,String> matcher = new AhoCorasickMatcher<String,String>();
+    matcher.add(Arrays.asList("a"), "a");
+    findAll(matcher, "a");
+    try {
+      matcher.add(Arrays.asList("b"), "b");
+      fail("Expected an exception adding to a matcher which has been used");
+    } catch (IllegalStateException e) {
+      // yay
+    }
+  }
+
+}
@@ -0,0 +1,127 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.ling.Sentence;
+import edu.stanford.nlp.trees.MemoryTreebank;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.Treebank;
+
+public class ChartMemoryPoolTest extends TestCase {
+
+  private static final int NUM_STATES = 20;
+  private static final int NUM_TAGS = 5;
+
+  private final Object owner = new Object();
+
+  public void testReuse() {
+    ChartMemoryPool pool = new ChartMemoryPool();
+    ChartMemoryPool.Chart chart = pool.lease(owner, 5, NUM_STATES, NUM_TAGS, false, false);
+    assertEquals(ChartMemoryPool.BUCKET_SIZE, chart.size);
+    assertEquals(chart.size, chart.iScore.length);
+    assertNull(chart.oScore);
+    assertEquals(1, pool.grows());
+    pool.release(chart);
+    pool.release(chart); // a second release does nothing
+    assertEquals(1, pool.idleCharts());
+
+    // a shorter sentence reuses the chart
+    assertSame(chart, pool.lease(owner, 3, NUM_STATES, NUM_TAGS, false, false));
+    assertEquals(1, pool.hits());
+    pool.release(chart);
+
+    // a chart without outside scores does not do for a parser which needs them
+    ChartMemoryPool.Chart outside = pool.lease(owner, 3, NUM_STATES, NUM_TAGS, true, false);
+    assertNotSame(chart, outside);
+    assertNotNull(outside.oScore);
+
+    // nor does a chart which is too small
+    ChartMemoryPool.Chart longer = pool.lease(owner, 15, NUM_STATES, NUM_TAGS, false, false);
+    assertNotSame(chart, longer);
+    assertEquals(2 * ChartMemoryPool.BUCKET_SIZE, longer.size);
+    assertEquals(4, pool.requests());
+    assertEquals(3, pool.grows());
+    assertEquals(1, pool.hits());
+    assertEquals(ChartMemoryPool.Chart.bytes(10, NUM_STATES, NUM_TAGS, false, false) +
+                 ChartMemoryPool.Chart.bytes(10, NUM_STATES, NUM_TAGS, true, false) +
+                 ChartMemoryPool.Chart.bytes(20, NUM_STATES, NUM_TAGS, false, false), pool.allocatedBytes());
+  }
+
+  public void testBudget() {
+    ChartMemoryPool pool = new ChartMemoryPool();
+    long small = ChartMemoryPool.Chart.bytes(10, NUM_STATES, NUM_TAGS, false, false);
+    long large = ChartMemoryPool.Chart.bytes(20, NUM_STATES, NUM_TAGS, false, false);
+    pool.setMaxBytes(large);
+
+    ChartMemoryPool.Chart chart = pool.lease(owner, 5, NUM_STATES, NUM_TAGS, false, false);
+    try {
+      pool.lease(owner, 15, NUM_STATES, NUM_TAGS, false, false);
+      fail("Expected the pool to refuse a chart over its budget");
+    } catch (OutOfMemoryError e) {
+      // expected
+    }
+    assertEquals(1, pool.refused());
+    assertEquals(small, pool.allocatedBytes());
+
+    // once the small chart is idle, it is dropped to make room
+    pool.release(chart);
+    ChartMemoryPool.Chart longer = pool.lease(owner, 15, NUM_STATES, NUM_TAGS, false, false);
+    assertEquals(20, longer.size);
+    assertEquals(0, pool.idleCharts());
+    assertEquals(large, pool.allocatedBytes());
+  }
+
+  private static LexicalizedParser trainParser() {
+    Options op = new Options();
+    op.doDep = false;
+    op.doPCFG = true;
+    Treebank treebank = new MemoryTreebank();
+    treebank.add(Tree.valueOf("(ROOT (S (NP (DT The) (NN dog)) (VP (VBD chased) (NP (DT the) (NN cat))) (. .)))"));
+    treebank.add(Tree.valueOf("(ROOT (S (NP (NNP Mary)) (VP (VBD saw) (NP (DT a) (NN dog))) (. .)))"));
+    return LexicalizedParser.trainFromTreebank(treebank, op);
+  }
+
+  public void testQueriesShareCharts() {
+    LexicalizedParser parser = trainParser();
+    String[] sentence = { "The", "cat", "saw", "Mary", "." };
+    for (int i = 0; i < 3; i++) {
+      LexicalizedParserQuery query = parser.lexicalizedParserQuery();
+      assertTrue(query.parse(Sentence.toWordList(sentence)));
+      assertNotNull(query.getBestParse());
+      query.releaseMemory();
+    }
+    ChartMemoryPool pool = parser.chartMemoryPool();
+    assertEquals(3, pool.requests());
+    assertEquals(1, pool.grows());
+    assertEquals(2, pool.hits());
+
+    // with no room for a bigger chart, a longer sentence is not parsed
+    LexicalizedParserQuery query = parser.lexicalizedParserQuery();
+    pool.setMaxBytes(1);
+    assertFalse(query.parse(Sentence.toWordList("The", "dog", "saw", "the", "cat", "the", "dog", "saw", "the", "cat", "saw", ".")));
+    assertTrue(query.parseNoMemory());
+    assertEquals(1, pool.refused());
+  }
+
+  public void testParseReleasesCharts() {
+    LexicalizedParser parser = trainParser();
+    String[] sentence = { "The", "cat", "saw", "Mary", "." };
+    assertNotNull(parser.parse(Sentence.toWordList(sentence)));
+    assertNotNull(parser.parseTree(Sentence.toWordList(sentence)));
+    assertNotNull(parser.parseStrings(Arrays.asList(sentence)));
+    ChartMemoryPool pool = parser.chartMemoryPool();
+    assertEquals(3, pool.requests());
+    assertEquals(1, pool.grows());
+    assertEquals(2, pool.hits());
+    assertEquals(1, pool.idleCharts());
+
+    // a budget set in code is kept by the queries made afterwards
+    pool.setMaxBytes(1);
+    parser.parse(Sentence.toWordList("The", "dog", "saw", "the", "cat", "the", "dog", "saw", "the", "cat", "saw", "."));
+    assertEquals(1, pool.maxBytes());
+    assertEquals(1, pool.refused());
+  }
+
+}
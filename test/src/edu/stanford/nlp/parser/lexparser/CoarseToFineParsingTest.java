@@ -0,0 +1,170 @@
+package edu.stanford.nlp.parser.lexparser;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.ling.Sentence;
+import edu.stanford.nlp.trees.MemoryTreebank;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.Treebank;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+public class CoarseToFineParsingTest extends TestCase {
+
+  private static final String[] TREES = {
+    "(ROOT (S (NP (NNP John) (NNP Smith)) (VP (VBD visited) (NP (NNP Paris)) (PP (IN in) (NP (NNP May)))) (. .)))",
+    "(ROOT (S (NP (DT The) (NN company)) (VP (VBD reported) (NP (NP (DT a) (JJ strong) (NN increase)) (PP (IN in) (NP (JJ quarterly) (NNS profits))))) (. .)))",
+    "(ROOT (S (NP (NNP Mary)) (VP (VBZ lives) (PP (IN in) (NP (NNP London))) (PP (IN with) (NP (PRP$ her) (NN sister)))) (. .)))",
+    "(ROOT (S (NP (DT The) (JJ old) (NN man)) (VP (VBD gave) (NP (DT the) (NN boy)) (NP (DT a) (NN book))) (. .)))",
+    "(ROOT (S (NP (NNP Microsoft)) (VP (VBD announced) (SBAR (IN that) (S (NP (PRP it)) (VP (MD would) (VP (VB open) (NP (DT a) (JJ new) (NN office)) (PP (IN in) (NP (NNP Berlin)))))))) (. .)))",
+    "(ROOT (S (NP (PRP She)) (VP (VBD said) (SBAR (S (NP (DT the) (NN meeting)) (VP (VBD was) (VP (VBN postponed) (PP (IN until) (NP (NNP Friday)))))))) (. .)))",
+    "(ROOT (S (NP (NNS Investors)) (VP (VBD sold) (NP (NNS shares)) (SBAR (IN after) (S (NP (DT the) (NN bank)) (VP (VBD raised) (NP (NN interest) (NNS rates)))))) (. .)))",
+    "(ROOT (S (NP (DT A) (JJ small) (NN dog)) (VP (VBD chased) (NP (DT the) (NN cat)) (PP (IN across) (NP (DT the) (NN street)))) (. .)))",
+  };
+
+  private static final String[] SENTENCES = {
+    "The old dog chased the boy in the park .",
+    "She said the company would open a new office in Paris .",
+    "Mary gave her sister a book .",
+  };
+
+  private static LexicalizedParser parser;
+
+  private static synchronized LexicalizedParser parser() {
+    if (parser == null) {
+      Options op = new Options();
+      op.doDep = false;
+      op.doPCFG = true;
+      op.setOptions("-goodPCFG");
+      Treebank treebank = new MemoryTreebank();
+      for (String tree : TREES) {
+        treebank.add(Tree.valueOf(tree));
+      }
+      parser = LexicalizedParser.trainFromTreebank(treebank, op);
+    }
+    return parser;
+  }
+
+  private static List<Tree> parseAll(LexicalizedParser parser, List<Double> scores) {
+    List<Tree> trees = new ArrayList<>();
+    for (String sentence : SENTENCES) {
+      List<HasWord> words = Sentence.toWordList(sentence.split(" "));
+      LexicalizedParserQuery query = parser.lexicalizedParserQuery();
+      assertTrue(query.parse(words));
+      trees.add(query.getBestParse());
+      scores.add(query.getPCFGScore());
+    }
+    return trees;
+  }
+
+  public void testProjection() {
+    Index<String> stateIndex = new HashIndex<>();
+    int np = stateIndex.addToIndex("NP^S");
+    int binarized = stateIndex.addToIndex("@NP|^S| NN_JJ");
+    int tag = stateIndex.addToIndex("NN^NP");
+    int lrb = stateIndex.addToIndex("-LRB-^NP");
+    BinaryGrammar bg = new BinaryGrammar(stateIndex);
+    bg.addRule(new BinaryRule(np, tag, binarized, -1.0));
+    bg.splitRules();
+    UnaryGrammar ug = new UnaryGrammar(stateIndex);
+    ug.purgeRules();
+
+    Options op = new Options();
+    CoarseGrammarProjection projection = new CoarseGrammarProjection(bg, ug, stateIndex, new BasicCategoryTagProjection(op.langpack()));
+    Index<String> coarse = projection.targetIndex();
+    assertEquals("NP", coarse.get(projection.project(np)));
+    assertEquals("@NP", coarse.get(projection.project(binarized)));
+    assertEquals("NN", coarse.get(projection.project(tag)));
+    assertEquals("-LRB-", coarse.get(projection.project(lrb)));
+    assertEquals(1, projection.targetBG().numRules());
+  }
+
+  /** With a threshold which prunes nothing the parses are exactly those of the exhaustive parser */
+  public void testLooseThresholdSameParses() {
+    LexicalizedParser parser = parser();
+    parser.getOp().testOptions.coarseToFine = false;
+    List<Double> exhaustiveScores = new ArrayList<>();
+    List<Tree> exhaustive = parseAll(parser, exhaustiveScores);
+
+    parser.setOptionFlags("-coarseToFineThreshold", "1000");
+    List<Double> prunedScores = new ArrayList<>();
+    List<Tree> pruned = parseAll(parser, prunedScores);
+    parser.getOp().testOptions.coarseToFine = false;
+
+    assertEquals(exhaustive, pruned);
+    for (int i = 0; i < exhaustiveScores.size(); i++) {
+      assertEquals(exhaustiveScores.get(i), prunedScores.get(i), 1e-4);
+    }
+  }
+
+  /** Even when the coarse pass prunes as much as it can, every sentence still gets a parse */
+  public void testTightThresholdStillParses() {
+    LexicalizedParser parser = parser();
+    parser.getOp().testOptions.coarseToFine = false;
+    List<Double> exhaustiveScores = new ArrayList<>();
+    parseAll(parser, exhaustiveScores);
+
+    parser.setOptionFlags("-coarseToFineThreshold", "0");
+    List<Double> prunedScores = new ArrayList<>();
+    parseAll(parser, prunedScores);
+    parser.getOp().testOptions.coarseToFine = false;
+
+    for (int i = 0; i < exhaustiveScores.size(); i++) {
+      // pruning can only lose parses, never find better ones
+      assertTrue(prunedScores.get(i) <= exhaustiveScores.get(i) + 1e-4);
+    }
+  }
+
+  /** The number of states built over spans of two or more words in the chart of the last parse */
+  private static int builtStates(LexicalizedParserQuery query) {
+    ExhaustivePCFGParser pcfg = (ExhaustivePCFGParser) query.getPCFGParser();
+    int built = 0;
+    for (int start = 0; start < pcfg.length; start++) {
+      for (int end = start + 2; end <= pcfg.length; end++) {
+        for (float score : pcfg.iScore[start][end]) {
+          if (score != Float.NEGATIVE_INFINITY) {
+            built++;
+          }
+        }
+      }
+    }
+    return built;
+  }
+
+  /** At the default threshold the fine parser builds fewer states, but finds the same parses */
+  public void testDefaultThresholdPrunesSameParses() {
+    LexicalizedParser parser = parser();
+    float defaultThreshold = new TestOptions().coarseToFineThreshold;
+    assertEquals(10.0f, defaultThreshold);
+    for (String sentence : SENTENCES) {
+      List<HasWord> words = Sentence.toWordList(sentence.split(" "));
+
+      parser.getOp().testOptions.coarseToFine = false;
+      LexicalizedParserQuery exhaustive = parser.lexicalizedParserQuery();
+      assertTrue(exhaustive.parse(words));
+      int exhaustiveBuilt = builtStates(exhaustive);
+      Tree exhaustiveTree = exhaustive.getBestParse();
+      double exhaustiveScore = exhaustive.getPCFGScore();
+      exhaustive.releaseMemory();
+
+      parser.setOptionFlags("-coarseToFineThreshold", Float.toString(defaultThreshold));
+      LexicalizedParserQuery pruned = parser.lexicalizedParserQuery();
+      assertTrue(pruned.parse(words));
+      int prunedBuilt = builtStates(pruned);
+      Tree prunedTree = pruned.getBestParse();
+      double prunedScore = pruned.getPCFGScore();
+      pruned.releaseMemory();
+      parser.getOp().testOptions.coarseToFine = false;
+
+      assertTrue(sentence + ": built " + prunedBuilt + " states with pruning, " + exhaustiveBuilt + " without",
+                 prunedBuilt < exhaustiveBuilt);
+      assertEquals(exhaustiveTree, prunedTree);
+      assertEquals(exhaustiveScore, prunedScore, 1e-4);
+    }
+  }
+
+}
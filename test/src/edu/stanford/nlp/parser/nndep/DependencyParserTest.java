@@ -0,0 +1,143 @@
+package edu.stanford.nlp.parser.nndep;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.trees.GrammaticalStructure;
+import edu.stanford.nlp.trees.GrammaticalStructureFactory;
+import edu.stanford.nlp.trees.PennTreebankLanguagePack;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.util.ArrayCoreMap;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.Filters;
+import edu.stanford.nlp.util.StringUtils;
+
+public class DependencyParserTest extends TestCase {
+
+  private static final String[] TREES = {
+    "(ROOT (S (NP (NNP John) (NNP Smith)) (VP (VBD visited) (NP (NNP Paris)) (PP (IN in) (NP (NNP May)))) (. .)))",
+    "(ROOT (S (NP (DT The) (NN company)) (VP (VBD reported) (NP (NP (DT a) (JJ strong) (NN increase)) (PP (IN in) (NP (JJ quarterly) (NNS profits))))) (. .)))",
+    "(ROOT (S (NP (NNP Mary)) (VP (VBZ lives) (PP (IN in) (NP (NNP London))) (PP (IN with) (NP (PRP$ her) (NN sister)))) (. .)))",
+    "(ROOT (S (NP (DT The) (JJ old) (NN man)) (VP (VBD gave) (NP (DT the) (NN boy)) (NP (DT a) (NN book))) (. .)))",
+    "(ROOT (S (NP (NNP Microsoft)) (VP (VBD announced) (SBAR (IN that) (S (NP (PRP it)) (VP (MD would) (VP (VB open) (NP (DT a) (JJ new) (NN office)) (PP (IN in) (NP (NNP Berlin)))))))) (. .)))",
+    "(ROOT (S (NP (PRP She)) (VP (VBD said) (SBAR (S (NP (DT the) (NN meeting)) (VP (VBD was) (VP (VBN postponed) (PP (IN until) (NP (NNP Friday)))))))) (. .)))",
+    "(ROOT (S (NP (NNS Investors)) (VP (VBD sold) (NP (NNS shares)) (SBAR (IN after) (S (NP (DT the) (NN bank)) (VP (VBD raised) (NP (NN interest) (NNS rates)))))) (. .)))",
+    "(ROOT (S (NP (DT A) (JJ small) (NN dog)) (VP (VBD chased) (NP (DT the) (NN cat)) (PP (IN across) (NP (DT the) (NN street)))) (. .)))",
+  };
+
+  /** Tagged sentences, some of them not in the training data */
+  private static final String[] SENTENCES = {
+    "The_DT old_JJ dog_NN chased_VBD the_DT boy_NN in_IN the_DT street_NN ._.",
+    "She_PRP said_VBD the_DT company_NN would_MD open_VB a_DT new_JJ office_NN in_IN Paris_NNP ._.",
+    "Mary_NNP gave_VBD her_PRP$ sister_NN a_DT book_NN ._.",
+    "John_NNP sold_VBD shares_NNS ._.",
+  };
+
+  private static String textModel;
+
+  /** A model trained on the trees above, with random embeddings, saved in the text format */
+  private static synchronized String textModel() throws IOException {
+    if (textModel == null) {
+      GrammaticalStructureFactory gsf = new PennTreebankLanguagePack().grammaticalStructureFactory(Filters.acceptFilter());
+      StringBuilder conll = new StringBuilder();
+      for (String tree : TREES) {
+        Tree t = Tree.valueOf(tree);
+        GrammaticalStructure gs = gsf.newGrammaticalStructure(t);
+        conll.append(GrammaticalStructure.dependenciesToString(gs, gs.typedDependencies(), t, true, false));
+        conll.append('\n');
+      }
+      File trainFile = tempFile(".conllx");
+      IOUtils.writeStringToFile(conll.toString(), trainFile.getPath(), "utf-8");
+      textModel = tempFile(".txt.gz").getPath();
+      Properties props = StringUtils.argsToProperties("-maxIter", "50", "-trainingThreads", "1");
+      new DependencyParser(props).train(trainFile.getPath(), textModel);
+    }
+    return textModel;
+  }
+
+  private static File tempFile(String suffix) throws IOException {
+    File file = File.createTempFile("DependencyParserTest", suffix);
+    file.deleteOnExit();
+    return file;
+  }
+
+  /** The sentences above followed by those of the trees, so they come in many lengths */
+  private static List<CoreMap> sentences() {
+    List<List<TaggedWord>> sentences = new ArrayList<>();
+    for (String sentence : SENTENCES) {
+      List<TaggedWord> words = new ArrayList<>();
+      for (String token : sentence.split(" ")) {
+        int split = token.lastIndexOf('_');
+        words.add(new TaggedWord(token.substring(0, split), token.substring(split + 1)));
+      }
+      sentences.add(words);
+    }
+    for (String tree : TREES) {
+      sentences.add(Tree.valueOf(tree).taggedYield());
+    }
+
+    List<CoreMap> result = new ArrayList<>();
+    for (List<TaggedWord> words : sentences) {
+      List<CoreLabel> tokens = new ArrayList<>();
+      for (TaggedWord word : words) {
+        CoreLabel token = new CoreLabel();
+        token.setValue(word.word());
+        token.setWord(word.word());
+        token.setTag(word.tag());
+        token.setIndex(tokens.size() + 1);
+        tokens.add(token);
+      }
+      CoreMap sentence = new ArrayCoreMap();
+      sentence.set(CoreAnnotations.TokensAnnotation.class, tokens);
+      result.add(sentence);
+    }
+    return result;
+  }
+
+  private static List<String> parseAll(DependencyParser parser) {
+    List<String> parses = new ArrayList<>();
+    for (CoreMap sentence : sentences()) {
+      parses.add(parser.predict(sentence).typedDependencies().toString());
+    }
+    return parses;
+  }
+
+  private static void checkBinaryModel(String binaryModel) throws IOException {
+    DependencyParser textParser = DependencyParser.loadFromModelFile(textModel());
+    textParser.writeBinaryModelFile(binaryModel);
+    DependencyParser binaryParser = DependencyParser.loadFromModelFile(binaryModel);
+    assertEquals(parseAll(textParser), parseAll(binaryParser));
+  }
+
+  /** Parsing the sentences together gives the same parses as parsing them one at a time */
+  public void testPredictAll() throws IOException {
+    for (String batchSize : new String[] { "100", "3", "1" }) {
+      Properties props = new Properties();
+      props.setProperty("testBatchSize", batchSize);
+      DependencyParser parser = DependencyParser.loadFromModelFile(textModel(), props);
+      List<String> batched = new ArrayList<>();
+      for (GrammaticalStructure gs : parser.predictAll(sentences())) {
+        batched.add(gs.typedDependencies().toString());
+      }
+      assertEquals("testBatchSize " + batchSize, parseAll(parser), batched);
+    }
+  }
+
+  public void testBinaryModel() throws IOException {
+    checkBinaryModel(tempFile(".bin").getPath());
+  }
+
+  public void testGzippedBinaryModel() throws IOException {
+    checkBinaryModel(tempFile(".bin.gz").getPath());
+  }
+
+}
@@ -0,0 +1,104 @@
+package edu.stanford.nlp.parser.shiftreduce;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import edu.stanford.nlp.parser.lexparser.BinaryHeadFinder;
+import edu.stanford.nlp.parser.lexparser.Options;
+import edu.stanford.nlp.trees.HeadFinder;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.Trees;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+import edu.stanford.nlp.util.ScoredObject;
+
+/**
+ * Checks that hashing the features gives the same features, and the
+ * same scores, as the String features.
+ */
+public class HashedPerceptronModelTest extends TestCase {
+  String[] treeStrings = {
+    "(ROOT (S (INTJ (RB No)) (@S (, ,) (@S (NP (PRP it)) (@S (VP (@VP (VBD was) (RB n't)) (NP (NNP Black) (NNP Monday))) (. .))))) (.$$. .$.))",
+    "(ROOT (FRAG (NP (DT A) (@NP (ADJP (JJ short) (@ADJP (, ,) (JJ simple))) (NN test)))))",
+  };
+
+  Tree convertTree(String treeText) {
+    Options op = new Options();
+    HeadFinder binaryHeadFinder = new BinaryHeadFinder(op.tlpParams.headFinder());
+    Tree tree = Tree.valueOf(treeText);
+    Trees.convertToCoreLabels(tree);
+    tree.percolateHeadAnnotations(binaryHeadFinder);
+    return tree;
+  }
+
+  /** Every state reached while building the test trees */
+  List<State> states(Index<Transition> transitionIndex) {
+    List<State> states = new ArrayList<>();
+    for (String treeText : treeStrings) {
+      Tree tree = convertTree(treeText);
+      List<Transition> transitions = CreateTransitionSequence.createTransitionSequence(tree, true, Collections.singleton("ROOT"), Collections.singleton("ROOT"));
+      transitionIndex.addAll(transitions);
+      State state = ShiftReduceParser.initialStateFromGoldTagTree(tree);
+      for (Transition transition : transitions) {
+        states.add(state);
+        state = transition.apply(state);
+      }
+    }
+    return states;
+  }
+
+  public void testHashes() {
+    FeatureFactory factory = new BasicFeatureFactory();
+    for (State state : states(new HashIndex<>())) {
+      List<String> features = factory.featurize(state);
+      FeatureSink.Hashes hashes = new FeatureSink.Hashes(10);
+      factory.featurize(state, hashes);
+      assertEquals(features.size(), hashes.size());
+      for (int i = 0; i < features.size(); ++i) {
+        assertEquals(FeatureSink.hash(features.get(i)), hashes.get(i));
+      }
+    }
+  }
+
+  public void testScores() {
+    Index<Transition> transitionIndex = new HashIndex<>();
+    List<State> states = states(transitionIndex);
+
+    ShiftReduceOptions op = new ShiftReduceOptions();
+    PerceptronModel model = new PerceptronModel(op, transitionIndex, Generics.newHashSet(), Collections.singleton("ROOT"), Collections.singleton("ROOT"));
+    Random random = new Random(1234);
+    for (State state : states) {
+      for (String feature : model.featureFactory.featurize(state)) {
+        if (random.nextInt(4) == 0) {
+          continue;
+        }
+        Weight weight = new Weight();
+        weight.updateWeight(random.nextInt(transitionIndex.size()), random.nextFloat() - 0.5f);
+        weight.updateWeight(random.nextInt(transitionIndex.size()), random.nextFloat() - 0.5f);
+        model.featureWeights.put(feature, weight);
+      }
+    }
+
+    HashedPerceptronModel hashed = new HashedPerceptronModel(model);
+    assertEquals(model.featureWeights.size(), hashed.featureWeights.size());
+    for (State state : states) {
+      assertEquals(scores(model.findHighestScoringTransitions(state, false, transitionIndex.size(), null)),
+                   scores(hashed.findHighestScoringTransitions(state, false, transitionIndex.size(), null)));
+    }
+  }
+
+  private static List<String> scores(Collection<ScoredObject<Integer>> transitions) {
+    List<String> scores = new ArrayList<>();
+    for (ScoredObject<Integer> transition : transitions) {
+      scores.add(transition.object() + "=" + transition.score());
+    }
+    Collections.sort(scores);
+    return scores;
+  }
+}
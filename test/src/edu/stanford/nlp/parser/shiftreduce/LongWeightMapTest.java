@@ -0,0 +1,51 @@
+package edu.stanford.nlp.parser.shiftreduce;
+
+import junit.framework.TestCase;
+
+import java.util.Map;
+import java.util.Random;
+
+import edu.stanford.nlp.util.Generics;
+
+public class LongWeightMapTest extends TestCase {
+  public void testZeroKey() {
+    LongWeightMap map = new LongWeightMap();
+    assertNull(map.get(0L));
+    Weight weight = new Weight();
+    assertNull(map.put(0L, weight));
+    assertSame(weight, map.get(0L));
+    assertEquals(1, map.size());
+  }
+
+  public void testReplace() {
+    LongWeightMap map = new LongWeightMap();
+    Weight first = new Weight();
+    Weight second = new Weight();
+    map.put(17L, first);
+    assertSame(first, map.put(17L, second));
+    assertSame(second, map.get(17L));
+    assertEquals(1, map.size());
+  }
+
+  public void testGrowth() {
+    LongWeightMap map = new LongWeightMap();
+    Map<Long, Weight> expected = Generics.newHashMap();
+    Random random = new Random(1234);
+    for (int i = 0; i < 10000; ++i) {
+      long key = random.nextLong();
+      Weight weight = new Weight();
+      expected.put(key, weight);
+      map.put(key, weight);
+    }
+    assertEquals(expected.size(), map.size());
+    for (Map.Entry<Long, Weight> entry : expected.entrySet()) {
+      assertSame(entry.getValue(), map.get(entry.getKey()));
+    }
+    for (int i = 0; i < 1000; ++i) {
+      long key = random.nextLong();
+      if (!expected.containsKey(key)) {
+        assertNull(map.get(key));
+      }
+    }
+  }
+}
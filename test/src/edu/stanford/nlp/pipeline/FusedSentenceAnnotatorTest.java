@@ -0,0 +1,132 @@
+package edu.stanford.nlp.pipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.util.ArrayCoreMap;
+import edu.stanford.nlp.util.CoreMap;
+
+/**
+ * Checks that fused sentence annotators do every sentence with every
+ * annotator, in order, and finish the document once.
+ */
+public class FusedSentenceAnnotatorTest extends TestCase {
+
+  /** Appends its name to the text of each sentence, and to the document when finishing */
+  private static class AppendingSentenceAnnotator extends SentenceAnnotator {
+    private final String name;
+
+    AppendingSentenceAnnotator(String name) {
+      this.name = name;
+    }
+
+    @Override
+    protected int nThreads() {
+      return 1;
+    }
+
+    @Override
+    protected long maxTime() {
+      return -1;
+    }
+
+    @Override
+    protected void doOneSentence(Annotation annotation, CoreMap sentence) {
+      String text = sentence.get(CoreAnnotations.TextAnnotation.class);
+      if (text.hashCode() % 3 == 0) {
+        Thread.yield();
+      }
+      sentence.set(CoreAnnotations.TextAnnotation.class, text + name);
+    }
+
+    @Override
+    protected void doOneFailedSentence(Annotation annotation, CoreMap sentence) {
+    }
+
+    @Override
+    protected void finishAnnotation(Annotation annotation) {
+      annotation.set(CoreAnnotations.TextAnnotation.class, annotation.get(CoreAnnotations.TextAnnotation.class) + name);
+    }
+
+    @Override
+    public Set<Requirement> requirementsSatisfied() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public Set<Requirement> requires() {
+      return Collections.emptySet();
+    }
+  }
+
+  /** Counts the sentences of the document, as a document level annotator */
+  private static class CountingAnnotator implements Annotator {
+    @Override
+    public void annotate(Annotation annotation) {
+      annotation.set(CoreAnnotations.TextAnnotation.class, annotation.get(CoreAnnotations.TextAnnotation.class) + "#");
+    }
+
+    @Override
+    public Set<Requirement> requirementsSatisfied() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public Set<Requirement> requires() {
+      return Collections.emptySet();
+    }
+  }
+
+  private static Annotation document(int n) {
+    Annotation document = new Annotation(":");
+    List<CoreMap> sentences = new ArrayList<CoreMap>();
+    for (int i = 0; i < n; ++i) {
+      CoreMap sentence = new ArrayCoreMap();
+      sentence.set(CoreAnnotations.TextAnnotation.class, i + ":");
+      sentences.add(sentence);
+    }
+    document.set(CoreAnnotations.SentencesAnnotation.class, sentences);
+    return document;
+  }
+
+  public void testFused() {
+    Annotation document = document(500);
+    FusedSentenceAnnotator fused = new FusedSentenceAnnotator(Arrays.asList(
+        new AppendingSentenceAnnotator("a"), new AppendingSentenceAnnotator("b"), new AppendingSentenceAnnotator("c")), 4);
+    fused.annotate(document);
+    List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
+    assertEquals(500, sentences.size());
+    for (int i = 0; i < sentences.size(); ++i) {
+      assertEquals(i + ":abc", sentences.get(i).get(CoreAnnotations.TextAnnotation.class));
+    }
+    assertEquals(":abc", document.get(CoreAnnotations.TextAnnotation.class));
+  }
+
+  public void testFuseRuns() {
+    List<Annotator> annotators = new ArrayList<Annotator>();
+    annotators.add(new CountingAnnotator());
+    annotators.add(new AppendingSentenceAnnotator("a"));
+    annotators.add(new AppendingSentenceAnnotator("b"));
+    annotators.add(new CountingAnnotator());
+    annotators.add(new AppendingSentenceAnnotator("c"));
+    List<Annotator> fused = StanfordCoreNLP.fuseSentenceAnnotators(annotators, 4);
+    assertEquals(4, fused.size());
+    assertTrue(fused.get(1) instanceof FusedSentenceAnnotator);
+    assertEquals(2, ((FusedSentenceAnnotator) fused.get(1)).annotators().size());
+    assertTrue(fused.get(3) instanceof FusedSentenceAnnotator);
+
+    Annotation serial = document(50);
+    new AnnotationPipeline(annotators).annotate(serial);
+    Annotation parallel = document(50);
+    new AnnotationPipeline(fused).annotate(parallel);
+    assertEquals(":#ab#c", parallel.get(CoreAnnotations.TextAnnotation.class));
+    assertEquals(serial, parallel);
+  }
+
+}
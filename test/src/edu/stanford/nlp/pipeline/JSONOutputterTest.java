@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Properties;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * A test for {@link edu.stanford.nlp.pipeline.JSONOutputter}.
@@ -61,6 +62,11 @@ public class JSONOutputterTest extends TestCase {
 
   }
 
+  public void testStreamJSON() {
+    assertEquals(indent("{\n\t\"foo\": [\n\t\t\"bar\",\n\t\t\"b\\\"az\"\n\t]\n}"),
+        JSONOutputter.JSONWriter.objectToJSON( (JSONOutputter.Writer writer) -> writer.set("foo", Stream.of("bar", "b\"az"))));
+  }
+
   public void testNestedJSON() {
     assertEquals(indent("{\n\t\"foo\": {\n\t\t\"bar\": \"baz\"\n\t}\n}"),
         JSONOutputter.JSONWriter.objectToJSON((JSONOutputter.Writer writer) -> writer.set("foo", (Consumer<JSONOutputter.Writer>) writer1 -> writer1.set("bar", "baz"))));
@@ -0,0 +1,139 @@
+package edu.stanford.nlp.pipeline;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+
+public class ProtobufCorpusTest extends TestCase {
+
+  private static final String[] TEXTS = {
+    "The cat sat on the mat.",
+    "Colorless green ideas sleep furiously.",
+    "This document has no docID.",
+    "Buffalo buffalo Buffalo buffalo buffalo buffalo Buffalo buffalo.",
+  };
+
+  private File corpus;
+
+  @Override
+  public void setUp() throws IOException {
+    corpus = File.createTempFile("ProtobufCorpusTest", ".pb");
+    corpus.deleteOnExit();
+    new File(ProtobufCorpusWriter.indexPath(corpus.getPath())).deleteOnExit();
+    Annotator tokenizer = new TokenizerAnnotator(false, "en");
+    try (ProtobufCorpusWriter writer = new ProtobufCorpusWriter(corpus.getPath(), true)) {
+      for (int i = 0; i < TEXTS.length; i++) {
+        Annotation annotation = new Annotation(TEXTS[i]);
+        if (i != 2) {
+          annotation.set(CoreAnnotations.DocIDAnnotation.class, "doc" + i);
+        }
+        tokenizer.annotate(annotation);
+        writer.write(annotation);
+      }
+      assertEquals(TEXTS.length, writer.size());
+    }
+  }
+
+  private static List<String> words(Annotation annotation) {
+    List<String> words = new ArrayList<String>();
+    for (CoreLabel token : annotation.get(CoreAnnotations.TokensAnnotation.class)) {
+      words.add(token.word());
+    }
+    return words;
+  }
+
+  public void testReadAll() {
+    List<String> texts = new ArrayList<String>();
+    for (Annotation annotation : new ProtobufCorpusReader().getAnnotations(corpus.getPath())) {
+      texts.add(annotation.get(CoreAnnotations.TextAnnotation.class));
+    }
+    assertEquals(Arrays.asList(TEXTS), texts);
+
+    // the corpus can be read again
+    int count = 0;
+    for (CoreNLPProtos.Document document : ProtobufCorpusReader.documents(corpus.getPath())) {
+      assertEquals(TEXTS[count], document.getText());
+      ++count;
+    }
+    assertEquals(TEXTS.length, count);
+  }
+
+  public void testLimit() {
+    int count = 0;
+    for (Annotation annotation : new ProtobufCorpusReader().getAnnotations(corpus.getPath(), 2)) {
+      assertEquals(TEXTS[count], annotation.get(CoreAnnotations.TextAnnotation.class));
+      ++count;
+    }
+    assertEquals(2, count);
+  }
+
+  /** A corpus is the same as the output of repeated calls to ProtobufAnnotationSerializer.write */
+  public void testSerializerCompatible() throws Exception {
+    ProtobufAnnotationSerializer serializer = new ProtobufAnnotationSerializer();
+    InputStream in = IOUtils.getFileInputStream(corpus.getPath());
+    for (String text : TEXTS) {
+      Annotation annotation = serializer.read(in).first;
+      assertEquals(text, annotation.get(CoreAnnotations.TextAnnotation.class));
+    }
+    assertEquals(-1, in.read());
+    in.close();
+  }
+
+  public void testIndexed() throws IOException {
+    try (IndexedProtobufCorpus indexed = new IndexedProtobufCorpus(corpus.getPath())) {
+      assertEquals(3, indexed.size());
+      assertEquals(Arrays.asList("doc0", "doc1", "doc3"), indexed.docIDs());
+      assertFalse(indexed.contains("doc2"));
+      assertNull(indexed.get("doc2"));
+
+      Annotation annotation = indexed.get("doc3");
+      assertEquals(TEXTS[3], annotation.get(CoreAnnotations.TextAnnotation.class));
+      assertEquals("doc3", annotation.get(CoreAnnotations.DocIDAnnotation.class));
+      assertEquals(9, words(annotation).size());
+      assertEquals(TEXTS[0], indexed.getDocument("doc0").getText());
+    }
+  }
+
+  public void testWriteIndex() throws IOException {
+    String indexPath = ProtobufCorpusWriter.indexPath(corpus.getPath());
+    String written = IOUtils.slurpFile(indexPath);
+    assertTrue(new File(indexPath).delete());
+    assertEquals(3, ProtobufCorpusReader.writeIndex(corpus.getPath()));
+    assertEquals(written, IOUtils.slurpFile(indexPath));
+  }
+
+  /** Runs processFiles with outputCorpus on one input file, returning the texts in the corpus */
+  private List<String> processFiles(boolean noClobber) throws IOException {
+    File input = File.createTempFile("ProtobufCorpusTest", ".txt");
+    input.deleteOnExit();
+    IOUtils.writeStringToFile("A new document.", input.getPath(), "utf-8");
+    Properties props = new Properties();
+    props.setProperty("annotators", "tokenize,ssplit");
+    props.setProperty("outputFormat", "serialized");
+    props.setProperty("outputCorpus", corpus.getPath());
+    props.setProperty("noClobber", Boolean.toString(noClobber));
+    new StanfordCoreNLP(props).processFiles(Arrays.asList(input));
+
+    List<String> texts = new ArrayList<String>();
+    for (CoreNLPProtos.Document document : ProtobufCorpusReader.documents(corpus.getPath())) {
+      texts.add(document.getText());
+    }
+    return texts;
+  }
+
+  public void testProcessFilesNoClobber() throws IOException {
+    assertEquals(Arrays.asList(TEXTS), processFiles(true));
+    assertEquals(Arrays.asList("A new document."), processFiles(false));
+  }
+
+}
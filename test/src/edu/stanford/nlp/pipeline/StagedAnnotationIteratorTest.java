@@ -0,0 +1,203 @@
+package edu.stanford.nlp.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+
+/**
+ * Checks that staged annotation runs every annotator on every document,
+ * in order, and returns the documents in input order.
+ */
+public class StagedAnnotationIteratorTest extends TestCase {
+
+  /** Appends its name to the text of each document it sees */
+  private static class AppendingAnnotator implements Annotator {
+    private final String name;
+    private final String failOn;
+    private final boolean failWithError;
+
+    AppendingAnnotator(String name, String failOn) {
+      this(name, failOn, false);
+    }
+
+    AppendingAnnotator(String name, String failOn, boolean failWithError) {
+      this.name = name;
+      this.failOn = failOn;
+      this.failWithError = failWithError;
+    }
+
+    @Override
+    public void annotate(Annotation annotation) {
+      String text = annotation.get(CoreAnnotations.TextAnnotation.class);
+      if (text.startsWith(failOn + ":")) {
+        if (failWithError) {
+          throw new OutOfMemoryError("failed on " + text);
+        }
+        throw new IllegalStateException("failed on " + text);
+      }
+      if (text.hashCode() % 3 == 0) {
+        // shake up the relative timing of the stages, and of the workers of a stage, a little
+        Thread.yield();
+        if (text.hashCode() % 2 == 0) {
+          try {
+            Thread.sleep(1);
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      }
+      annotation.set(CoreAnnotations.TextAnnotation.class, text + name);
+    }
+
+    @Override
+    public Set<Requirement> requirementsSatisfied() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public Set<Requirement> requires() {
+      return Collections.emptySet();
+    }
+  }
+
+  private static List<Annotation> documents(int n) {
+    List<Annotation> documents = new ArrayList<>();
+    for (int i = 0; i < n; ++i) {
+      documents.add(new Annotation(i + ":"));
+    }
+    return documents;
+  }
+
+  public void testOrder() {
+    AnnotationPipeline pipeline = new AnnotationPipeline();
+    pipeline.addAnnotator(new AppendingAnnotator("a", null));
+    pipeline.addAnnotator(new AppendingAnnotator("b", null));
+    pipeline.addAnnotator(new AppendingAnnotator("c", null));
+
+    StagedAnnotationIterator it = pipeline.annotateStaged(documents(200).iterator(), 2);
+    int count = 0;
+    while (it.hasNext()) {
+      assertEquals(count + ":abc", it.next().get(CoreAnnotations.TextAnnotation.class));
+      ++count;
+    }
+    assertEquals(200, count);
+    assertFalse(it.hasNext());
+  }
+
+  public void testNoDocuments() {
+    AnnotationPipeline pipeline = new AnnotationPipeline();
+    pipeline.addAnnotator(new AppendingAnnotator("a", null));
+    assertFalse(pipeline.annotateStaged(documents(0).iterator()).hasNext());
+  }
+
+  public void testFailure() {
+    AnnotationPipeline pipeline = new AnnotationPipeline();
+    pipeline.addAnnotator(new AppendingAnnotator("a", null));
+    pipeline.addAnnotator(new AppendingAnnotator("b", "5"));
+
+    StagedAnnotationIterator it = pipeline.annotateStaged(documents(20).iterator(), 3);
+    for (int i = 0; i < 5; ++i) {
+      assertEquals(i + ":ab", it.next().get(CoreAnnotations.TextAnnotation.class));
+    }
+    try {
+      it.next();
+      fail("Expected the exception from the failing annotator");
+    } catch (IllegalStateException e) {
+      assertEquals("failed on 5:a", e.getMessage());
+    }
+    assertFalse(it.hasNext());
+  }
+
+  public void testError() {
+    AnnotationPipeline pipeline = new AnnotationPipeline();
+    pipeline.addAnnotator(new AppendingAnnotator("a", "3", true));
+    pipeline.addAnnotator(new AppendingAnnotator("b", null));
+
+    StagedAnnotationIterator it = pipeline.annotateStaged(documents(20).iterator(), 2);
+    for (int i = 0; i < 3; ++i) {
+      assertEquals(i + ":ab", it.next().get(CoreAnnotations.TextAnnotation.class));
+    }
+    try {
+      it.next();
+      fail("Expected the error from the failing annotator");
+    } catch (OutOfMemoryError e) {
+      assertEquals("failed on 3:", e.getMessage());
+    }
+    assertFalse(it.hasNext());
+  }
+
+  public void testWorkersOrder() {
+    AnnotationPipeline pipeline = new AnnotationPipeline();
+    pipeline.addAnnotator(new AppendingAnnotator("a", null));
+    pipeline.addAnnotator(new AppendingAnnotator("b", null));
+    pipeline.addAnnotator(new AppendingAnnotator("c", null));
+
+    StagedAnnotationIterator it = pipeline.annotateStaged(documents(200).iterator(), 2, new int[] {1, 4, 3});
+    int count = 0;
+    while (it.hasNext()) {
+      assertEquals(count + ":abc", it.next().get(CoreAnnotations.TextAnnotation.class));
+      ++count;
+    }
+    assertEquals(200, count);
+  }
+
+  /** Waits until every worker of its stage is annotating a document at once */
+  private static class BarrierAnnotator extends AppendingAnnotator {
+    private final CyclicBarrier barrier;
+
+    BarrierAnnotator(int workers) {
+      super("w", null);
+      barrier = new CyclicBarrier(workers);
+    }
+
+    @Override
+    public void annotate(Annotation annotation) {
+      try {
+        barrier.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+        throw new RuntimeException("Workers did not run at once", e);
+      }
+      super.annotate(annotation);
+    }
+  }
+
+  public void testWorkersInParallel() {
+    AnnotationPipeline pipeline = new AnnotationPipeline();
+    pipeline.addAnnotator(new AppendingAnnotator("a", null));
+    pipeline.addAnnotator(new BarrierAnnotator(4));
+
+    StagedAnnotationIterator it = pipeline.annotateStaged(documents(40).iterator(), 4, 4);
+    for (int i = 0; i < 40; ++i) {
+      assertEquals(i + ":aw", it.next().get(CoreAnnotations.TextAnnotation.class));
+    }
+    assertFalse(it.hasNext());
+  }
+
+  public void testWorkersFailure() {
+    AnnotationPipeline pipeline = new AnnotationPipeline();
+    pipeline.addAnnotator(new AppendingAnnotator("a", null));
+    pipeline.addAnnotator(new AppendingAnnotator("b", "7"));
+
+    StagedAnnotationIterator it = pipeline.annotateStaged(documents(50).iterator(), 3, 3);
+    for (int i = 0; i < 7; ++i) {
+      assertEquals(i + ":ab", it.next().get(CoreAnnotations.TextAnnotation.class));
+    }
+    try {
+      it.next();
+      fail("Expected the exception from the failing annotator");
+    } catch (IllegalStateException e) {
+      assertEquals("failed on 7:a", e.getMessage());
+    }
+    assertFalse(it.hasNext());
+  }
+
+}
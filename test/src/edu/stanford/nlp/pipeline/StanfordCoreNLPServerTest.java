@@ -0,0 +1,204 @@
+package edu.stanford.nlp.pipeline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.util.CoreMap;
+
+public class StanfordCoreNLPServerTest extends TestCase {
+
+  /** Holds up every document until {@link #release} is counted down */
+  public static class BlockingAnnotator implements Annotator {
+    static volatile CountDownLatch started;
+    static volatile CountDownLatch release;
+
+    public BlockingAnnotator(String name, Properties props) { }
+
+    @Override
+    public void annotate(Annotation annotation) {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public Set<Requirement> requirementsSatisfied() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public Set<Requirement> requires() {
+      return Collections.emptySet();
+    }
+  }
+
+  private StanfordCoreNLPServer server;
+
+  private void startServer(String... extraProps) throws IOException {
+    Properties props = new Properties();
+    props.setProperty("annotators", "tokenize,ssplit");
+    props.setProperty("port", "0");
+    props.setProperty("threads", "2");
+    props.setProperty("maxChars", "1000");
+    props.setProperty(StanfordCoreNLP.CUSTOM_ANNOTATOR_PREFIX + "block", BlockingAnnotator.class.getName());
+    for (int i = 0; i < extraProps.length; i += 2) {
+      props.setProperty(extraProps[i], extraProps[i + 1]);
+    }
+    server = new StanfordCoreNLPServer(props);
+    server.start();
+  }
+
+  @Override
+  public void setUp() throws IOException {
+    BlockingAnnotator.started = new CountDownLatch(1);
+    BlockingAnnotator.release = new CountDownLatch(1);
+    startServer();
+  }
+
+  @Override
+  public void tearDown() {
+    BlockingAnnotator.release.countDown();
+    server.stop();
+  }
+
+  /** Returns the status and then the body of the response */
+  private String[] request(String method, String query, String text) throws IOException {
+    Object[] response = requestBytes(method, query, text);
+    return new String[] { response[0].toString(), new String((byte[]) response[1], "utf-8") };
+  }
+
+  /** Returns the status and then the bytes of the body of the response */
+  private Object[] requestBytes(String method, String query, String text) throws IOException {
+    URL url = new URL("http://localhost:" + server.getPort() + "/" + (query == null ? "" : "?" + query));
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestMethod(method);
+    if (text != null) {
+      connection.setDoOutput(true);
+      OutputStream os = connection.getOutputStream();
+      os.write(text.getBytes("utf-8"));
+      os.close();
+    }
+    int status = connection.getResponseCode();
+    InputStream is = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    for (int n; (n = is.read(buffer)) >= 0; ) {
+      body.write(buffer, 0, n);
+    }
+    is.close();
+    return new Object[] { status, body.toByteArray() };
+  }
+
+  public void testAnnotate() throws IOException {
+    String[] response = request("POST", null, "Colorless green ideas sleep. They do.");
+    assertEquals("200", response[0]);
+    assertTrue(response[1].contains("\"sentences\""));
+    assertTrue(response[1].contains("\"Colorless\""));
+
+    response = request("POST", "annotators=tokenize,%20ssplit&outputFormat=text", "Colorless green ideas sleep.");
+    assertEquals("200", response[0]);
+    assertTrue(response[1].contains("Sentence #1"));
+    assertTrue(response[1].contains("Colorless"));
+  }
+
+  public void testErrors() throws IOException {
+    assertEquals("405", request("GET", null, null)[0]);
+    assertEquals("400", request("POST", "annotators=tokenize,nosuchannotator", "Hello.")[0]);
+    assertEquals("400", request("POST", "outputFormat=nosuchformat", "Hello.")[0]);
+    StringBuilder longText = new StringBuilder();
+    while (longText.length() <= 1000) {
+      longText.append("Hello. ");
+    }
+    assertEquals("413", request("POST", null, longText.toString())[0]);
+  }
+
+  /** Many requests at once get batched together, and each must still get its own document back */
+  public void testConcurrentRequests() throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(16);
+    List<Future<String[]>> responses = new ArrayList<>();
+    for (int i = 0; i < 64; i++) {
+      final String text = "Document number" + i + " is here.";
+      responses.add(clients.submit(() -> request("POST", null, text)));
+    }
+    for (int i = 0; i < responses.size(); i++) {
+      String[] response = responses.get(i).get();
+      assertEquals("200", response[0]);
+      assertTrue(response[1].contains("\"number" + i + "\""));
+    }
+    clients.shutdown();
+  }
+
+  public void testSerialized() throws Exception {
+    Object[] response = requestBytes("POST", "outputFormat=serialized", "Colorless green ideas sleep. They do.");
+    assertEquals(200, response[0]);
+    ProtobufAnnotationSerializer serializer = new ProtobufAnnotationSerializer(false);
+    Annotation document = serializer.fromProto(CoreNLPProtos.Document.parseFrom((byte[]) response[1]));
+    assertEquals("Colorless green ideas sleep. They do.", document.get(CoreAnnotations.TextAnnotation.class));
+    List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
+    assertEquals(2, sentences.size());
+    List<String> words = new ArrayList<>();
+    for (CoreLabel token : sentences.get(1).get(CoreAnnotations.TokensAnnotation.class)) {
+      words.add(token.word());
+    }
+    assertEquals(Arrays.asList("They", "do", "."), words);
+  }
+
+  /** When the only worker is busy and the queue is full, a request is turned away at once */
+  public void testQueueFull() throws Exception {
+    server.stop();
+    startServer("threads", "1", "queueSize", "1", "batchSize", "1");
+    ExecutorService clients = Executors.newFixedThreadPool(3);
+    Future<String[]> first = clients.submit(() -> request("POST", "annotators=tokenize,ssplit,block", "First."));
+    assertTrue(BlockingAnnotator.started.await(10, TimeUnit.SECONDS));
+    // the worker is stuck on the first document: one of these two waits
+    // in the queue and the other is turned away
+    Future<String[]> second = clients.submit(() -> request("POST", "annotators=tokenize,ssplit,block", "Second."));
+    Future<String[]> third = clients.submit(() -> request("POST", "annotators=tokenize,ssplit,block", "Third."));
+    String[] turnedAway;
+    Future<String[]> queued;
+    try {
+      turnedAway = third.get(10, TimeUnit.SECONDS);
+      queued = second;
+    } catch (java.util.concurrent.TimeoutException e) {
+      turnedAway = second.get(10, TimeUnit.SECONDS);
+      queued = third;
+    }
+    assertEquals("503", turnedAway[0]);
+    assertFalse(queued.isDone());
+
+    BlockingAnnotator.release.countDown();
+    assertEquals("200", first.get()[0]);
+    assertEquals("200", queued.get()[0]);
+    clients.shutdown();
+  }
+
+  public void testTimeout() throws Exception {
+    server.stop();
+    startServer("timeout", "200");
+    String[] response = request("POST", "annotators=tokenize,ssplit,block", "Hello.");
+    assertEquals("504", response[0]);
+  }
+
+}
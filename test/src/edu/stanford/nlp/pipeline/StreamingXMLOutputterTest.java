@@ -0,0 +1,114 @@
+package edu.stanford.nlp.pipeline;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.dcoref.CorefChain;
+import edu.stanford.nlp.dcoref.CorefCoreAnnotations;
+import edu.stanford.nlp.dcoref.Dictionaries;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
+import edu.stanford.nlp.semgraph.SemanticGraphFactory;
+import edu.stanford.nlp.time.TimeAnnotations;
+import edu.stanford.nlp.time.Timex;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.Generics;
+import edu.stanford.nlp.util.IntPair;
+import edu.stanford.nlp.util.IntTuple;
+
+/**
+ * Checks that {@link StreamingXMLOutputter} writes exactly what
+ * {@link XMLOutputter} does.
+ */
+public class StreamingXMLOutputterTest extends TestCase {
+
+  private static CorefChain.CorefMention mention(int sentNum, int start, String span, int clusterID, int mentionID) {
+    return new CorefChain.CorefMention(Dictionaries.MentionType.PROPER, Dictionaries.Number.SINGULAR,
+        Dictionaries.Gender.MALE, Dictionaries.Animacy.ANIMATE, start, start + 1, start, clusterID, mentionID,
+        sentNum, new IntTuple(new int[] { sentNum, mentionID }), span);
+  }
+
+  private static CorefChain chain(int id, CorefChain.CorefMention... mentions) {
+    Map<IntPair, Set<CorefChain.CorefMention>> mentionMap = Generics.newHashMap();
+    for (CorefChain.CorefMention m : mentions) {
+      mentionMap.put(new IntPair(m.sentNum, m.headIndex), Generics.newHashSet(java.util.Collections.singleton(m)));
+    }
+    return new CorefChain(id, mentionMap, mentions[0]);
+  }
+
+  /** A document with a little of most of the things which are output */
+  private static Annotation annotation() {
+    Annotation ann = new Annotation("Tom & \"Jerry\" ran <home>.\tHe ran fast on 12 May. Then they stopped.");
+    StanfordCoreNLP pipeline = new StanfordCoreNLP(new Properties() {{ setProperty("annotators", "tokenize, ssplit"); }});
+    pipeline.annotate(ann);
+    ann.set(CoreAnnotations.DocIDAnnotation.class, "doc&1");
+
+    int sentNum = 0;
+    for (CoreMap sentence : ann.get(CoreAnnotations.SentencesAnnotation.class)) {
+      sentNum++;
+      sentence.set(CoreAnnotations.LineNumberAnnotation.class, sentNum);
+      List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+      StringBuilder tree = new StringBuilder("(ROOT (S (NP ");
+      for (int i = 0; i < tokens.size(); i++) {
+        CoreLabel token = tokens.get(i);
+        String tag = (i == 0) ? "NNP" : (i == tokens.size() - 1) ? "." : "VBD";
+        token.setTag(tag);
+        token.setLemma(token.word().toLowerCase());
+        token.setNER(i == 0 ? "PERSON" : "O");
+        token.set(CoreAnnotations.TrueCaseAnnotation.class, "LOWER");
+        if (token.word().equals("12")) {
+          token.setNER("DATE");
+          token.set(CoreAnnotations.NormalizedNamedEntityTagAnnotation.class, "XXXX-05-12");
+          token.set(TimeAnnotations.TimexAnnotation.class, new Timex("DATE", "XXXX-05-12", null, "t1", "12 May", -1, -1));
+        }
+        tree.append('(').append(tag).append(' ').append(token.word()).append(')');
+        tree.append(i == 0 ? ") (VP " : " ");
+      }
+      tree.append(")))");
+      Tree parse = Tree.valueOf(tree.toString());
+      sentence.set(TreeCoreAnnotations.TreeAnnotation.class, parse);
+      sentence.set(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class, SemanticGraphFactory.generateUncollapsedDependencies(parse));
+      sentence.set(SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation.class, SemanticGraphFactory.generateCollapsedDependencies(parse));
+      sentence.set(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class, SemanticGraphFactory.generateCCProcessedDependencies(parse));
+    }
+
+    Map<Integer, CorefChain> chains = Generics.newHashMap();
+    chains.put(1, chain(1, mention(1, 1, "Tom", 1, 1), mention(2, 1, "He", 1, 2)));
+    chains.put(2, chain(2, mention(3, 2, "they", 2, 3)));
+    ann.set(CorefCoreAnnotations.CorefChainAnnotation.class, chains);
+    return ann;
+  }
+
+  private static void assertSameXML(Annotation ann, AnnotationOutputter.Options options) throws IOException {
+    assertEquals(new XMLOutputter().print(ann, options), new StreamingXMLOutputter().print(ann, options));
+  }
+
+  public void testSameXML() throws IOException {
+    Annotation ann = annotation();
+    AnnotationOutputter.Options options = new AnnotationOutputter.Options();
+    assertSameXML(ann, options);
+
+    options.includeText = true;
+    options.printSingletons = true;
+    options.coreferenceContextSize = 2;
+    assertSameXML(ann, options);
+  }
+
+  public void testSameXMLWithoutSentences() throws IOException {
+    assertSameXML(new Annotation("Nothing here."), new AnnotationOutputter.Options());
+
+    // no coreference element at all when every chain is a singleton
+    Annotation ann = annotation();
+    ann.get(CorefCoreAnnotations.CorefChainAnnotation.class).remove(1);
+    assertSameXML(ann, new AnnotationOutputter.Options());
+  }
+
+}
@@ -0,0 +1,115 @@
+package edu.stanford.nlp.pipeline;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+
+/**
+ * Checks the rules for which matches of TokensRegexNERAnnotator are
+ * labeled, against small mapping files: priorities, which existing NER
+ * labels may be overwritten, and the valid POS pattern.
+ */
+public class TokensRegexNERAnnotatorTest extends TestCase {
+
+  private static TokensRegexNERAnnotator annotator(String mapping, String... extraProps) throws IOException {
+    File file = File.createTempFile("TokensRegexNERAnnotatorTest", ".tab");
+    file.deleteOnExit();
+    IOUtils.writeStringToFile(mapping, file.getPath(), "utf-8");
+    Properties props = new Properties();
+    props.setProperty("ner.mapping", file.getPath());
+    for (int i = 0; i < extraProps.length; i += 2) {
+      props.setProperty("ner." + extraProps[i], extraProps[i + 1]);
+    }
+    return new TokensRegexNERAnnotator("ner", props);
+  }
+
+  /** Annotates tokens given as "word/tag/ner" and returns their NER labels */
+  private static String annotate(TokensRegexNERAnnotator annotator, String text) {
+    List<CoreLabel> tokens = new ArrayList<CoreLabel>();
+    for (String word : text.split(" ")) {
+      String[] pieces = word.split("/");
+      CoreLabel token = new CoreLabel();
+      token.setWord(pieces[0]);
+      token.setTag(pieces[1]);
+      token.setNER(pieces[2]);
+      tokens.add(token);
+    }
+    Annotation annotation = new Annotation(text);
+    annotation.set(CoreAnnotations.TokensAnnotation.class, tokens);
+    annotator.annotate(annotation);
+    List<String> labels = new ArrayList<String>();
+    for (CoreLabel token : tokens) {
+      labels.add(token.ner());
+    }
+    return String.join(" ", labels);
+  }
+
+  private static final String NEW_YORK_CITY = "in/IN/O New/NNP/O York/NNP/O City/NNP/O";
+
+  public void testPriority() throws IOException {
+    assertEquals("O STATE STATE O",
+        annotate(annotator("New York City\tCITY\t\t1\nNew York\tSTATE\t\t2\n"), NEW_YORK_CITY));
+    assertEquals("O CITY CITY CITY",
+        annotate(annotator("New York City\tCITY\t\t2\nNew York\tSTATE\t\t1\n"), NEW_YORK_CITY));
+    // with equal priorities the longer match wins
+    assertEquals("O CITY CITY CITY",
+        annotate(annotator("New York\tSTATE\nNew York City\tCITY\n"), NEW_YORK_CITY));
+    // plain strings and regexes compete on the same terms
+    assertEquals("O STATE STATE O",
+        annotate(annotator("New York City\tCITY\t\t1\nNew Yo.*\tSTATE\t\t2\n"), NEW_YORK_CITY));
+    assertEquals("O STATE STATE O",
+        annotate(annotator("N.w York City\tCITY\t\t1\nNew York\tSTATE\t\t2\n"), NEW_YORK_CITY));
+    assertEquals("O CITY CITY CITY",
+        annotate(annotator("( /New/ /York/ )\tSTATE\nNew York City\tCITY\n"), NEW_YORK_CITY));
+  }
+
+  public void testOverwrite() throws IOException {
+    String mapping = "Shoreline Park\tGARDEN\nYosemite\tPARK\n";
+    // the default background labels, and the labels of this annotator, are always overwritten
+    assertEquals("GARDEN GARDEN", annotate(annotator(mapping), "Shoreline/NNP/O Park/NNP/O"));
+    assertEquals("GARDEN GARDEN", annotate(annotator(mapping), "Shoreline/NNP/MISC Park/NNP/MISC"));
+    assertEquals("GARDEN GARDEN", annotate(annotator(mapping), "Shoreline/NNP/PARK Park/NNP/PARK"));
+    // others only when the entry says so
+    assertEquals("LOCATION LOCATION", annotate(annotator(mapping), "Shoreline/NNP/LOCATION Park/NNP/LOCATION"));
+    assertEquals("GARDEN GARDEN",
+        annotate(annotator("Shoreline Park\tGARDEN\tLOCATION\n"), "Shoreline/NNP/LOCATION Park/NNP/LOCATION"));
+    // or when the existing labels are not one consistent entity
+    assertEquals("GARDEN GARDEN", annotate(annotator(mapping), "Shoreline/NNP/LOCATION Park/NNP/O"));
+    // a match which cuts across an existing entity is not labeled
+    assertEquals("LOCATION LOCATION LOCATION",
+        annotate(annotator(mapping), "Shoreline/NNP/LOCATION Park/NNP/LOCATION Zoo/NNP/LOCATION"));
+  }
+
+  public void testNoDefaultOverwriteLabels() throws IOException {
+    String text = "Paris/NNP/MISC";
+    assertEquals("CITY", annotate(annotator("Paris\tCITY\n"), text));
+    assertEquals("MISC", annotate(annotator("Paris\tCITY\n", "noDefaultOverwriteLabels", "CITY"), text));
+    assertEquals("CITY", annotate(annotator("Paris\tCITY\tMISC\n", "noDefaultOverwriteLabels", "CITY"), text));
+    assertEquals("CITY", annotate(annotator("Paris\tCITY\n", "noDefaultOverwriteLabels", "STATE"), text));
+  }
+
+  public void testValidPos() throws IOException {
+    String mixed = "Shoreline/NNP/O Park/NN/O";
+    String allProper = "Shoreline/NNP/O Park/NNP/O";
+    for (String mapping : new String[] { "Shoreline Park\tPARK\n", "Shore.* Park\tPARK\n" }) {
+      // at least one token must match, the default
+      assertEquals("PARK PARK", annotate(annotator(mapping, "validpospattern", "NNP"), mixed));
+      assertEquals("O O", annotate(annotator(mapping, "validpospattern", "VB"), mixed));
+      // the whole tag must match
+      assertEquals("O O", annotate(annotator(mapping, "validpospattern", "NN"), allProper));
+      // every token must match
+      assertEquals("O O", annotate(annotator(mapping, "validpospattern", "NNP", "posmatchtype", "MATCH_ALL_TOKENS"), mixed));
+      assertEquals("PARK PARK", annotate(annotator(mapping, "validpospattern", "NNP", "posmatchtype", "MATCH_ALL_TOKENS"), allProper));
+      assertEquals("PARK PARK", annotate(annotator(mapping, "validpospattern", "NNP?", "posmatchtype", "MATCH_ALL_TOKENS"), mixed));
+    }
+  }
+
+}
@@ -0,0 +1,100 @@
+package edu.stanford.nlp.process;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.io.IOUtils;
+
+public class CompiledLexiconTest extends TestCase {
+
+  private static final String[] LINES = {
+    "the 0101", "The 0110", "dog 1110", "cat 1110", "Paris 0011", "1984 0001", "2015 0001",
+    "naïve 1000", "東京 0011", "<unk> 1111", "dog 1100",
+  };
+
+  private File text;
+  private File compiled;
+
+  @Override
+  public void setUp() throws IOException {
+    text = File.createTempFile("lexicon", ".txt");
+    text.deleteOnExit();
+    try (PrintWriter writer = IOUtils.getPrintWriter(text, "utf-8")) {
+      for (String line : LINES) {
+        writer.println(line);
+      }
+    }
+    compiled = File.createTempFile("lexicon", ".lex");
+    compiled.deleteOnExit();
+  }
+
+  private CompiledLexicon compile(boolean cased, boolean numberEquivalence) throws IOException {
+    Map<String,String> lexicon = DistSimClassifier.readLexicon(text.getPath(), "alexClark", "utf-8", -1, cased, numberEquivalence);
+    CompiledLexicon.write(lexicon, cased, numberEquivalence, compiled.getPath());
+    // load shares lexicons, and each test writes a new file
+    CompiledLexicon compiledLexicon = CompiledLexicon.load(compiled.getPath());
+    assertEquals(lexicon, compiledLexicon);
+    return compiledLexicon;
+  }
+
+  public void testSameAsText() throws IOException {
+    CompiledLexicon lexicon = compile(false, false);
+    assertTrue(CompiledLexicon.isCompiled(compiled.getPath()));
+    assertFalse(CompiledLexicon.isCompiled(text.getPath()));
+    assertFalse(CompiledLexicon.isCompiled(compiled.getPath() + ".missing"));
+
+    assertEquals(9, lexicon.size());
+    assertEquals("0110", lexicon.get("the"));
+    assertEquals("1100", lexicon.get("dog"));
+    assertEquals("1000", lexicon.get("naïve"));
+    assertEquals("0011", lexicon.get("東京"));
+    assertNull(lexicon.get("The"));
+    assertNull(lexicon.get("do"));
+    assertNull(lexicon.get("dogs"));
+    assertNull(lexicon.get(""));
+    assertTrue(lexicon.containsKey("paris"));
+    assertFalse(lexicon.containsKey("Paris"));
+    assertSame(lexicon, CompiledLexicon.load(compiled.getPath()));
+
+    DistSimClassifier fromText = new DistSimClassifier(text.getPath(), false, false);
+    DistSimClassifier fromCompiled = new DistSimClassifier(compiled.getPath(), false, false);
+    for (String word : new String[] { "The", "PARIS", "cat", "horse", "1984" }) {
+      assertEquals(fromText.distSimClass(word), fromCompiled.distSimClass(word));
+    }
+  }
+
+  public void testOptions() throws IOException {
+    CompiledLexicon lexicon = compile(true, true);
+    assertEquals("0001", lexicon.get(WordShapeClassifier.wordShape("1999", WordShapeClassifier.WORDSHAPEDIGITS)));
+    assertEquals("0011", new DistSimClassifier(compiled.getPath(), true, true).distSimClass("Paris"));
+    assertNull(lexicon.get("paris"));
+    try {
+      new DistSimClassifier(compiled.getPath(), false, true);
+      fail("A lexicon compiled with cased words should not be used uncased");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testSerializedAsMap() throws IOException, ClassNotFoundException {
+    CompiledLexicon lexicon = compile(false, false);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(lexicon);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      Object read = in.readObject();
+      assertFalse(read instanceof CompiledLexicon);
+      assertEquals(lexicon, read);
+    }
+  }
+
+}
@@ -75,6 +75,58 @@ public class MorphologyTest extends TestCase {
     assertEquals("hunt", lemmatizeStatic(hunt).lemma());
   }
 
+  public void testCached() {
+    Morphology morpha = new Morphology();
+    // lemma(word, tag, false) leaves a Morphology not lowercasing, so stem with another one
+    Morphology stemmer = new Morphology();
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < exWords.length; i++) {
+        assertEquals(exAnswers[i], lemmaCached(exWords[i], exTags[i]));
+        assertEquals(morpha.lemma(exWords[i], exTags[i], false), lemmaCached(exWords[i], exTags[i], false));
+        assertEquals(stemmer.stem(exWords[i]), stemCached(exWords[i]));
+      }
+    }
+  }
+
+  /** A stem and a lemma with no tag are worked out differently, so must not share cache entries */
+  public void testCachedStemAndNullTag() {
+    Morphology morpha = new Morphology();
+    Morphology stemmer = new Morphology();
+    boolean differ = false;
+    for (int i = 0; i < exWords.length; i++) {
+      String lemma = morpha.lemma(exWords[i], null, true);
+      String stem = stemmer.stem(exWords[i]);
+      differ |= ! lemma.equals(stem);
+      assertEquals(lemma, lemmaCached(exWords[i], null, true));
+      assertEquals(stem, stemCached(exWords[i]));
+      assertEquals(lemma, lemmaCached(exWords[i], null, true));
+    }
+    assertTrue(differ);
+  }
+
+  public void testCachedConcurrently() throws InterruptedException {
+    final boolean[] failed = new boolean[1];
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final int offset = t;
+      threads[t] = new Thread(() -> {
+        for (int round = 0; round < 500; round++) {
+          for (int i = 0; i < exWords.length; i++) {
+            int j = (i + offset) % exWords.length;
+            if ( ! exAnswers[j].equals(lemmaCached(exWords[j], exTags[j]))) {
+              failed[0] = true;
+            }
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertFalse(failed[0]);
+  }
+
   public void testDash() {
     Morphology morpha = new Morphology();
     morpha.stem("b-");
@@ -3,6 +3,7 @@ package edu.stanford.nlp.semgraph;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -245,4 +246,87 @@ public class SemanticGraphTest extends TestCase {
     }
   }
 
+  public void testFreeze() {
+    assertTrue(graph.isFrozen());
+    SemanticGraph gr = SemanticGraph.valueOf("[ate subj:Bill dobj:[muffins nn:blueberry]]");
+    assertFalse(gr.isFrozen());
+    SemanticGraph frozen = new SemanticGraph(gr);
+    frozen.freeze();
+    assertTrue(frozen.isFrozen());
+    assertEquals(gr, frozen);
+    assertEquals(gr.hashCode(), frozen.hashCode());
+    assertEquals(gr.toString(), frozen.toString());
+    assertEquals(gr.edgeListSorted(), frozen.edgeListSorted());
+
+    // copies share the frozen graph, and changing one copies it back
+    SemanticGraph copy = new SemanticGraph(frozen);
+    assertTrue(copy.isFrozen());
+    IndexedWord muffins = copy.getNodeByWordPattern("muffins");
+    copy.removeEdge(copy.getEdge(muffins, copy.getNodeByWordPattern("blueberry")));
+    assertFalse(copy.isFrozen());
+    assertEquals(2, copy.edgeCount());
+    assertEquals(3, frozen.edgeCount());
+    assertTrue(frozen.isFrozen());
+
+    // edges can still be removed while iterating over a frozen graph
+    for (Iterator<SemanticGraphEdge> it = frozen.edgeIterable().iterator(); it.hasNext(); ) {
+      if (it.next().getRelation().toString().equals("nn")) {
+        it.remove();
+      }
+    }
+    assertEquals(copy, frozen);
+  }
+
+  /** Changing a copy which shares a frozen graph thaws only the copy */
+  public void testFrozenCopiesIndependent() {
+    SemanticGraph frozen = SemanticGraph.valueOf("[ate subj:Bill dobj:[muffins nn:blueberry]]");
+    frozen.freeze();
+    String before = frozen.toString();
+    List<SemanticGraphEdge> edgesBefore = frozen.edgeListSorted();
+    IndexedWord muffins = frozen.getNodeByWordPattern("muffins");
+    IndexedWord blueberry = frozen.getNodeByWordPattern("blueberry");
+
+    SemanticGraph added = new SemanticGraph(frozen);
+    IndexedWord bill = added.getNodeByWordPattern("Bill");
+    added.addEdge(muffins, bill, GrammaticalRelation.valueOf("poss"), Double.NEGATIVE_INFINITY, false);
+    assertFalse(added.isFrozen());
+    assertEquals(4, added.edgeCount());
+
+    SemanticGraph removed = new SemanticGraph(frozen);
+    removed.removeVertex(blueberry);
+    assertFalse(removed.isFrozen());
+    assertFalse(removed.containsVertex(blueberry));
+
+    // removing through edgeIterable() thaws the graph it is called on, and no other
+    SemanticGraph iterated = new SemanticGraph(frozen);
+    Iterator<SemanticGraphEdge> it = iterated.edgeIterable().iterator();
+    it.next();
+    it.remove();
+    assertFalse(iterated.isFrozen());
+    assertEquals(2, iterated.edgeCount());
+
+    assertTrue(frozen.isFrozen());
+    assertEquals(before, frozen.toString());
+    assertEquals(edgesBefore, frozen.edgeListSorted());
+    assertTrue(frozen.containsVertex(blueberry));
+    assertEquals(3, frozen.edgeCount());
+  }
+
+  /** The iterators over the edges of one vertex of a frozen graph cannot remove edges */
+  public void testFrozenEdgeIteratorRemove() {
+    SemanticGraph frozen = SemanticGraph.valueOf("[ate subj:Bill dobj:[muffins nn:blueberry]]");
+    frozen.freeze();
+    IndexedWord ate = frozen.getNodeByWordPattern("ate");
+    Iterator<SemanticGraphEdge> it = frozen.outgoingEdgeIterable(ate).iterator();
+    it.next();
+    try {
+      it.remove();
+      fail("Expected a frozen graph to refuse to remove an edge");
+    } catch (UnsupportedOperationException e) {
+      // as expected
+    }
+    assertTrue(frozen.isFrozen());
+    assertEquals(3, frozen.edgeCount());
+  }
+
 }
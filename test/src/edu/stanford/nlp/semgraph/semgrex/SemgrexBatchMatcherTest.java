@@ -0,0 +1,127 @@
+package edu.stanford.nlp.semgraph.semgrex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.util.Pair;
+
+public class SemgrexBatchMatcherTest extends TestCase {
+
+  private static final String[] PATTERNS = {
+    "{}",
+    "{word:ate}",
+    "{tag:NNP}",
+    "{tag:/NN.*/}=noun",
+    "{word:ate} >dobj {}=obj",
+    "{} >nsubj {tag:NNP}=subj",
+    "{} >/nsubj.*/ {}=subj",
+    "{tag:VBD} >>det {word:the}",
+    "{word:drink} <dobj ({} >nsubj {})",
+    "{} >nsubj {}=a : {}=a >appos {}",
+    "{$}",
+    "{word:mixed;tag:VBN}",
+    "!{tag:NN}",
+    "{word:ate} !>dobj {}",
+    "{word:ate} ?>dobj {}=obj",
+    "{tag:VBD} [>nsubj {} | >dobj {word:muffins}]",
+    "{tag:NN} [>amod {} | >det {word:a}]",
+    "{word:/bartender|drink/}",
+    "{word:blueberry} <nn {}",
+    "{lemma:eat}",
+  };
+
+  private static final String[] GRAPHS = {
+    "[ate/VBD subj:Bill/NNP dobj:[muffins/NNS nn:blueberry/NN]]",
+    "[mixed/VBN nsubj:[Joe/NNP appos:[bartender/NN det:the/DT]]  dobj:[drink/NN det:a/DT]]",
+    "[loved/VBD nsubj:Hughes/NNP dobj:[wife/NN poss:his/PRP$ appos:Gracia/NNP]]",
+    "[walked/VBD nsubj:[dog/NN det:the/DT amod:old/JJ]]",
+  };
+
+  private static List<String> matches(SemgrexMatcher matcher) {
+    List<String> matches = new ArrayList<>();
+    while (matcher.find()) {
+      StringBuilder match = new StringBuilder(matcher.getMatch().toString());
+      for (String name : new TreeSet<>(matcher.getNodeNames())) {
+        match.append(' ').append(name).append('=').append(matcher.getNode(name));
+      }
+      matches.add(match.toString());
+    }
+    return matches;
+  }
+
+  private static SemgrexBatchMatcher batchMatcher() {
+    List<SemgrexPattern> patterns = new ArrayList<>();
+    for (String pattern : PATTERNS) {
+      patterns.add(SemgrexPattern.compile(pattern));
+    }
+    return new SemgrexBatchMatcher(patterns);
+  }
+
+  public void testSameMatches() {
+    SemgrexBatchMatcher batch = batchMatcher();
+    for (String graphString : GRAPHS) {
+      SemanticGraph sg = SemanticGraph.valueOf(graphString);
+      SemgrexBatchMatcher.GraphIndex index = batch.index(sg);
+      for (int i = 0; i < batch.size(); i++) {
+        List<String> expected = matches(batch.patterns().get(i).matcher(sg));
+        assertEquals(PATTERNS[i] + " on " + graphString, expected, matches(batch.matcher(i, index)));
+        if ( ! expected.isEmpty()) {
+          assertTrue(batch.mightMatch(i, index));
+        }
+      }
+    }
+  }
+
+  public void testSkipsPatterns() {
+    SemgrexBatchMatcher batch = batchMatcher();
+    SemgrexBatchMatcher.GraphIndex index = batch.index(SemanticGraph.valueOf(GRAPHS[3]));
+    List<String> patterns = Arrays.asList(PATTERNS);
+    assertFalse(batch.mightMatch(patterns.indexOf("{word:ate} >dobj {}=obj"), index));
+    assertFalse(batch.mightMatch(patterns.indexOf("{} >nsubj {tag:NNP}=subj"), index));
+    assertFalse(batch.mightMatch(patterns.indexOf("{word:drink} <dobj ({} >nsubj {})"), index));
+    assertFalse(batch.mightMatch(patterns.indexOf("{lemma:eat}"), index));
+    // only literals rule patterns out
+    assertTrue(batch.mightMatch(patterns.indexOf("{} >/nsubj.*/ {}=subj"), index));
+    assertTrue(batch.mightMatch(patterns.indexOf("{word:/bartender|drink/}"), index));
+    assertTrue(batch.mightMatch(patterns.indexOf("!{tag:NN}"), index));
+    assertTrue(batch.mightMatch(patterns.indexOf("{tag:NN} [>amod {} | >det {word:a}]"), index));
+  }
+
+  public void testMatchingPatterns() {
+    SemgrexBatchMatcher batch = batchMatcher();
+    List<SemanticGraph> graphs = new ArrayList<>();
+    List<List<Integer>> expected = new ArrayList<>();
+    for (String graphString : GRAPHS) {
+      SemanticGraph sg = SemanticGraph.valueOf(graphString);
+      graphs.add(sg);
+      List<Integer> matching = new ArrayList<>();
+      for (int i = 0; i < batch.size(); i++) {
+        if (batch.patterns().get(i).matcher(sg).find()) {
+          matching.add(i);
+        }
+      }
+      expected.add(matching);
+      assertEquals(matching, batch.matchingPatterns(sg));
+
+      List<Integer> tried = new ArrayList<>();
+      for (Pair<SemgrexPattern, SemgrexMatcher> matcher : batch.matchers(sg)) {
+        tried.add(batch.patterns().indexOf(matcher.first()));
+      }
+      assertTrue(tried.containsAll(matching));
+    }
+    assertEquals(expected, batch.matchingPatterns(graphs, 2));
+  }
+
+  public void testIgnoreCase() {
+    SemanticGraph sg = SemanticGraph.valueOf(GRAPHS[0]);
+    SemgrexPattern pattern = SemgrexPattern.compile("{word:bill}");
+    assertFalse(pattern.matcher(sg).find());
+    assertTrue(pattern.matcher(sg, true).find());
+  }
+
+}
@@ -430,5 +430,16 @@ public class CountersTest extends TestCase {
     assertEquals(2.0, flat.getCount("b"));
   }
 
+  public void testNewCounter() {
+    Counter<String> c = Counters.newCounter();
+    if (Counters.COUNTER_CLASSNAME == null) {
+      assertTrue(c instanceof ClassicCounter);
+    } else {
+      assertEquals(Counters.COUNTER_CLASSNAME, c.getClass().getName());
+    }
+    c.incrementCount("a");
+    assertEquals(1.0, c.getCount("a"));
+    assertEquals(0, Counters.<String>newCounter().size());
+  }
 
 }
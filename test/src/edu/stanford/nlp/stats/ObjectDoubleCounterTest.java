@@ -0,0 +1,105 @@
+package edu.stanford.nlp.stats;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Tests for the ObjectDoubleCounter: the Counter tests, and checks that it
+ * agrees with a ClassicCounter through many changes.
+ */
+public class ObjectDoubleCounterTest extends CounterTestBase {
+
+  public ObjectDoubleCounterTest() {
+    super(new ObjectDoubleCounter<String>());
+  }
+
+  public void testAgreesWithClassicCounter() {
+    Random random = new Random(42);
+    ObjectDoubleCounter<Integer> odc = new ObjectDoubleCounter<Integer>();
+    ClassicCounter<Integer> cc = new ClassicCounter<Integer>();
+    for (int i = 0; i < 20000; i++) {
+      Integer key = random.nextInt(500);
+      switch (random.nextInt(4)) {
+        case 0:
+          odc.incrementCount(key, i % 7);
+          cc.incrementCount(key, i % 7);
+          break;
+        case 1:
+          odc.setCount(key, i);
+          cc.setCount(key, i);
+          break;
+        case 2:
+          assertEquals(cc.remove(key), odc.remove(key));
+          break;
+        default:
+          assertEquals(cc.getCount(key), odc.getCount(key));
+      }
+    }
+    assertEquals(cc.size(), odc.size());
+    assertEquals(cc.totalCount(), odc.totalCount(), 1e-6);
+    assertEquals(cc, odc);
+    assertEquals(odc, cc);
+    assertEquals(cc.hashCode(), odc.hashCode());
+    assertEquals(cc.keySet(), odc.keySet());
+    assertEquals(Counters.max(cc), Counters.max(odc));
+    assertEquals(Counters.argmax(cc), Counters.argmax(odc));
+    assertEquals(Counters.dotProduct(cc, cc), Counters.dotProduct(odc, cc), 1e-6);
+
+    ClassicCounter<Integer> sum = new ClassicCounter<Integer>(cc);
+    Counters.addInPlace(sum, odc, 2.0);
+    Counters.addInPlace(sum, odc);
+    for (Integer key : cc.keySet()) {
+      assertEquals(4.0 * cc.getCount(key), sum.getCount(key), 1e-6);
+    }
+  }
+
+  public void testNullKeyAndIteratorRemove() {
+    ObjectDoubleCounter<String> odc = new ObjectDoubleCounter<String>();
+    odc.setCount(null, 2.0);
+    odc.setCount("a", 1.0);
+    odc.setCount("b", 3.0);
+    assertTrue(odc.containsKey(null));
+    assertEquals(2.0, odc.getCount(null));
+    for (Iterator<String> it = odc.keySet().iterator(); it.hasNext(); ) {
+      if (it.next() == null) {
+        it.remove();
+      }
+    }
+    assertFalse(odc.containsKey(null));
+    assertEquals(2, odc.size());
+    assertEquals(4.0, odc.totalCount());
+    for (Map.Entry<String, Double> entry : odc.entrySet()) {
+      entry.setValue(entry.getValue() * 2);
+    }
+    assertEquals(2.0, odc.getCount("a"));
+    assertEquals(8.0, odc.totalCount());
+    try {
+      for (String key : odc.keySet()) {
+        odc.setCount(key + "x", 1.0);
+      }
+      fail("Expected ConcurrentModificationException");
+    } catch (ConcurrentModificationException e) {
+      // expected
+    }
+  }
+
+  public void testSerialization() throws IOException, ClassNotFoundException {
+    ObjectDoubleCounter<String> odc = new ObjectDoubleCounter<String>();
+    for (int i = 0; i < 100; i++) {
+      odc.setCount("k" + i, i);
+    }
+    odc.remove("k5");
+    odc.setDefaultReturnValue(-1.0);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(odc);
+    out.close();
+    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    @SuppressWarnings("unchecked")
+    ObjectDoubleCounter<String> copy = (ObjectDoubleCounter<String>) in.readObject();
+    assertEquals(odc, copy);
+    assertEquals(odc.totalCount(), copy.totalCount());
+    assertEquals(-1.0, copy.getCount("k5"));
+  }
+
+}
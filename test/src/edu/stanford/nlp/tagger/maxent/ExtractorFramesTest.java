@@ -0,0 +1,67 @@
+package edu.stanford.nlp.tagger.maxent;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.ling.WordTag;
+
+/**
+ * Checks that the parts each extractor gives for its value join with '!'
+ * to the value itself, at every position of a sentence, including where
+ * the context runs off either end and where tags are not set yet.
+ */
+public class ExtractorFramesTest extends TestCase {
+
+  private static final String[] WORDS = {"The", "old", "dog", "chased", "the", "boy", "!", "."};
+  // the tags to the right are not known yet while tagging
+  private static final String[] TAGS = {"DT", "JJ", "NN", "VBD", "DT", null, null, null};
+
+  private static final Extractor[] EXTRACTORS = {
+    new Extractor(0, false),
+    new Extractor(-2, true),
+    new ExtractorFrames.ExtractorWordTag(0, -1),
+    new ExtractorFrames.ExtractorWordTag(1, 2),
+    new ExtractorFrames.ExtractorWordLowerCase(-1),
+    new ExtractorFrames.ExtractorCWordCapCase(),
+    new ExtractorFrames.ExtractorTwoWords(-1),
+    new ExtractorFrames.ExtractorTwoWords(2, -2),
+    new ExtractorFrames.ExtractorTwoTags(-1, 1),
+    new ExtractorFrames.ExtractorTwoWordsTag(-1, 1, 0),
+    new ExtractorFrames.ExtractorThreeTags(1, -2, -1),
+    new ExtractorFrames.ExtractorWordTwoTags(0, -1, 1),
+    new ExtractorFrames.ExtractorContinuousTagConjunction(-2),
+    new ExtractorFrames.ExtractorContinuousTagConjunction(-3),
+    new ExtractorFrames.ExtractorContinuousTagConjunction(2),
+    new ExtractorFrames.ExtractorContinuousTagConjunction(3),
+    // more tags than parts, so the value is given as one part
+    new ExtractorFrames.ExtractorContinuousTagConjunction(-(Extractor.MAX_PARTS + 1)),
+    new ExtractorFrames.ExtractorContinuousTagConjunction(Extractor.MAX_PARTS + 1),
+  };
+
+  public void testPartsJoinToValue() {
+    PairsHolder pairs = new PairsHolder();
+    for (int i = 0; i < WORDS.length; i++) {
+      pairs.add(new WordTag(WORDS[i], TAGS[i]));
+    }
+    String[] parts = new String[Extractor.MAX_PARTS];
+    for (Extractor extractor : EXTRACTORS) {
+      for (int current = 0; current < WORDS.length; current++) {
+        History h = new History(0, WORDS.length - 1, current, pairs, null);
+        int numParts = extractor.extract(h, pairs, parts);
+        assertTrue(numParts >= 1 && numParts <= Extractor.MAX_PARTS);
+        String value = extractor.extract(h, pairs);
+        if (value == null) {
+          // a tag not set yet, which has no features
+          assertEquals(1, numParts);
+          assertNull(parts[0]);
+          continue;
+        }
+        StringBuilder joined = new StringBuilder(parts[0]);
+        for (int i = 1; i < numParts; i++) {
+          joined.append('!').append(parts[i]);
+        }
+        assertEquals(extractor + " at " + current, value, joined.toString());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,96 @@
+package edu.stanford.nlp.tagger.maxent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.util.Generics;
+
+/**
+ * Checks that looking up feature weights by the parts of a value gives the
+ * same scores as looking up the joined value in fAssociations.
+ */
+public class FeatureWeightsTest extends TestCase {
+
+  private static String join(String[] parts, int numParts) {
+    StringBuilder sb = new StringBuilder(parts[0]);
+    for (int i = 1; i < numParts; i++) {
+      sb.append('!').append(parts[i]);
+    }
+    return sb.toString();
+  }
+
+  public void testJoinedHashCode() {
+    char[] longPart = new char[300];
+    Arrays.fill(longPart, 'x');
+    String[][] values = {
+        {"NN"}, {"NN", "DT"}, {"", ""}, {"the", "!", "cat"}, {"VBZ", new String(longPart)}, {"a", "", "b"},
+    };
+    for (String[] parts : values) {
+      String joined = join(parts, parts.length);
+      assertEquals(joined.hashCode(), FeatureWeights.joinedHashCode(parts, parts.length));
+      assertTrue(FeatureWeights.matches(joined, parts, parts.length));
+      assertFalse(FeatureWeights.matches(joined + "!", parts, parts.length));
+      assertFalse(FeatureWeights.matches(joined.substring(1), parts, parts.length));
+    }
+    assertFalse(FeatureWeights.matches("NN!DT", new String[] {"NN!", "DT"}, 2));
+    assertFalse(FeatureWeights.matches("NN!DT", new String[] {"NN", "DT"}, 1));
+  }
+
+  public void testScores() {
+    Random random = new Random(17);
+    String[] words = {"the", "cat", "sat", "on", "mat", "NN", "DT", "VBZ", "!"};
+    int ySize = 5;
+    double[] lambda = new double[200];
+    for (int i = 0; i < lambda.length; i++) {
+      lambda[i] = (i % 7 == 0) ? 0.0 : random.nextGaussian();
+    }
+    List<Map<String, int[]>> fAssociations = new ArrayList<Map<String, int[]>>();
+    for (int kf = 0; kf < 3; kf++) {
+      Map<String, int[]> associations = Generics.newHashMap();
+      for (int i = 0; i < 30; i++) {
+        String[] parts = {words[random.nextInt(words.length)], words[random.nextInt(words.length)]};
+        int[] fNums = new int[ySize];
+        for (int y = 0; y < ySize; y++) {
+          fNums[y] = random.nextBoolean() ? -1 : random.nextInt(lambda.length);
+        }
+        associations.put(join(parts, 1 + kf % 2), fNums);
+      }
+      fAssociations.add(associations);
+    }
+
+    FeatureWeights weights = new FeatureWeights(fAssociations, lambda, ySize);
+    String[] parts = new String[Extractor.MAX_PARTS];
+    int[] positions = {-1, 0, -1, 1, 2};
+    for (int trial = 0; trial < 200; trial++) {
+      double[] expected = new double[ySize], actual = new double[ySize];
+      double[] expectedSome = new double[3], actualSome = new double[3];
+      for (int kf = 0; kf < fAssociations.size(); kf++) {
+        int numParts = 1 + kf % 2;
+        for (int i = 0; i < numParts; i++) {
+          parts[i] = words[random.nextInt(words.length)];
+        }
+        int[] fNums = fAssociations.get(kf).get(join(parts, numParts));
+        if (fNums != null) {
+          for (int y = 0; y < ySize; y++) {
+            if (fNums[y] > -1) {
+              expected[y] += lambda[fNums[y]];
+              if (positions[y] >= 0) {
+                expectedSome[positions[y]] += lambda[fNums[y]];
+              }
+            }
+          }
+        }
+        weights.addScores(kf, parts, numParts, actual);
+        weights.addScores(kf, parts, numParts, positions, actualSome);
+      }
+      assertTrue(Arrays.equals(expected, actual));
+      assertTrue(Arrays.equals(expectedSome, actualSome));
+    }
+  }
+
+}
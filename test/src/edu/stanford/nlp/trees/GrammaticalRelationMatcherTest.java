@@ -0,0 +1,104 @@
+package edu.stanford.nlp.trees;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.trees.international.pennchinese.ChineseGrammaticalRelations;
+import edu.stanford.nlp.trees.international.pennchinese.ChineseGrammaticalStructure;
+import edu.stanford.nlp.trees.international.pennchinese.ChineseSemanticHeadFinder;
+import edu.stanford.nlp.trees.international.pennchinese.ChineseTreebankLanguagePack;
+import edu.stanford.nlp.util.Pair;
+
+/**
+ * Checks that {@link GrammaticalRelationMatcher} finds the same related
+ * nodes, at every node of a sample of trees, as going through the
+ * relations one at a time with {@link GrammaticalRelation#getRelatedNodes}.
+ */
+public class GrammaticalRelationMatcherTest extends TestCase {
+
+  private static final String[] ENGLISH_TREES = {
+    "(ROOT (S (NP (NNP John) (NNP Smith)) (VP (VBD visited) (NP (NNP Paris)) (PP (IN in) (NP (NNP May)))) (. .)))",
+    "(ROOT (S (NP (DT The) (NN company)) (VP (VBD reported) (NP (NP (DT a) (JJ strong) (NN increase)) (PP (IN in) (NP (JJ quarterly) (NNS profits))))) (. .)))",
+    "(ROOT (S (NP (PRP I)) (VP (VBD saw) (NP (NP (DT the) (NN book)) (SBAR (WHNP (WDT which)) (S (NP (PRP you)) (VP (VBD bought)))))) (. .)))",
+    "(ROOT (S (NP (NNP Bill)) (VP (VBZ is) (ADJP (JJ big) (CC and) (JJ honest))) (. .)))",
+    "(ROOT (S (NP (DT The) (NN man)) (VP (VBD was) (VP (VBN killed) (PP (IN by) (NP (DT the) (NN police))))) (. .)))",
+    "(ROOT (SBARQ (WHNP (WP What)) (SQ (VBZ is) (NP (DT the) (NN capital) (PP (IN of) (NP (NNP France))))) (. ?)))",
+    "(ROOT (S (NP (PRP He)) (VP (VBD said) (SBAR (IN that) (S (NP (PRP you)) (VP (MD should) (VP (VB go) (ADVP (RB home))))))) (. .)))",
+    "(ROOT (S (NP (NP (QP (IN About) (CD 200)) (NNS people)) (, ,) (NP (NNS students) (CC and) (NNS teachers)) (, ,)) (VP (VBD came) (S (VP (TO to) (VP (VB protest))))) (. .)))",
+    "(ROOT (S (S (NP (PRP She)) (VP (VBD sang))) (CC but) (S (NP (PRP he)) (VP (VBD did) (RB n't))) (. .)))",
+    "(ROOT (S (NP-SBJ (NNP Sam)) (VP (VBD died) (NP-TMP (NN today))) (. .)))",
+    "(ROOT (S (NP (EX There)) (VP (VBP are) (NP (NP (CD 3) (NNS dogs)) (PP (IN in) (NP (PRP$ my) (NN house))))) (. .)))",
+    "(ROOT (S (NP (DT The) (NNS results)) (VP (VBD were) (ADJP (RB not) (JJ clear)) (, ,) (S (VP (VBG leaving) (NP (NNS doctors)) (ADJP (JJ unsure))))) (. .)))",
+    "(ROOT (FRAG (NP (NP (NNP Bush) (POS 's)) (NN dog)) (: :) (NP (DT a) (JJ brown) (NN terrier)) (. .)))",
+  };
+
+  private static final String[] CHINESE_TREES = {
+    "(ROOT (IP (NP (NR 中国)) (VP (ADVP (AD 已经)) (VP (VV 成为) (NP (NN 世界) (NN 大国)))) (PU 。)))",
+    "(ROOT (IP (NP (PN 我)) (VP (VV 喜欢) (NP (CP (IP (VP (VA 红))) (DEC 的)) (NP (NN 苹果)))) (PU 。)))",
+  };
+
+  /** The related nodes as the relations find them one at a time */
+  private static List<Pair<GrammaticalRelation, Collection<TreeGraphNode>>> relatedNodes(TreeGraphNode t, TreeGraphNode root, Collection<GrammaticalRelation> relations, HeadFinder hf) {
+    List<Pair<GrammaticalRelation, Collection<TreeGraphNode>>> related = new ArrayList<>();
+    for (GrammaticalRelation relation : relations) {
+      if (relation.isApplicable(t)) {
+        Collection<TreeGraphNode> nodes = relation.getRelatedNodes(t, root, hf);
+        if ( ! nodes.isEmpty()) {
+          related.add(new Pair<>(relation, nodes));
+        }
+      }
+    }
+    return related;
+  }
+
+  private static void assertSameRelatedNodes(GrammaticalStructure gs, Collection<GrammaticalRelation> relations, HeadFinder hf) {
+    TreeGraphNode root = gs.root();
+    GrammaticalRelationMatcher.TreeMatcher matcher = GrammaticalRelationMatcher.forRelations(relations).matcher(root, hf);
+    int numRelated = 0;
+    for (Tree node : root) {
+      TreeGraphNode t = (TreeGraphNode) node;
+      List<Pair<GrammaticalRelation, Collection<TreeGraphNode>>> expected = relatedNodes(t, root, relations, hf);
+      List<Pair<GrammaticalRelation, Set<TreeGraphNode>>> actual = matcher.relatedNodes(t);
+      assertEquals("Related nodes of " + t + " in " + root, expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertSame(expected.get(i).first(), actual.get(i).first());
+        assertEquals(new ArrayList<>(expected.get(i).second()), new ArrayList<>(actual.get(i).second()));
+      }
+      numRelated += expected.size();
+    }
+    assertTrue(numRelated > 0);
+  }
+
+  public void testEnglish() {
+    HeadFinder hf = new SemanticHeadFinder(true);
+    for (String tree : ENGLISH_TREES) {
+      GrammaticalStructure gs = new EnglishGrammaticalStructure(Tree.valueOf(tree), new PennTreebankLanguagePack().punctuationWordRejectFilter(), hf);
+      assertSameRelatedNodes(gs, EnglishGrammaticalRelations.values(), hf);
+    }
+  }
+
+  public void testChinese() {
+    HeadFinder hf = new ChineseSemanticHeadFinder();
+    for (String tree : CHINESE_TREES) {
+      GrammaticalStructure gs = new ChineseGrammaticalStructure(Tree.valueOf(tree), new ChineseTreebankLanguagePack().punctuationWordRejectFilter(), hf);
+      assertSameRelatedNodes(gs, ChineseGrammaticalRelations.values(), hf);
+    }
+  }
+
+  /** Changing the relations must not leave an out of date matcher in use */
+  public void testChangedRelations() {
+    List<GrammaticalRelation> relations = new ArrayList<>(EnglishGrammaticalRelations.values());
+    GrammaticalRelationMatcher matcher = GrammaticalRelationMatcher.forRelations(relations);
+    assertSame(matcher, GrammaticalRelationMatcher.forRelations(relations));
+    // a collapsed relation has no patterns, so changes nothing
+    relations.add(EnglishGrammaticalRelations.getPrep("through"));
+    assertSame(matcher, GrammaticalRelationMatcher.forRelations(relations));
+    relations.remove(EnglishGrammaticalRelations.NOMINAL_SUBJECT);
+    assertNotSame(matcher, GrammaticalRelationMatcher.forRelations(relations));
+  }
+
+}
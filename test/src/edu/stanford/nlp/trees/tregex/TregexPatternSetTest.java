@@ -0,0 +1,131 @@
+package edu.stanford.nlp.trees.tregex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.tregex.tsurgeon.Tsurgeon;
+import edu.stanford.nlp.trees.tregex.tsurgeon.TsurgeonPattern;
+import edu.stanford.nlp.util.Pair;
+
+public class TregexPatternSetTest extends TestCase {
+
+  private static final String[] PATTERNS = {
+    "NP",
+    "NP < NN",
+    "NP=np < (PP < (IN=prep < in))",
+    "NP < /^NN/",
+    "/^N/ < DT",
+    "VP << (NP !< PP)",
+    "S < (NP $+ VP)",
+    "NP|NNP > S",
+    "NP | VP < VBD",
+    "(NP < DT) | (PP < IN)",
+    "!NP < NN",
+    "NP ?< JJ=adj",
+    "NP !<< PP",
+    "NP [< NN | < NNS]",
+    "NP < (NN=a $- (DT=b))",
+    "@NP < NN",
+    "S < (NP < DT=a) < (VP << ~a)",
+    "FRAG",
+    "NP < (NN < cat)",
+    "VP < (VBD=verb < /ed$/) < NP",
+  };
+
+  private static final String[] TREES = {
+    "(ROOT (S (NP (DT The) (NN cat)) (VP (VBD sat) (PP (IN on) (NP (DT the) (NN mat)))) (. .)))",
+    "(ROOT (S (NP (NNP John)) (VP (VBD liked) (NP (NP (DT the) (JJ old) (NN house)) (PP (IN in) (NP (NNP Paris))))) (. .)))",
+    "(ROOT (S (NP (PRP They)) (VP (VBD walked) (NP (NNS dogs))) (. .)))",
+    "(ROOT (FRAG (NP (DT A) (NN cat)) (. .)))",
+    "(ROOT (NP (NP-SBJ (DT the) (NN dog)) (PP (IN in) (NP (DT the) (NN house)))))",
+  };
+
+  private static List<String> matches(TregexMatcher matcher) {
+    List<String> matches = new ArrayList<>();
+    while (matcher.find()) {
+      StringBuilder match = new StringBuilder(matcher.getMatch().toString());
+      for (String name : new java.util.TreeSet<>(matcher.getNodeNames())) {
+        match.append(' ').append(name).append('=').append(matcher.getNode(name));
+      }
+      matches.add(match.toString());
+    }
+    return matches;
+  }
+
+  private static TregexPatternSet patternSet() {
+    List<TregexPattern> patterns = new ArrayList<>();
+    for (String pattern : PATTERNS) {
+      patterns.add(TregexPattern.compile(pattern));
+    }
+    return new TregexPatternSet(patterns);
+  }
+
+  public void testSameMatches() {
+    TregexPatternSet patterns = patternSet();
+    for (String treeString : TREES) {
+      Tree tree = Tree.valueOf(treeString);
+      TregexPatternSet.TreeIndex index = patterns.index(tree);
+      for (int i = 0; i < patterns.size(); i++) {
+        List<String> expected = matches(patterns.patterns().get(i).matcher(tree));
+        assertEquals(PATTERNS[i] + " on " + treeString, expected, matches(patterns.matcher(i, index)));
+        if ( ! expected.isEmpty()) {
+          assertTrue(patterns.mightMatch(i, index));
+        }
+      }
+    }
+  }
+
+  public void testSkipsPatterns() {
+    TregexPatternSet patterns = patternSet();
+    TregexPatternSet.TreeIndex index = patterns.index(Tree.valueOf(TREES[2]));
+    assertFalse(patterns.mightMatch(Arrays.asList(PATTERNS).indexOf("NP=np < (PP < (IN=prep < in))"), index));
+    assertFalse(patterns.mightMatch(Arrays.asList(PATTERNS).indexOf("FRAG"), index));
+    assertFalse(patterns.mightMatch(Arrays.asList(PATTERNS).indexOf("(NP < DT) | (PP < IN)"), index));
+    // only literal labels rule patterns out
+    assertFalse(patterns.mightMatch(Arrays.asList(PATTERNS).indexOf("!NP < NN"), index));
+    assertTrue(patterns.mightMatch(Arrays.asList(PATTERNS).indexOf("NP < /^NN/"), index));
+    assertTrue(patterns.mightMatch(Arrays.asList(PATTERNS).indexOf("NP ?< JJ=adj"), index));
+  }
+
+  public void testMatchingPatterns() {
+    TregexPatternSet patterns = patternSet();
+    List<Tree> trees = new ArrayList<>();
+    List<List<Integer>> expected = new ArrayList<>();
+    for (String treeString : TREES) {
+      Tree tree = Tree.valueOf(treeString);
+      trees.add(tree);
+      List<Integer> matching = new ArrayList<>();
+      for (int i = 0; i < patterns.size(); i++) {
+        if (patterns.patterns().get(i).matcher(tree).find()) {
+          matching.add(i);
+        }
+      }
+      expected.add(matching);
+      assertEquals(matching, patterns.matchingPatterns(tree));
+    }
+    assertEquals(expected, patterns.matchingPatterns(trees, 2));
+  }
+
+  public void testTsurgeon() {
+    List<Pair<TregexPattern, TsurgeonPattern>> ops = new ArrayList<>();
+    ops.add(new Pair<>(TregexPattern.compile("NP-SBJ=np"), Tsurgeon.parseOperation("relabel np NP")));
+    ops.add(new Pair<>(TregexPattern.compile("PP=pp < IN=in"), Tsurgeon.parseOperation("excise pp in")));
+    ops.add(new Pair<>(TregexPattern.compile("JJ=adj"), Tsurgeon.parseOperation("prune adj")));
+    ops.add(new Pair<>(TregexPattern.compile("FRAG=frag"), Tsurgeon.parseOperation("relabel frag S")));
+    ops.add(new Pair<>(TregexPattern.compile("/^NN/=n < cat=w"), Tsurgeon.parseOperation("relabel w kitten")));
+
+    List<Tree> expected = new ArrayList<>();
+    List<Tree> trees = new ArrayList<>();
+    for (String tree : TREES) {
+      expected.add(Tsurgeon.processPatternsOnTree(ops, Tree.valueOf(tree)));
+      trees.add(Tree.valueOf(tree));
+    }
+    assertEquals(expected, Tsurgeon.processPatternsOnTrees(ops, trees, 2));
+    assertEquals(Tree.valueOf("(ROOT (S (NP (DT A) (NN kitten)) (. .)))"), expected.get(3));
+  }
+
+}
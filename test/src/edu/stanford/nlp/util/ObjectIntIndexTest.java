@@ -0,0 +1,78 @@
+package edu.stanford.nlp.util;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Runs the HashIndex tests on an ObjectIntIndex, and checks that it agrees
+ * with a HashIndex.
+ */
+public class ObjectIntIndexTest extends HashIndexTest {
+
+  @Override
+  protected void setUp() {
+    index = new ObjectIntIndex<String>();
+    index.add("The");
+    index.add("Beast");
+    index2 = new ObjectIntIndex<String>();
+    index2.add("Beauty");
+    index2.add("And");
+    index2.add("The");
+    index2.add("Beast");
+    index3 = new ObjectIntIndex<String>();
+    index3.add("Markov");
+    index3.add("The");
+    index3.add("Beast");
+  }
+
+  public void testAgreesWithHashIndex() throws IOException {
+    Random random = new Random(42);
+    HashIndex<Integer> hashIndex = new HashIndex<Integer>();
+    ObjectIntIndex<Integer> objectIntIndex = new ObjectIntIndex<Integer>();
+    for (int i = 0; i < 10000; i++) {
+      Integer o = random.nextInt(3000);
+      if (random.nextBoolean()) {
+        assertEquals(hashIndex.addToIndex(o), objectIntIndex.addToIndex(o));
+      } else {
+        assertEquals(hashIndex.indexOf(o), objectIntIndex.indexOf(o));
+      }
+    }
+    assertEquals(hashIndex.objectsList(), objectIntIndex.objectsList());
+    assertEquals(hashIndex.toString(), objectIntIndex.toString());
+    StringWriter hashWriter = new StringWriter(), objectIntWriter = new StringWriter();
+    hashIndex.saveToWriter(hashWriter);
+    objectIntIndex.saveToWriter(objectIntWriter);
+    assertEquals(hashWriter.toString(), objectIntWriter.toString());
+  }
+
+  public void testLockAndNull() {
+    ObjectIntIndex<String> index = new ObjectIntIndex<String>();
+    assertEquals(0, index.addToIndex(null));
+    assertEquals(1, index.addToIndex("a"));
+    assertEquals(0, index.indexOf(null));
+    index.lock();
+    assertEquals(-1, index.addToIndex("b"));
+    assertFalse(index.add("b"));
+    assertEquals(2, index.size());
+    index.unlock();
+    assertEquals(2, index.addToIndex("b"));
+    index.clear();
+    assertEquals(0, index.size());
+    assertEquals(-1, index.indexOf("a"));
+  }
+
+  public void testSerialization() throws IOException, ClassNotFoundException {
+    ObjectIntIndex<String> index = new ObjectIntIndex<String>(index2);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(index);
+    out.close();
+    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    @SuppressWarnings("unchecked")
+    ObjectIntIndex<String> copy = (ObjectIntIndex<String>) in.readObject();
+    assertEquals(index, copy);
+    assertEquals(3, copy.indexOf("Beast"));
+    assertEquals(4, copy.addToIndex("Markov"));
+  }
+
+}
@@ -0,0 +1,68 @@
+package edu.stanford.nlp.util.concurrent;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class ConcurrentInternerTest extends TestCase {
+
+  public void testIntern() {
+    ConcurrentInterner<String> interner = new ConcurrentInterner<String>();
+    String first = new String("kitten");
+    String second = new String("kitten");
+    assertSame(first, interner.intern(first));
+    assertSame(first, interner.intern(second));
+    assertSame(first, interner.intern(first));
+    assertEquals(1, interner.size());
+    assertNull(interner.intern(null));
+
+    interner.clear();
+    assertEquals(0, interner.size());
+    assertSame(second, interner.intern(second));
+  }
+
+  /** Every thread has its own copies of the words, but they must all get the same objects back */
+  public void testThreads() throws InterruptedException {
+    final ConcurrentInterner<String> interner = new ConcurrentInterner<String>(4);
+    final int numWords = 1000;
+    final AtomicReferenceArray<String> canonical = new AtomicReferenceArray<String>(numWords);
+    final List<Throwable> failures = new ArrayList<Throwable>();
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        try {
+          for (int word = 0; word < numWords; word++) {
+            String interned = interner.intern(new String("word" + word));
+            if (!canonical.compareAndSet(word, null, interned) && canonical.get(word) != interned) {
+              throw new AssertionError("Interning failed for word" + word);
+            }
+          }
+        } catch (Throwable t) {
+          synchronized (failures) {
+            failures.add(t);
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(Collections.emptyList(), failures);
+    assertEquals(numWords, interner.size());
+  }
+
+  public void testSynchronizedDelegate() {
+    SynchronizedInterner<String> interner = new SynchronizedInterner<String>(new ConcurrentInterner<String>());
+    String first = new String("salamander");
+    assertSame(first, interner.intern(first));
+    assertSame(first, interner.intern(new String("salamander")));
+    assertEquals(1, interner.size());
+  }
+
+}